@@ -0,0 +1,235 @@
+/*
+ * Copyright (c) 2026 Julian Zander <zanderjulian@gmx.de>
+ *                    Jonas Schaub <jonas.schaub@uni-jena.de>
+ *                    Achim Zielesny <achim.zielesny@w-hs.de>
+ *                    Christoph Steinbeck <christoph.steinbeck@uni-jena.de>
+ *
+ * Contact: cdk-devel@lists.sourceforge.net
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+
+package org.openscience.cdk.tools.scaffold;
+
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.RandomAccess;
+
+/**
+ * List without duplicates that finds, adds and removes its elements in constant time.
+ * The elements are stored in an array list together with a hash map from each element to its position.
+ * Used for the children and the origins of scaffold nodes, which can become very long for common scaffolds.
+ * Nodes do not override equals(), so children are compared by identity. <p>
+ *
+ * An element that is already in the list is not added again, so add(E) returns false for it.
+ * An element is removed by moving the last element to its position, so removal does not keep the order of the remaining elements.
+ *
+ * @param <E> Type of the elements
+ * @author Julian Zander (zanderjulian@gmx.de)
+ * @author Jonas Schaub (jonas.schaub@uni-jena.de)
+ * @version 1.0.0.0
+ */
+public class IndexedSetList<E> extends AbstractList<E> implements RandomAccess {
+    /**
+     * Elements in the order of their positions
+     */
+    private final ArrayList<E> elementList;
+
+    /**
+     * Position of each element
+     */
+    private final HashMap<E, Integer> indexMap;
+
+    /**
+     * Constructor
+     */
+    public IndexedSetList() {
+        this.elementList = new ArrayList<>();
+        this.indexMap = new HashMap<>();
+    }
+
+    /**
+     * Constructor
+     * @param aCollection Initial elements, duplicates are dropped
+     * @throws NullPointerException if parameter is null
+     */
+    public IndexedSetList(Collection<? extends E> aCollection) throws NullPointerException {
+        this.elementList = new ArrayList<>(aCollection.size());
+        this.indexMap = new HashMap<>((int) (aCollection.size() / 0.75f) + 1);
+        for(E tmpElement : aCollection) {
+            this.add(tmpElement);
+        }
+    }
+
+    /**
+     * Returns the element at a position.
+     * @param anIndex Position
+     * @return element
+     * @throws IndexOutOfBoundsException if the position is not in the list
+     */
+    @Override
+    public E get(int anIndex) throws IndexOutOfBoundsException {
+        return this.elementList.get(anIndex);
+    }
+
+    /**
+     * Returns the number of elements.
+     * @return number of elements
+     */
+    @Override
+    public int size() {
+        return this.elementList.size();
+    }
+
+    /**
+     * Checks whether the element is in the list by a lookup in the hash map.
+     * @param anObject Element to look for
+     * @return true if the element is in the list
+     */
+    @Override
+    public boolean contains(Object anObject) {
+        return this.indexMap.containsKey(anObject);
+    }
+
+    /**
+     * Returns the position of the element by a lookup in the hash map.
+     * @param anObject Element to look for
+     * @return position or -1 if the element is not in the list
+     */
+    @Override
+    public int indexOf(Object anObject) {
+        Integer tmpIndex = this.indexMap.get(anObject);
+        return tmpIndex == null ? -1 : tmpIndex;
+    }
+
+    /**
+     * Returns the position of the element, which is unique.
+     * @param anObject Element to look for
+     * @return position or -1 if the element is not in the list
+     */
+    @Override
+    public int lastIndexOf(Object anObject) {
+        return this.indexOf(anObject);
+    }
+
+    /**
+     * Appends the element if it is not in the list yet.
+     * @param anElement Element to add
+     * @return true if the element was added
+     */
+    @Override
+    public boolean add(E anElement) {
+        if(this.indexMap.containsKey(anElement)) {
+            return false;
+        }
+        this.indexMap.put(anElement, this.elementList.size());
+        this.elementList.add(anElement);
+        this.modCount++;
+        return true;
+    }
+
+    /**
+     * Inserts the element at a position if it is not in the list yet. The positions of the following elements are updated,
+     * so inserting anywhere else than at the end takes time proportional to the number of following elements.
+     * @param anIndex Position
+     * @param anElement Element to insert
+     * @throws IndexOutOfBoundsException if the position is not in the list or at its end
+     */
+    @Override
+    public void add(int anIndex, E anElement) throws IndexOutOfBoundsException {
+        if(anIndex == this.elementList.size()) {
+            this.add(anElement);
+            return;
+        }
+        if(this.indexMap.containsKey(anElement)) {
+            return;
+        }
+        this.elementList.add(anIndex, anElement);
+        for(int tmpIndex = anIndex; tmpIndex < this.elementList.size(); tmpIndex++) {
+            this.indexMap.put(this.elementList.get(tmpIndex), tmpIndex);
+        }
+        this.modCount++;
+    }
+
+    /**
+     * Replaces the element at a position.
+     * @param anIndex Position
+     * @param anElement New element
+     * @return replaced element
+     * @throws IndexOutOfBoundsException if the position is not in the list
+     * @throws IllegalArgumentException if the new element is already at another position
+     */
+    @Override
+    public E set(int anIndex, E anElement) throws IndexOutOfBoundsException, IllegalArgumentException {
+        E tmpOldElement = this.elementList.get(anIndex);
+        Integer tmpIndex = this.indexMap.get(anElement);
+        if(tmpIndex != null) {
+            if(tmpIndex != anIndex) {
+                throw new IllegalArgumentException("Element is already in the list at position " + tmpIndex);
+            }
+            return tmpOldElement;
+        }
+        this.indexMap.remove(tmpOldElement);
+        this.indexMap.put(anElement, anIndex);
+        this.elementList.set(anIndex, anElement);
+        return tmpOldElement;
+    }
+
+    /**
+     * Removes the element at a position by moving the last element to it.
+     * @param anIndex Position
+     * @return removed element
+     * @throws IndexOutOfBoundsException if the position is not in the list
+     */
+    @Override
+    public E remove(int anIndex) throws IndexOutOfBoundsException {
+        E tmpRemovedElement = this.elementList.get(anIndex);
+        E tmpLastElement = this.elementList.remove(this.elementList.size() - 1);
+        this.indexMap.remove(tmpRemovedElement);
+        if(anIndex < this.elementList.size()) {
+            this.elementList.set(anIndex, tmpLastElement);
+            this.indexMap.put(tmpLastElement, anIndex);
+        }
+        this.modCount++;
+        return tmpRemovedElement;
+    }
+
+    /**
+     * Removes the element by moving the last element to its position.
+     * @param anObject Element to remove
+     * @return true if the element was in the list
+     */
+    @Override
+    public boolean remove(Object anObject) {
+        Integer tmpIndex = this.indexMap.get(anObject);
+        if(tmpIndex == null) {
+            return false;
+        }
+        this.remove(tmpIndex.intValue());
+        return true;
+    }
+
+    /**
+     * Removes all elements.
+     */
+    @Override
+    public void clear() {
+        this.elementList.clear();
+        this.indexMap.clear();
+        this.modCount++;
+    }
+}
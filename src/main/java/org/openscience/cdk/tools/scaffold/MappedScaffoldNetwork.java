@@ -0,0 +1,1321 @@
+/*
+ * Copyright (c) 2026 Julian Zander <zanderjulian@gmx.de>
+ *                    Jonas Schaub <jonas.schaub@uni-jena.de>
+ *                    Achim Zielesny <achim.zielesny@w-hs.de>
+ *                    Christoph Steinbeck <christoph.steinbeck@uni-jena.de>
+ *
+ * Contact: cdk-devel@lists.sourceforge.net
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+
+package org.openscience.cdk.tools.scaffold;
+
+import org.openscience.cdk.exception.CDKException;
+import org.openscience.cdk.exception.InvalidSmilesException;
+import org.openscience.cdk.interfaces.IAtomContainer;
+import org.openscience.cdk.interfaces.IChemObjectBuilder;
+import org.openscience.cdk.smiles.SmilesGenerator;
+import org.openscience.cdk.smiles.SmilesParser;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.PriorityQueue;
+import java.util.stream.IntStream;
+
+/**
+ * Read-only view of a {@link ScaffoldNetwork} that is backed by a memory-mapped file.
+ * Opening the file only maps it, the nodes are read from the mapped pages on request.
+ * Several processes that open the same file therefore share the page cache instead of holding
+ * their own copy of the network in the heap. <p>
+ *
+ * The file is written by {@link MappedScaffoldNetwork#write(ScaffoldNetwork, Path)} and contains a table of the
+ * node SMILES sorted by their UTF-8 bytes, the level of each node, the parents and children of each node
+ * in compressed sparse row form, the nodes of each level, the origin postings of each node and a table of the
+ * origin SMILES that is sorted the same way. A node is identified by its position in the sorted SMILES table,
+ * an origin by its position in the sorted origin table. The file is mapped in chunks of at most 1 GiB and
+ * all positions in the file are long values, so the file size is not limited by the 2 GiB of a single mapped buffer.
+ * The numbers of nodes, edges and postings are limited to {@link Integer#MAX_VALUE} each. <p>
+ *
+ * The view is immutable and can be queried by several threads at once.
+ *
+ * @author Julian Zander (zanderjulian@gmx.de)
+ * @author Jonas Schaub (jonas.schaub@uni-jena.de)
+ * @version 1.0.0.0
+ */
+public class MappedScaffoldNetwork {
+    /**
+     * First four bytes ("SCNM") of a mapped network file.
+     */
+    public static final int MAGIC_NUMBER = 0x53434E4D;
+
+    /**
+     * Version of the mapped network file format.
+     */
+    public static final int VERSION = 4;
+
+    /**
+     * Number of int values in the header of the file.
+     */
+    protected static final int HEADER_INT_COUNT = 9;
+
+    /**
+     * Number of bytes mapped by each chunk of the file, apart from the overlap with the next chunk
+     */
+    protected static final int DEFAULT_CHUNK_SIZE = 1 << 30;
+
+    /**
+     * Number of bytes each chunk overlaps with the next one, so that a value of up to eight bytes
+     * can always be read from a single chunk
+     */
+    private static final int CHUNK_OVERLAP = Long.BYTES;
+
+    /**
+     * Mapped file content
+     */
+    private final MappedFile file;
+
+    /**
+     * Used to create the SMILES of molecules that are looked up
+     */
+    private final SmilesGenerator smilesGenerator;
+
+    /**
+     * Number of nodes
+     */
+    private final int nodeCount;
+
+    /**
+     * Number of different origins
+     */
+    private final int originCount;
+
+    /**
+     * Highest level of a node, -1 if the network is empty
+     */
+    private final int maxLevel;
+
+    /*Byte positions of the sections of the file*/
+    private final long keyOffsetsPosition;
+    private final long levelsPosition;
+    private final long parentOffsetsPosition;
+    private final long parentIdsPosition;
+    private final long childOffsetsPosition;
+    private final long childIdsPosition;
+    private final long levelOffsetsPosition;
+    private final long levelNodesPosition;
+    private final long originPostingOffsetsPosition;
+    private final long originPostingsPosition;
+    private final long nonVirtualPostingOffsetsPosition;
+    private final long nonVirtualPostingsPosition;
+    private final long truncatedOriginsPosition;
+    private final int truncatedOriginCount;
+    private final long originOffsetsPosition;
+    private final long keyDataPosition;
+    private final long originDataPosition;
+
+    /**
+     * Constructor
+     * @param aFile Content of a mapped network file
+     * @param aSmilesGenerator Used to create the SMILES of molecules that are looked up
+     * @throws IOException if the content is not a mapped network file in a supported version
+     */
+    protected MappedScaffoldNetwork(MappedFile aFile, SmilesGenerator aSmilesGenerator) throws IOException {
+        this.file = aFile;
+        this.smilesGenerator = aSmilesGenerator;
+        long tmpSize = aFile.getSize();
+        if(tmpSize < MappedScaffoldNetwork.HEADER_INT_COUNT * Integer.BYTES
+                || this.getIntAt(0) != MappedScaffoldNetwork.MAGIC_NUMBER) {
+            throw new IOException("File does not contain a mapped scaffold network");
+        }
+        if(this.getIntAt(4) != MappedScaffoldNetwork.VERSION) {
+            throw new IOException("Unsupported mapped network version: " + this.getIntAt(4));
+        }
+        this.nodeCount = this.getIntAt(8);
+        int tmpEdgeCount = this.getIntAt(12);
+        this.originCount = this.getIntAt(16);
+        int tmpOriginPostingCount = this.getIntAt(20);
+        int tmpNonVirtualPostingCount = this.getIntAt(24);
+        this.truncatedOriginCount = this.getIntAt(28);
+        this.maxLevel = this.getIntAt(32);
+        /*The sections follow each other in the order they are written*/
+        long tmpPosition = MappedScaffoldNetwork.HEADER_INT_COUNT * Integer.BYTES;
+        this.keyOffsetsPosition = tmpPosition;
+        tmpPosition += (this.nodeCount + 1L) * Long.BYTES;
+        this.levelsPosition = tmpPosition;
+        tmpPosition += (long) this.nodeCount * Integer.BYTES;
+        this.parentOffsetsPosition = tmpPosition;
+        tmpPosition += (this.nodeCount + 1L) * Integer.BYTES;
+        this.parentIdsPosition = tmpPosition;
+        tmpPosition += (long) tmpEdgeCount * Integer.BYTES;
+        this.childOffsetsPosition = tmpPosition;
+        tmpPosition += (this.nodeCount + 1L) * Integer.BYTES;
+        this.childIdsPosition = tmpPosition;
+        tmpPosition += (long) tmpEdgeCount * Integer.BYTES;
+        this.levelOffsetsPosition = tmpPosition;
+        tmpPosition += (this.maxLevel + 2L) * Integer.BYTES;
+        this.levelNodesPosition = tmpPosition;
+        tmpPosition += (long) this.nodeCount * Integer.BYTES;
+        this.originPostingOffsetsPosition = tmpPosition;
+        tmpPosition += (this.nodeCount + 1L) * Integer.BYTES;
+        this.originPostingsPosition = tmpPosition;
+        tmpPosition += (long) tmpOriginPostingCount * Integer.BYTES;
+        this.nonVirtualPostingOffsetsPosition = tmpPosition;
+        tmpPosition += (this.nodeCount + 1L) * Integer.BYTES;
+        this.nonVirtualPostingsPosition = tmpPosition;
+        tmpPosition += (long) tmpNonVirtualPostingCount * Integer.BYTES;
+        this.truncatedOriginsPosition = tmpPosition;
+        tmpPosition += (long) this.truncatedOriginCount * Integer.BYTES;
+        this.originOffsetsPosition = tmpPosition;
+        tmpPosition += (this.originCount + 1L) * Long.BYTES;
+        if(tmpPosition > tmpSize) {
+            throw new IOException("Mapped network file is truncated");
+        }
+        this.keyDataPosition = tmpPosition;
+        tmpPosition += this.getLongAt(this.keyOffsetsPosition + (long) this.nodeCount * Long.BYTES);
+        this.originDataPosition = tmpPosition;
+        tmpPosition += this.getLongAt(this.originOffsetsPosition + (long) this.originCount * Long.BYTES);
+        if(tmpPosition != tmpSize) {
+            throw new IOException("Mapped network file has an unexpected size");
+        }
+    }
+
+    /**
+     * Writes a network to a file that can be opened by {@link MappedScaffoldNetwork#open(Path, SmilesGenerator)}.
+     * An existing file is overwritten.
+     * @param aScaffoldNetwork Network to write
+     * @param aPath Path of the file
+     * @throws IOException if the file cannot be written or the network has more than {@link Integer#MAX_VALUE} edges or postings
+     * @throws NullPointerException if a parameter is null
+     */
+    public static void write(ScaffoldNetwork aScaffoldNetwork, Path aPath) throws IOException, NullPointerException {
+        Objects.requireNonNull(aScaffoldNetwork, "Given network is 'null'");
+        Objects.requireNonNull(aPath, "Given path is 'null'");
+        /*Sort the nodes by the UTF-8 bytes of their SMILES, the position is the id of the node*/
+        List<Map.Entry<String, ScaffoldNodeBase>> tmpEntryList = new ArrayList<>(aScaffoldNetwork.smilesMap.entrySet());
+        int tmpNodeCount = tmpEntryList.size();
+        byte[][] tmpUnsortedKeys = new byte[tmpNodeCount][];
+        Integer[] tmpOrder = new Integer[tmpNodeCount];
+        for(int tmpIndex = 0; tmpIndex < tmpNodeCount; tmpIndex++) {
+            tmpUnsortedKeys[tmpIndex] = tmpEntryList.get(tmpIndex).getKey().getBytes(StandardCharsets.UTF_8);
+            tmpOrder[tmpIndex] = tmpIndex;
+        }
+        Arrays.sort(tmpOrder, Comparator.comparing((Integer tmpIndex) -> tmpUnsortedKeys[tmpIndex], MappedScaffoldNetwork::compareKeys));
+        HashMap<ScaffoldNodeBase, Integer> tmpIdMap = new HashMap<>(tmpNodeCount * 2);
+        for(int tmpId = 0; tmpId < tmpNodeCount; tmpId++) {
+            tmpIdMap.put(tmpEntryList.get(tmpOrder[tmpId]).getValue(), tmpId);
+        }
+        /*The origins are sorted like the SMILES, so that the origin tables of several files can be merged in one pass*/
+        HashSet<String> tmpOriginSet = new HashSet<>(aScaffoldNetwork.getTruncatedOriginSmilesList());
+        for(Map.Entry<String, ScaffoldNodeBase> tmpEntry : tmpEntryList) {
+            for(Object tmpOrigin : tmpEntry.getValue().getOriginSmilesList()) {
+                tmpOriginSet.add((String) tmpOrigin);
+            }
+            for(Object tmpOrigin : tmpEntry.getValue().getNonVirtualOriginSmilesList()) {
+                tmpOriginSet.add((String) tmpOrigin);
+            }
+        }
+        byte[][] tmpOrigins = tmpOriginSet.stream().map(tmpOrigin -> tmpOrigin.getBytes(StandardCharsets.UTF_8))
+                .sorted(MappedScaffoldNetwork::compareKeys).toArray(byte[][]::new);
+        HashMap<String, Integer> tmpOriginIdMap = new HashMap<>(tmpOrigins.length * 2);
+        for(int tmpOriginId = 0; tmpOriginId < tmpOrigins.length; tmpOriginId++) {
+            tmpOriginIdMap.put(new String(tmpOrigins[tmpOriginId], StandardCharsets.UTF_8), tmpOriginId);
+        }
+        /*Collect keys, parents, levels and origins by id*/
+        byte[][] tmpKeys = new byte[tmpNodeCount][];
+        int[][] tmpParents = new int[tmpNodeCount][];
+        int[] tmpLevels = new int[tmpNodeCount];
+        int[][] tmpOriginPostings = new int[tmpNodeCount][];
+        int[][] tmpNonVirtualPostings = new int[tmpNodeCount][];
+        for(int tmpId = 0; tmpId < tmpNodeCount; tmpId++) {
+            NetworkNode<?> tmpNode = (NetworkNode<?>) tmpEntryList.get(tmpOrder[tmpId]).getValue();
+            tmpKeys[tmpId] = tmpUnsortedKeys[tmpOrder[tmpId]];
+            tmpLevels[tmpId] = tmpNode.getLevel();
+            tmpParents[tmpId] = tmpNode.getParents().stream().map(tmpIdMap::get).filter(Objects::nonNull)
+                    .mapToInt(Integer::intValue).distinct().sorted().toArray();
+            tmpOriginPostings[tmpId] = MappedScaffoldNetwork.getOriginIds(tmpNode.getOriginSmilesList(), tmpOriginIdMap);
+            tmpNonVirtualPostings[tmpId] = MappedScaffoldNetwork.getOriginIds(tmpNode.getNonVirtualOriginSmilesList(), tmpOriginIdMap);
+        }
+        int[] tmpTruncatedOrigins = MappedScaffoldNetwork.getOriginIds(aScaffoldNetwork.getTruncatedOriginSmilesList(), tmpOriginIdMap);
+        MappedScaffoldNetwork.writeSections(aPath, tmpKeys, tmpLevels, tmpParents, tmpOriginPostings, tmpNonVirtualPostings,
+                tmpTruncatedOrigins, tmpOrigins);
+    }
+
+    /**
+     * Merges several mapped network files, e.g. the shards written by
+     * {@link ScaffoldGenerator#buildScaffoldNetworkShard(List, int, int, Path)}, into one mapped network file. <p>
+     *
+     * The sorted SMILES tables and the sorted origin tables of the files are merged in one pass each like in a k-way
+     * merge sort, so nodes with the same SMILES become one node. Its parents, children, origins and non-virtual origins
+     * are the union of those of the merged nodes. The levels are computed after the merge from the merged parents,
+     * so a node that is a root in one file and has a parent in another gets the level it has in the merged network.
+     * The result is again a mapped network file, and merging is associative and commutative, so files can be merged
+     * in any order and grouping, e.g. by several worker processes. <p>
+     *
+     * The merge streams: the input files are mapped and read one node per file at a time, and the sections of
+     * the merged file are written to temporary files in the directory of the output file before they are concatenated.
+     * Besides the current row of each file, only the truncated origins and the node count of each level are kept in the heap.
+     * The temporary files take about twice the size of the merged file and are deleted afterwards. No nodes or molecules are created.
+     * @param anInputPathList Files to merge
+     * @param anOutputPath File the merged network is written to, must not be one of the input files
+     * @throws IOException if a file cannot be read or written or the merged network has more than {@link Integer#MAX_VALUE} nodes, edges or postings
+     * @throws NullPointerException if a parameter is null
+     */
+    public static void merge(List<Path> anInputPathList, Path anOutputPath) throws IOException, NullPointerException {
+        Objects.requireNonNull(anInputPathList, "Given input path list is 'null'");
+        Objects.requireNonNull(anOutputPath, "Given output path is 'null'");
+        int tmpShardCount = anInputPathList.size();
+        MappedScaffoldNetwork[] tmpShards = new MappedScaffoldNetwork[tmpShardCount];
+        for(int tmpShard = 0; tmpShard < tmpShardCount; tmpShard++) {
+            /*The SMILES generator is only needed to look up molecules*/
+            tmpShards[tmpShard] = MappedScaffoldNetwork.open(Objects.requireNonNull(anInputPathList.get(tmpShard),
+                    "Given input path is 'null'"), new SmilesGenerator(0));
+        }
+        Path tmpDirectory = anOutputPath.toAbsolutePath().getParent();
+        List<Path> tmpTemporaryPathList = new ArrayList<>();
+        try {
+            /*First pass: merge the sorted SMILES and origin tables and write the new id of each node and origin of each file*/
+            Path tmpKeyOffsetsPath = MappedScaffoldNetwork.createTemporaryFile(tmpDirectory, tmpTemporaryPathList);
+            Path tmpKeyDataPath = MappedScaffoldNetwork.createTemporaryFile(tmpDirectory, tmpTemporaryPathList);
+            Path tmpOriginOffsetsPath = MappedScaffoldNetwork.createTemporaryFile(tmpDirectory, tmpTemporaryPathList);
+            Path tmpOriginDataPath = MappedScaffoldNetwork.createTemporaryFile(tmpDirectory, tmpTemporaryPathList);
+            Path[] tmpNodeIdPaths = new Path[tmpShardCount];
+            Path[] tmpOriginIdPaths = new Path[tmpShardCount];
+            for(int tmpShard = 0; tmpShard < tmpShardCount; tmpShard++) {
+                tmpNodeIdPaths[tmpShard] = MappedScaffoldNetwork.createTemporaryFile(tmpDirectory, tmpTemporaryPathList);
+                tmpOriginIdPaths[tmpShard] = MappedScaffoldNetwork.createTemporaryFile(tmpDirectory, tmpTemporaryPathList);
+            }
+            int tmpNodeCount = MappedScaffoldNetwork.mergeStringTables(tmpShards, false, tmpKeyOffsetsPath, tmpKeyDataPath, tmpNodeIdPaths);
+            int tmpOriginCount = MappedScaffoldNetwork.mergeStringTables(tmpShards, true, tmpOriginOffsetsPath, tmpOriginDataPath, tmpOriginIdPaths);
+            MappedFile[] tmpNodeIdMaps = new MappedFile[tmpShardCount];
+            MappedFile[] tmpOriginIdMaps = new MappedFile[tmpShardCount];
+            for(int tmpShard = 0; tmpShard < tmpShardCount; tmpShard++) {
+                tmpNodeIdMaps[tmpShard] = MappedFile.map(tmpNodeIdPaths[tmpShard], Files.size(tmpNodeIdPaths[tmpShard]), false,
+                        MappedScaffoldNetwork.DEFAULT_CHUNK_SIZE);
+                tmpOriginIdMaps[tmpShard] = MappedFile.map(tmpOriginIdPaths[tmpShard], Files.size(tmpOriginIdPaths[tmpShard]), false,
+                        MappedScaffoldNetwork.DEFAULT_CHUNK_SIZE);
+            }
+            /*Second pass: visit the merged nodes in id order and unite the rows of the nodes of all files that map to the same id*/
+            Path[] tmpRowPaths = new Path[8];
+            for(int tmpIndex = 0; tmpIndex < tmpRowPaths.length; tmpIndex++) {
+                tmpRowPaths[tmpIndex] = MappedScaffoldNetwork.createTemporaryFile(tmpDirectory, tmpTemporaryPathList);
+            }
+            RowSectionWriter tmpParentWriter = new RowSectionWriter(tmpRowPaths[0], tmpRowPaths[1]);
+            RowSectionWriter tmpChildWriter = new RowSectionWriter(tmpRowPaths[2], tmpRowPaths[3]);
+            RowSectionWriter tmpOriginPostingWriter = new RowSectionWriter(tmpRowPaths[4], tmpRowPaths[5]);
+            RowSectionWriter tmpNonVirtualPostingWriter = new RowSectionWriter(tmpRowPaths[6], tmpRowPaths[7]);
+            try {
+                int[] tmpCursors = new int[tmpShardCount];
+                int[] tmpHeadIds = new int[tmpShardCount];
+                PriorityQueue<Integer> tmpQueue = new PriorityQueue<>(Math.max(1, tmpShardCount), (aFirstShard, aSecondShard) ->
+                        Integer.compare(tmpHeadIds[aFirstShard], tmpHeadIds[aSecondShard]));
+                for(int tmpShard = 0; tmpShard < tmpShardCount; tmpShard++) {
+                    if(tmpShards[tmpShard].nodeCount > 0) {
+                        tmpHeadIds[tmpShard] = tmpNodeIdMaps[tmpShard].getInt(0);
+                        tmpQueue.add(tmpShard);
+                    }
+                }
+                for(int tmpId = 0; tmpId < tmpNodeCount; tmpId++) {
+                    int[] tmpParents = new int[0];
+                    int[] tmpChildren = new int[0];
+                    int[] tmpOriginPostings = new int[0];
+                    int[] tmpNonVirtualPostings = new int[0];
+                    /*Every merged id is the new id of the current node of at least one file*/
+                    while(!tmpQueue.isEmpty() && tmpHeadIds[tmpQueue.peek()] == tmpId) {
+                        int tmpShard = tmpQueue.poll();
+                        MappedScaffoldNetwork tmpNetwork = tmpShards[tmpShard];
+                        int tmpNode = tmpCursors[tmpShard];
+                        tmpParents = MappedScaffoldNetwork.unite(tmpParents, tmpNetwork.getParents(tmpNode), tmpNodeIdMaps[tmpShard]);
+                        tmpChildren = MappedScaffoldNetwork.unite(tmpChildren, tmpNetwork.getChildren(tmpNode), tmpNodeIdMaps[tmpShard]);
+                        tmpOriginPostings = MappedScaffoldNetwork.unite(tmpOriginPostings,
+                                tmpNetwork.readRow(tmpNetwork.originPostingOffsetsPosition, tmpNetwork.originPostingsPosition, tmpNode),
+                                tmpOriginIdMaps[tmpShard]);
+                        tmpNonVirtualPostings = MappedScaffoldNetwork.unite(tmpNonVirtualPostings,
+                                tmpNetwork.readRow(tmpNetwork.nonVirtualPostingOffsetsPosition, tmpNetwork.nonVirtualPostingsPosition, tmpNode),
+                                tmpOriginIdMaps[tmpShard]);
+                        tmpCursors[tmpShard]++;
+                        if(tmpCursors[tmpShard] < tmpNetwork.nodeCount) {
+                            tmpHeadIds[tmpShard] = tmpNodeIdMaps[tmpShard].getInt((long) tmpCursors[tmpShard] * Integer.BYTES);
+                            tmpQueue.add(tmpShard);
+                        }
+                    }
+                    tmpParentWriter.writeRow(tmpParents);
+                    tmpChildWriter.writeRow(tmpChildren);
+                    tmpOriginPostingWriter.writeRow(tmpOriginPostings);
+                    tmpNonVirtualPostingWriter.writeRow(tmpNonVirtualPostings);
+                }
+            } finally {
+                tmpParentWriter.close();
+                tmpChildWriter.close();
+                tmpOriginPostingWriter.close();
+                tmpNonVirtualPostingWriter.close();
+            }
+            if(tmpParentWriter.getValueCount() != tmpChildWriter.getValueCount()) {
+                throw new IOException("Merged parents and children do not match");
+            }
+            int[] tmpTruncatedOrigins = new int[0];
+            for(int tmpShard = 0; tmpShard < tmpShardCount; tmpShard++) {
+                MappedScaffoldNetwork tmpNetwork = tmpShards[tmpShard];
+                int[] tmpTruncated = new int[tmpNetwork.truncatedOriginCount];
+                for(int tmpIndex = 0; tmpIndex < tmpTruncated.length; tmpIndex++) {
+                    tmpTruncated[tmpIndex] = tmpNetwork.getIntAt(tmpNetwork.truncatedOriginsPosition + (long) tmpIndex * Integer.BYTES);
+                }
+                tmpTruncatedOrigins = MappedScaffoldNetwork.unite(tmpTruncatedOrigins, tmpTruncated, tmpOriginIdMaps[tmpShard]);
+            }
+            /*Third pass: compute the levels from the merged parents and group the nodes by level*/
+            Path tmpLevelsPath = MappedScaffoldNetwork.createTemporaryFile(tmpDirectory, tmpTemporaryPathList);
+            Path tmpLevelNodesPath = MappedScaffoldNetwork.createTemporaryFile(tmpDirectory, tmpTemporaryPathList);
+            MappedFile tmpParentOffsets = MappedFile.map(tmpRowPaths[0], (tmpNodeCount + 1L) * Integer.BYTES, false,
+                    MappedScaffoldNetwork.DEFAULT_CHUNK_SIZE);
+            MappedFile tmpParentIds = MappedFile.map(tmpRowPaths[1], tmpParentWriter.getValueCount() * Integer.BYTES, false,
+                    MappedScaffoldNetwork.DEFAULT_CHUNK_SIZE);
+            MappedFile tmpLevels = MappedFile.map(tmpLevelsPath, (long) tmpNodeCount * Integer.BYTES, true,
+                    MappedScaffoldNetwork.DEFAULT_CHUNK_SIZE);
+            int[] tmpLevelCounts = MappedScaffoldNetwork.computeLevels(tmpNodeCount, tmpParentOffsets, tmpParentIds, tmpLevels);
+            int tmpMaxLevel = tmpLevelCounts.length - 1;
+            int[] tmpLevelOffsets = new int[tmpLevelCounts.length + 1];
+            for(int tmpLevel = 0; tmpLevel < tmpLevelCounts.length; tmpLevel++) {
+                tmpLevelOffsets[tmpLevel + 1] = tmpLevelOffsets[tmpLevel] + tmpLevelCounts[tmpLevel];
+            }
+            MappedFile tmpLevelNodes = MappedFile.map(tmpLevelNodesPath, (long) tmpNodeCount * Integer.BYTES, true,
+                    MappedScaffoldNetwork.DEFAULT_CHUNK_SIZE);
+            int[] tmpLevelPositions = Arrays.copyOf(tmpLevelOffsets, tmpLevelCounts.length);
+            for(int tmpId = 0; tmpId < tmpNodeCount; tmpId++) {
+                int tmpLevel = tmpLevels.getInt((long) tmpId * Integer.BYTES);
+                tmpLevelNodes.putInt((long) tmpLevelPositions[tmpLevel]++ * Integer.BYTES, tmpId);
+            }
+            tmpLevels.force();
+            tmpLevelNodes.force();
+            /*Concatenate the sections in the order the constructor expects them*/
+            try(DataOutputStream tmpStream = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(anOutputPath)))) {
+                tmpStream.writeInt(MappedScaffoldNetwork.MAGIC_NUMBER);
+                tmpStream.writeInt(MappedScaffoldNetwork.VERSION);
+                tmpStream.writeInt(tmpNodeCount);
+                tmpStream.writeInt((int) tmpParentWriter.getValueCount());
+                tmpStream.writeInt(tmpOriginCount);
+                tmpStream.writeInt((int) tmpOriginPostingWriter.getValueCount());
+                tmpStream.writeInt((int) tmpNonVirtualPostingWriter.getValueCount());
+                tmpStream.writeInt(tmpTruncatedOrigins.length);
+                tmpStream.writeInt(tmpMaxLevel);
+                Files.copy(tmpKeyOffsetsPath, tmpStream);
+                Files.copy(tmpLevelsPath, tmpStream);
+                for(int tmpIndex = 0; tmpIndex < 4; tmpIndex++) {
+                    Files.copy(tmpRowPaths[tmpIndex], tmpStream);
+                }
+                for(int tmpOffset : tmpLevelOffsets) {
+                    tmpStream.writeInt(tmpOffset);
+                }
+                Files.copy(tmpLevelNodesPath, tmpStream);
+                for(int tmpIndex = 4; tmpIndex < 8; tmpIndex++) {
+                    Files.copy(tmpRowPaths[tmpIndex], tmpStream);
+                }
+                for(int tmpOrigin : tmpTruncatedOrigins) {
+                    tmpStream.writeInt(tmpOrigin);
+                }
+                Files.copy(tmpOriginOffsetsPath, tmpStream);
+                Files.copy(tmpKeyDataPath, tmpStream);
+                Files.copy(tmpOriginDataPath, tmpStream);
+            }
+        } finally {
+            for(Path tmpPath : tmpTemporaryPathList) {
+                try {
+                    Files.deleteIfExists(tmpPath);
+                } catch(IOException anException) {
+                    /*A file that is still mapped cannot be deleted on some platforms*/
+                    tmpPath.toFile().deleteOnExit();
+                }
+            }
+        }
+    }
+
+    /**
+     * Merges the sorted SMILES or origin tables of several mapped network files into one sorted table without duplicates.
+     * @param aNetworks Networks whose tables are merged
+     * @param anIsOriginTable true to merge the origin tables, false to merge the SMILES tables
+     * @param anOffsetsPath File the long offsets of the merged table are written to
+     * @param aDataPath File the UTF-8 bytes of the merged table are written to
+     * @param anIdMapPaths Files the new index of each entry of the table of each network is written to as int values
+     * @return number of entries of the merged table
+     * @throws IOException if a file cannot be written or the merged table has more than {@link Integer#MAX_VALUE} entries
+     */
+    private static int mergeStringTables(MappedScaffoldNetwork[] aNetworks, boolean anIsOriginTable, Path anOffsetsPath,
+                                         Path aDataPath, Path[] anIdMapPaths) throws IOException {
+        int tmpShardCount = aNetworks.length;
+        DataOutputStream[] tmpIdMapStreams = new DataOutputStream[tmpShardCount];
+        try(DataOutputStream tmpOffsetStream = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(anOffsetsPath)));
+            DataOutputStream tmpDataStream = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(aDataPath)))) {
+            for(int tmpShard = 0; tmpShard < tmpShardCount; tmpShard++) {
+                tmpIdMapStreams[tmpShard] = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(anIdMapPaths[tmpShard])));
+            }
+            int[] tmpCursors = new int[tmpShardCount];
+            /*The current entry of each file is read once when the file enters the queue*/
+            byte[][] tmpHeadKeys = new byte[tmpShardCount][];
+            PriorityQueue<Integer> tmpQueue = new PriorityQueue<>(Math.max(1, tmpShardCount), (aFirstShard, aSecondShard) ->
+                    MappedScaffoldNetwork.compareKeys(tmpHeadKeys[aFirstShard], tmpHeadKeys[aSecondShard]));
+            for(int tmpShard = 0; tmpShard < tmpShardCount; tmpShard++) {
+                if(aNetworks[tmpShard].getTableSize(anIsOriginTable) > 0) {
+                    tmpHeadKeys[tmpShard] = aNetworks[tmpShard].readTableEntry(anIsOriginTable, 0);
+                    tmpQueue.add(tmpShard);
+                }
+            }
+            byte[] tmpLastKey = null;
+            long tmpCount = 0;
+            long tmpDataSize = 0;
+            tmpOffsetStream.writeLong(tmpDataSize);
+            while(!tmpQueue.isEmpty()) {
+                int tmpShard = tmpQueue.poll();
+                byte[] tmpKey = tmpHeadKeys[tmpShard];
+                /*Entries are unique within a file, so equal entries come from different files*/
+                if(tmpLastKey == null || MappedScaffoldNetwork.compareKeys(tmpLastKey, tmpKey) != 0) {
+                    if(tmpCount == Integer.MAX_VALUE) {
+                        throw new IOException("Mapped network has more than " + Integer.MAX_VALUE + " nodes or origins");
+                    }
+                    tmpDataStream.write(tmpKey);
+                    tmpDataSize += tmpKey.length;
+                    tmpOffsetStream.writeLong(tmpDataSize);
+                    tmpLastKey = tmpKey;
+                    tmpCount++;
+                }
+                tmpIdMapStreams[tmpShard].writeInt((int) tmpCount - 1);
+                tmpCursors[tmpShard]++;
+                if(tmpCursors[tmpShard] < aNetworks[tmpShard].getTableSize(anIsOriginTable)) {
+                    tmpHeadKeys[tmpShard] = aNetworks[tmpShard].readTableEntry(anIsOriginTable, tmpCursors[tmpShard]);
+                    tmpQueue.add(tmpShard);
+                } else {
+                    tmpHeadKeys[tmpShard] = null;
+                }
+            }
+            return (int) tmpCount;
+        } finally {
+            for(DataOutputStream tmpStream : tmpIdMapStreams) {
+                if(tmpStream != null) {
+                    tmpStream.close();
+                }
+            }
+        }
+    }
+
+    /**
+     * Computes the level of each node of a merged network like {@link NetworkNode#getLevel()} does:
+     * a node without parents is on level 0, any other node is one level below its first, i.e. smallest, parent.
+     * @param aNodeCount Number of nodes
+     * @param aParentOffsets Row offsets of the sorted parent ids
+     * @param aParentIds Concatenated parent ids
+     * @param aLevels Writable file of one int per node the levels are written to
+     * @return number of nodes on each level, the length is the highest level plus one
+     */
+    private static int[] computeLevels(int aNodeCount, MappedFile aParentOffsets, MappedFile aParentIds, MappedFile aLevels) {
+        for(int tmpId = 0; tmpId < aNodeCount; tmpId++) {
+            aLevels.putInt((long) tmpId * Integer.BYTES, -1);
+        }
+        int[] tmpLevelCounts = new int[0];
+        /*Nodes on the path to the first node whose level is known, the path is at most as long as the highest level*/
+        int[] tmpPath = new int[16];
+        for(int tmpId = 0; tmpId < aNodeCount; tmpId++) {
+            int tmpPathLength = 0;
+            int tmpNode = tmpId;
+            int tmpLevel = aLevels.getInt((long) tmpNode * Integer.BYTES);
+            while(tmpLevel < 0) {
+                if(tmpPathLength == tmpPath.length) {
+                    tmpPath = Arrays.copyOf(tmpPath, tmpPath.length * 2);
+                }
+                tmpPath[tmpPathLength++] = tmpNode;
+                int tmpStart = aParentOffsets.getInt((long) tmpNode * Integer.BYTES);
+                int tmpEnd = aParentOffsets.getInt((tmpNode + 1L) * Integer.BYTES);
+                if(tmpStart == tmpEnd) {
+                    break;
+                }
+                tmpNode = aParentIds.getInt((long) tmpStart * Integer.BYTES);
+                tmpLevel = aLevels.getInt((long) tmpNode * Integer.BYTES);
+            }
+            /*Assign the levels from the top of the path down*/
+            for(int tmpIndex = tmpPathLength - 1; tmpIndex >= 0; tmpIndex--) {
+                tmpLevel++;
+                aLevels.putInt((long) tmpPath[tmpIndex] * Integer.BYTES, tmpLevel);
+                if(tmpLevel >= tmpLevelCounts.length) {
+                    tmpLevelCounts = Arrays.copyOf(tmpLevelCounts, tmpLevel + 1);
+                }
+                tmpLevelCounts[tmpLevel]++;
+            }
+        }
+        return tmpLevelCounts;
+    }
+
+    /**
+     * Creates a temporary file that is deleted at the end of a merge.
+     * @param aDirectory Directory of the file, the default temporary directory if null
+     * @param aTemporaryPathList List the path is added to
+     * @return path of the created file
+     * @throws IOException if the file cannot be created
+     */
+    private static Path createTemporaryFile(Path aDirectory, List<Path> aTemporaryPathList) throws IOException {
+        Path tmpPath = aDirectory == null ? Files.createTempFile("scaffold-merge", ".tmp")
+                : Files.createTempFile(aDirectory, "scaffold-merge", ".tmp");
+        aTemporaryPathList.add(tmpPath);
+        return tmpPath;
+    }
+
+    /**
+     * Writes the sections of a mapped network file.
+     * @param aPath Path of the file
+     * @param aKeys UTF-8 SMILES of the nodes, sorted as unsigned bytes
+     * @param aLevels Level of each node
+     * @param aParents Sorted parent ids of each node
+     * @param anOriginPostings Sorted origin ids of each node
+     * @param aNonVirtualPostings Sorted non-virtual origin ids of each node
+     * @param aTruncatedOrigins Sorted origin ids of the truncated molecules
+     * @param anOrigins UTF-8 origin SMILES, sorted as unsigned bytes
+     * @throws IOException if the file cannot be written or has more than {@link Integer#MAX_VALUE} edges or postings
+     */
+    private static void writeSections(Path aPath, byte[][] aKeys, int[] aLevels, int[][] aParents, int[][] anOriginPostings,
+                                      int[][] aNonVirtualPostings, int[] aTruncatedOrigins, byte[][] anOrigins) throws IOException {
+        int tmpNodeCount = aKeys.length;
+        int tmpMaxLevel = -1;
+        long tmpEdgeCount = 0;
+        long tmpOriginPostingCount = 0;
+        long tmpNonVirtualPostingCount = 0;
+        int[] tmpChildCounts = new int[tmpNodeCount];
+        for(int tmpId = 0; tmpId < tmpNodeCount; tmpId++) {
+            tmpMaxLevel = Math.max(tmpMaxLevel, aLevels[tmpId]);
+            tmpEdgeCount += aParents[tmpId].length;
+            tmpOriginPostingCount += anOriginPostings[tmpId].length;
+            tmpNonVirtualPostingCount += aNonVirtualPostings[tmpId].length;
+            for(int tmpParentId : aParents[tmpId]) {
+                tmpChildCounts[tmpParentId]++;
+            }
+        }
+        /*Invert the parent lists*/
+        int[][] tmpChildren = new int[tmpNodeCount][];
+        for(int tmpId = 0; tmpId < tmpNodeCount; tmpId++) {
+            tmpChildren[tmpId] = new int[tmpChildCounts[tmpId]];
+            tmpChildCounts[tmpId] = 0;
+        }
+        for(int tmpId = 0; tmpId < tmpNodeCount; tmpId++) {
+            for(int tmpParentId : aParents[tmpId]) {
+                tmpChildren[tmpParentId][tmpChildCounts[tmpParentId]++] = tmpId;
+            }
+        }
+        /*Nodes grouped by level*/
+        int[][] tmpLevelNodes = new int[tmpMaxLevel + 1][];
+        int[] tmpLevelCounts = new int[tmpMaxLevel + 1];
+        for(int tmpLevel : aLevels) {
+            tmpLevelCounts[tmpLevel]++;
+        }
+        for(int tmpLevel = 0; tmpLevel <= tmpMaxLevel; tmpLevel++) {
+            tmpLevelNodes[tmpLevel] = new int[tmpLevelCounts[tmpLevel]];
+            tmpLevelCounts[tmpLevel] = 0;
+        }
+        for(int tmpId = 0; tmpId < tmpNodeCount; tmpId++) {
+            tmpLevelNodes[aLevels[tmpId]][tmpLevelCounts[aLevels[tmpId]]++] = tmpId;
+        }
+        byte[][] tmpOrigins = anOrigins;
+        /*Offsets within the sections are int counts of values, only the string data is addressed by long byte offsets*/
+        if(Math.max(tmpEdgeCount, Math.max(tmpOriginPostingCount, tmpNonVirtualPostingCount)) > Integer.MAX_VALUE) {
+            throw new IOException("Mapped network has more than " + Integer.MAX_VALUE + " edges or postings");
+        }
+        try(DataOutputStream tmpStream = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(aPath)))) {
+            tmpStream.writeInt(MappedScaffoldNetwork.MAGIC_NUMBER);
+            tmpStream.writeInt(MappedScaffoldNetwork.VERSION);
+            tmpStream.writeInt(tmpNodeCount);
+            tmpStream.writeInt((int) tmpEdgeCount);
+            tmpStream.writeInt(tmpOrigins.length);
+            tmpStream.writeInt((int) tmpOriginPostingCount);
+            tmpStream.writeInt((int) tmpNonVirtualPostingCount);
+            tmpStream.writeInt(aTruncatedOrigins.length);
+            tmpStream.writeInt(tmpMaxLevel);
+            MappedScaffoldNetwork.writeOffsets(tmpStream, aKeys);
+            for(int tmpLevel : aLevels) {
+                tmpStream.writeInt(tmpLevel);
+            }
+            MappedScaffoldNetwork.writeCompressedRows(tmpStream, aParents);
+            MappedScaffoldNetwork.writeCompressedRows(tmpStream, tmpChildren);
+            MappedScaffoldNetwork.writeCompressedRows(tmpStream, tmpLevelNodes);
+            MappedScaffoldNetwork.writeCompressedRows(tmpStream, anOriginPostings);
+            MappedScaffoldNetwork.writeCompressedRows(tmpStream, aNonVirtualPostings);
+            for(int tmpOrigin : aTruncatedOrigins) {
+                tmpStream.writeInt(tmpOrigin);
+            }
+            MappedScaffoldNetwork.writeOffsets(tmpStream, tmpOrigins);
+            for(byte[] tmpKey : aKeys) {
+                tmpStream.write(tmpKey);
+            }
+            for(byte[] tmpOrigin : tmpOrigins) {
+                tmpStream.write(tmpOrigin);
+            }
+        }
+    }
+
+    /**
+     * Maps a file written by {@link MappedScaffoldNetwork#write(ScaffoldNetwork, Path)} read-only into memory.
+     * The file is mapped in chunks of 1 GiB, so it can be larger than 2 GiB. The file must not be changed while it is mapped.
+     * @param aPath Path of the file
+     * @param aSmilesGenerator Used to look up molecules. Must be the same as the one of the written network.
+     * @return read-only network view
+     * @throws IOException if the file cannot be mapped or does not contain a mapped network in a supported version
+     * @throws NullPointerException if a parameter is null
+     */
+    public static MappedScaffoldNetwork open(Path aPath, SmilesGenerator aSmilesGenerator) throws IOException, NullPointerException {
+        return MappedScaffoldNetwork.open(aPath, aSmilesGenerator, MappedScaffoldNetwork.DEFAULT_CHUNK_SIZE);
+    }
+
+    /**
+     * Maps a file written by {@link MappedScaffoldNetwork#write(ScaffoldNetwork, Path)} read-only into memory in chunks of the given size.
+     * Each chunk overlaps the next one by eight bytes, so that every value can be read from a single chunk.
+     * @param aPath Path of the file
+     * @param aSmilesGenerator Used to look up molecules. Must be the same as the one of the written network.
+     * @param aChunkSize Number of bytes between the starts of two chunks
+     * @return read-only network view
+     * @throws IOException if the file cannot be mapped or does not contain a mapped network in a supported version
+     * @throws IllegalArgumentException if the chunk size is less than 1 or larger than {@link MappedScaffoldNetwork#DEFAULT_CHUNK_SIZE}
+     * @throws NullPointerException if a parameter is null
+     */
+    protected static MappedScaffoldNetwork open(Path aPath, SmilesGenerator aSmilesGenerator, int aChunkSize)
+            throws IOException, IllegalArgumentException, NullPointerException {
+        Objects.requireNonNull(aPath, "Given path is 'null'");
+        Objects.requireNonNull(aSmilesGenerator, "Given SMILES generator is 'null'");
+        if(aChunkSize < 1 || aChunkSize > MappedScaffoldNetwork.DEFAULT_CHUNK_SIZE) {
+            throw new IllegalArgumentException("Given chunk size must be between 1 and " + MappedScaffoldNetwork.DEFAULT_CHUNK_SIZE + ": " + aChunkSize);
+        }
+        return new MappedScaffoldNetwork(MappedFile.map(aPath, Files.size(aPath), false, aChunkSize), aSmilesGenerator);
+    }
+
+    /**
+     * Returns the number of nodes.
+     * @return number of nodes
+     */
+    public int getNodeCount() {
+        return this.nodeCount;
+    }
+
+    /**
+     * Returns the id of the node with the given SMILES by a binary search in the sorted SMILES table.
+     * @param aSmiles SMILES created by the SMILES generator of the network
+     * @return id of the node or -1 if the network does not contain the SMILES
+     * @throws NullPointerException if parameter is null
+     */
+    public int getNode(String aSmiles) throws NullPointerException {
+        Objects.requireNonNull(aSmiles, "Given SMILES is 'null'");
+        byte[] tmpKey = aSmiles.getBytes(StandardCharsets.UTF_8);
+        int tmpLow = 0;
+        int tmpHigh = this.nodeCount - 1;
+        while(tmpLow <= tmpHigh) {
+            int tmpMiddle = (tmpLow + tmpHigh) >>> 1;
+            int tmpComparison = this.compareStoredKey(tmpMiddle, tmpKey);
+            if(tmpComparison < 0) {
+                tmpLow = tmpMiddle + 1;
+            } else if(tmpComparison > 0) {
+                tmpHigh = tmpMiddle - 1;
+            } else {
+                return tmpMiddle;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Returns the id of the node of the given molecule.
+     * @param aMolecule Molecule whose node is searched
+     * @return id of the node or -1 if the network does not contain the molecule
+     * @throws CDKException if the SMILES of the molecule cannot be created
+     * @throws NullPointerException if parameter is null
+     */
+    public int getNode(IAtomContainer aMolecule) throws CDKException, NullPointerException {
+        Objects.requireNonNull(aMolecule, "Given molecule is 'null'");
+        return this.getNode(this.smilesGenerator.create(aMolecule));
+    }
+
+    /**
+     * Returns the SMILES of a node.
+     * @param aNode Id of the node
+     * @return SMILES of the node
+     * @throws IllegalArgumentException if the id is not in the network
+     */
+    public String getSmiles(int aNode) throws IllegalArgumentException {
+        this.checkNode(aNode);
+        return this.readString(this.keyOffsetsPosition, this.keyDataPosition, aNode);
+    }
+
+    /**
+     * Parses the molecule of a node from its SMILES.
+     * @param aNode Id of the node
+     * @param aBuilder Builder used to parse the molecule
+     * @return molecule of the node
+     * @throws IllegalArgumentException if the id is not in the network
+     * @throws InvalidSmilesException if the stored SMILES cannot be parsed
+     * @throws NullPointerException if the builder is null
+     */
+    public IAtomContainer getMolecule(int aNode, IChemObjectBuilder aBuilder) throws IllegalArgumentException, InvalidSmilesException, NullPointerException {
+        Objects.requireNonNull(aBuilder, "Given builder is 'null'");
+        return new SmilesParser(aBuilder).parseSmiles(this.getSmiles(aNode));
+    }
+
+    /**
+     * Returns the level of a node.
+     * @param aNode Id of the node
+     * @return level of the node
+     * @throws IllegalArgumentException if the id is not in the network
+     */
+    public int getLevel(int aNode) throws IllegalArgumentException {
+        this.checkNode(aNode);
+        return this.getIntAt(this.levelsPosition + (long) aNode * Integer.BYTES);
+    }
+
+    /**
+     * Returns the parents of a node, i.e. the nodes on the level above.
+     * @param aNode Id of the node
+     * @return ids of the parents in ascending order
+     * @throws IllegalArgumentException if the id is not in the network
+     */
+    public int[] getParents(int aNode) throws IllegalArgumentException {
+        this.checkNode(aNode);
+        return this.readRow(this.parentOffsetsPosition, this.parentIdsPosition, aNode);
+    }
+
+    /**
+     * Returns the children of a node, i.e. the nodes on the level below.
+     * @param aNode Id of the node
+     * @return ids of the children in ascending order
+     * @throws IllegalArgumentException if the id is not in the network
+     */
+    public int[] getChildren(int aNode) throws IllegalArgumentException {
+        this.checkNode(aNode);
+        return this.readRow(this.childOffsetsPosition, this.childIdsPosition, aNode);
+    }
+
+    /**
+     * Returns the highest level of the network.
+     * @return highest level or -1 if the network is empty
+     */
+    public int getMaxLevel() {
+        return this.maxLevel;
+    }
+
+    /**
+     * Returns the nodes of a level.
+     * @param aLevel Level whose nodes are returned
+     * @return ids of the nodes of the level in ascending order
+     * @throws IllegalArgumentException if the level is negative or greater than the highest level
+     */
+    public int[] getAllNodesOnLevel(int aLevel) throws IllegalArgumentException {
+        if(aLevel < 0 || aLevel > this.maxLevel) {
+            throw new IllegalArgumentException("Level does not exist: " + aLevel);
+        }
+        return this.readRow(this.levelOffsetsPosition, this.levelNodesPosition, aLevel);
+    }
+
+    /**
+     * Returns the root nodes of the network, i.e. the nodes on level 0.
+     * @return ids of the root nodes in ascending order
+     */
+    public int[] getRoots() {
+        if(this.maxLevel < 0) {
+            return new int[0];
+        }
+        return this.getAllNodesOnLevel(0);
+    }
+
+    /**
+     * Returns the SMILES of the molecules the node originates from.
+     * @param aNode Id of the node
+     * @return origin SMILES of the node
+     * @throws IllegalArgumentException if the id is not in the network
+     */
+    public List<String> getOriginSmilesList(int aNode) throws IllegalArgumentException {
+        this.checkNode(aNode);
+        return this.readOrigins(this.readRow(this.originPostingOffsetsPosition, this.originPostingsPosition, aNode));
+    }
+
+    /**
+     * Returns the SMILES of the molecules the node is a real, not virtual, scaffold of.
+     * @param aNode Id of the node
+     * @return non-virtual origin SMILES of the node
+     * @throws IllegalArgumentException if the id is not in the network
+     */
+    public List<String> getNonVirtualOriginSmilesList(int aNode) throws IllegalArgumentException {
+        this.checkNode(aNode);
+        return this.readOrigins(this.readRow(this.nonVirtualPostingOffsetsPosition, this.nonVirtualPostingsPosition, aNode));
+    }
+
+    /**
+     * Returns the number of origins of a node without reading them.
+     * @param aNode Id of the node
+     * @return number of origins
+     * @throws IllegalArgumentException if the id is not in the network
+     */
+    public int getOriginCount(int aNode) throws IllegalArgumentException {
+        this.checkNode(aNode);
+        return this.getIntAt(this.originPostingOffsetsPosition + (aNode + 1L) * Integer.BYTES)
+                - this.getIntAt(this.originPostingOffsetsPosition + (long) aNode * Integer.BYTES);
+    }
+
+    /**
+     * Returns the SMILES of the molecules whose decomposition was stopped early.
+     * @return truncated origin SMILES
+     */
+    public List<String> getTruncatedOriginSmilesList() {
+        int[] tmpTruncated = new int[this.truncatedOriginCount];
+        for(int tmpIndex = 0; tmpIndex < tmpTruncated.length; tmpIndex++) {
+            tmpTruncated[tmpIndex] = this.getIntAt(this.truncatedOriginsPosition + (long) tmpIndex * Integer.BYTES);
+        }
+        return this.readOrigins(tmpTruncated);
+    }
+
+    /**
+     * Loads the mapped network into a {@link ScaffoldNetwork}, e.g. after merging shard files.
+     * The node numbers of the network are the ids of the nodes. The molecules of the nodes are only parsed
+     * from their SMILES when they are first requested.
+     * @param aBuilder Builder used to parse the molecules of the nodes
+     * @return network with all nodes, links and origins
+     * @throws NullPointerException if parameter is null
+     */
+    public ScaffoldNetwork toScaffoldNetwork(IChemObjectBuilder aBuilder) throws NullPointerException {
+        Objects.requireNonNull(aBuilder, "Given builder is 'null'");
+        ScaffoldNetwork tmpScaffoldNetwork = new ScaffoldNetwork(this.smilesGenerator);
+        ScaffoldNodeBase[] tmpNodes = new ScaffoldNodeBase[this.nodeCount];
+        for(int tmpId = 0; tmpId < this.nodeCount; tmpId++) {
+            String tmpSmiles = this.getSmiles(tmpId);
+            tmpNodes[tmpId] = tmpScaffoldNetwork.createLazyNode(ScaffoldNodeCollectionBase.createMoleculeSupplier(tmpSmiles, aBuilder));
+            tmpNodes[tmpId].setOriginSmilesList(new IndexedSetList<>(this.getOriginSmilesList(tmpId)));
+            tmpNodes[tmpId].setNonVirtualOriginSmilesList(new IndexedSetList<>(this.getNonVirtualOriginSmilesList(tmpId)));
+            tmpScaffoldNetwork.addLoadedNode(tmpId, tmpSmiles, this.getLevel(tmpId), tmpNodes[tmpId]);
+        }
+        for(int tmpId = 0; tmpId < this.nodeCount; tmpId++) {
+            for(int tmpParentId : this.getParents(tmpId)) {
+                tmpScaffoldNetwork.linkLoadedNodes(tmpNodes[tmpParentId], tmpNodes[tmpId]);
+            }
+        }
+        tmpScaffoldNetwork.truncatedOriginSmilesSet.addAll(this.getTruncatedOriginSmilesList());
+        return tmpScaffoldNetwork;
+    }
+
+    /**
+     * Checks that a node id is in the network.
+     * @param aNode Id of the node
+     * @throws IllegalArgumentException if the id is not in the network
+     */
+    private void checkNode(int aNode) throws IllegalArgumentException {
+        if(aNode < 0 || aNode >= this.nodeCount) {
+            throw new IllegalArgumentException("Node is not in the network: " + aNode);
+        }
+    }
+
+    /**
+     * Reads one row of a compressed sparse row section.
+     * @param anOffsetsPosition Position of the row offsets
+     * @param aValuesPosition Position of the values
+     * @param aRow Row to read
+     * @return values of the row
+     */
+    private int[] readRow(long anOffsetsPosition, long aValuesPosition, int aRow) {
+        int tmpStart = this.getIntAt(anOffsetsPosition + (long) aRow * Integer.BYTES);
+        int tmpEnd = this.getIntAt(anOffsetsPosition + (aRow + 1L) * Integer.BYTES);
+        int[] tmpRow = new int[tmpEnd - tmpStart];
+        for(int tmpIndex = 0; tmpIndex < tmpRow.length; tmpIndex++) {
+            tmpRow[tmpIndex] = this.getIntAt(aValuesPosition + ((long) tmpStart + tmpIndex) * Integer.BYTES);
+        }
+        return tmpRow;
+    }
+
+    /**
+     * Reads one string of a string table.
+     * @param anOffsetsPosition Position of the long string offsets
+     * @param aDataPosition Position of the UTF-8 bytes
+     * @param anIndex Index of the string
+     * @return read string
+     */
+    private String readString(long anOffsetsPosition, long aDataPosition, int anIndex) {
+        return new String(this.readBytes(anOffsetsPosition, aDataPosition, anIndex), StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Reads the bytes of one string of a string table.
+     * @param anOffsetsPosition Position of the long string offsets
+     * @param aDataPosition Position of the UTF-8 bytes
+     * @param anIndex Index of the string
+     * @return read bytes
+     */
+    private byte[] readBytes(long anOffsetsPosition, long aDataPosition, int anIndex) {
+        long tmpStart = this.getLongAt(anOffsetsPosition + (long) anIndex * Long.BYTES);
+        byte[] tmpBytes = new byte[(int) (this.getLongAt(anOffsetsPosition + (anIndex + 1L) * Long.BYTES) - tmpStart)];
+        for(int tmpIndex = 0; tmpIndex < tmpBytes.length; tmpIndex++) {
+            tmpBytes[tmpIndex] = this.getByteAt(aDataPosition + tmpStart + tmpIndex);
+        }
+        return tmpBytes;
+    }
+
+    /**
+     * Reads the byte at a position of the file.
+     * @param aPosition Position in the file
+     * @return read byte
+     */
+    private byte getByteAt(long aPosition) {
+        return this.file.get(aPosition);
+    }
+
+    /**
+     * Reads the int value at a position of the file.
+     * @param aPosition Position in the file
+     * @return read value
+     */
+    private int getIntAt(long aPosition) {
+        return this.file.getInt(aPosition);
+    }
+
+    /**
+     * Reads the long value at a position of the file.
+     * @param aPosition Position in the file
+     * @return read value
+     */
+    private long getLongAt(long aPosition) {
+        return this.file.getLong(aPosition);
+    }
+
+    /**
+     * Reads the origin SMILES of the given origin ids.
+     * @param anOriginIds Origin ids
+     * @return Origin SMILES
+     */
+    private List<String> readOrigins(int[] anOriginIds) {
+        List<String> tmpOriginList = new ArrayList<>(anOriginIds.length);
+        for(int tmpOriginId : anOriginIds) {
+            tmpOriginList.add(this.readString(this.originOffsetsPosition, this.originDataPosition, tmpOriginId));
+        }
+        return tmpOriginList;
+    }
+
+    /**
+     * Compares the stored SMILES of a node with the given UTF-8 bytes without creating a string.
+     * @param aNode Id of the node
+     * @param aKey UTF-8 bytes to compare with
+     * @return negative, zero or positive if the stored SMILES is smaller, equal or larger
+     */
+    private int compareStoredKey(int aNode, byte[] aKey) {
+        long tmpStart = this.getLongAt(this.keyOffsetsPosition + (long) aNode * Long.BYTES);
+        int tmpLength = (int) (this.getLongAt(this.keyOffsetsPosition + (aNode + 1L) * Long.BYTES) - tmpStart);
+        int tmpCommonLength = Math.min(tmpLength, aKey.length);
+        for(int tmpIndex = 0; tmpIndex < tmpCommonLength; tmpIndex++) {
+            int tmpComparison = Integer.compare(this.getByteAt(this.keyDataPosition + tmpStart + tmpIndex) & 0xFF,
+                    aKey[tmpIndex] & 0xFF);
+            if(tmpComparison != 0) {
+                return tmpComparison;
+            }
+        }
+        return Integer.compare(tmpLength, aKey.length);
+    }
+
+    /**
+     * Returns the number of entries of the SMILES or origin table.
+     * @param anIsOriginTable true for the origin table, false for the SMILES table
+     * @return number of entries
+     */
+    private int getTableSize(boolean anIsOriginTable) {
+        return anIsOriginTable ? this.originCount : this.nodeCount;
+    }
+
+    /**
+     * Returns the UTF-8 bytes of an entry of the SMILES or origin table.
+     * @param anIsOriginTable true for the origin table, false for the SMILES table
+     * @param anIndex Index of the entry
+     * @return UTF-8 bytes of the entry
+     */
+    private byte[] readTableEntry(boolean anIsOriginTable, int anIndex) {
+        return anIsOriginTable ? this.readBytes(this.originOffsetsPosition, this.originDataPosition, anIndex)
+                : this.readBytes(this.keyOffsetsPosition, this.keyDataPosition, anIndex);
+    }
+
+    /**
+     * Maps the values of a row and unites them with a sorted row.
+     * @param aSortedRow Sorted row
+     * @param aRow Row whose values are mapped
+     * @param aValueMap File with the new int value of each value of aRow
+     * @return sorted union without duplicates
+     */
+    private static int[] unite(int[] aSortedRow, int[] aRow, MappedFile aValueMap) {
+        int[] tmpMappedRow = new int[aRow.length];
+        for(int tmpIndex = 0; tmpIndex < aRow.length; tmpIndex++) {
+            tmpMappedRow[tmpIndex] = aValueMap.getInt((long) aRow[tmpIndex] * Integer.BYTES);
+        }
+        if(aSortedRow.length == 0) {
+            return Arrays.stream(tmpMappedRow).distinct().sorted().toArray();
+        }
+        return IntStream.concat(Arrays.stream(aSortedRow), Arrays.stream(tmpMappedRow)).distinct().sorted().toArray();
+    }
+
+    /**
+     * Writes the long offsets of byte strings that are stored one after the other.
+     * @param aStream Stream to write to
+     * @param aStrings Byte strings
+     * @throws IOException if the stream fails
+     */
+    private static void writeOffsets(DataOutputStream aStream, byte[][] aStrings) throws IOException {
+        long tmpOffset = 0;
+        aStream.writeLong(tmpOffset);
+        for(byte[] tmpString : aStrings) {
+            tmpOffset += tmpString.length;
+            aStream.writeLong(tmpOffset);
+        }
+    }
+
+    /**
+     * Compares two byte arrays lexicographically as unsigned bytes.
+     * @param aFirstKey First key
+     * @param aSecondKey Second key
+     * @return negative, zero or positive if the first key is smaller, equal or larger
+     */
+    private static int compareKeys(byte[] aFirstKey, byte[] aSecondKey) {
+        int tmpCommonLength = Math.min(aFirstKey.length, aSecondKey.length);
+        for(int tmpIndex = 0; tmpIndex < tmpCommonLength; tmpIndex++) {
+            int tmpComparison = Integer.compare(aFirstKey[tmpIndex] & 0xFF, aSecondKey[tmpIndex] & 0xFF);
+            if(tmpComparison != 0) {
+                return tmpComparison;
+            }
+        }
+        return Integer.compare(aFirstKey.length, aSecondKey.length);
+    }
+
+    /**
+     * Returns the sorted ids of the given origins.
+     * @param anOriginList Origin SMILES
+     * @param anOriginIdMap Id of each origin SMILES, must contain all given origins
+     * @return sorted origin ids
+     */
+    private static int[] getOriginIds(List<?> anOriginList, Map<String, Integer> anOriginIdMap) {
+        int[] tmpIds = new int[anOriginList.size()];
+        int tmpIndex = 0;
+        for(Object tmpOrigin : anOriginList) {
+            tmpIds[tmpIndex++] = anOriginIdMap.get((String) tmpOrigin);
+        }
+        Arrays.sort(tmpIds);
+        return tmpIds;
+    }
+
+    /**
+     * Writes rows as offsets followed by the concatenated values.
+     * @param aStream Stream to write to
+     * @param aRows Rows to write
+     * @throws IOException if the stream fails
+     */
+    private static void writeCompressedRows(DataOutputStream aStream, int[][] aRows) throws IOException {
+        int tmpOffset = 0;
+        aStream.writeInt(tmpOffset);
+        for(int[] tmpRow : aRows) {
+            tmpOffset += tmpRow.length;
+            aStream.writeInt(tmpOffset);
+        }
+        for(int[] tmpRow : aRows) {
+            for(int tmpValue : tmpRow) {
+                aStream.writeInt(tmpValue);
+            }
+        }
+    }
+
+    /**
+     * File that is mapped in chunks, so that it can be larger than the 2 GiB of a single mapped buffer.
+     * Each chunk overlaps the next one by eight bytes, so that a value of up to eight bytes is always contained in one chunk.
+     */
+    protected static class MappedFile {
+        /**
+         * Mapped chunks, chunk i starts at byte i * chunkSize
+         */
+        private final MappedByteBuffer[] chunks;
+
+        /**
+         * Number of bytes between the starts of two chunks
+         */
+        private final int chunkSize;
+
+        /**
+         * Number of mapped bytes
+         */
+        private final long size;
+
+        /**
+         * Constructor
+         * @param aChunks Mapped chunks, chunk i starts at byte i * aChunkSize and overlaps the next chunk by eight bytes
+         * @param aChunkSize Number of bytes between the starts of two chunks
+         * @param aSize Number of mapped bytes
+         */
+        protected MappedFile(MappedByteBuffer[] aChunks, int aChunkSize, long aSize) {
+            this.chunks = aChunks;
+            this.chunkSize = aChunkSize;
+            this.size = aSize;
+        }
+
+        /**
+         * Maps the first bytes of a file in chunks. The mapping stays valid after the file is closed.
+         * @param aPath Path of the file
+         * @param aSize Number of bytes to map. A writable file is extended to this size.
+         * @param anIsWritable true to map the file for reading and writing, false to map it read-only
+         * @param aChunkSize Number of bytes between the starts of two chunks
+         * @return mapped file
+         * @throws IOException if the file cannot be mapped
+         */
+        protected static MappedFile map(Path aPath, long aSize, boolean anIsWritable, int aChunkSize) throws IOException {
+            FileChannel.MapMode tmpMode = anIsWritable ? FileChannel.MapMode.READ_WRITE : FileChannel.MapMode.READ_ONLY;
+            try(FileChannel tmpChannel = anIsWritable ? FileChannel.open(aPath, StandardOpenOption.READ, StandardOpenOption.WRITE)
+                    : FileChannel.open(aPath, StandardOpenOption.READ)) {
+                int tmpChunkCount = (int) Math.max(1L, (aSize + aChunkSize - 1) / aChunkSize);
+                MappedByteBuffer[] tmpChunks = new MappedByteBuffer[tmpChunkCount];
+                for(int tmpChunk = 0; tmpChunk < tmpChunkCount; tmpChunk++) {
+                    long tmpStart = (long) tmpChunk * aChunkSize;
+                    long tmpLength = Math.min(aChunkSize + (long) MappedScaffoldNetwork.CHUNK_OVERLAP, aSize - tmpStart);
+                    tmpChunks[tmpChunk] = tmpChannel.map(tmpMode, tmpStart, tmpLength);
+                }
+                return new MappedFile(tmpChunks, aChunkSize, aSize);
+            }
+        }
+
+        /**
+         * Returns the number of mapped bytes.
+         * @return number of mapped bytes
+         */
+        protected long getSize() {
+            return this.size;
+        }
+
+        /**
+         * Reads the byte at a position.
+         * @param aPosition Position in the file
+         * @return read byte
+         */
+        protected byte get(long aPosition) {
+            return this.chunks[(int) (aPosition / this.chunkSize)].get((int) (aPosition % this.chunkSize));
+        }
+
+        /**
+         * Reads the int value at a position.
+         * @param aPosition Position in the file
+         * @return read value
+         */
+        protected int getInt(long aPosition) {
+            return this.chunks[(int) (aPosition / this.chunkSize)].getInt((int) (aPosition % this.chunkSize));
+        }
+
+        /**
+         * Reads the long value at a position.
+         * @param aPosition Position in the file
+         * @return read value
+         */
+        protected long getLong(long aPosition) {
+            return this.chunks[(int) (aPosition / this.chunkSize)].getLong((int) (aPosition % this.chunkSize));
+        }
+
+        /**
+         * Writes an int value at a position of a writable file. The chunks are shared mappings of the same file,
+         * so a value written to the overlap of one chunk can be read through the next one.
+         * @param aPosition Position in the file
+         * @param aValue Value to write
+         */
+        protected void putInt(long aPosition, int aValue) {
+            this.chunks[(int) (aPosition / this.chunkSize)].putInt((int) (aPosition % this.chunkSize), aValue);
+        }
+
+        /**
+         * Writes the changes of a writable file to the storage device.
+         */
+        protected void force() {
+            for(MappedByteBuffer tmpChunk : this.chunks) {
+                tmpChunk.force();
+            }
+        }
+    }
+
+    /**
+     * Writes rows of int values to two files as offsets and concatenated values, one row at a time.
+     */
+    private static class RowSectionWriter implements Closeable {
+        /**
+         * Stream of the row offsets
+         */
+        private final DataOutputStream offsetStream;
+
+        /**
+         * Stream of the values
+         */
+        private final DataOutputStream valueStream;
+
+        /**
+         * Number of written values
+         */
+        private long valueCount;
+
+        /**
+         * Constructor, writes the offset of the first row
+         * @param anOffsetsPath File the row offsets are written to
+         * @param aValuesPath File the values are written to
+         * @throws IOException if a file cannot be opened
+         */
+        private RowSectionWriter(Path anOffsetsPath, Path aValuesPath) throws IOException {
+            this.offsetStream = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(anOffsetsPath)));
+            this.valueStream = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(aValuesPath)));
+            this.valueCount = 0;
+            this.offsetStream.writeInt(0);
+        }
+
+        /**
+         * Writes the next row.
+         * @param aRow Values of the row
+         * @throws IOException if a file cannot be written or more than {@link Integer#MAX_VALUE} values are written
+         */
+        private void writeRow(int[] aRow) throws IOException {
+            /*Offsets within the sections are int counts of values*/
+            if(this.valueCount + aRow.length > Integer.MAX_VALUE) {
+                throw new IOException("Mapped network has more than " + Integer.MAX_VALUE + " edges or postings");
+            }
+            for(int tmpValue : aRow) {
+                this.valueStream.writeInt(tmpValue);
+            }
+            this.valueCount += aRow.length;
+            this.offsetStream.writeInt((int) this.valueCount);
+        }
+
+        /**
+         * Returns the number of written values.
+         * @return number of written values
+         */
+        private long getValueCount() {
+            return this.valueCount;
+        }
+
+        /**
+         * Closes both files.
+         * @throws IOException if a file cannot be closed
+         */
+        @Override
+        public void close() throws IOException {
+            try {
+                this.offsetStream.close();
+            } finally {
+                this.valueStream.close();
+            }
+        }
+    }
+}
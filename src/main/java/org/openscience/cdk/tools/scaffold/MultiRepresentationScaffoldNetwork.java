@@ -0,0 +1,175 @@
+/*
+ * Copyright (c) 2026 Julian Zander <zanderjulian@gmx.de>
+ *                    Jonas Schaub <jonas.schaub@uni-jena.de>
+ *                    Achim Zielesny <achim.zielesny@w-hs.de>
+ *                    Christoph Steinbeck <christoph.steinbeck@uni-jena.de>
+ *
+ * Contact: cdk-devel@lists.sourceforge.net
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+
+package org.openscience.cdk.tools.scaffold;
+
+import org.openscience.cdk.exception.CDKException;
+import org.openscience.cdk.interfaces.IAtomContainer;
+
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * Scaffold networks of one set of molecules in several {@link ScaffoldGenerator.ScaffoldModeOption}s,
+ * linked so that a node can be projected onto the more abstract representations,
+ * following the multi-dimensional scaffold analysis of
+ * <a href="https://doi.org/10.1186/s13321-021-00526-y">"Molecular Anatomy: a new multi‑dimensional hierarchical scaffold analysis tool"</a>
+ * by Manelfi et al. 2021.
+ * Generated by {@link ScaffoldGenerator#generateMultiRepresentationNetwork(java.util.List, Set)}. <p>
+ *
+ * The representations are ordered by abstraction: SCAFFOLD, MURCKO_FRAMEWORK, then BASIC_FRAMEWORK and ELEMENTAL_WIRE_FRAME,
+ * which are not comparable with each other, and BASIC_WIRE_FRAME.
+ *
+ * @author Julian Zander (zanderjulian@gmx.de)
+ * @author Jonas Schaub (jonas.schaub@uni-jena.de)
+ * @version 1.0.0.0
+ */
+public class MultiRepresentationScaffoldNetwork {
+    /**
+     * Network of each representation
+     */
+    private final EnumMap<ScaffoldGenerator.ScaffoldModeOption, ScaffoldNetwork> networkMap;
+
+    /**
+     * Unique SMILES of the nodes of a representation mapped to the unique SMILES of their projections,
+     * by source and target representation
+     */
+    private final EnumMap<ScaffoldGenerator.ScaffoldModeOption, EnumMap<ScaffoldGenerator.ScaffoldModeOption, HashMap<String, String>>> projectionMap;
+
+    /**
+     * Constructor
+     * @param aNetworkMap Empty network of each representation
+     * @throws NullPointerException if parameter is null
+     */
+    protected MultiRepresentationScaffoldNetwork(EnumMap<ScaffoldGenerator.ScaffoldModeOption, ScaffoldNetwork> aNetworkMap) throws NullPointerException {
+        this.networkMap = Objects.requireNonNull(aNetworkMap, "Given network map is 'null'");
+        this.projectionMap = new EnumMap<>(ScaffoldGenerator.ScaffoldModeOption.class);
+    }
+
+    /**
+     * Indicates whether a representation is more abstract than another one, i.e. whether the nodes of the other one can be projected onto it.
+     * @param aScaffoldMode Representation that may be more abstract
+     * @param anOtherScaffoldMode Less abstract representation
+     * @return true if aScaffoldMode can be derived from anOtherScaffoldMode and is not the same
+     * @throws NullPointerException if a parameter is null
+     */
+    public static boolean isMoreAbstract(ScaffoldGenerator.ScaffoldModeOption aScaffoldMode, ScaffoldGenerator.ScaffoldModeOption anOtherScaffoldMode)
+            throws NullPointerException {
+        Objects.requireNonNull(aScaffoldMode, "Given scaffold mode is 'null'");
+        Objects.requireNonNull(anOtherScaffoldMode, "Given scaffold mode is 'null'");
+        if(aScaffoldMode.equals(anOtherScaffoldMode)) {
+            return false;
+        }
+        switch (anOtherScaffoldMode) {
+            case SCAFFOLD:
+                return true;
+            case MURCKO_FRAMEWORK:
+                return !aScaffoldMode.equals(ScaffoldGenerator.ScaffoldModeOption.SCAFFOLD);
+            case BASIC_FRAMEWORK:
+            case ELEMENTAL_WIRE_FRAME:
+                return aScaffoldMode.equals(ScaffoldGenerator.ScaffoldModeOption.BASIC_WIRE_FRAME);
+            default:
+                return false;
+        }
+    }
+
+    /**
+     * Returns the representations of the networks.
+     * @return unmodifiable set of representations
+     */
+    public Set<ScaffoldGenerator.ScaffoldModeOption> getScaffoldModes() {
+        return Collections.unmodifiableSet(this.networkMap.keySet());
+    }
+
+    /**
+     * Returns the network of a representation.
+     * @param aScaffoldMode Representation
+     * @return network or null if the representation was not generated
+     */
+    public ScaffoldNetwork getNetwork(ScaffoldGenerator.ScaffoldModeOption aScaffoldMode) {
+        return this.networkMap.get(aScaffoldMode);
+    }
+
+    /**
+     * Returns the unique SMILES of the projection of a node onto a more abstract representation.
+     * @param aSmiles Unique SMILES of the node
+     * @param aScaffoldMode Representation of the node
+     * @param aTargetScaffoldMode More abstract representation
+     * @return unique SMILES of the projection or null if the node is not in the network of aScaffoldMode
+     * @throws NullPointerException if a parameter is null
+     * @throws IllegalArgumentException if a representation was not generated or aTargetScaffoldMode is not more abstract than aScaffoldMode
+     */
+    public String getProjectionSmiles(String aSmiles, ScaffoldGenerator.ScaffoldModeOption aScaffoldMode,
+                                      ScaffoldGenerator.ScaffoldModeOption aTargetScaffoldMode) throws NullPointerException, IllegalArgumentException {
+        Objects.requireNonNull(aSmiles, "Given SMILES is 'null'");
+        if(!this.networkMap.containsKey(aScaffoldMode) || !this.networkMap.containsKey(aTargetScaffoldMode)) {
+            throw new IllegalArgumentException("Representation was not generated");
+        }
+        if(!MultiRepresentationScaffoldNetwork.isMoreAbstract(aTargetScaffoldMode, aScaffoldMode)) {
+            throw new IllegalArgumentException(aTargetScaffoldMode + " is not more abstract than " + aScaffoldMode);
+        }
+        EnumMap<ScaffoldGenerator.ScaffoldModeOption, HashMap<String, String>> tmpTargetMap = this.projectionMap.get(aScaffoldMode);
+        if(tmpTargetMap == null || !tmpTargetMap.containsKey(aTargetScaffoldMode)) {
+            return null;
+        }
+        return tmpTargetMap.get(aTargetScaffoldMode).get(aSmiles);
+    }
+
+    /**
+     * Returns the projection of a node onto a more abstract representation.
+     * @param aNode Node of the network of aScaffoldMode
+     * @param aScaffoldMode Representation of the node
+     * @param aTargetScaffoldMode More abstract representation
+     * @return node of the network of aTargetScaffoldMode or null if aNode is not in the network of aScaffoldMode
+     * @throws CDKException In case of a problem with the SmilesGenerator
+     * @throws NullPointerException if a parameter is null
+     * @throws IllegalArgumentException if a representation was not generated or aTargetScaffoldMode is not more abstract than aScaffoldMode
+     */
+    public ScaffoldNodeBase project(ScaffoldNodeBase aNode, ScaffoldGenerator.ScaffoldModeOption aScaffoldMode,
+                                    ScaffoldGenerator.ScaffoldModeOption aTargetScaffoldMode) throws CDKException, NullPointerException, IllegalArgumentException {
+        Objects.requireNonNull(aNode, "Given node is 'null'");
+        ScaffoldNetwork tmpNetwork = this.networkMap.get(aScaffoldMode);
+        if(tmpNetwork == null) {
+            throw new IllegalArgumentException("Representation was not generated");
+        }
+        String tmpProjectionSmiles = this.getProjectionSmiles(tmpNetwork.smilesGenerator.create((IAtomContainer) aNode.getMolecule()),
+                aScaffoldMode, aTargetScaffoldMode);
+        return tmpProjectionSmiles == null ? null : this.networkMap.get(aTargetScaffoldMode).smilesMap.get(tmpProjectionSmiles);
+    }
+
+    /**
+     * Records the projection of a node onto a more abstract representation.
+     * @param aScaffoldMode Representation of the node
+     * @param aSmiles Unique SMILES of the node
+     * @param aTargetScaffoldMode More abstract representation
+     * @param aTargetSmiles Unique SMILES of the projection
+     */
+    protected void addProjection(ScaffoldGenerator.ScaffoldModeOption aScaffoldMode, String aSmiles,
+                                 ScaffoldGenerator.ScaffoldModeOption aTargetScaffoldMode, String aTargetSmiles) {
+        this.projectionMap.computeIfAbsent(aScaffoldMode, tmpMode -> new EnumMap<>(ScaffoldGenerator.ScaffoldModeOption.class))
+                .computeIfAbsent(aTargetScaffoldMode, tmpMode -> new HashMap<>()).put(aSmiles, aTargetSmiles);
+    }
+}
@@ -23,15 +23,19 @@
 
 package org.openscience.cdk.tools.scaffold;
 
+import org.openscience.cdk.exception.CDKException;
+
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Objects;
+import java.util.function.Supplier;
 
 /**
  * The NetworkNodes are nodes from which a {@link ScaffoldNetwork} can be built.
  * It is used to organise the IAtomContainers and enables a relationship between the different objects.
  * A NetworkNode can have multiple children and parents.
  * The parents are the smaller parent scaffolds.
+ * The parents of a node of a lazy network are only determined by {@link NetworkNode#getExpandedParents()}.
  * @param <MoleculeType> As MoleculeType, any data type can be defined.
  *                     In our scenario, the node contains a CDK IAtomContainer.
  *
@@ -40,11 +44,31 @@ import java.util.Objects;
  * @version 1.0.0.0
  */
 public class NetworkNode <MoleculeType> extends ScaffoldNodeBase<MoleculeType> {
+    /**
+     * Determines the parents of a node of a lazy network when they are first requested.
+     * @param <MoleculeType> As MoleculeType, any data type can be defined.
+     */
+    @FunctionalInterface
+    public interface ParentExpander<MoleculeType> {
+        /**
+         * Determines the parents of the given node and adds them to it.
+         * @param aNode Node whose parents are determined
+         * @throws CDKException In case of a problem with the decomposition of the molecule
+         * @throws CloneNotSupportedException if cloning is not possible.
+         */
+        void expand(NetworkNode<MoleculeType> aNode) throws CDKException, CloneNotSupportedException;
+    }
+
     /**
      * parents of the node
      */
     private List<NetworkNode<MoleculeType>> parents;
 
+    /**
+     * Determines the parents when they are first requested. Null if the parents are already known.
+     */
+    private ParentExpander<MoleculeType> parentExpander;
+
     /**
      * Creates a NetworkNode
      * @param aMolecule molecule of the NetworkNode
@@ -52,6 +76,17 @@ public class NetworkNode <MoleculeType> extends ScaffoldNodeBase<MoleculeType> {
     public NetworkNode(MoleculeType aMolecule) {
         super(aMolecule);
         this.parents =  new ArrayList<>();
+        this.parentExpander = null;
+    }
+
+    /**
+     * Creates a lazily loaded NetworkNode whose molecule is only created when it is first requested.
+     * @param aMoleculeSupplier creates the molecule of the NetworkNode
+     */
+    protected NetworkNode(Supplier<MoleculeType> aMoleculeSupplier) {
+        super(aMoleculeSupplier);
+        this.parents =  new ArrayList<>();
+        this.parentExpander = null;
     }
 
     /**
@@ -80,23 +115,15 @@ public class NetworkNode <MoleculeType> extends ScaffoldNodeBase<MoleculeType> {
 
     /**
      * Add the parents node and add this node as child to the parent node if not already done.
+     * The nodes are linked by identity, so the molecules of the other children of the parent are not requested.
      * @param aParent parent that are added
      * @throws NullPointerException if parameter is null
      */
     public void addParent(NetworkNode<MoleculeType> aParent) throws NullPointerException {
         Objects.requireNonNull(aParent, "Given NetworkNode is 'null'");
-        boolean tmpIsAlreadyChild = false;
-        /*Check if the child is not already set*/
-        for(ScaffoldNodeBase<MoleculeType> tmpBaseNode : aParent.getChildren()) {
-            NetworkNode<MoleculeType> tmpNode = (NetworkNode<MoleculeType>) tmpBaseNode;
-            if (tmpNode.getMolecule().equals(this.getMolecule())) {
-                tmpIsAlreadyChild = true;
-                break;
-            }
-        }
         /*Add child if not already added*/
-        if(!tmpIsAlreadyChild) {
-            aParent.addChild(this.getMolecule());
+        if(!aParent.getChildren().contains(this)) {
+            aParent.getChildren().add(this);
         }
         //Add parent
         this.parents.add(aParent);
@@ -126,6 +153,44 @@ public class NetworkNode <MoleculeType> extends ScaffoldNodeBase<MoleculeType> {
         return this.parents;
     }
 
+    /**
+     * Get the parents of the node. If the node belongs to a lazy network and has not been expanded yet,
+     * the parents are determined first. The result is cached, so the expansion is only carried out once.
+     * @return parents node
+     * @throws CDKException In case of a problem with the decomposition of the molecule
+     * @throws CloneNotSupportedException if cloning is not possible.
+     */
+    public List<NetworkNode<MoleculeType>> getExpandedParents() throws CDKException, CloneNotSupportedException {
+        if(this.parentExpander != null) {
+            ParentExpander<MoleculeType> tmpParentExpander = this.parentExpander;
+            this.parentExpander = null;
+            try {
+                tmpParentExpander.expand(this);
+            } catch (CDKException | CloneNotSupportedException | RuntimeException anException) {
+                //The expansion can be repeated
+                this.parentExpander = tmpParentExpander;
+                throw anException;
+            }
+        }
+        return this.parents;
+    }
+
+    /**
+     * Shows if the parents of the node are known. Always true for nodes of a network that is not lazy.
+     * @return false if the parents are only determined by {@link NetworkNode#getExpandedParents()}
+     */
+    public boolean isExpanded() {
+        return this.parentExpander == null;
+    }
+
+    /**
+     * Set the expander that determines the parents of the node when they are first requested by {@link NetworkNode#getExpandedParents()}.
+     * @param aParentExpander expander of the node or null if the parents are already known
+     */
+    public void setParentExpander(ParentExpander<MoleculeType> aParentExpander) {
+        this.parentExpander = aParentExpander;
+    }
+
     /**
      * Set the parents of the node.
      * @param aParents parents that are set
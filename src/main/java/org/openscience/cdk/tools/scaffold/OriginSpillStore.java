@@ -0,0 +1,910 @@
+/*
+ * Copyright (c) 2026 Julian Zander <zanderjulian@gmx.de>
+ *                    Jonas Schaub <jonas.schaub@uni-jena.de>
+ *                    Achim Zielesny <achim.zielesny@w-hs.de>
+ *                    Christoph Steinbeck <christoph.steinbeck@uni-jena.de>
+ *
+ * Contact: cdk-devel@lists.sourceforge.net
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+
+package org.openscience.cdk.tools.scaffold;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.ConcurrentModificationException;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.PriorityQueue;
+import java.util.Set;
+
+/**
+ * Keeps large origin SMILES lists of scaffold nodes on local disk instead of in the heap.
+ * All lists created by the store together hold at most {@link OriginSpillStore#getHeapCapacity()} new origins in the heap.
+ * If they hold more, the lists with the most origins in the heap sort them and append them as a run to their spill file
+ * until at most half of the capacity is left. Several runs are merged into one sorted run without duplicates when the list is read,
+ * so the origins of a spilled list are returned in sorted order. <p>
+ *
+ * Each list counts its origins while they are added, so its size is known without reading the file. To check whether an origin
+ * has already been spilled, each run keeps a Bloom filter of about ten bits per origin and every
+ * {@link OriginSpillStore#INDEX_INTERVAL}th origin with its file position in the heap. Only the origins that pass the filter are
+ * looked up by a binary search in these keys, which reads at most one block of the run. <p>
+ *
+ * Each list has its own spill file in the directory of the store. Superseded files are deleted when the runs are merged,
+ * the remaining ones by {@link OriginSpillStore#close()}. Whoever created the store owns it and has to close it,
+ * the files are not deleted automatically when the virtual machine exits. The store is not thread-safe.
+ *
+ * @author Julian Zander (zanderjulian@gmx.de)
+ * @author Jonas Schaub (jonas.schaub@uni-jena.de)
+ * @version 1.0.0.0
+ */
+public class OriginSpillStore implements Closeable {
+    /**
+     * Number of runs of a list after which the runs are merged while origins are added.
+     * Limits the number of files that are open during a merge.
+     */
+    protected static final int MAXIMUM_RUN_COUNT = 64;
+
+    /**
+     * Number of origins of a run between two origins whose file positions are kept in the heap
+     */
+    protected static final int INDEX_INTERVAL = 64;
+
+    /**
+     * Number of bits of the Bloom filter of a run per origin
+     */
+    private static final int BLOOM_BITS_PER_ORIGIN = 10;
+
+    /**
+     * Number of hash functions of the Bloom filter of a run
+     */
+    private static final int BLOOM_HASH_COUNT = 4;
+
+    /**
+     * Directory of the spill files
+     */
+    private final Path directory;
+
+    /**
+     * Maximum number of origins all lists of the store hold in the heap together
+     */
+    private final int heapCapacity;
+
+    /**
+     * Spill files created by the lists of the store
+     */
+    private final List<Path> spillFileList;
+
+    /**
+     * Lists of the store that hold origins in the heap, compared by identity
+     */
+    private final Set<SpillingOriginList> heapListSet;
+
+    /**
+     * Number of origins all lists of the store hold in the heap
+     */
+    private long heapOriginCount;
+
+    /**
+     * Constructor
+     * @param aDirectory Directory the spill files are created in
+     * @param aHeapCapacity Maximum number of origins all lists of the store hold in the heap together before they are spilled
+     * @throws NullPointerException if the directory is null
+     * @throws IllegalArgumentException if aHeapCapacity is smaller than 1
+     */
+    public OriginSpillStore(Path aDirectory, int aHeapCapacity) throws NullPointerException, IllegalArgumentException {
+        Objects.requireNonNull(aDirectory, "Given directory is 'null'");
+        if(aHeapCapacity < 1) {
+            throw new IllegalArgumentException("Heap capacity must be at least 1");
+        }
+        this.directory = aDirectory;
+        this.heapCapacity = aHeapCapacity;
+        this.spillFileList = new ArrayList<>();
+        this.heapListSet = Collections.newSetFromMap(new IdentityHashMap<>());
+        this.heapOriginCount = 0;
+    }
+
+    /**
+     * Returns the maximum number of origins all lists of the store hold in the heap together.
+     * A list that is not created by the store is replaced by a list of the store if it has more origins.
+     * @return heap capacity
+     */
+    public int getHeapCapacity() {
+        return this.heapCapacity;
+    }
+
+    /**
+     * Returns the number of origins all lists of the store currently hold in the heap, without the keys and filters of the runs.
+     * @return number of origins in the heap
+     */
+    public long getHeapOriginCount() {
+        return this.heapOriginCount;
+    }
+
+    /**
+     * Returns the directory of the spill files.
+     * @return spill directory
+     */
+    public Path getDirectory() {
+        return this.directory;
+    }
+
+    /**
+     * Creates a list that spills its origins to disk and fills it with the given origins.
+     * @param anOriginCollection Initial origins
+     * @return spilling list
+     * @throws NullPointerException if parameter is null
+     * @throws UncheckedIOException if the origins cannot be spilled
+     */
+    public SpillingOriginList createList(Collection<String> anOriginCollection) throws NullPointerException, UncheckedIOException {
+        Objects.requireNonNull(anOriginCollection, "Given origin collection is 'null'");
+        SpillingOriginList tmpList = new SpillingOriginList();
+        for(String tmpOrigin : anOriginCollection) {
+            tmpList.add(tmpOrigin);
+        }
+        return tmpList;
+    }
+
+    /**
+     * Deletes all spill files of the store. The lists of the store must not be used afterwards.
+     * @throws IOException if a file cannot be deleted
+     */
+    @Override
+    public void close() throws IOException {
+        for(Path tmpPath : this.spillFileList) {
+            Files.deleteIfExists(tmpPath);
+        }
+        this.spillFileList.clear();
+        this.heapListSet.clear();
+        this.heapOriginCount = 0;
+    }
+
+    /**
+     * Updates the number of origins in the heap after a list has changed the origins it holds in the heap.
+     * If the capacity is exceeded, the lists with the most origins in the heap are spilled until at most half of it is left.
+     * @param aList List whose origins in the heap have changed
+     * @param aDifference Change of the number of origins of the list in the heap
+     * @throws UncheckedIOException if the origins cannot be spilled
+     */
+    private void updateHeapOriginCount(SpillingOriginList aList, int aDifference) throws UncheckedIOException {
+        this.heapOriginCount += aDifference;
+        if(aList.heapOriginSet.isEmpty()) {
+            this.heapListSet.remove(aList);
+        } else {
+            this.heapListSet.add(aList);
+        }
+        if(this.heapOriginCount <= this.heapCapacity) {
+            return;
+        }
+        List<SpillingOriginList> tmpListList = new ArrayList<>(this.heapListSet);
+        tmpListList.sort(Comparator.comparingInt((SpillingOriginList tmpList) -> tmpList.heapOriginSet.size()).reversed());
+        for(SpillingOriginList tmpList : tmpListList) {
+            if(this.heapOriginCount <= this.heapCapacity / 2) {
+                break;
+            }
+            tmpList.spill();
+            if(tmpList.runList.size() > OriginSpillStore.MAXIMUM_RUN_COUNT) {
+                tmpList.compact(null);
+            }
+        }
+    }
+
+    /**
+     * Origin SMILES list whose origins are spilled to a file of the store.
+     * New origins are collected in the heap without duplicates, an origin that is already spilled is not added again.
+     * If the store holds too many origins in the heap, they are written to the file as sorted run. The runs are merged into
+     * one sorted run only if there is more than one, so reading a list that has been read before only merges the few origins
+     * in the heap with the run while the file is read. The file is read in chunks of at most heap capacity origins
+     * and is never kept open between two calls, so abandoned iterations do not leak open files.
+     */
+    public class SpillingOriginList extends AbstractList<String> {
+        /**
+         * Origins that have not been spilled yet
+         */
+        private final HashSet<String> heapOriginSet;
+
+        /**
+         * Sorted runs of the file
+         */
+        private final List<Run> runList;
+
+        /**
+         * Spill file, created with the first run
+         */
+        private Path spillFile;
+
+        /**
+         * Number of different origins
+         */
+        private int size;
+
+        /**
+         * Constructor
+         */
+        protected SpillingOriginList() {
+            this.heapOriginSet = new HashSet<>();
+            this.runList = new ArrayList<>();
+            this.size = 0;
+        }
+
+        /**
+         * Adds an origin if it is neither in the heap nor in one of the runs.
+         * @param anOrigin Origin SMILES
+         * @return true if the origin was not in the list
+         * @throws NullPointerException if parameter is null
+         * @throws UncheckedIOException if the spill file cannot be read or the origins cannot be spilled
+         */
+        @Override
+        public boolean add(String anOrigin) throws NullPointerException, UncheckedIOException {
+            Objects.requireNonNull(anOrigin, "Given origin is 'null'");
+            if(this.heapOriginSet.contains(anOrigin) || this.isSpilled(anOrigin)) {
+                return false;
+            }
+            this.heapOriginSet.add(anOrigin);
+            this.modCount++;
+            this.size++;
+            OriginSpillStore.this.updateHeapOriginCount(this, 1);
+            return true;
+        }
+
+        /**
+         * Returns the number of different origins, which is counted while origins are added and removed.
+         * @return number of origins
+         */
+        @Override
+        public int size() {
+            return this.size;
+        }
+
+        /**
+         * Returns the origin at a position of the sorted list. Origins in the heap are merged into the run first,
+         * afterwards at most {@link OriginSpillStore#INDEX_INTERVAL} origins of the run are read.
+         * @param anIndex Position
+         * @return origin SMILES
+         * @throws IndexOutOfBoundsException if the position is not in the list
+         * @throws UncheckedIOException if the spill file cannot be read or written
+         */
+        @Override
+        public String get(int anIndex) throws IndexOutOfBoundsException, UncheckedIOException {
+            if(anIndex < 0 || anIndex >= this.size) {
+                throw new IndexOutOfBoundsException("Index: " + anIndex);
+            }
+            if(this.runList.isEmpty()) {
+                List<String> tmpHeapOriginList = new ArrayList<>(this.heapOriginSet);
+                Collections.sort(tmpHeapOriginList);
+                return tmpHeapOriginList.get(anIndex);
+            }
+            if(this.runList.size() > 1 || !this.heapOriginSet.isEmpty()) {
+                this.compact(null);
+            }
+            Run tmpRun = this.runList.get(0);
+            int tmpBlock = anIndex / OriginSpillStore.INDEX_INTERVAL;
+            RunReader tmpReader = new RunReader(this.spillFile, tmpRun.indexPositions[tmpBlock],
+                    tmpRun.count - (long) tmpBlock * OriginSpillStore.INDEX_INTERVAL);
+            try {
+                for(int tmpSkipped = tmpBlock * OriginSpillStore.INDEX_INTERVAL; tmpSkipped < anIndex; tmpSkipped++) {
+                    tmpReader.advance();
+                }
+                return tmpReader.getCurrent();
+            } finally {
+                tmpReader.close();
+            }
+        }
+
+        /**
+         * Checks whether the origin is in the heap or in one of the runs. Runs whose Bloom filter rules the origin out are not read,
+         * the others are searched in the block the origin would be in.
+         * @param anObject Origin to look for
+         * @return true if the origin is in the list
+         * @throws UncheckedIOException if the spill file cannot be read
+         */
+        @Override
+        public boolean contains(Object anObject) throws UncheckedIOException {
+            if(!(anObject instanceof String)) {
+                return false;
+            }
+            return this.heapOriginSet.contains(anObject) || this.isSpilled((String) anObject);
+        }
+
+        /**
+         * Iterates the sorted origins. If there is more than one run, the runs are merged first.
+         * The single run is read in chunks and merged with the sorted origins of the heap while iterating.
+         * @return iterator over the origins
+         * @throws UncheckedIOException if the spill file cannot be read
+         */
+        @Override
+        public Iterator<String> iterator() throws UncheckedIOException {
+            if(this.runList.size() > 1) {
+                this.compact(null);
+            }
+            List<String> tmpHeapOriginList = new ArrayList<>(this.heapOriginSet);
+            Collections.sort(tmpHeapOriginList);
+            if(this.runList.isEmpty()) {
+                return Collections.unmodifiableList(tmpHeapOriginList).iterator();
+            }
+            return new MergingIterator(this.runList.get(0), tmpHeapOriginList);
+        }
+
+        /**
+         * Removes an origin. An origin of the heap is removed directly, a spilled one by rewriting the merged run without it.
+         * @param anObject Origin to remove
+         * @return true if the origin was in the list
+         * @throws UncheckedIOException if the spill file cannot be read or written
+         */
+        @Override
+        public boolean remove(Object anObject) throws UncheckedIOException {
+            if(!(anObject instanceof String)) {
+                return false;
+            }
+            if(this.heapOriginSet.remove(anObject)) {
+                this.modCount++;
+                this.size--;
+                OriginSpillStore.this.updateHeapOriginCount(this, -1);
+                return true;
+            }
+            if(!this.isSpilled((String) anObject)) {
+                return false;
+            }
+            this.modCount++;
+            this.size--;
+            this.compact((String) anObject);
+            return true;
+        }
+
+        /**
+         * Removes all origins and deletes the spill file.
+         * @throws UncheckedIOException if the spill file cannot be deleted
+         */
+        @Override
+        public void clear() throws UncheckedIOException {
+            this.modCount++;
+            this.size = 0;
+            int tmpHeapOriginCount = this.heapOriginSet.size();
+            this.heapOriginSet.clear();
+            OriginSpillStore.this.updateHeapOriginCount(this, -tmpHeapOriginCount);
+            this.runList.clear();
+            if(this.spillFile != null) {
+                try {
+                    Files.deleteIfExists(this.spillFile);
+                } catch (IOException anException) {
+                    throw new UncheckedIOException(anException);
+                }
+                OriginSpillStore.this.spillFileList.remove(this.spillFile);
+                this.spillFile = null;
+            }
+        }
+
+        /**
+         * Checks whether an origin is in one of the runs.
+         * @param anOrigin Origin to look for
+         * @return true if the origin has been spilled
+         * @throws UncheckedIOException if the spill file cannot be read
+         */
+        private boolean isSpilled(String anOrigin) throws UncheckedIOException {
+            for(Run tmpRun : this.runList) {
+                if(tmpRun.mightContain(anOrigin) && tmpRun.contains(this.spillFile, anOrigin)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        /**
+         * Appends the origins collected in the heap to the file as sorted run.
+         * @throws UncheckedIOException if the spill file cannot be written
+         */
+        private void spill() throws UncheckedIOException {
+            if(this.heapOriginSet.isEmpty()) {
+                return;
+            }
+            List<String> tmpSortedList = new ArrayList<>(this.heapOriginSet);
+            Collections.sort(tmpSortedList);
+            try {
+                if(this.spillFile == null) {
+                    this.spillFile = Files.createTempFile(OriginSpillStore.this.directory, "origins", ".spill");
+                    OriginSpillStore.this.spillFileList.add(this.spillFile);
+                }
+                Run tmpRun = new Run(Files.size(this.spillFile), tmpSortedList.size());
+                try(DataOutputStream tmpStream = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(this.spillFile,
+                        StandardOpenOption.APPEND)))) {
+                    for(String tmpOrigin : tmpSortedList) {
+                        tmpRun.write(tmpStream, tmpOrigin);
+                    }
+                }
+                this.runList.add(tmpRun);
+            } catch (IOException anException) {
+                throw new UncheckedIOException(anException);
+            }
+            int tmpHeapOriginCount = this.heapOriginSet.size();
+            this.heapOriginSet.clear();
+            OriginSpillStore.this.updateHeapOriginCount(this, -tmpHeapOriginCount);
+        }
+
+        /**
+         * Merges all runs and the origins in the heap into one sorted run without duplicates in a new file.
+         * The superseded file is deleted.
+         * @param anExcludedOrigin Origin that is left out, null to keep all
+         * @throws UncheckedIOException if the spill file cannot be read or written
+         */
+        private void compact(String anExcludedOrigin) throws UncheckedIOException {
+            this.spill();
+            Path tmpOldFile = this.spillFile;
+            Path tmpNewFile = null;
+            List<RunReader> tmpReaderList = new ArrayList<>(this.runList.size());
+            try {
+                tmpNewFile = Files.createTempFile(OriginSpillStore.this.directory, "origins", ".spill");
+                PriorityQueue<RunReader> tmpQueue = new PriorityQueue<>(Math.max(1, this.runList.size()),
+                        (aFirstReader, aSecondReader) -> aFirstReader.getCurrent().compareTo(aSecondReader.getCurrent()));
+                long tmpCount = 0;
+                for(Run tmpRun : this.runList) {
+                    RunReader tmpReader = new RunReader(tmpOldFile, tmpRun.position, tmpRun.count);
+                    tmpReaderList.add(tmpReader);
+                    tmpCount += tmpRun.count;
+                    if(tmpReader.hasCurrent()) {
+                        tmpQueue.add(tmpReader);
+                    }
+                }
+                /*The runs are disjoint, so the merged run has at most as many origins as all runs together*/
+                Run tmpMergedRun = new Run(0, tmpCount);
+                try(DataOutputStream tmpStream = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tmpNewFile)))) {
+                    String tmpPrevious = null;
+                    while(!tmpQueue.isEmpty()) {
+                        RunReader tmpReader = tmpQueue.poll();
+                        String tmpOrigin = tmpReader.getCurrent();
+                        if(!tmpOrigin.equals(tmpPrevious) && !tmpOrigin.equals(anExcludedOrigin)) {
+                            tmpMergedRun.write(tmpStream, tmpOrigin);
+                        }
+                        tmpPrevious = tmpOrigin;
+                        tmpReader.advance();
+                        if(tmpReader.hasCurrent()) {
+                            tmpQueue.add(tmpReader);
+                        }
+                    }
+                }
+                this.runList.clear();
+                this.runList.add(tmpMergedRun);
+                this.spillFile = tmpNewFile;
+                OriginSpillStore.this.spillFileList.add(tmpNewFile);
+                tmpNewFile = null;
+                if(tmpOldFile != null) {
+                    OriginSpillStore.this.spillFileList.remove(tmpOldFile);
+                    Files.deleteIfExists(tmpOldFile);
+                }
+            } catch (IOException anException) {
+                throw new UncheckedIOException(anException);
+            } finally {
+                for(RunReader tmpReader : tmpReaderList) {
+                    tmpReader.close();
+                }
+                if(tmpNewFile != null) {
+                    //The merge failed, the unfinished file is not needed
+                    try {
+                        Files.deleteIfExists(tmpNewFile);
+                    } catch (IOException anException) {
+                        //The original exception is more important
+                    }
+                }
+            }
+        }
+
+        /**
+         * Iterator that merges the single sorted run of the file with the sorted origins of the heap.
+         * The run is read in chunks of at most heap capacity origins. The file is opened for each chunk and closed directly afterwards.
+         */
+        private class MergingIterator implements Iterator<String> {
+            /**
+             * Modification count of the list when the iterator was created
+             */
+            private final int expectedModCount;
+
+            /**
+             * Sorted origins of the heap
+             */
+            private final List<String> heapOriginList;
+
+            /**
+             * Position of the next origin of the heap
+             */
+            private int heapPosition;
+
+            /**
+             * Origins of the current chunk of the run
+             */
+            private final List<String> chunkList;
+
+            /**
+             * Position of the next origin of the chunk
+             */
+            private int chunkPosition;
+
+            /**
+             * File position of the next chunk
+             */
+            private long filePosition;
+
+            /**
+             * Number of origins of the run that have not been read into a chunk
+             */
+            private long remainingCount;
+
+            /**
+             * Constructor
+             * @param aRun Run of the file
+             * @param aSortedHeapOriginList Sorted origins of the heap
+             */
+            private MergingIterator(Run aRun, List<String> aSortedHeapOriginList) {
+                this.expectedModCount = SpillingOriginList.this.modCount;
+                this.heapOriginList = aSortedHeapOriginList;
+                this.heapPosition = 0;
+                this.chunkList = new ArrayList<>();
+                this.chunkPosition = 0;
+                this.filePosition = aRun.position;
+                this.remainingCount = aRun.count;
+            }
+
+            @Override
+            public boolean hasNext() throws UncheckedIOException {
+                return this.peekRun() != null || this.heapPosition < this.heapOriginList.size();
+            }
+
+            @Override
+            public String next() throws UncheckedIOException {
+                if(SpillingOriginList.this.modCount != this.expectedModCount) {
+                    throw new ConcurrentModificationException();
+                }
+                String tmpRunOrigin = this.peekRun();
+                String tmpHeapOrigin = this.heapPosition < this.heapOriginList.size() ? this.heapOriginList.get(this.heapPosition) : null;
+                if(tmpRunOrigin == null && tmpHeapOrigin == null) {
+                    throw new NoSuchElementException();
+                }
+                if(tmpHeapOrigin == null) {
+                    this.chunkPosition++;
+                    return tmpRunOrigin;
+                }
+                if(tmpRunOrigin == null) {
+                    this.heapPosition++;
+                    return tmpHeapOrigin;
+                }
+                int tmpComparison = tmpRunOrigin.compareTo(tmpHeapOrigin);
+                if(tmpComparison <= 0) {
+                    this.chunkPosition++;
+                    if(tmpComparison == 0) {
+                        //The origin is in the run and in the heap
+                        this.heapPosition++;
+                    }
+                    return tmpRunOrigin;
+                }
+                this.heapPosition++;
+                return tmpHeapOrigin;
+            }
+
+            /**
+             * Returns the next origin of the run without consuming it. Reads the next chunk if the current one is used up.
+             * @return next origin of the run, null at its end
+             * @throws UncheckedIOException if the spill file cannot be read
+             */
+            private String peekRun() throws UncheckedIOException {
+                if(this.chunkPosition < this.chunkList.size()) {
+                    return this.chunkList.get(this.chunkPosition);
+                }
+                if(this.remainingCount == 0) {
+                    return null;
+                }
+                long tmpChunkCount = Math.min(this.remainingCount, OriginSpillStore.this.heapCapacity);
+                this.chunkList.clear();
+                this.chunkPosition = 0;
+                RunReader tmpReader = new RunReader(SpillingOriginList.this.spillFile, this.filePosition, tmpChunkCount);
+                try {
+                    while(tmpReader.hasCurrent()) {
+                        this.chunkList.add(tmpReader.getCurrent());
+                        tmpReader.advance();
+                    }
+                    this.filePosition = tmpReader.getPosition();
+                } finally {
+                    tmpReader.close();
+                }
+                this.remainingCount -= tmpChunkCount;
+                return this.chunkList.get(0);
+            }
+        }
+    }
+
+    /**
+     * Sorted run of a spill file with a Bloom filter of its origins and the file positions of every
+     * {@link OriginSpillStore#INDEX_INTERVAL}th origin, which are filled while the run is written.
+     */
+    protected static class Run {
+        /**
+         * File position of the first origin
+         */
+        private final long position;
+
+        /**
+         * Number of written origins
+         */
+        private long count;
+
+        /**
+         * Bits of the Bloom filter
+         */
+        private final long[] bloomBits;
+
+        /**
+         * Every {@link OriginSpillStore#INDEX_INTERVAL}th origin, starting with the first one
+         */
+        private final String[] indexKeys;
+
+        /**
+         * File positions of the origins of indexKeys
+         */
+        private final long[] indexPositions;
+
+        /**
+         * File position behind the last written origin
+         */
+        private long endPosition;
+
+        /**
+         * Constructor
+         * @param aPosition File position of the first origin
+         * @param anExpectedCount Maximum number of origins that are written, used to size the Bloom filter and the keys
+         */
+        protected Run(long aPosition, long anExpectedCount) {
+            this.position = aPosition;
+            this.count = 0;
+            this.bloomBits = new long[(int) Math.max(1L, (anExpectedCount * OriginSpillStore.BLOOM_BITS_PER_ORIGIN + Long.SIZE - 1) / Long.SIZE)];
+            int tmpKeyCount = (int) ((anExpectedCount + OriginSpillStore.INDEX_INTERVAL - 1) / OriginSpillStore.INDEX_INTERVAL);
+            this.indexKeys = new String[tmpKeyCount];
+            this.indexPositions = new long[tmpKeyCount];
+            this.endPosition = aPosition;
+        }
+
+        /**
+         * Writes the next origin of the run and adds it to the filter and the keys. The origins must be written in sorted order.
+         * @param aStream Stream positioned at the end of the run
+         * @param anOrigin Origin SMILES
+         * @throws IOException if the stream fails
+         */
+        protected void write(DataOutputStream aStream, String anOrigin) throws IOException {
+            if(this.count % OriginSpillStore.INDEX_INTERVAL == 0) {
+                int tmpKey = (int) (this.count / OriginSpillStore.INDEX_INTERVAL);
+                this.indexKeys[tmpKey] = anOrigin;
+                this.indexPositions[tmpKey] = this.endPosition;
+            }
+            long tmpBitCount = (long) this.bloomBits.length * Long.SIZE;
+            for(int tmpHash = 0; tmpHash < OriginSpillStore.BLOOM_HASH_COUNT; tmpHash++) {
+                long tmpBit = Math.floorMod(Run.hash(anOrigin, tmpHash), tmpBitCount);
+                this.bloomBits[(int) (tmpBit / Long.SIZE)] |= 1L << (tmpBit % Long.SIZE);
+            }
+            this.endPosition += OriginSpillStore.writeOrigin(aStream, anOrigin);
+            this.count++;
+        }
+
+        /**
+         * Checks the Bloom filter. False means that the origin is not in the run, true that it might be.
+         * @param anOrigin Origin SMILES
+         * @return false if the origin is not in the run
+         */
+        protected boolean mightContain(String anOrigin) {
+            long tmpBitCount = (long) this.bloomBits.length * Long.SIZE;
+            for(int tmpHash = 0; tmpHash < OriginSpillStore.BLOOM_HASH_COUNT; tmpHash++) {
+                long tmpBit = Math.floorMod(Run.hash(anOrigin, tmpHash), tmpBitCount);
+                if((this.bloomBits[(int) (tmpBit / Long.SIZE)] & (1L << (tmpBit % Long.SIZE))) == 0) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        /**
+         * Searches an origin in the block of the run it would be in. At most {@link OriginSpillStore#INDEX_INTERVAL} origins are read.
+         * @param aFile Spill file
+         * @param anOrigin Origin SMILES
+         * @return true if the origin is in the run
+         * @throws UncheckedIOException if the file cannot be read
+         */
+        protected boolean contains(Path aFile, String anOrigin) throws UncheckedIOException {
+            int tmpKeyCount = (int) ((this.count + OriginSpillStore.INDEX_INTERVAL - 1) / OriginSpillStore.INDEX_INTERVAL);
+            int tmpBlock = Arrays.binarySearch(this.indexKeys, 0, tmpKeyCount, anOrigin);
+            if(tmpBlock >= 0) {
+                return true;
+            }
+            //The block starts with the greatest key below the origin
+            tmpBlock = -tmpBlock - 2;
+            if(tmpBlock < 0) {
+                return false;
+            }
+            long tmpBlockCount = Math.min(OriginSpillStore.INDEX_INTERVAL, this.count - (long) tmpBlock * OriginSpillStore.INDEX_INTERVAL);
+            RunReader tmpReader = new RunReader(aFile, this.indexPositions[tmpBlock], tmpBlockCount);
+            try {
+                while(tmpReader.hasCurrent()) {
+                    int tmpComparison = tmpReader.getCurrent().compareTo(anOrigin);
+                    if(tmpComparison == 0) {
+                        return true;
+                    }
+                    if(tmpComparison > 0) {
+                        return false;
+                    }
+                    tmpReader.advance();
+                }
+                return false;
+            } finally {
+                tmpReader.close();
+            }
+        }
+
+        /**
+         * Returns one of the hash values of an origin for the Bloom filter by double hashing.
+         * @param anOrigin Origin SMILES
+         * @param anIndex Index of the hash function
+         * @return hash value
+         */
+        private static long hash(String anOrigin, int anIndex) {
+            long tmpFirstHash = anOrigin.hashCode();
+            long tmpSecondHash = (tmpFirstHash * 0x9E3779B97F4A7C15L) >>> 17;
+            return tmpFirstHash + anIndex * (tmpSecondHash | 1L);
+        }
+    }
+
+    /**
+     * Sequential reader of one sorted run of a spill file.
+     * The file is closed at the end of the run, callers that stop earlier have to close it.
+     */
+    protected static class RunReader {
+        /**
+         * Stream positioned at the next origin
+         */
+        private DataInputStream stream;
+
+        /**
+         * Number of origins of the run that have not been read
+         */
+        private long remainingCount;
+
+        /**
+         * Current origin, null at the end of the run
+         */
+        private String current;
+
+        /**
+         * File position behind the current origin
+         */
+        private long position;
+
+        /**
+         * Constructor, reads the first origin of the run.
+         * @param aFile Spill file
+         * @param aPosition File position of the first origin to read
+         * @param aCount Number of origins to read
+         * @throws UncheckedIOException if the file cannot be read
+         */
+        protected RunReader(Path aFile, long aPosition, long aCount) throws UncheckedIOException {
+            FileChannel tmpChannel = null;
+            try {
+                tmpChannel = FileChannel.open(aFile, StandardOpenOption.READ);
+                tmpChannel.position(aPosition);
+                this.stream = new DataInputStream(new BufferedInputStream(Channels.newInputStream(tmpChannel)));
+            } catch (IOException anException) {
+                if(tmpChannel != null) {
+                    try {
+                        tmpChannel.close();
+                    } catch (IOException aCloseException) {
+                        anException.addSuppressed(aCloseException);
+                    }
+                }
+                throw new UncheckedIOException(anException);
+            }
+            this.position = aPosition;
+            this.remainingCount = aCount;
+            this.advance();
+        }
+
+        /**
+         * Returns whether the end of the run has not been reached.
+         * @return true if there is a current origin
+         */
+        protected boolean hasCurrent() {
+            return this.current != null;
+        }
+
+        /**
+         * Returns the current origin.
+         * @return current origin, null at the end of the run
+         */
+        protected String getCurrent() {
+            return this.current;
+        }
+
+        /**
+         * Returns the file position behind the current origin, i.e. the start of the next one.
+         * @return file position
+         */
+        protected long getPosition() {
+            return this.position;
+        }
+
+        /**
+         * Reads the next origin and closes the file at the end of the run.
+         * @throws UncheckedIOException if the file cannot be read
+         */
+        protected void advance() throws UncheckedIOException {
+            if(this.remainingCount == 0) {
+                this.current = null;
+                this.close();
+                return;
+            }
+            try {
+                byte[] tmpBytes = new byte[this.stream.readInt()];
+                this.stream.readFully(tmpBytes);
+                this.current = new String(tmpBytes, StandardCharsets.UTF_8);
+                this.position += Integer.BYTES + tmpBytes.length;
+                this.remainingCount--;
+            } catch (IOException anException) {
+                this.close();
+                throw new UncheckedIOException(anException);
+            }
+        }
+
+        /**
+         * Closes the file. Can be called several times.
+         */
+        protected void close() {
+            if(this.stream != null) {
+                try {
+                    this.stream.close();
+                } catch (IOException anException) {
+                    //Nothing left to read
+                }
+                this.stream = null;
+            }
+        }
+    }
+
+    /**
+     * Writes an origin as length and UTF-8 bytes.
+     * @param aStream Stream to write to
+     * @param anOrigin Origin SMILES
+     * @return number of written bytes
+     * @throws IOException if the stream fails
+     */
+    private static int writeOrigin(DataOutputStream aStream, String anOrigin) throws IOException {
+        byte[] tmpBytes = anOrigin.getBytes(StandardCharsets.UTF_8);
+        aStream.writeInt(tmpBytes.length);
+        aStream.write(tmpBytes);
+        return Integer.BYTES + tmpBytes.length;
+    }
+}
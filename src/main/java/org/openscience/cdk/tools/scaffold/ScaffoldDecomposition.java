@@ -0,0 +1,111 @@
+/*
+ * Copyright (c) 2026 Julian Zander <zanderjulian@gmx.de>
+ *                    Jonas Schaub <jonas.schaub@uni-jena.de>
+ *                    Achim Zielesny <achim.zielesny@w-hs.de>
+ *                    Christoph Steinbeck <christoph.steinbeck@uni-jena.de>
+ *
+ * Contact: cdk-devel@lists.sourceforge.net
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+
+package org.openscience.cdk.tools.scaffold;
+
+import org.openscience.cdk.interfaces.IAtomContainer;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Scaffold, rings, linkers and side chains of one molecule, generated together by
+ * {@link ScaffoldGenerator#decompose(IAtomContainer, boolean)}.
+ * The fragments are the same as those returned by {@link ScaffoldGenerator#getScaffold(IAtomContainer, boolean)},
+ * {@link ScaffoldGenerator#getRings(IAtomContainer, boolean)}, {@link ScaffoldGenerator#getLinkers(IAtomContainer, boolean)}
+ * and {@link ScaffoldGenerator#getSideChains(IAtomContainer, boolean)} with the same settings.
+ *
+ * @author Julian Zander (zanderjulian@gmx.de)
+ * @author Jonas Schaub (jonas.schaub@uni-jena.de)
+ * @version 1.0.0.0
+ */
+public class ScaffoldDecomposition {
+    /**
+     * Scaffold of the molecule
+     */
+    private final IAtomContainer scaffold;
+
+    /**
+     * Rings of the scaffold
+     */
+    private final List<IAtomContainer> rings;
+
+    /**
+     * Linkers of the scaffold
+     */
+    private final List<IAtomContainer> linkers;
+
+    /**
+     * Side chains of the molecule
+     */
+    private final List<IAtomContainer> sideChains;
+
+    /**
+     * Constructor
+     * @param aScaffold Scaffold of the molecule
+     * @param aRingList Rings of the scaffold
+     * @param aLinkerList Linkers of the scaffold
+     * @param aSideChainList Side chains of the molecule
+     * @throws NullPointerException if a parameter is null
+     */
+    protected ScaffoldDecomposition(IAtomContainer aScaffold, List<IAtomContainer> aRingList, List<IAtomContainer> aLinkerList,
+                                    List<IAtomContainer> aSideChainList) throws NullPointerException {
+        this.scaffold = Objects.requireNonNull(aScaffold, "Given scaffold is 'null'");
+        this.rings = Collections.unmodifiableList(Objects.requireNonNull(aRingList, "Given ring list is 'null'"));
+        this.linkers = Collections.unmodifiableList(Objects.requireNonNull(aLinkerList, "Given linker list is 'null'"));
+        this.sideChains = Collections.unmodifiableList(Objects.requireNonNull(aSideChainList, "Given side chain list is 'null'"));
+    }
+
+    /**
+     * Returns the scaffold of the molecule.
+     * @return scaffold, an empty molecule if the molecule does not contain a scaffold
+     */
+    public IAtomContainer getScaffold() {
+        return this.scaffold;
+    }
+
+    /**
+     * Returns the rings of the scaffold.
+     * @return unmodifiable list of rings
+     */
+    public List<IAtomContainer> getRings() {
+        return this.rings;
+    }
+
+    /**
+     * Returns the linkers of the scaffold.
+     * @return unmodifiable list of linkers
+     */
+    public List<IAtomContainer> getLinkers() {
+        return this.linkers;
+    }
+
+    /**
+     * Returns the side chains of the molecule.
+     * @return unmodifiable list of side chains
+     */
+    public List<IAtomContainer> getSideChains() {
+        return this.sideChains;
+    }
+}
@@ -0,0 +1,105 @@
+/*
+ * Copyright (c) 2026 Julian Zander <zanderjulian@gmx.de>
+ *                    Jonas Schaub <jonas.schaub@uni-jena.de>
+ *                    Achim Zielesny <achim.zielesny@w-hs.de>
+ *                    Christoph Steinbeck <christoph.steinbeck@uni-jena.de>
+ *
+ * Contact: cdk-devel@lists.sourceforge.net
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+package org.openscience.cdk.tools.scaffold;
+
+import org.openscience.cdk.exception.CDKException;
+import org.openscience.cdk.fingerprint.Fingerprinter;
+import org.openscience.cdk.interfaces.IAtomContainer;
+
+/**
+ * Creates path fingerprints of scaffolds as packed long[] bit sets.
+ * Used by {@link ScaffoldSubstructureIndex} and {@link ScaffoldSimilarityIndex} for the nodes and the queries alike.
+ * The CDK fingerprinter perceives the atom types of the given molecule and applies the CDK legacy aromaticity model to it.
+ *
+ * @author Julian Zander (zanderjulian@gmx.de)
+ * @author Jonas Schaub (jonas.schaub@uni-jena.de)
+ * @version 1.0.0.0
+ */
+public class ScaffoldFingerprinter {
+    /**
+     * Default number of bits of the path fingerprints.
+     */
+    public static final int FINGERPRINT_SIZE_DEFAULT = Fingerprinter.DEFAULT_SIZE;
+
+    /**
+     * Default maximum path length of the path fingerprints.
+     */
+    public static final int SEARCH_DEPTH_DEFAULT = Fingerprinter.DEFAULT_SEARCH_DEPTH;
+
+    /**
+     * CDK fingerprinter
+     */
+    private final Fingerprinter fingerprinter;
+
+    /**
+     * Number of bits of the fingerprints
+     */
+    private final int fingerprintSize;
+
+    /**
+     * Constructor
+     * @param aFingerprintSize Number of bits of the path fingerprints
+     * @param aSearchDepth Maximum path length of the path fingerprints
+     * @throws IllegalArgumentException if the fingerprint size or the search depth is smaller than 1
+     */
+    public ScaffoldFingerprinter(int aFingerprintSize, int aSearchDepth) throws IllegalArgumentException {
+        if(aFingerprintSize < 1) {
+            throw new IllegalArgumentException("Given fingerprint size must be at least 1: " + aFingerprintSize);
+        }
+        if(aSearchDepth < 1) {
+            throw new IllegalArgumentException("Given search depth must be at least 1: " + aSearchDepth);
+        }
+        this.fingerprinter = new Fingerprinter(aFingerprintSize, aSearchDepth);
+        this.fingerprintSize = aFingerprintSize;
+    }
+
+    /**
+     * Constructor with {@link ScaffoldFingerprinter#FINGERPRINT_SIZE_DEFAULT} bits and
+     * a search depth of {@link ScaffoldFingerprinter#SEARCH_DEPTH_DEFAULT}.
+     */
+    public ScaffoldFingerprinter() {
+        this(ScaffoldFingerprinter.FINGERPRINT_SIZE_DEFAULT, ScaffoldFingerprinter.SEARCH_DEPTH_DEFAULT);
+    }
+
+    /**
+     * Returns the number of bits of the fingerprints.
+     * @return fingerprint size
+     */
+    public int getFingerprintSize() {
+        return this.fingerprintSize;
+    }
+
+    /**
+     * Creates the packed path fingerprint of the molecule.
+     * The atom types and aromaticity of the molecule are perceived, so a clone should be given.
+     * @param aMolecule Molecule whose fingerprint is to be created. Is changed.
+     * @return packed fingerprint or null if it cannot be created, e.g. because the molecule has too many paths
+     */
+    public long[] createFingerprint(IAtomContainer aMolecule) {
+        try {
+            return this.fingerprinter.getBitFingerprint(aMolecule).asBitSet().toLongArray();
+        } catch (CDKException anException) {
+            return null;
+        }
+    }
+}
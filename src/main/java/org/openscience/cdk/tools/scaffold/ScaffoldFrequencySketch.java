@@ -0,0 +1,159 @@
+/*
+ * Copyright (c) 2026 Julian Zander <zanderjulian@gmx.de>
+ *                    Jonas Schaub <jonas.schaub@uni-jena.de>
+ *                    Achim Zielesny <achim.zielesny@w-hs.de>
+ *                    Christoph Steinbeck <christoph.steinbeck@uni-jena.de>
+ *
+ * Contact: cdk-devel@lists.sourceforge.net
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+
+package org.openscience.cdk.tools.scaffold;
+
+import java.util.Objects;
+
+/**
+ * Count-min sketch that estimates how often scaffold keys, e.g. unique SMILES, occur with a fixed amount of memory.
+ * The estimate is never smaller than the true count, but can be larger if keys collide.
+ * The counters are increased conservatively, i.e. only the smallest counters of a key are increased,
+ * which reduces the overestimation.
+ * Used by {@link ScaffoldGenerator} to prune infrequent scaffolds before the nodes are created.
+ *
+ * @author Julian Zander (zanderjulian@gmx.de)
+ * @author Jonas Schaub (jonas.schaub@uni-jena.de)
+ * @version 1.0.0.0
+ */
+public class ScaffoldFrequencySketch {
+    /**
+     * Default number of rows, i.e. independent hash functions, of the sketch.
+     */
+    public static final int DEPTH_DEFAULT = 4;
+
+    /**
+     * Counters of the sketch, one row per hash function.
+     */
+    private final int[][] counters;
+
+    /**
+     * Number of counters per row.
+     */
+    private final int width;
+
+    /**
+     * Constructor
+     * @param aWidth Number of counters per row. The overestimation shrinks with the width.
+     * @param aDepth Number of rows. The probability of a large overestimation shrinks with the depth.
+     * @throws IllegalArgumentException if a parameter is smaller than 1
+     */
+    public ScaffoldFrequencySketch(int aWidth, int aDepth) throws IllegalArgumentException {
+        if(aWidth < 1) {
+            throw new IllegalArgumentException("Given width must be at least 1: " + aWidth);
+        }
+        if(aDepth < 1) {
+            throw new IllegalArgumentException("Given depth must be at least 1: " + aDepth);
+        }
+        this.width = aWidth;
+        this.counters = new int[aDepth][aWidth];
+    }
+
+    /**
+     * Constructor with {@link ScaffoldFrequencySketch#DEPTH_DEFAULT} rows.
+     * @param aWidth Number of counters per row
+     * @throws IllegalArgumentException if parameter is smaller than 1
+     */
+    public ScaffoldFrequencySketch(int aWidth) throws IllegalArgumentException {
+        this(aWidth, ScaffoldFrequencySketch.DEPTH_DEFAULT);
+    }
+
+    /**
+     * Counts one occurrence of the key.
+     * @param aKey Key to count
+     * @throws NullPointerException if parameter is null
+     */
+    public void add(String aKey) throws NullPointerException {
+        Objects.requireNonNull(aKey, "Given key is 'null'");
+        int[] tmpIndices = this.getIndices(aKey);
+        int tmpEstimate = this.estimate(tmpIndices);
+        /*Conservative update: only the counters that determine the estimate are increased*/
+        for(int tmpRow = 0; tmpRow < this.counters.length; tmpRow++) {
+            if(this.counters[tmpRow][tmpIndices[tmpRow]] == tmpEstimate && tmpEstimate < Integer.MAX_VALUE) {
+                this.counters[tmpRow][tmpIndices[tmpRow]]++;
+            }
+        }
+    }
+
+    /**
+     * Returns the estimated number of occurrences of the key. Never smaller than the true number.
+     * @param aKey Key to look up
+     * @return estimated count
+     * @throws NullPointerException if parameter is null
+     */
+    public int estimate(String aKey) throws NullPointerException {
+        Objects.requireNonNull(aKey, "Given key is 'null'");
+        return this.estimate(this.getIndices(aKey));
+    }
+
+    /**
+     * Returns the number of counters per row.
+     * @return width of the sketch
+     */
+    public int getWidth() {
+        return this.width;
+    }
+
+    /**
+     * Returns the number of rows.
+     * @return depth of the sketch
+     */
+    public int getDepth() {
+        return this.counters.length;
+    }
+
+    /**
+     * Returns the smallest counter at the given indices.
+     * @param anIndices Index of the key in each row
+     * @return estimated count
+     */
+    protected int estimate(int[] anIndices) {
+        int tmpMinimum = Integer.MAX_VALUE;
+        for(int tmpRow = 0; tmpRow < this.counters.length; tmpRow++) {
+            tmpMinimum = Math.min(tmpMinimum, this.counters[tmpRow][anIndices[tmpRow]]);
+        }
+        return tmpMinimum;
+    }
+
+    /**
+     * Calculates the index of the key in each row.
+     * The row hashes are derived from two base hashes (Kirsch-Mitzenmacher) of the key.
+     * @param aKey Key to hash
+     * @return index of the key in each row
+     */
+    protected int[] getIndices(String aKey) {
+        int tmpFirstHash = aKey.hashCode();
+        /*Second, independent hash: FNV-1a over the characters of the key, made odd so that all rows differ*/
+        int tmpSecondHash = 0x811c9dc5;
+        for(int tmpCharIndex = 0; tmpCharIndex < aKey.length(); tmpCharIndex++) {
+            tmpSecondHash ^= aKey.charAt(tmpCharIndex);
+            tmpSecondHash *= 0x01000193;
+        }
+        tmpSecondHash |= 1;
+        int[] tmpIndices = new int[this.counters.length];
+        for(int tmpRow = 0; tmpRow < this.counters.length; tmpRow++) {
+            tmpIndices[tmpRow] = Math.floorMod(tmpFirstHash + tmpRow * tmpSecondHash, this.width);
+        }
+        return tmpIndices;
+    }
+}
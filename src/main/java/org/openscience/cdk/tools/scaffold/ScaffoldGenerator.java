@@ -27,6 +27,7 @@ import org.openscience.cdk.CDKConstants;
 import org.openscience.cdk.aromaticity.Aromaticity;
 import org.openscience.cdk.aromaticity.ElectronDonation;
 import org.openscience.cdk.exception.CDKException;
+import org.openscience.cdk.exception.InvalidSmilesException;
 import org.openscience.cdk.fragment.MurckoFragmenter;
 import org.openscience.cdk.graph.ConnectivityChecker;
 import org.openscience.cdk.graph.CycleFinder;
@@ -37,22 +38,63 @@ import org.openscience.cdk.interfaces.IAtomContainerSet;
 import org.openscience.cdk.interfaces.IAtomType;
 import org.openscience.cdk.interfaces.IBond;
 import org.openscience.cdk.interfaces.IChemObject;
+import org.openscience.cdk.interfaces.IChemObjectBuilder;
 import org.openscience.cdk.interfaces.IRingSet;
 import org.openscience.cdk.interfaces.IStereoElement;
+import org.openscience.cdk.ringsearch.RingSearch;
 import org.openscience.cdk.smiles.SmiFlavor;
 import org.openscience.cdk.smiles.SmilesGenerator;
+import org.openscience.cdk.smiles.SmilesParser;
 import org.openscience.cdk.tools.CDKHydrogenAdder;
 import org.openscience.cdk.tools.ILoggingTool;
 import org.openscience.cdk.tools.LoggingToolFactory;
 import org.openscience.cdk.tools.manipulator.AtomContainerManipulator;
 
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.EnumMap;
+import java.util.EnumSet;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
 import java.util.NoSuchElementException;
 import java.util.Objects;
+import java.util.Set;
+import java.util.Spliterator;
+import java.util.Spliterators;
 import java.util.TreeMap;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 /**
  * This class is designed to generate different molecule scaffolds and frameworks.
@@ -115,6 +157,342 @@ public class ScaffoldGenerator {
         BASIC_FRAMEWORK()
     }
 
+    /**
+     * Evaluation applied to a single candidate, e.g. the removal of one ring from a fragment.
+     * Used by {@link ScaffoldGenerator#evaluateCandidates(List, CandidateEvaluation)}.
+     *
+     * @param <CandidateType> type of the evaluated candidates
+     * @param <ResultType> type of the evaluation results
+     */
+    @FunctionalInterface
+    protected interface CandidateEvaluation<CandidateType, ResultType> {
+        /**
+         * Evaluates the given candidate.
+         * @param aCandidate candidate to evaluate
+         * @return result of the evaluation
+         * @throws CDKException problem with CDKHydrogenAdder: Throws if insufficient information is present or problem with aromaticity.apply()
+         * @throws CloneNotSupportedException if cloning is not possible.
+         */
+        ResultType evaluate(CandidateType aCandidate) throws CDKException, CloneNotSupportedException;
+    }
+
+    /**
+     * Folds the result of one molecule into the collection built by the merger stage of
+     * {@link ScaffoldGenerator#runPipeline(Iterator, int, int, CandidateEvaluation, PipelineMerge)}.
+     *
+     * @param <ResultType> type of the worker results
+     */
+    @FunctionalInterface
+    protected interface PipelineMerge<ResultType> {
+        /**
+         * Merges the result of one molecule.
+         * @param aResult result of the worker stage
+         * @throws CDKException In case of a problem with the SmilesGenerator
+         */
+        void merge(ResultType aResult) throws CDKException;
+    }
+
+    /**
+     * Molecule passed between the stages of the pipelined batch engine together with its position in the input
+     * and, after the worker stage, its result or the exception it caused. An item without molecule marks the end of the input.
+     *
+     * @param <ResultType> type of the worker results
+     */
+    protected static class PipelineItem<ResultType> {
+        /**
+         * Position of the molecule in the input
+         */
+        protected final long position;
+
+        /**
+         * Input molecule, null for the end of the input
+         */
+        protected final IAtomContainer molecule;
+
+        /**
+         * Result of the worker stage
+         */
+        protected ResultType result;
+
+        /**
+         * Exception or error thrown by the worker stage
+         */
+        protected Throwable exception;
+
+        /**
+         * Constructor
+         * @param aPosition position of the molecule in the input
+         * @param aMolecule input molecule, null for the end of the input
+         */
+        protected PipelineItem(long aPosition, IAtomContainer aMolecule) {
+            this.position = aPosition;
+            this.molecule = aMolecule;
+        }
+    }
+
+    /**
+     * Per-run context that carries the choice between {@link ScaffoldGenerator#CYCLE_FINDER} and
+     * {@link ScaffoldGenerator#CYCLE_FINDER_BACKUP} through the decomposition of one input molecule.
+     * The choice is made once at the start of the run and can only switch to the backup cycle finder afterwards,
+     * which then applies to all following steps of the run. Safe to share between the tasks of the parallel evaluation.
+     */
+    protected static class CycleFinderContext {
+        /**
+         * Indicates whether ScaffoldGenerator.CYCLE_FINDER_BACKUP is used.
+         */
+        private volatile boolean isBackupCycleFinderUsed;
+
+        /**
+         * Constructor
+         * @param anIsBackupCycleFinderUsed if true, ScaffoldGenerator.CYCLE_FINDER_BACKUP is used from the start
+         */
+        protected CycleFinderContext(boolean anIsBackupCycleFinderUsed) {
+            this.isBackupCycleFinderUsed = anIsBackupCycleFinderUsed;
+        }
+
+        /**
+         * Indicates whether ScaffoldGenerator.CYCLE_FINDER_BACKUP is used.
+         * @return true if the backup cycle finder is used
+         */
+        public boolean isBackupCycleFinderUsed() {
+            return this.isBackupCycleFinderUsed;
+        }
+
+        /**
+         * Returns the cycle finder selected for this run.
+         * @return ScaffoldGenerator.CYCLE_FINDER_BACKUP if the run has switched to it, otherwise ScaffoldGenerator.CYCLE_FINDER
+         */
+        public CycleFinder getCycleFinder() {
+            return this.isBackupCycleFinderUsed ? ScaffoldGenerator.CYCLE_FINDER_BACKUP : ScaffoldGenerator.CYCLE_FINDER;
+        }
+
+        /**
+         * Switches the rest of the run to ScaffoldGenerator.CYCLE_FINDER_BACKUP.
+         * @return true if this call has switched the cycle finder, false if the backup cycle finder was already used
+         */
+        public synchronized boolean switchToBackupCycleFinder() {
+            if(this.isBackupCycleFinderUsed) {
+                return false;
+            }
+            this.isBackupCycleFinderUsed = true;
+            return true;
+        }
+    }
+
+    /**
+     * Removal path of a scaffold of the {@link EnumerativeRemovalIterator} whose terminal rings have not yet been removed.
+     * The scaffold is created again from the scaffold of the molecule by removing the rings of the path one after the other.
+     * Paths with a common beginning share it, so a pending scaffold only takes one small object instead of a molecule.
+     */
+    protected static class RemovalPath {
+        /**
+         * Path of the scaffold the ring was removed from, null for the scaffold of the molecule.
+         */
+        private final RemovalPath parentPath;
+
+        /**
+         * Index of the removed ring in the rings of the parent scaffold returned by getRingsInternal().
+         */
+        private final int ringIndex;
+
+        /**
+         * Number of rings removed from the scaffold of the molecule.
+         */
+        private final int depth;
+
+        /**
+         * Constructor
+         * @param aParentPath Path of the scaffold the ring was removed from, null for the scaffold of the molecule
+         * @param aRingIndex Index of the removed ring in the rings of the parent scaffold, ignored for the scaffold of the molecule
+         */
+        protected RemovalPath(RemovalPath aParentPath, int aRingIndex) {
+            this.parentPath = aParentPath;
+            this.ringIndex = aRingIndex;
+            this.depth = aParentPath == null ? 0 : aParentPath.depth + 1;
+        }
+
+        /**
+         * Returns the indices of the removed rings, starting with the ring removed from the scaffold of the molecule.
+         * @return indices of the removed rings
+         */
+        protected int[] getRingIndices() {
+            int[] tmpRingIndices = new int[this.depth];
+            RemovalPath tmpPath = this;
+            for(int tmpStep = this.depth - 1; tmpStep >= 0; tmpStep--) {
+                tmpRingIndices[tmpStep] = tmpPath.ringIndex;
+                tmpPath = tmpPath.parentPath;
+            }
+            return tmpRingIndices;
+        }
+    }
+
+    /**
+     * Iterator over the scaffolds of the enumerative removal of one molecule, see {@link ScaffoldGenerator#iterateEnumerativeRemoval(IAtomContainer)}.
+     * The scaffolds are generated on demand in the same breadth-first order as by {@link ScaffoldGenerator#applyEnumerativeRemoval(IAtomContainer)}.
+     * Only the SMILES of the scaffolds already returned, the scaffold of the molecule and the removal paths of the scaffolds
+     * whose terminal rings have not yet been removed are retained. A pending scaffold is created again from its path when it is expanded.
+     */
+    public class EnumerativeRemovalIterator implements Iterator<IAtomContainer> {
+        /**
+         * Copy of the scaffold of the molecule, the start of all removal paths.
+         */
+        private final IAtomContainer scaffold;
+
+        /**
+         * Removal paths of the scaffolds whose terminal rings have not yet been removed.
+         */
+        private final ArrayDeque<RemovalPath> expansionQueue;
+
+        /**
+         * Scaffolds that have been generated but not yet returned.
+         */
+        private final ArrayDeque<IAtomContainer> outputQueue;
+
+        /**
+         * Unique SMILES of all scaffolds generated so far, used to skip duplicates.
+         */
+        private final Set<String> addedSmilesSet;
+
+        /**
+         * Per-run context that selects the cycle finder.
+         */
+        private final CycleFinderContext cycleFinderContext;
+
+        /**
+         * Start of the run as returned by System.nanoTime().
+         */
+        private final long startTime;
+
+        /**
+         * Number of scaffolds generated so far.
+         */
+        private int fragmentCounter;
+
+        /**
+         * Indicates whether the enumeration was stopped early because a budget is exhausted.
+         */
+        private boolean isTruncated;
+
+        /**
+         * Constructor
+         * @param aScaffold Scaffold of the entire molecule, returned first
+         * @param aCycleFinderContext Per-run context that selects the cycle finder
+         * @param anIsTruncated true if the scaffold is not to be disassembled
+         * @throws CloneNotSupportedException if cloning is not possible.
+         */
+        protected EnumerativeRemovalIterator(IAtomContainer aScaffold, CycleFinderContext aCycleFinderContext, boolean anIsTruncated)
+                throws CloneNotSupportedException {
+            //The returned scaffold may be changed by the caller
+            this.scaffold = aScaffold.clone();
+            this.expansionQueue = new ArrayDeque<>();
+            this.outputQueue = new ArrayDeque<>();
+            this.addedSmilesSet = new HashSet<>();
+            this.cycleFinderContext = aCycleFinderContext;
+            this.startTime = System.nanoTime();
+            this.isTruncated = anIsTruncated;
+            this.outputQueue.add(aScaffold);
+            this.fragmentCounter = 1;
+            if(!anIsTruncated) {
+                this.expansionQueue.add(new RemovalPath(null, -1));
+            }
+        }
+
+        /**
+         * Indicates whether there is another scaffold. Removes the terminal rings of the pending scaffolds until a new one is found.
+         * @return true if there is another scaffold
+         * @throws IllegalStateException if the decomposition fails, with the CDKException or CloneNotSupportedException as cause
+         */
+        @Override
+        public boolean hasNext() throws IllegalStateException {
+            while(this.outputQueue.isEmpty() && !this.expansionQueue.isEmpty() && !this.isTruncated) {
+                //Stop if the time budget is exhausted
+                if(ScaffoldGenerator.this.isWallTimeExceeded(this.startTime)) {
+                    this.isTruncated = true;
+                    break;
+                }
+                RemovalPath tmpPath = this.expansionQueue.poll();
+                List<IAtomContainer> tmpRingRemovedList;
+                try {
+                    IAtomContainer tmpFragment = this.createFragment(tmpPath);
+                    List<IAtomContainer> tmpRings = ScaffoldGenerator.this.getRingsInternal(tmpFragment, true, this.cycleFinderContext);
+                    /*Skip fragments with less than 2 rings*/
+                    if(tmpRings.size() < 2) {
+                        continue;
+                    }
+                    tmpRingRemovedList = ScaffoldGenerator.this.getRingRemovedFragments(tmpFragment, tmpRings, this.cycleFinderContext);
+                } catch (CDKException | CloneNotSupportedException anException) {
+                    throw new IllegalStateException("Enumerative removal failed: " + anException.getMessage(), anException);
+                }
+                for(int tmpRingIndex = 0; tmpRingIndex < tmpRingRemovedList.size(); tmpRingIndex++) { //Go through all terminal rings that were removed
+                    IAtomContainer tmpRingRemoved = tmpRingRemovedList.get(tmpRingIndex);
+                    if(tmpRingRemoved == null) {
+                        continue;
+                    }
+                    String tmpRingRemovedSMILES;
+                    try {
+                        tmpRingRemovedSMILES = ScaffoldGenerator.this.getSmilesGenerator().create(tmpRingRemoved); //Generate SMILES
+                    } catch (CDKException anException) {
+                        throw new IllegalStateException("Enumerative removal failed: " + anException.getMessage(), anException);
+                    }
+                    if(!this.addedSmilesSet.contains(tmpRingRemovedSMILES)) { //Add the molecule only if it is not already returned
+                        //Stop if the fragment budget is exhausted
+                        if(this.fragmentCounter >= ScaffoldGenerator.this.maximumFragmentCountSetting) {
+                            this.isTruncated = true;
+                            break;
+                        }
+                        this.addedSmilesSet.add(tmpRingRemovedSMILES);
+                        this.expansionQueue.add(new RemovalPath(tmpPath, tmpRingIndex));
+                        this.outputQueue.add(tmpRingRemoved);
+                        this.fragmentCounter++;
+                    }
+                }
+            }
+            return !this.outputQueue.isEmpty();
+        }
+
+        /**
+         * Returns the next scaffold.
+         * @return next scaffold
+         * @throws NoSuchElementException if there are no more scaffolds
+         * @throws IllegalStateException if the decomposition fails, with the CDKException or CloneNotSupportedException as cause
+         */
+        @Override
+        public IAtomContainer next() throws NoSuchElementException, IllegalStateException {
+            if(!this.hasNext()) {
+                throw new NoSuchElementException("No more scaffolds");
+            }
+            return this.outputQueue.poll();
+        }
+
+        /**
+         * Indicates whether the enumeration was stopped early because one of the budgets
+         * {@link ScaffoldGenerator#maximumFragmentCountSetting}, {@link ScaffoldGenerator#maximumRingCountSetting} or
+         * {@link ScaffoldGenerator#maximumWallTimeSetting} is exhausted. Final once hasNext() returns false.
+         * @return true if the enumeration was stopped early
+         */
+        public boolean isTruncated() {
+            return this.isTruncated;
+        }
+
+        /**
+         * Creates the scaffold of a removal path again. The rings are removed in the same way as by getRingRemovedFragments(),
+         * so the result is the same scaffold with the same atom order.
+         * @param aPath Removal path of the scaffold
+         * @return scaffold of the path
+         * @throws CDKException problem with CDKHydrogenAdder: Throws if insufficient information is present
+         * @throws CloneNotSupportedException if cloning is not possible.
+         */
+        private IAtomContainer createFragment(RemovalPath aPath) throws CDKException, CloneNotSupportedException {
+            IAtomContainer tmpFragment = this.scaffold;
+            for(int tmpRingIndex : aPath.getRingIndices()) {
+                IAtomContainer tmpRing = ScaffoldGenerator.this.getRingsInternal(tmpFragment, true, this.cycleFinderContext).get(tmpRingIndex);
+                tmpFragment = ScaffoldGenerator.this.getScaffoldInternal(ScaffoldGenerator.this.removeRing(tmpFragment, true, tmpRing, this.cycleFinderContext), true,
+                        ScaffoldGenerator.this.determineAromaticitySetting, ScaffoldGenerator.this.aromaticityModelSetting, ScaffoldGenerator.this.scaffoldModeSetting);
+            }
+            return tmpFragment;
+        }
+    }
+
     /**
      * Property of the atoms according to which they are counted and identified.
      */
@@ -130,6 +508,12 @@ public class ScaffoldGenerator {
      */
     public static final String CYCLE_FINDER_BACKUP_PROPERTY = "CYCLE_FINDER_BACKUP_PROPERTY";
 
+    /**
+     * Property of the first fragment returned by {@link ScaffoldGenerator#applyEnumerativeRemoval(IAtomContainer)}.
+     * It is true if the enumeration was stopped early because one of the budgets was exhausted.
+     */
+    public static final String SCAFFOLD_TRUNCATED_PROPERTY = "SCAFFOLD_TRUNCATED_PROPERTY";
+
     /**
      * Backup cycle finder used to detect rings.
      * The relevant cycle finder has problems with a few molecules and also finds too many rings in some molecules.
@@ -173,6 +557,82 @@ public class ScaffoldGenerator {
      */
     public static final ScaffoldModeOption SCAFFOLD_MODE_OPTION_DEFAULT = ScaffoldModeOption.SCAFFOLD;
 
+    /**
+     * Default setting for whether candidate rings and network frontier fragments should be evaluated in parallel.
+     * By default, everything is evaluated sequentially in the calling thread.
+     */
+    public static final boolean PARALLEL_RING_EVALUATION_SETTING_DEFAULT = false;
+
+    /**
+     * Default setting for which fork-join pool should be used for the parallel evaluation.
+     * By default, it is null and the common pool is used.
+     */
+    public static final ForkJoinPool FORK_JOIN_POOL_SETTING_DEFAULT = null;
+
+    /**
+     * Default setting for the maximum number of fragments generated per molecule by the enumerative removal and the network generation.
+     * By default, there is no limit.
+     */
+    public static final int MAXIMUM_FRAGMENT_COUNT_SETTING_DEFAULT = Integer.MAX_VALUE;
+
+    /**
+     * Default setting for the maximum number of rings of a scaffold that is still disassembled by the enumerative removal
+     * and the network generation. By default, there is no limit.
+     */
+    public static final int MAXIMUM_RING_COUNT_SETTING_DEFAULT = Integer.MAX_VALUE;
+
+    /**
+     * Default setting for the maximum wall time in milliseconds spent per molecule by the enumerative removal and the network generation.
+     * By default, there is no limit.
+     */
+    public static final long MAXIMUM_WALL_TIME_SETTING_DEFAULT = Long.MAX_VALUE;
+
+    /**
+     * Default setting for the cyclomatic number of a fused ring system from which on the CYCLE_FINDER_BACKUP is used up front.
+     * By default, the backup cycle finder is never predicted.
+     */
+    public static final int MAXIMUM_CYCLOMATIC_NUMBER_SETTING_DEFAULT = Integer.MAX_VALUE;
+
+    /**
+     * Default setting for the number of atoms of a fused ring system from which on the CYCLE_FINDER_BACKUP is used up front.
+     * By default, the backup cycle finder is never predicted.
+     */
+    public static final int MAXIMUM_RING_SYSTEM_SIZE_SETTING_DEFAULT = Integer.MAX_VALUE;
+
+    /**
+     * Default setting for the maximum number of rings removed by the Schuffenhauer rules.
+     * By default, the rings are removed until only one ring remains.
+     */
+    public static final int MAXIMUM_SCHUFFENHAUER_REMOVAL_COUNT_SETTING_DEFAULT = Integer.MAX_VALUE;
+
+    /**
+     * Default setting for the ring count at which the removal by the Schuffenhauer rules stops.
+     * By default, the rings are removed until only one ring remains.
+     */
+    public static final int MINIMUM_SCHUFFENHAUER_RING_COUNT_SETTING_DEFAULT = 1;
+
+    /**
+     * Default setting for the number of counters per row of the {@link ScaffoldFrequencySketch} used by the frequency-pruned builds.
+     * With the default depth, the sketch takes 16 MB.
+     */
+    public static final int FREQUENCY_SKETCH_WIDTH_SETTING_DEFAULT = 1 << 20;
+
+    /**
+     * Default setting for the number of origins kept in the heap by a generated network or forest before they are spilled.
+     * By default, all origins are kept in the heap.
+     */
+    public static final int ORIGIN_SPILL_HEAP_CAPACITY_SETTING_DEFAULT = Integer.MAX_VALUE;
+
+    /**
+     * Default setting for the directory origins are spilled to: the temporary directory of the system.
+     */
+    public static final Path ORIGIN_SPILL_DIRECTORY_SETTING_DEFAULT = Paths.get(System.getProperty("java.io.tmpdir"));
+
+    /**
+     * Identifies checkpoint files of the resumable batch generation
+     */
+    protected static final int CHECKPOINT_MAGIC_NUMBER = 0x5343434B;
+
     /**
      * Specifies whether the aromaticity is to be taken into account.
      */
@@ -206,9 +666,85 @@ public class ScaffoldGenerator {
     private boolean retainOnlyHybridisationsAtAromaticBondsSetting;
 
     /**
-     * Counts logged exceptions.
+     * Indicates whether the candidate rings of a fragment and the frontier fragments of the network expansion
+     * are evaluated concurrently on {@link ScaffoldGenerator#forkJoinPoolSetting}.
+     * Only worthwhile for large polycyclic molecules; the results are identical to the sequential evaluation.
+     */
+    private boolean parallelRingEvaluationSetting;
+
+    /**
+     * Fork-join pool used for the parallel evaluation. If null, the common pool is used.
+     */
+    private ForkJoinPool forkJoinPoolSetting;
+
+    /**
+     * Maximum number of fragments generated per molecule by the enumerative removal and the network generation.
+     */
+    private int maximumFragmentCountSetting;
+
+    /**
+     * Maximum number of rings of a scaffold that is still disassembled by the enumerative removal and the network generation.
+     * Scaffolds with more rings are returned without being disassembled.
+     */
+    private int maximumRingCountSetting;
+
+    /**
+     * Maximum wall time in milliseconds spent per molecule by the enumerative removal and the network generation.
+     */
+    private long maximumWallTimeSetting;
+
+    /**
+     * Largest cyclomatic number of a fused ring system that is still decomposed with the CYCLE_FINDER.
+     * Molecules with a larger ring system are decomposed with the CYCLE_FINDER_BACKUP from the start.
+     */
+    private int maximumCyclomaticNumberSetting;
+
+    /**
+     * Largest number of atoms of a fused ring system that is still decomposed with the CYCLE_FINDER.
+     * Molecules with a larger ring system are decomposed with the CYCLE_FINDER_BACKUP from the start.
+     */
+    private int maximumRingSystemSizeSetting;
+
+    /**
+     * Maximum number of rings removed by the Schuffenhauer rules from the scaffold of a molecule.
+     */
+    private int maximumSchuffenhauerRemovalCountSetting;
+
+    /**
+     * Scaffolds with this number of rings or fewer are not disassembled further by the Schuffenhauer rules.
+     */
+    private int minimumSchuffenhauerRingCountSetting;
+
+    /**
+     * Number of counters per row of the {@link ScaffoldFrequencySketch} used by the frequency-pruned builds.
+     */
+    private int frequencySketchWidthSetting;
+
+    /**
+     * Number of origins a node of a generated network or forest keeps in the heap before its origins are spilled to disk,
+     * and number of origins all spilled nodes keep in the heap together
+     */
+    private int originSpillHeapCapacitySetting;
+
+    /**
+     * Directory the origins of nodes with many origins are spilled to.
+     */
+    private Path originSpillDirectorySetting;
+
+    /**
+     * Counts logged exceptions. Atomic because the pipeline workers log through the same generator.
+     */
+    private final AtomicInteger tmpLogExceptionCounter;
+
+    /**
+     * Counts the runs that were switched to the CYCLE_FINDER_BACKUP up front based on the ring system statistics.
      */
-    private int tmpLogExceptionCounter;
+    private final AtomicInteger predictedCycleFinderFallbackCounter;
+
+    /**
+     * Counts the runs that were switched to the CYCLE_FINDER_BACKUP during the decomposition.
+     */
+    private final AtomicInteger reactiveCycleFinderFallbackCounter;
 
     /**
      * Default logger.
@@ -219,7 +755,9 @@ public class ScaffoldGenerator {
      * The only constructor of this class. Sets all settings to their default values.
      */
     public ScaffoldGenerator() {
-        this.tmpLogExceptionCounter = 0;
+        this.tmpLogExceptionCounter = new AtomicInteger(0);
+        this.predictedCycleFinderFallbackCounter = new AtomicInteger(0);
+        this.reactiveCycleFinderFallbackCounter = new AtomicInteger(0);
         this.restoreDefaultSettings();
     }
 
@@ -275,52 +813,174 @@ public class ScaffoldGenerator {
     }
 
     /**
-     * Sets the option to not determine the aromaticity.
-     * If false, then no structures labelled as aromatic are created and previously existing ones are not changed.
-     * @param anIsAromaticitySet if true the aromaticity is determined
+     * Indicates whether the candidate rings and network frontier fragments are evaluated in parallel.
+     * @return true if the evaluation runs in parallel
      */
-    public void setDetermineAromaticitySetting(boolean anIsAromaticitySet) {
-        this.determineAromaticitySetting = anIsAromaticitySet;
+    public boolean isRingEvaluationParallel() {
+        return this.parallelRingEvaluationSetting;
     }
 
     /**
-     * Sets the applied aromaticity model. This consists of the CycleFinder and the ElectronDonation Model.
-     * Must not be null. However, the aromaticity model is also not used if {@link ScaffoldGenerator#determineAromaticitySetting} == false.
-     * @param anAromaticity the new Aromaticity model
-     * @throws NullPointerException if parameter is null
+     * Returns the fork-join pool used for the parallel evaluation.
+     * @return the fork-join pool or null if the common pool is used
      */
-    public void setAromaticityModelSetting(Aromaticity anAromaticity) throws NullPointerException {
-        Objects.requireNonNull(anAromaticity, "Given aromaticity model must not be null. " +
-                "The aromaticity detection can instead be deactivated via setDetermineAromaticitySetting(false).");
-        this.aromaticityModelSetting = anAromaticity;
+    public ForkJoinPool getForkJoinPool() {
+        return this.forkJoinPoolSetting;
     }
 
     /**
-     * Sets the applied SmilesGenerator.
-     * @param aSmilesGenerator the new SmilesGenerator
-     * @throws NullPointerException if parameter is null
+     * Returns the maximum number of fragments generated per molecule by the enumerative removal and the network generation.
+     * @return the maximum number of fragments
      */
-    public void setSmilesGeneratorSetting(SmilesGenerator aSmilesGenerator) throws NullPointerException {
-        Objects.requireNonNull(aSmilesGenerator, "Given SmilesGenerator must not be null");
-        this.smilesGeneratorSetting = aSmilesGenerator;
+    public int getMaximumFragmentCount() {
+        return this.maximumFragmentCountSetting;
     }
 
     /**
-     * Sets the option to skip rule 7 of the Schuffenhauer scaffold tree fragmentation.
-     * It can be useful to turn off rule 7 explicitly,
-     * as it is only relevant for a relatively small number of molecules, but it increases the computing time.
-     * @param anIsRuleSevenApplied if true rule 7 is applied
+     * Returns the maximum number of rings of a scaffold that is still disassembled by the enumerative removal and the network generation.
+     * @return the maximum number of rings
      */
-    public void setRuleSevenAppliedSetting(boolean anIsRuleSevenApplied) {
-        this.ruleSevenAppliedSetting = anIsRuleSevenApplied;
+    public int getMaximumRingCount() {
+        return this.maximumRingCountSetting;
     }
 
     /**
-     * Sets the now used scaffold mode.
-     * @param anScaffoldMode the scaffold mode to use
-     * @throws NullPointerException if parameter is null
+     * Returns the maximum wall time in milliseconds spent per molecule by the enumerative removal and the network generation.
+     * @return the maximum wall time in milliseconds
      */
-    public void setScaffoldModeSetting(ScaffoldModeOption anScaffoldMode) throws NullPointerException {
+    public long getMaximumWallTime() {
+        return this.maximumWallTimeSetting;
+    }
+
+    /**
+     * Returns the largest cyclomatic number of a fused ring system that is still decomposed with the CYCLE_FINDER.
+     * @return the maximum cyclomatic number
+     */
+    public int getMaximumCyclomaticNumber() {
+        return this.maximumCyclomaticNumberSetting;
+    }
+
+    /**
+     * Returns the largest number of atoms of a fused ring system that is still decomposed with the CYCLE_FINDER.
+     * @return the maximum ring system size
+     */
+    public int getMaximumRingSystemSize() {
+        return this.maximumRingSystemSizeSetting;
+    }
+
+    /**
+     * Returns the maximum number of rings removed by the Schuffenhauer rules from the scaffold of a molecule.
+     * @return the maximum number of removed rings
+     */
+    public int getMaximumSchuffenhauerRemovalCount() {
+        return this.maximumSchuffenhauerRemovalCountSetting;
+    }
+
+    /**
+     * Returns the ring count at which the removal by the Schuffenhauer rules stops.
+     * @return the minimum ring count
+     */
+    public int getMinimumSchuffenhauerRingCount() {
+        return this.minimumSchuffenhauerRingCountSetting;
+    }
+
+    /**
+     * Returns the number of counters per row of the sketch used by the frequency-pruned builds.
+     * @return the width of the sketch
+     */
+    public int getFrequencySketchWidth() {
+        return this.frequencySketchWidthSetting;
+    }
+
+    /**
+     * Returns the number of origins a node of a generated network or forest keeps in the heap before its origins are spilled.
+     * @return the heap capacity of the origins, Integer.MAX_VALUE if origins are never spilled
+     */
+    public int getOriginSpillHeapCapacity() {
+        return this.originSpillHeapCapacitySetting;
+    }
+
+    /**
+     * Returns the directory the origins of nodes with many origins are spilled to.
+     * @return the spill directory
+     */
+    public Path getOriginSpillDirectory() {
+        return this.originSpillDirectorySetting;
+    }
+
+    /**
+     * Returns the number of runs that were switched to the CYCLE_FINDER_BACKUP up front,
+     * because a ring system exceeded {@link ScaffoldGenerator#maximumCyclomaticNumberSetting} or {@link ScaffoldGenerator#maximumRingSystemSizeSetting}.
+     * @return the number of predicted fallbacks since the creation of the generator or the last reset
+     */
+    public int getPredictedCycleFinderFallbackCount() {
+        return this.predictedCycleFinderFallbackCounter.get();
+    }
+
+    /**
+     * Returns the number of runs that were switched to the CYCLE_FINDER_BACKUP during the decomposition,
+     * because of the atom-to-ring ratio or an error of the CYCLE_FINDER.
+     * @return the number of reactive fallbacks since the creation of the generator or the last reset
+     */
+    public int getReactiveCycleFinderFallbackCount() {
+        return this.reactiveCycleFinderFallbackCounter.get();
+    }
+
+    /**
+     * Resets the counters of the predicted and the reactive cycle finder fallbacks to zero.
+     */
+    public void resetCycleFinderFallbackCounts() {
+        this.predictedCycleFinderFallbackCounter.set(0);
+        this.reactiveCycleFinderFallbackCounter.set(0);
+    }
+
+    /**
+     * Sets the option to not determine the aromaticity.
+     * If false, then no structures labelled as aromatic are created and previously existing ones are not changed.
+     * @param anIsAromaticitySet if true the aromaticity is determined
+     */
+    public void setDetermineAromaticitySetting(boolean anIsAromaticitySet) {
+        this.determineAromaticitySetting = anIsAromaticitySet;
+    }
+
+    /**
+     * Sets the applied aromaticity model. This consists of the CycleFinder and the ElectronDonation Model.
+     * Must not be null. However, the aromaticity model is also not used if {@link ScaffoldGenerator#determineAromaticitySetting} == false.
+     * @param anAromaticity the new Aromaticity model
+     * @throws NullPointerException if parameter is null
+     */
+    public void setAromaticityModelSetting(Aromaticity anAromaticity) throws NullPointerException {
+        Objects.requireNonNull(anAromaticity, "Given aromaticity model must not be null. " +
+                "The aromaticity detection can instead be deactivated via setDetermineAromaticitySetting(false).");
+        this.aromaticityModelSetting = anAromaticity;
+    }
+
+    /**
+     * Sets the applied SmilesGenerator.
+     * @param aSmilesGenerator the new SmilesGenerator
+     * @throws NullPointerException if parameter is null
+     */
+    public void setSmilesGeneratorSetting(SmilesGenerator aSmilesGenerator) throws NullPointerException {
+        Objects.requireNonNull(aSmilesGenerator, "Given SmilesGenerator must not be null");
+        this.smilesGeneratorSetting = aSmilesGenerator;
+    }
+
+    /**
+     * Sets the option to skip rule 7 of the Schuffenhauer scaffold tree fragmentation.
+     * It can be useful to turn off rule 7 explicitly,
+     * as it is only relevant for a relatively small number of molecules, but it increases the computing time.
+     * @param anIsRuleSevenApplied if true rule 7 is applied
+     */
+    public void setRuleSevenAppliedSetting(boolean anIsRuleSevenApplied) {
+        this.ruleSevenAppliedSetting = anIsRuleSevenApplied;
+    }
+
+    /**
+     * Sets the now used scaffold mode.
+     * @param anScaffoldMode the scaffold mode to use
+     * @throws NullPointerException if parameter is null
+     */
+    public void setScaffoldModeSetting(ScaffoldModeOption anScaffoldMode) throws NullPointerException {
         Objects.requireNonNull(anScaffoldMode, "Given scaffold mode is null");
         this.scaffoldModeSetting = anScaffoldMode;
 
@@ -333,6 +993,163 @@ public class ScaffoldGenerator {
     public void setRetainOnlyHybridisationsAtAromaticBondsSetting(boolean anIsOnlyHybridisationsAtAromaticBondsRetained) {
         this.retainOnlyHybridisationsAtAromaticBondsSetting = anIsOnlyHybridisationsAtAromaticBondsRetained;
     }
+
+    /**
+     * Sets the option to evaluate the candidate rings of a fragment and the frontier fragments of the network expansion
+     * in parallel on {@link ScaffoldGenerator#forkJoinPoolSetting}.
+     * The generated fragments, networks and trees are the same as with the sequential evaluation.
+     * @param anIsRingEvaluationParallel if true the evaluation runs in parallel
+     */
+    public void setParallelRingEvaluationSetting(boolean anIsRingEvaluationParallel) {
+        this.parallelRingEvaluationSetting = anIsRingEvaluationParallel;
+    }
+
+    /**
+     * Sets the fork-join pool used for the parallel evaluation.
+     * It is only used if {@link ScaffoldGenerator#parallelRingEvaluationSetting} == true.
+     * @param aForkJoinPool the new fork-join pool or null to use the common pool
+     */
+    public void setForkJoinPoolSetting(ForkJoinPool aForkJoinPool) {
+        this.forkJoinPoolSetting = aForkJoinPool;
+    }
+
+    /**
+     * Sets the maximum number of fragments generated per molecule by the enumerative removal and the network generation.
+     * If the limit is reached, the decomposition of the molecule is stopped and the result is marked as truncated.
+     * @param aMaximumFragmentCount the maximum number of fragments, including the scaffold of the molecule itself
+     * @throws IllegalArgumentException if parameter is smaller than 1
+     */
+    public void setMaximumFragmentCountSetting(int aMaximumFragmentCount) throws IllegalArgumentException {
+        if(aMaximumFragmentCount < 1) {
+            throw new IllegalArgumentException("Given maximum fragment count must be at least 1: " + aMaximumFragmentCount);
+        }
+        this.maximumFragmentCountSetting = aMaximumFragmentCount;
+    }
+
+    /**
+     * Sets the maximum number of rings of a scaffold that is still disassembled by the enumerative removal and the network generation.
+     * Scaffolds with more rings are returned without being disassembled and the result is marked as truncated.
+     * @param aMaximumRingCount the maximum number of rings
+     * @throws IllegalArgumentException if parameter is smaller than 1
+     */
+    public void setMaximumRingCountSetting(int aMaximumRingCount) throws IllegalArgumentException {
+        if(aMaximumRingCount < 1) {
+            throw new IllegalArgumentException("Given maximum ring count must be at least 1: " + aMaximumRingCount);
+        }
+        this.maximumRingCountSetting = aMaximumRingCount;
+    }
+
+    /**
+     * Sets the maximum wall time in milliseconds spent per molecule by the enumerative removal and the network generation.
+     * The time is checked before each fragment (in parallel mode before each removal step) is disassembled.
+     * If it is exceeded, the decomposition of the molecule is stopped and the result is marked as truncated.
+     * @param aMaximumWallTime the maximum wall time in milliseconds
+     * @throws IllegalArgumentException if parameter is smaller than 1
+     */
+    public void setMaximumWallTimeSetting(long aMaximumWallTime) throws IllegalArgumentException {
+        if(aMaximumWallTime < 1) {
+            throw new IllegalArgumentException("Given maximum wall time must be at least 1 ms: " + aMaximumWallTime);
+        }
+        this.maximumWallTimeSetting = aMaximumWallTime;
+    }
+
+    /**
+     * Sets the largest cyclomatic number (number of independent rings) of a fused ring system that is still decomposed with the CYCLE_FINDER.
+     * Molecules with a larger ring system are decomposed with the CYCLE_FINDER_BACKUP from the start,
+     * because the number of relevant cycles can grow exponentially with it.
+     * @param aMaximumCyclomaticNumber the maximum cyclomatic number
+     * @throws IllegalArgumentException if parameter is smaller than 1
+     */
+    public void setMaximumCyclomaticNumberSetting(int aMaximumCyclomaticNumber) throws IllegalArgumentException {
+        if(aMaximumCyclomaticNumber < 1) {
+            throw new IllegalArgumentException("Given maximum cyclomatic number must be at least 1: " + aMaximumCyclomaticNumber);
+        }
+        this.maximumCyclomaticNumberSetting = aMaximumCyclomaticNumber;
+    }
+
+    /**
+     * Sets the largest number of atoms of a fused ring system that is still decomposed with the CYCLE_FINDER.
+     * Molecules with a larger ring system are decomposed with the CYCLE_FINDER_BACKUP from the start.
+     * @param aMaximumRingSystemSize the maximum number of atoms of a fused ring system
+     * @throws IllegalArgumentException if parameter is smaller than 1
+     */
+    public void setMaximumRingSystemSizeSetting(int aMaximumRingSystemSize) throws IllegalArgumentException {
+        if(aMaximumRingSystemSize < 1) {
+            throw new IllegalArgumentException("Given maximum ring system size must be at least 1: " + aMaximumRingSystemSize);
+        }
+        this.maximumRingSystemSizeSetting = aMaximumRingSystemSize;
+    }
+
+    /**
+     * Sets the maximum number of rings removed by the Schuffenhauer rules from the scaffold of a molecule.
+     * {@link ScaffoldGenerator#applySchuffenhauerRules(IAtomContainer)} then stops after this number of removals,
+     * and the trees of {@link ScaffoldGenerator#generateSchuffenhauerTree(IAtomContainer)} and {@link ScaffoldGenerator#generateSchuffenhauerForest(List)}
+     * only contain the corresponding levels above the scaffolds of the molecules.
+     * @param aMaximumRemovalCount the maximum number of removed rings
+     * @throws IllegalArgumentException if parameter is negative
+     */
+    public void setMaximumSchuffenhauerRemovalCountSetting(int aMaximumRemovalCount) throws IllegalArgumentException {
+        if(aMaximumRemovalCount < 0) {
+            throw new IllegalArgumentException("Given maximum removal count must not be negative: " + aMaximumRemovalCount);
+        }
+        this.maximumSchuffenhauerRemovalCountSetting = aMaximumRemovalCount;
+    }
+
+    /**
+     * Sets the ring count at which the removal by the Schuffenhauer rules stops.
+     * Scaffolds with this number of rings or fewer are not disassembled further by {@link ScaffoldGenerator#applySchuffenhauerRules(IAtomContainer)}.
+     * @param aMinimumRingCount the minimum ring count
+     * @throws IllegalArgumentException if parameter is smaller than 1
+     */
+    public void setMinimumSchuffenhauerRingCountSetting(int aMinimumRingCount) throws IllegalArgumentException {
+        if(aMinimumRingCount < 1) {
+            throw new IllegalArgumentException("Given minimum ring count must be at least 1: " + aMinimumRingCount);
+        }
+        this.minimumSchuffenhauerRingCountSetting = aMinimumRingCount;
+    }
+
+    /**
+     * Sets the number of counters per row of the {@link ScaffoldFrequencySketch} used by
+     * {@link ScaffoldGenerator#generateFrequentScaffoldNetwork(List, int)} and {@link ScaffoldGenerator#generateFrequentSchuffenhauerForest(List, int)}.
+     * A wider sketch takes more memory but overestimates the frequencies less, so fewer infrequent scaffolds are kept.
+     * @param aWidth the width of the sketch
+     * @throws IllegalArgumentException if parameter is smaller than 1
+     */
+    public void setFrequencySketchWidthSetting(int aWidth) throws IllegalArgumentException {
+        if(aWidth < 1) {
+            throw new IllegalArgumentException("Given sketch width must be at least 1: " + aWidth);
+        }
+        this.frequencySketchWidthSetting = aWidth;
+    }
+
+    /**
+     * Sets the number of origins kept in the heap while networks and forests are generated from molecule lists.
+     * If a node gets more origins or non-virtual origins, its list is replaced by a list of a {@link OriginSpillStore} in
+     * {@link ScaffoldGenerator#originSpillDirectorySetting}. All lists of the store together keep at most this number of origins
+     * in the heap and spill the others, so that scaffolds shared by very many molecules do not exhaust the heap.
+     * The origins of a spilled node are returned in sorted order. The store is available via
+     * {@link ScaffoldNodeCollectionBase#getOriginSpillStore()}. The generator does not keep it, the caller owns the store
+     * of a generated collection and has to close it when the collection is no longer needed, which deletes the spill files.
+     * @param aHeapCapacity the heap capacity of the origins, Integer.MAX_VALUE to never spill
+     * @throws IllegalArgumentException if parameter is smaller than 1
+     */
+    public void setOriginSpillHeapCapacitySetting(int aHeapCapacity) throws IllegalArgumentException {
+        if(aHeapCapacity < 1) {
+            throw new IllegalArgumentException("Given heap capacity must be at least 1: " + aHeapCapacity);
+        }
+        this.originSpillHeapCapacitySetting = aHeapCapacity;
+    }
+
+    /**
+     * Sets the directory the origins of nodes with many origins are spilled to.
+     * @param aDirectory the spill directory
+     * @throws NullPointerException if parameter is null
+     */
+    public void setOriginSpillDirectorySetting(Path aDirectory) throws NullPointerException {
+        Objects.requireNonNull(aDirectory, "Given directory is 'null'");
+        this.originSpillDirectorySetting = aDirectory;
+    }
+
     /**
      * All settings are set to their default values. Automatically executed by the constructor.
      */
@@ -343,6 +1160,18 @@ public class ScaffoldGenerator {
         this.setRuleSevenAppliedSetting(ScaffoldGenerator.RULE_SEVEN_APPLIED_SETTING_DEFAULT);
         this.setRetainOnlyHybridisationsAtAromaticBondsSetting(ScaffoldGenerator.RETAIN_ONLY_HYBRIDISATIONS_AT_AROMATIC_BONDS_SETTING_DEFAULT);
         this.setScaffoldModeSetting(ScaffoldGenerator.SCAFFOLD_MODE_OPTION_DEFAULT);
+        this.setParallelRingEvaluationSetting(ScaffoldGenerator.PARALLEL_RING_EVALUATION_SETTING_DEFAULT);
+        this.setForkJoinPoolSetting(ScaffoldGenerator.FORK_JOIN_POOL_SETTING_DEFAULT);
+        this.setMaximumFragmentCountSetting(ScaffoldGenerator.MAXIMUM_FRAGMENT_COUNT_SETTING_DEFAULT);
+        this.setMaximumRingCountSetting(ScaffoldGenerator.MAXIMUM_RING_COUNT_SETTING_DEFAULT);
+        this.setMaximumWallTimeSetting(ScaffoldGenerator.MAXIMUM_WALL_TIME_SETTING_DEFAULT);
+        this.setMaximumCyclomaticNumberSetting(ScaffoldGenerator.MAXIMUM_CYCLOMATIC_NUMBER_SETTING_DEFAULT);
+        this.setMaximumRingSystemSizeSetting(ScaffoldGenerator.MAXIMUM_RING_SYSTEM_SIZE_SETTING_DEFAULT);
+        this.setMaximumSchuffenhauerRemovalCountSetting(ScaffoldGenerator.MAXIMUM_SCHUFFENHAUER_REMOVAL_COUNT_SETTING_DEFAULT);
+        this.setMinimumSchuffenhauerRingCountSetting(ScaffoldGenerator.MINIMUM_SCHUFFENHAUER_RING_COUNT_SETTING_DEFAULT);
+        this.setFrequencySketchWidthSetting(ScaffoldGenerator.FREQUENCY_SKETCH_WIDTH_SETTING_DEFAULT);
+        this.setOriginSpillHeapCapacitySetting(ScaffoldGenerator.ORIGIN_SPILL_HEAP_CAPACITY_SETTING_DEFAULT);
+        this.setOriginSpillDirectorySetting(ScaffoldGenerator.ORIGIN_SPILL_DIRECTORY_SETTING_DEFAULT);
     }
 
     /**
@@ -413,13 +1242,10 @@ public class ScaffoldGenerator {
     public List<IAtomContainer> getSideChains(IAtomContainer aMolecule, boolean anAddImplicitHydrogens) throws CloneNotSupportedException, CDKException, NullPointerException {
         Objects.requireNonNull(aMolecule, "Input molecule must be non null");
         IAtomContainer tmpClonedMolecule = aMolecule.clone();
-        List<IAtomContainer> tmpSideChainList = new ArrayList<>(tmpClonedMolecule.getAtomCount());
         /*Mark each atom with ascending number*/
         Integer tmpCounter = 0;
-        HashMap<Integer, IAtom> tmpMoleculePropertyMap = new HashMap<>((int)(tmpClonedMolecule.getAtomCount() * 1.5), 0.75f);
         for(IAtom tmpAtom : tmpClonedMolecule.atoms()) {
             tmpAtom.setProperty(ScaffoldGenerator.SCAFFOLD_ATOM_COUNTER_PROPERTY, tmpCounter);
-            tmpMoleculePropertyMap.put(tmpCounter, tmpAtom);
             tmpCounter++;
         }
         /*Generate scaffold*/
@@ -438,19 +1264,38 @@ public class ScaffoldGenerator {
             tmpScaffold = this.getScaffoldInternal(tmpClonedMolecule, anAddImplicitHydrogens,
                     this.determineAromaticitySetting, this.aromaticityModelSetting, this.scaffoldModeSetting);
         }
+        return this.getSideChainsInternal(tmpClonedMolecule, tmpScaffold, anAddImplicitHydrogens);
+    }
+
+    /**
+     * Subtracts the scaffold from the molecule and returns the remaining fragments as side chains.
+     * Important: Property (ScaffoldGenerator.SCAFFOLD_ATOM_COUNTER_PROPERTY) must be set for aMolecule/aScaffold and match.
+     * @param aMolecule Numbered molecule. The scaffold atoms are removed from it.
+     * @param aScaffold Scaffold of the molecule in MURCKO_FRAMEWORK, SCAFFOLD or BASIC_FRAMEWORK mode
+     * @param anAddImplicitHydrogens Specifies whether implicit hydrogens are to be added at the end.
+     * @return List of SideChains of the molecule
+     * @throws CDKException problem with CDKHydrogenAdder: Throws if insufficient information is present
+     */
+    protected List<IAtomContainer> getSideChainsInternal(IAtomContainer aMolecule, IAtomContainer aScaffold, boolean anAddImplicitHydrogens)
+            throws CDKException {
+        List<IAtomContainer> tmpSideChainList = new ArrayList<>(aMolecule.getAtomCount());
+        HashMap<Integer, IAtom> tmpMoleculePropertyMap = new HashMap<>((int)(aMolecule.getAtomCount() * 1.5), 0.75f);
+        for(IAtom tmpAtom : aMolecule.atoms()) {
+            tmpMoleculePropertyMap.put(tmpAtom.getProperty(ScaffoldGenerator.SCAFFOLD_ATOM_COUNTER_PROPERTY), tmpAtom);
+        }
         /*Store the numbers of scaffold atoms in list*/
-        List<Integer> tmpRemovedNumberList = new ArrayList<>(tmpClonedMolecule.getAtomCount());
-        for(IAtom tmpAtom : tmpScaffold.atoms()) {
+        List<Integer> tmpRemovedNumberList = new ArrayList<>(aMolecule.getAtomCount());
+        for(IAtom tmpAtom : aScaffold.atoms()) {
             tmpRemovedNumberList.add(tmpAtom.getProperty(ScaffoldGenerator.SCAFFOLD_ATOM_COUNTER_PROPERTY));
         }
         /*Remove all numbers of the scaffold from the original molecule*/
         for(Integer tmpNumber : tmpRemovedNumberList) {
-            if(tmpMoleculePropertyMap.containsKey(tmpNumber) && tmpClonedMolecule.contains(tmpMoleculePropertyMap.get(tmpNumber))) {
-                tmpClonedMolecule.removeAtom(tmpMoleculePropertyMap.get(tmpNumber));
+            if(tmpMoleculePropertyMap.containsKey(tmpNumber) && aMolecule.contains(tmpMoleculePropertyMap.get(tmpNumber))) {
+                aMolecule.removeAtom(tmpMoleculePropertyMap.get(tmpNumber));
             }
         }
         //Save each unconnected fragment that remains as a separate AtomContainer
-        IAtomContainerSet tmpFragments = ConnectivityChecker.partitionIntoMolecules(tmpClonedMolecule);
+        IAtomContainerSet tmpFragments = ConnectivityChecker.partitionIntoMolecules(aMolecule);
         /*Add fragments to the SideChain list*/
         for(IAtomContainer tmpFragment : tmpFragments.atomContainers()) {
             if(tmpFragment.getAtomCount() == 1 && tmpFragment.getAtom(0).getSymbol().equals("H")) {
@@ -483,28 +1328,38 @@ public class ScaffoldGenerator {
         IAtomContainer tmpClonedMolecule = aMolecule.clone();
         //Generate Scaffold
         IAtomContainer tmpScaffold = this.getScaffoldInternal(tmpClonedMolecule, anAddImplicitHydrogens, this.determineAromaticitySetting, this.aromaticityModelSetting, this.scaffoldModeSetting);
-        List<IAtomContainer> tmpLinkerList = new ArrayList<>(tmpClonedMolecule.getAtomCount());
         List<IAtomContainer> tmpRingList = this.getRingsInternal(tmpScaffold, true);
-        List<Integer> tmpRingAtomNumberList = new ArrayList<>(tmpClonedMolecule.getAtomCount());
-        HashMap<Integer, IAtom> tmpScaffoldPropertyMap = new HashMap<>((int)(tmpClonedMolecule.getAtomCount() * 1.5), 0.75f);
-        /*Go through each ring of the scaffold and add there atom number to the list*/
-        for(IAtomContainer tmpRing : tmpRingList) {
-            for(IAtom tmpAtom : tmpRing.atoms()) {
-                tmpRingAtomNumberList.add(tmpAtom.getProperty(ScaffoldGenerator.SCAFFOLD_ATOM_COUNTER_PROPERTY));
-            }
-        }
-        /*Identify each ring atom with the tmpRingAtomNumberList and remove it from the scaffold*/
-        for(IAtom tmpScaffoldAtom : tmpScaffold.atoms()) {
-            tmpScaffoldPropertyMap.put(tmpScaffoldAtom.getProperty(ScaffoldGenerator.SCAFFOLD_ATOM_COUNTER_PROPERTY), tmpScaffoldAtom);
+        return this.getLinkersInternal(tmpScaffold, tmpRingList, anAddImplicitHydrogens);
+    }
+
+    /**
+     * Removes the ring atoms from the scaffold and returns the remaining fragments as linkers.
+     * Important: Property (ScaffoldGenerator.SCAFFOLD_ATOM_COUNTER_PROPERTY) must be set for aScaffold/aRingList and match.
+     * @param aScaffold Scaffold whose linkers are to be returned. The ring atoms are removed from it.
+     * @param aRingList Rings of the scaffold including the atoms bonded to them by non-single bonds
+     * @param anAddImplicitHydrogens Specifies whether implicit hydrogens are to be added at the end.
+     * @return linkers of the scaffold
+     * @throws CDKException problem with CDKHydrogenAdder: Throws if insufficient information is present
+     */
+    protected List<IAtomContainer> getLinkersInternal(IAtomContainer aScaffold, List<IAtomContainer> aRingList, boolean anAddImplicitHydrogens)
+            throws CDKException {
+        List<IAtomContainer> tmpLinkerList = new ArrayList<>(aScaffold.getAtomCount());
+        BitSet tmpRingAtomNumbers = new BitSet(aScaffold.getAtomCount());
+        /*Go through each ring of the scaffold and add there atom numbers to the set*/
+        for(IAtomContainer tmpRing : aRingList) {
+            tmpRingAtomNumbers.or(ScaffoldGenerator.getAtomNumberSet(tmpRing));
         }
-        /*Remove non ring atoms*/
-        for(Integer tmpAtomNumber : tmpRingAtomNumberList) {
-            if(tmpScaffoldPropertyMap.containsKey(tmpAtomNumber) && tmpScaffold.contains(tmpScaffoldPropertyMap.get(tmpAtomNumber))) {
-                tmpScaffold.removeAtom(tmpScaffoldPropertyMap.get(tmpAtomNumber));
+        /*Identify each ring atom with the tmpRingAtomNumbers and remove it from the scaffold*/
+        IAtom[] tmpScaffoldAtomsByNumber = ScaffoldGenerator.getAtomsByNumber(aScaffold);
+        for(int tmpAtomNumber = tmpRingAtomNumbers.nextSetBit(0); tmpAtomNumber >= 0;
+                tmpAtomNumber = tmpRingAtomNumbers.nextSetBit(tmpAtomNumber + 1)) {
+            IAtom tmpScaffoldAtom = ScaffoldGenerator.getAtomByNumber(tmpScaffoldAtomsByNumber, tmpAtomNumber);
+            if(tmpScaffoldAtom != null) {
+                aScaffold.removeAtom(tmpScaffoldAtom);
             }
         }
         //Save each unconnected fragment that remains as a separate AtomContainer
-        IAtomContainerSet tmpFragments = ConnectivityChecker.partitionIntoMolecules(tmpScaffold);
+        IAtomContainerSet tmpFragments = ConnectivityChecker.partitionIntoMolecules(aScaffold);
         /*Add fragments to the tmpLinkerList*/
         for(IAtomContainer tmpFragment : tmpFragments.atomContainers()) {
             if(tmpFragment.getAtomCount() == 1 && tmpFragment.getAtom(0).getSymbol().equals("H")) {
@@ -521,11 +1376,63 @@ public class ScaffoldGenerator {
         return tmpLinkerList;
     }
 
+    /**
+     * Generates the scaffold, rings, linkers and side chains of the molecule in one pass.
+     * The results are the same as those of {@link ScaffoldGenerator#getScaffold(IAtomContainer, boolean)},
+     * {@link ScaffoldGenerator#getRings(IAtomContainer, boolean)}, {@link ScaffoldGenerator#getLinkers(IAtomContainer, boolean)}
+     * and {@link ScaffoldGenerator#getSideChains(IAtomContainer, boolean)}, but the molecule is numbered and cloned once,
+     * the scaffold is generated once and the rings are perceived once and shared by the rings and the linkers.
+     * Only the wire frame modes need a second Murcko fragment for the side chains.
+     * @param aMolecule Molecule to be decomposed
+     * @param anAddImplicitHydrogens Specifies whether implicit hydrogens are to be added at the end.
+     * The removal of atoms can create open valences. These are not compensated with hydrogens at the end if this parameter is false.
+     * @return scaffold, rings, linkers and side chains of the molecule
+     * @throws CloneNotSupportedException if cloning is not possible.
+     * @throws CDKException problem with CDKHydrogenAdder: Throws if insufficient information is present or problem with aromaticity.apply()
+     * @throws NullPointerException if parameter is null
+     */
+    public ScaffoldDecomposition decompose(IAtomContainer aMolecule, boolean anAddImplicitHydrogens) throws CloneNotSupportedException, CDKException, NullPointerException {
+        Objects.requireNonNull(aMolecule, "Input molecule must be non null");
+        IAtomContainer tmpClonedMolecule = aMolecule.clone();
+        /*Mark each atom with ascending number*/
+        Integer tmpCounter = 0;
+        for(IAtom tmpAtom : tmpClonedMolecule.atoms()) {
+            tmpAtom.setProperty(ScaffoldGenerator.SCAFFOLD_ATOM_COUNTER_PROPERTY, tmpCounter);
+            tmpCounter++;
+        }
+        IAtomContainer tmpScaffold = this.getScaffoldInternal(tmpClonedMolecule, anAddImplicitHydrogens,
+                this.determineAromaticitySetting, this.aromaticityModelSetting, this.scaffoldModeSetting);
+        /*Only the SCAFFOLD mode keeps atoms bonded to the rings by non-single bonds,
+        so the rings of the other modes are the same whether these atoms are retained or not*/
+        List<IAtomContainer> tmpRingList = this.getRingsInternal(tmpScaffold, this.scaffoldModeSetting.equals(ScaffoldModeOption.SCAFFOLD));
+        List<IAtomContainer> tmpLinkerList = this.getLinkersInternal(tmpScaffold.clone(), tmpRingList, anAddImplicitHydrogens);
+        if(anAddImplicitHydrogens) {
+            /*Add back hydrogens*/
+            for(IAtomContainer tmpRing : tmpRingList) {
+                AtomContainerManipulator.percieveAtomTypesAndConfigureAtoms(tmpRing);
+                CDKHydrogenAdder.getInstance(tmpRing.getBuilder()).addImplicitHydrogens(tmpRing);
+            }
+        }
+        /*The wire frames are renumbered, so their side chains are subtracted with the MURCKO_FRAMEWORK.
+        BASIC_FRAMEWORK keeps the numbers and atoms of the MURCKO_FRAMEWORK.*/
+        IAtomContainer tmpSideChainScaffold = tmpScaffold;
+        if(this.scaffoldModeSetting.equals(ScaffoldModeOption.ELEMENTAL_WIRE_FRAME) || this.scaffoldModeSetting.equals(ScaffoldModeOption.BASIC_WIRE_FRAME)) {
+            tmpSideChainScaffold = this.getScaffoldInternal(tmpClonedMolecule, anAddImplicitHydrogens,
+                    this.determineAromaticitySetting, this.aromaticityModelSetting, ScaffoldModeOption.MURCKO_FRAMEWORK);
+        }
+        List<IAtomContainer> tmpSideChainList = this.getSideChainsInternal(tmpClonedMolecule, tmpSideChainScaffold, anAddImplicitHydrogens);
+        return new ScaffoldDecomposition(tmpScaffold, tmpRingList, tmpLinkerList, tmpSideChainList);
+    }
+
     /**
      * Iteratively removes the terminal rings. All resulting scaffolds are returned. Duplicates are not permitted.
      * The Scaffold of the entire entered molecule is stored first in the list.
      * The scaffolds that follow then become smaller and smaller. <p>
      *
+     * The enumeration is stopped early if one of the budgets {@link ScaffoldGenerator#maximumFragmentCountSetting},
+     * {@link ScaffoldGenerator#maximumRingCountSetting} or {@link ScaffoldGenerator#maximumWallTimeSetting} is exhausted.
+     * The first scaffold of such a partial result carries the property ScaffoldGenerator.SCAFFOLD_TRUNCATED_PROPERTY = true. <p>
+     *
      * The removal of atoms can create open valences. These are compensated with implicit hydrogens.
      * @param aMolecule Molecule to be disassembled.
      * @return List with all resulting Scaffold.
@@ -536,37 +1443,96 @@ public class ScaffoldGenerator {
     public List<IAtomContainer> applyEnumerativeRemoval(IAtomContainer aMolecule) throws CDKException, CloneNotSupportedException, NullPointerException {
         Objects.requireNonNull(aMolecule, "Input molecule must be non null");
         IAtomContainer tmpScaffoldOriginal = this.getScaffoldInternal(aMolecule, true, this.determineAromaticitySetting, this.aromaticityModelSetting, this.scaffoldModeSetting);
-        int tmpRingCount = this.getRingsInternal(tmpScaffoldOriginal, true).size();
-        List<String> tmpAddedSMILESList = new ArrayList<>(tmpRingCount * 45);
+        //The cycle finder is selected once for the whole run
+        CycleFinderContext tmpCycleFinderContext = this.predictCycleFinderContext(tmpScaffoldOriginal);
+        int tmpRingCount = this.getRingsInternal(tmpScaffoldOriginal, true, tmpCycleFinderContext).size();
+        Set<String> tmpAddedSMILESSet = new HashSet<>(tmpRingCount * 45);
         //List of all fragments already created and size estimated on the basis of an empirical value
         List<IAtomContainer> tmpIterativeRemovalList = new ArrayList<>(tmpRingCount * 45);
         tmpIterativeRemovalList.add(tmpScaffoldOriginal); //Add origin Scaffold
-        for(int tmpCounter = 0 ; tmpCounter < tmpIterativeRemovalList.size(); tmpCounter++) {//Go through all the molecules created
-            IAtomContainer tmpIterMol = tmpIterativeRemovalList.get(tmpCounter); //Take the next molecule from the list
-            List<IAtomContainer> tmpAllRingsList = this.getRingsInternal(tmpIterMol,true);
-            int tmpRingSize = tmpAllRingsList.size();
-            for(IAtomContainer tmpRing : tmpAllRingsList) { //Go through all rings
-                //Skip molecule if it has less than 2 rings or the ring is not removable
-                if(tmpRingSize < 2) {
-                    continue;
-                }
-                if(this.isRingTerminal(tmpIterMol, tmpRing) && this.isRingRemovable(tmpRing, tmpAllRingsList, tmpIterMol)) { //Consider all terminal rings
-                    boolean tmpIsInList = false;
-                    IAtomContainer tmpRingRemoved = this.getScaffoldInternal(this.removeRing(tmpIterMol, true, tmpRing), true, this.determineAromaticitySetting, this.aromaticityModelSetting, this.scaffoldModeSetting); //Remove next ring
+        long tmpStartTime = System.nanoTime();
+        //Scaffolds with too many rings are not disassembled
+        boolean tmpIsTruncated = tmpRingCount > this.maximumRingCountSetting;
+        /*Go through all the molecules created. In parallel mode, all molecules of one removal step are expanded together*/
+        int tmpStepStart = 0;
+        while(!tmpIsTruncated && tmpStepStart < tmpIterativeRemovalList.size()) {
+            //Stop if the time budget is exhausted
+            if(this.isWallTimeExceeded(tmpStartTime)) {
+                tmpIsTruncated = true;
+                break;
+            }
+            int tmpStepEnd = this.parallelRingEvaluationSetting ? tmpIterativeRemovalList.size() : tmpStepStart + 1;
+            List<List<IAtomContainer>> tmpStepRingRemovedList = this.evaluateCandidates(
+                    new ArrayList<>(tmpIterativeRemovalList.subList(tmpStepStart, tmpStepEnd)), tmpFragment -> this.getRingRemovedFragments(tmpFragment, tmpCycleFinderContext));
+            for(List<IAtomContainer> tmpRingRemovedList : tmpStepRingRemovedList) {
+                for(IAtomContainer tmpRingRemoved : tmpRingRemovedList) { //Go through all terminal rings that were removed
                     String tmpRingRemovedSMILES = this.getSmilesGenerator().create(tmpRingRemoved); //Generate SMILES
-                    if(tmpAddedSMILESList.contains(tmpRingRemovedSMILES)) { //Check if the molecule has already been added to the list
-                        tmpIsInList = true;
-                    }
-                    if(!tmpIsInList) { //Add the molecule only if it is not already in the list
+                    if(!tmpAddedSMILESSet.contains(tmpRingRemovedSMILES)) { //Add the molecule only if it is not already in the list
+                        //Stop if the fragment budget is exhausted
+                        if(tmpIterativeRemovalList.size() >= this.maximumFragmentCountSetting) {
+                            tmpIsTruncated = true;
+                            break;
+                        }
                         tmpIterativeRemovalList.add(tmpRingRemoved);
-                        tmpAddedSMILESList.add(tmpRingRemovedSMILES);
+                        tmpAddedSMILESSet.add(tmpRingRemovedSMILES);
                     }
                 }
+                if(tmpIsTruncated) {
+                    break;
+                }
             }
+            tmpStepStart = tmpStepEnd;
+        }
+        /*Mark the partial result*/
+        if(tmpIsTruncated) {
+            tmpScaffoldOriginal.setProperty(ScaffoldGenerator.SCAFFOLD_TRUNCATED_PROPERTY, true);
         }
         return tmpIterativeRemovalList;
     }
 
+    /**
+     * Streaming variant of {@link ScaffoldGenerator#applyEnumerativeRemoval(IAtomContainer)}.
+     * Iteratively removes the terminal rings and returns each resulting scaffold as soon as it is generated,
+     * in the same breadth-first order and without duplicates. The scaffold of the entire entered molecule is returned first.
+     * Instead of all scaffolds, only their SMILES and the removal paths of the scaffolds whose terminal rings have not yet been removed are retained.
+     * A pending scaffold is created again from the scaffold of the molecule when its terminal rings are removed,
+     * which costs one ring removal per ring already removed. <p>
+     *
+     * The budgets are applied as in {@link ScaffoldGenerator#applyEnumerativeRemoval(IAtomContainer)}.
+     * Whether the enumeration was stopped early is indicated by {@link EnumerativeRemovalIterator#isTruncated()}.
+     * The terminal rings are removed sequentially; {@link ScaffoldGenerator#parallelRingEvaluationSetting} only applies to the candidate rings.
+     * The settings of the generator should not be changed while iterating. <p>
+     *
+     * The removal of atoms can create open valences. These are compensated with implicit hydrogens.
+     * @param aMolecule Molecule to be disassembled.
+     * @return iterator over all resulting scaffolds
+     * @throws CDKException problem with CDKHydrogenAdder: Throws if insufficient information is present
+     * @throws CloneNotSupportedException if cloning is not possible.
+     * @throws NullPointerException if parameter is null
+     */
+    public EnumerativeRemovalIterator iterateEnumerativeRemoval(IAtomContainer aMolecule) throws CDKException, CloneNotSupportedException, NullPointerException {
+        Objects.requireNonNull(aMolecule, "Input molecule must be non null");
+        IAtomContainer tmpScaffoldOriginal = this.getScaffoldInternal(aMolecule, true, this.determineAromaticitySetting, this.aromaticityModelSetting, this.scaffoldModeSetting);
+        //The cycle finder is selected once for the whole run
+        CycleFinderContext tmpCycleFinderContext = this.predictCycleFinderContext(tmpScaffoldOriginal);
+        //Scaffolds with too many rings are not disassembled
+        boolean tmpIsTruncated = this.getRingsInternal(tmpScaffoldOriginal, true, tmpCycleFinderContext).size() > this.maximumRingCountSetting;
+        return new EnumerativeRemovalIterator(tmpScaffoldOriginal, tmpCycleFinderContext, tmpIsTruncated);
+    }
+
+    /**
+     * Returns the scaffolds of {@link ScaffoldGenerator#iterateEnumerativeRemoval(IAtomContainer)} as a sequential, lazily evaluated stream.
+     * @param aMolecule Molecule to be disassembled.
+     * @return ordered stream of all resulting scaffolds
+     * @throws CDKException problem with CDKHydrogenAdder: Throws if insufficient information is present
+     * @throws CloneNotSupportedException if cloning is not possible.
+     * @throws NullPointerException if parameter is null
+     */
+    public Stream<IAtomContainer> streamEnumerativeRemoval(IAtomContainer aMolecule) throws CDKException, CloneNotSupportedException, NullPointerException {
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(this.iterateEnumerativeRemoval(aMolecule),
+                Spliterator.ORDERED | Spliterator.NONNULL), false);
+    }
+
     /**
      * Iteratively removes the terminal rings. All resulting Scaffolds are saved in a ScaffoldNetwork.
      * A new level is created when the total number of rings decreases by 1.
@@ -579,6 +1545,10 @@ public class ScaffoldGenerator {
      *
      * If a molecule does not generate a Scaffold, it is stored as a node with empty SMILES and is treated normally.<p>
      *
+     * The generation is stopped early if one of the budgets {@link ScaffoldGenerator#maximumFragmentCountSetting},
+     * {@link ScaffoldGenerator#maximumRingCountSetting} or {@link ScaffoldGenerator#maximumWallTimeSetting} is exhausted.
+     * The SMILES of such a molecule is then listed by {@link ScaffoldNodeCollectionBase#getTruncatedOriginSmilesList()}. <p>
+     *
      * The removal of atoms can create open valences. These are compensated with implicit hydrogens.
      * @param aMolecule Molecule to be disassembled.
      * @return ScaffoldNetwork with all resulting Scaffold.
@@ -587,67 +1557,255 @@ public class ScaffoldGenerator {
      * @throws NullPointerException if parameter is null
      */
     public ScaffoldNetwork generateScaffoldNetwork(IAtomContainer aMolecule) throws CDKException, CloneNotSupportedException, NullPointerException {
+        return this.generateScaffoldNetwork(aMolecule, 1, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Iteratively removes the terminal rings like {@link ScaffoldGenerator#generateScaffoldNetwork(IAtomContainer)},
+     * but stops the removal early. Scaffolds with aMinimumRingCount rings or fewer and scaffolds that are
+     * aMaximumRemovalDepth removals away from the scaffold of the molecule are not disassembled further.
+     * The rings of each scaffold are counted by the cycle finder. Since the removal of a fused ring can lower the ring count
+     * by more than one, the resulting scaffolds with fewer than aMinimumRingCount rings are discarded.
+     * Apart from the scaffold of the molecule, the network therefore only contains scaffolds with at least aMinimumRingCount rings,
+     * on the aMaximumRemovalDepth levels below the scaffold of the molecule.
+     * Stopping in this way does not mark the network as truncated. <p>
+     *
+     * The removal of atoms can create open valences. These are compensated with implicit hydrogens.
+     * @param aMolecule Molecule to be disassembled.
+     * @param aMinimumRingCount Minimum number of rings of the generated scaffolds, the scaffold of the molecule excepted. 1 for no limit.
+     * @param aMaximumRemovalDepth Maximum number of rings removed from the scaffold of the molecule. Integer.MAX_VALUE for no limit.
+     * @return ScaffoldNetwork with all resulting Scaffold.
+     * @throws CDKException problem with CDKHydrogenAdder: Throws if insufficient information is present
+     * @throws CloneNotSupportedException if cloning is not possible.
+     * @throws NullPointerException if parameter is null
+     * @throws IllegalArgumentException if aMinimumRingCount is smaller than 1 or aMaximumRemovalDepth is negative
+     */
+    public ScaffoldNetwork generateScaffoldNetwork(IAtomContainer aMolecule, int aMinimumRingCount, int aMaximumRemovalDepth)
+            throws CDKException, CloneNotSupportedException, NullPointerException, IllegalArgumentException {
         Objects.requireNonNull(aMolecule, "Input molecule must be non null");
+        this.checkNetworkBounds(aMinimumRingCount, aMaximumRemovalDepth);
+        return this.generateScaffoldNetwork(aMolecule, aMinimumRingCount, aMaximumRemovalDepth, null, 1);
+    }
+
+    /**
+     * Generates the network of the molecule like {@link ScaffoldGenerator#generateScaffoldNetwork(IAtomContainer, int, int)},
+     * but only creates nodes for the scaffolds whose estimated frequency in the sketch reaches the threshold.
+     * Infrequent scaffolds are still disassembled, since the scaffolds below them can be frequent, but get no node.
+     * The nodes of frequent scaffolds are linked if one results from the other by the removal of one ring.
+     * @param aMolecule Molecule to be disassembled.
+     * @param aMinimumRingCount Minimum number of rings of the generated scaffolds, the scaffold of the molecule excepted. 1 for no limit.
+     * @param aMaximumRemovalDepth Maximum number of rings removed from the scaffold of the molecule. Integer.MAX_VALUE for no limit.
+     * @param aSketch Sketch with the counted scaffolds or null to create nodes for all scaffolds
+     * @param aMinimumOriginCount Minimum estimated frequency of a scaffold that gets a node. Ignored if aSketch is null.
+     * @return ScaffoldNetwork with the frequent scaffolds. Empty if all scaffolds are infrequent.
+     * @throws CDKException problem with CDKHydrogenAdder: Throws if insufficient information is present
+     * @throws CloneNotSupportedException if cloning is not possible.
+     */
+    protected ScaffoldNetwork generateScaffoldNetwork(IAtomContainer aMolecule, int aMinimumRingCount, int aMaximumRemovalDepth,
+                                                      ScaffoldFrequencySketch aSketch, int aMinimumOriginCount) throws CDKException, CloneNotSupportedException {
         ScaffoldNetwork tmpScaffoldNetwork = new ScaffoldNetwork(this.getSmilesGenerator());
         IAtomContainer tmpScaffoldOriginal = this.getScaffoldInternal(aMolecule, true, this.determineAromaticitySetting, this.aromaticityModelSetting, this.scaffoldModeSetting);
-        int tmpRingCount = this.getRingsInternal(tmpScaffoldOriginal, true).size();
+        //The cycle finder is selected once for the whole run
+        CycleFinderContext tmpCycleFinderContext = this.predictCycleFinderContext(tmpScaffoldOriginal);
+        int tmpRingCount = this.getRingsInternal(tmpScaffoldOriginal, true, tmpCycleFinderContext).size();
         //List of all fragments already created and size estimated on the basis of an empirical value
         List<IAtomContainer> tmpIterativeRemovalList = new ArrayList<>(tmpRingCount * 45);
         tmpIterativeRemovalList.add(tmpScaffoldOriginal); //Add origin Scaffold
+        //Number of removed rings of each fragment in tmpIterativeRemovalList
+        List<Integer> tmpRemovalDepthList = new ArrayList<>(tmpRingCount * 45);
+        tmpRemovalDepthList.add(0);
+        //Node of each fragment in tmpIterativeRemovalList, null for infrequent fragments
+        List<NetworkNode<IAtomContainer>> tmpFragmentNodeList = new ArrayList<>(tmpRingCount * 45);
+        //SMILES of all fragments created so far and their index in tmpIterativeRemovalList
+        HashMap<String, Integer> tmpFragmentIndexMap = new HashMap<>(tmpRingCount * 60);
+        String tmpScaffoldOriginalSmiles = this.getSmilesGenerator().create(tmpScaffoldOriginal);
+        tmpFragmentIndexMap.put(tmpScaffoldOriginalSmiles, 0);
         /*Add the first node to the network*/
-        NetworkNode<IAtomContainer> tmpFirstNode = new NetworkNode<>(tmpScaffoldOriginal);
-        tmpScaffoldNetwork.addNode(tmpFirstNode);
-        /*Get the origin and link it to the first node*/
         String tmpFirstNodeSmiles = this.getSmilesGenerator().create(aMolecule);
-        tmpFirstNode.addOriginSmiles(tmpFirstNodeSmiles);
-        tmpFirstNode.addNonVirtualOriginSmiles(tmpFirstNodeSmiles);
-        /*Go through all fragments created by iterative removal*/
-        for (int tmpCounter = 0; tmpCounter < tmpIterativeRemovalList.size(); tmpCounter++) {
-            IAtomContainer tmpIterMol = tmpIterativeRemovalList.get(tmpCounter); //Take the next molecule from the list
-            List<IAtomContainer> tmpAllRingsList = this.getRingsInternal(tmpIterMol, true);
-            int tmpRingSize = tmpAllRingsList.size();
-            /*Go through all rings of the fragment*/
-            for (IAtomContainer tmpRing : tmpAllRingsList) {
-                /*Skip molecule if it has less than 2 rings*/
-                if (tmpRingSize < 2) {
-                    continue;
+        NetworkNode<IAtomContainer> tmpFirstNode = null;
+        if (aSketch == null || aSketch.estimate(tmpScaffoldOriginalSmiles) >= aMinimumOriginCount) {
+            tmpFirstNode = new NetworkNode<>(tmpScaffoldOriginal);
+            tmpScaffoldNetwork.addNode(tmpFirstNode);
+            /*Get the origin and link it to the first node*/
+            tmpFirstNode.addOriginSmiles(tmpFirstNodeSmiles);
+            tmpFirstNode.addNonVirtualOriginSmiles(tmpFirstNodeSmiles);
+        }
+        tmpFragmentNodeList.add(tmpFirstNode);
+        long tmpStartTime = System.nanoTime();
+        //Scaffolds with too many rings are not disassembled
+        boolean tmpIsTruncated = tmpRingCount > this.maximumRingCountSetting;
+        /*Go through all fragments created by iterative removal. In parallel mode, all fragments of one removal step are expanded together*/
+        int tmpStepStart = 0;
+        while (!tmpIsTruncated && tmpStepStart < tmpIterativeRemovalList.size()) {
+            //Stop if the time budget is exhausted
+            if (this.isWallTimeExceeded(tmpStartTime)) {
+                tmpIsTruncated = true;
+                break;
+            }
+            int tmpStepEnd = this.parallelRingEvaluationSetting ? tmpIterativeRemovalList.size() : tmpStepStart + 1;
+            /*Fragments at the bounds are not disassembled. Without a minimum, fragments with one ring are skipped by getRingRemovedFragments()*/
+            List<IAtomContainer> tmpStepFragmentList = new ArrayList<>(tmpStepEnd - tmpStepStart);
+            for (int tmpCounter = tmpStepStart; tmpCounter < tmpStepEnd; tmpCounter++) {
+                IAtomContainer tmpFragment = tmpIterativeRemovalList.get(tmpCounter);
+                boolean tmpIsExpanded = tmpRemovalDepthList.get(tmpCounter) < aMaximumRemovalDepth && (aMinimumRingCount == 1
+                        || tmpCycleFinderContext.getCycleFinder().find(tmpFragment).numberOfCycles() > aMinimumRingCount);
+                tmpStepFragmentList.add(tmpIsExpanded ? tmpFragment : null);
+            }
+            List<List<IAtomContainer>> tmpStepRingRemovedList = this.evaluateCandidates(tmpStepFragmentList, tmpFragment -> {
+                if (tmpFragment == null) {
+                    return new ArrayList<>(0);
+                }
+                List<IAtomContainer> tmpRingRemovedList = this.getRingRemovedFragments(tmpFragment, tmpCycleFinderContext);
+                /*Discard the scaffolds below the minimum ring count*/
+                if (aMinimumRingCount > 1) {
+                    List<IAtomContainer> tmpBoundedList = new ArrayList<>(tmpRingRemovedList.size());
+                    for (IAtomContainer tmpRingRemoved : tmpRingRemovedList) {
+                        if (tmpCycleFinderContext.getCycleFinder().find(tmpRingRemoved).numberOfCycles() >= aMinimumRingCount) {
+                            tmpBoundedList.add(tmpRingRemoved);
+                        }
+                    }
+                    return tmpBoundedList;
                 }
-                /*Consider all removable terminal rings*/
-                if (this.isRingTerminal(tmpIterMol, tmpRing) && this.isRingRemovable(tmpRing, tmpAllRingsList, tmpIterMol)) {
-                    //Remove next ring
-                    IAtomContainer tmpRingRemoved = this.getScaffoldInternal(
-                            this.removeRing(tmpIterMol, true, tmpRing),
-                            true,
-                            this.determineAromaticitySetting,
-                            aromaticityModelSetting,
-                            this.scaffoldModeSetting);
-                    /*The node is not yet in the network and must therefore still be added.*/
-                    if(!tmpScaffoldNetwork.containsMolecule(tmpRingRemoved)) {
+                return tmpRingRemovedList;
+            });
+            for (int tmpCounter = tmpStepStart; tmpCounter < tmpStepEnd; tmpCounter++) {
+                //Node of the fragment whose rings were removed, null if it is infrequent
+                NetworkNode<IAtomContainer> tmpIterNode = tmpFragmentNodeList.get(tmpCounter);
+                /*Go through all fragments resulting from the removal of a removable terminal ring*/
+                for (IAtomContainer tmpRingRemoved : tmpStepRingRemovedList.get(tmpCounter - tmpStepStart)) {
+                    String tmpRingRemovedSmiles = this.getSmilesGenerator().create(tmpRingRemoved);
+                    Integer tmpRingRemovedIndex = tmpFragmentIndexMap.get(tmpRingRemovedSmiles);
+                    /*The fragment has not been created yet and must therefore still be added.*/
+                    if (tmpRingRemovedIndex == null) {
+                        //Stop if the fragment budget is exhausted
+                        if (tmpIterativeRemovalList.size() >= this.maximumFragmentCountSetting) {
+                            tmpIsTruncated = true;
+                            break;
+                        }
+                        tmpFragmentIndexMap.put(tmpRingRemovedSmiles, tmpIterativeRemovalList.size());
                         tmpIterativeRemovalList.add(tmpRingRemoved);
+                        tmpRemovalDepthList.add(tmpRemovalDepthList.get(tmpCounter) + 1);
+                        /*Infrequent fragments are disassembled further, but get no node*/
+                        if (aSketch != null && aSketch.estimate(tmpRingRemovedSmiles) < aMinimumOriginCount) {
+                            tmpFragmentNodeList.add(null);
+                            continue;
+                        }
                         //Create new node
                         NetworkNode<IAtomContainer> tmpNewNode = new NetworkNode<>(tmpRingRemoved);
+                        tmpFragmentNodeList.add(tmpNewNode);
                         //Add the new node as parent for the old one
-                        NetworkNode<IAtomContainer> tmpNode1 = (NetworkNode<IAtomContainer>) tmpScaffoldNetwork.getNode(tmpIterMol);
-                        tmpNode1.addParent(tmpNewNode);
+                        if (tmpIterNode != null) {
+                            tmpIterNode.addParent(tmpNewNode);
+                        }
                         //Add Origin
                         tmpNewNode.addOriginSmiles(tmpFirstNodeSmiles);
                         //Add new node to the network
                         tmpScaffoldNetwork.addNode(tmpNewNode);
-                    /*The node is already in the network*/
+                    /*The fragment has already been created*/
                     } else {
-                        /*Node with the same molecule already in the tree*/
-                        NetworkNode<IAtomContainer> tmpOldNode = (NetworkNode<IAtomContainer>) tmpScaffoldNetwork.getNode(tmpRingRemoved);
+                        /*Node with the same molecule already in the network*/
+                        NetworkNode<IAtomContainer> tmpOldNode = tmpFragmentNodeList.get(tmpRingRemovedIndex);
                         /*Add parent*/
-                        NetworkNode<IAtomContainer> tmpNewNode = (NetworkNode<IAtomContainer>) tmpScaffoldNetwork.getNode(tmpIterMol);
-                        tmpNewNode.addParent(tmpOldNode);
+                        if (tmpIterNode != null && tmpOldNode != null) {
+                            tmpIterNode.addParent(tmpOldNode);
+                        }
                     }
                 }
+                if (tmpIsTruncated) {
+                    break;
+                }
             }
+            tmpStepStart = tmpStepEnd;
+        }
+        /*Report the molecule as truncated*/
+        if (tmpIsTruncated) {
+            tmpScaffoldNetwork.addTruncatedOriginSmiles(tmpFirstNodeSmiles);
         }
         tmpScaffoldNetwork.updateLevelMap();
         return tmpScaffoldNetwork;
     }
 
+    /**
+     * Generates a lazy ScaffoldNetwork of the molecule. Only the scaffold of the molecule is created immediately.
+     * The scaffolds resulting from the removal of one terminal ring, i.e. the parents of a node, are only generated when they are
+     * first requested by {@link NetworkNode#getExpandedParents()} and are then cached in the network.
+     * Thus, only the part of the network that is actually explored is generated. <p>
+     *
+     * The network expanded completely in this way contains the same nodes and linkages as the one of
+     * {@link ScaffoldGenerator#generateScaffoldNetwork(IAtomContainer)}.
+     * Until then, the levels only reflect the nodes generated so far. Nodes whose parents are not known yet are located on level 0.
+     * The budgets {@link ScaffoldGenerator#maximumFragmentCountSetting} and {@link ScaffoldGenerator#maximumRingCountSetting}
+     * are applied on each expansion. <p>
+     *
+     * The settings of the generator are read at the time of the expansion and should therefore not be changed in the meantime.
+     * {@link ScaffoldNetwork#mergeNetwork(ScaffoldNetwork)} expands a lazy network completely before it is merged.
+     * The network is not thread-safe.
+     * @param aMolecule Molecule to be disassembled.
+     * @return lazy ScaffoldNetwork that only contains the scaffold of the molecule
+     * @throws CDKException problem with CDKHydrogenAdder: Throws if insufficient information is present
+     * @throws CloneNotSupportedException if cloning is not possible.
+     * @throws NullPointerException if parameter is null
+     */
+    public ScaffoldNetwork generateLazyScaffoldNetwork(IAtomContainer aMolecule) throws CDKException, CloneNotSupportedException, NullPointerException {
+        Objects.requireNonNull(aMolecule, "Input molecule must be non null");
+        ScaffoldNetwork tmpScaffoldNetwork = new ScaffoldNetwork(this.getSmilesGenerator());
+        IAtomContainer tmpScaffoldOriginal = this.getScaffoldInternal(aMolecule, true, this.determineAromaticitySetting, this.aromaticityModelSetting, this.scaffoldModeSetting);
+        //The cycle finder is selected once for all expansions
+        CycleFinderContext tmpCycleFinderContext = this.predictCycleFinderContext(tmpScaffoldOriginal);
+        /*Add the first node to the network*/
+        NetworkNode<IAtomContainer> tmpFirstNode = new NetworkNode<>(tmpScaffoldOriginal);
+        tmpScaffoldNetwork.addNode(tmpFirstNode);
+        /*Get the origin and link it to the first node*/
+        String tmpFirstNodeSmiles = this.getSmilesGenerator().create(aMolecule);
+        tmpFirstNode.addOriginSmiles(tmpFirstNodeSmiles);
+        tmpFirstNode.addNonVirtualOriginSmiles(tmpFirstNodeSmiles);
+        //Scaffolds with too many rings are not disassembled
+        if (this.getRingsInternal(tmpScaffoldOriginal, true, tmpCycleFinderContext).size() > this.maximumRingCountSetting) {
+            tmpScaffoldNetwork.addTruncatedOriginSmiles(tmpFirstNodeSmiles);
+        } else {
+            tmpFirstNode.setParentExpander(tmpNode -> this.expandLazyNetworkNode(tmpScaffoldNetwork, tmpNode, tmpFirstNodeSmiles, tmpCycleFinderContext));
+        }
+        return tmpScaffoldNetwork;
+    }
+
+    /**
+     * Adds the scaffolds resulting from the removal of one terminal ring of the node to the lazy network and links them as parents.
+     * The new nodes are expanded on request in the same way.
+     * Used by {@link ScaffoldGenerator#generateLazyScaffoldNetwork(IAtomContainer)}.
+     * @param aScaffoldNetwork Lazy network the node belongs to
+     * @param aNode Node whose parents are generated
+     * @param anOriginSmiles SMILES of the molecule the network was generated for
+     * @param aCycleFinderContext Per-run context that selects the cycle finder
+     * @throws CDKException problem with CDKHydrogenAdder: Throws if insufficient information is present
+     * @throws CloneNotSupportedException if cloning is not possible.
+     */
+    protected void expandLazyNetworkNode(ScaffoldNetwork aScaffoldNetwork, NetworkNode<IAtomContainer> aNode, String anOriginSmiles,
+                                         CycleFinderContext aCycleFinderContext) throws CDKException, CloneNotSupportedException {
+        /*Go through all fragments resulting from the removal of a removable terminal ring*/
+        for (IAtomContainer tmpRingRemoved : this.getRingRemovedFragments(aNode.getMolecule(), aCycleFinderContext)) {
+            /*The node is already in the network*/
+            if (aScaffoldNetwork.containsMolecule(tmpRingRemoved)) {
+                aNode.addParent((NetworkNode<IAtomContainer>) aScaffoldNetwork.getNode(tmpRingRemoved));
+                continue;
+            }
+            //Stop if the fragment budget is exhausted
+            if (aScaffoldNetwork.getAllNodes().size() >= this.maximumFragmentCountSetting) {
+                if (!aScaffoldNetwork.isTruncated()) {
+                    aScaffoldNetwork.addTruncatedOriginSmiles(anOriginSmiles);
+                }
+                continue;
+            }
+            //Create new node, which is expanded on request
+            NetworkNode<IAtomContainer> tmpNewNode = new NetworkNode<>(tmpRingRemoved);
+            tmpNewNode.setParentExpander(tmpNode -> this.expandLazyNetworkNode(aScaffoldNetwork, tmpNode, anOriginSmiles, aCycleFinderContext));
+            //Add the new node as parent for the old one
+            aNode.addParent(tmpNewNode);
+            tmpNewNode.addOriginSmiles(anOriginSmiles);
+            aScaffoldNetwork.addNode(tmpNewNode);
+        }
+        aScaffoldNetwork.updateLevelMap();
+    }
+
     /**
      * Generates a network for each molecule in the list and merges the networks together. <p>
      *
@@ -672,19 +1830,280 @@ public class ScaffoldGenerator {
      * @throws NullPointerException if parameter is null
      */
     public ScaffoldNetwork generateScaffoldNetwork(List<IAtomContainer> aMoleculeList) throws CDKException, CloneNotSupportedException, NullPointerException {
+        return this.generateScaffoldNetwork(aMoleculeList, 1, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Generates a network for each molecule in the list like {@link ScaffoldGenerator#generateScaffoldNetwork(List)},
+     * but stops the removal of each molecule early as described in {@link ScaffoldGenerator#generateScaffoldNetwork(IAtomContainer, int, int)}.
+     * The networks are merged together.
+     * @param aMoleculeList List of Molecules to be disassembled and merged.
+     * @param aMinimumRingCount Minimum number of rings of the generated scaffolds, the scaffold of each molecule excepted. 1 for no limit.
+     * @param aMaximumRemovalDepth Maximum number of rings removed from the scaffold of each molecule. Integer.MAX_VALUE for no limit.
+     * @return ScaffoldNetwork with all resulting Scaffold.
+     * @throws CDKException problem with CDKHydrogenAdder: Throws if insufficient information is present
+     * @throws CloneNotSupportedException if cloning is not possible.
+     * @throws NullPointerException if parameter is null
+     * @throws IllegalArgumentException if aMinimumRingCount is smaller than 1 or aMaximumRemovalDepth is negative
+     */
+    public ScaffoldNetwork generateScaffoldNetwork(List<IAtomContainer> aMoleculeList, int aMinimumRingCount, int aMaximumRemovalDepth)
+            throws CDKException, CloneNotSupportedException, NullPointerException, IllegalArgumentException {
         Objects.requireNonNull(aMoleculeList, "Input molecule list must be non null");
+        this.checkNetworkBounds(aMinimumRingCount, aMaximumRemovalDepth);
         ScaffoldNetwork tmpScaffoldNetwork = new ScaffoldNetwork(this.smilesGeneratorSetting);
+        this.addToScaffoldNetwork(tmpScaffoldNetwork, aMoleculeList, aMinimumRingCount, aMaximumRemovalDepth);
+        return  tmpScaffoldNetwork;
+    }
+
+    /**
+     * Generates a network of the molecules like {@link ScaffoldGenerator#generateScaffoldNetwork(List)} and writes a checkpoint
+     * after every aCheckpointInterval molecules and after the last one. A checkpoint consists of the number of processed molecules
+     * and the partial network in the format of {@link ScaffoldNodeCollectionBase#writeBinary(OutputStream)}.
+     * It is written to a temporary file next to the checkpoint file first and then moved in place,
+     * so an interruption while writing leaves the previous checkpoint intact. <p>
+     *
+     * If the checkpoint file exists, the partial network is loaded and only the molecules after the processed ones are decomposed.
+     * The restarted job must therefore get the same molecules in the same order and use the same settings.
+     * The result has the same nodes, origins and edges as an uninterrupted run.
+     * The checkpoint file is not deleted when the generation is finished.
+     * @param aMoleculeList List of Molecules to be disassembled and merged.
+     * @param aCheckpointPath File the checkpoints are written to and resumed from
+     * @param aCheckpointInterval Number of molecules processed between two checkpoints
+     * @param aBuilder Builder used to parse the molecules of a loaded checkpoint
+     * @return ScaffoldNetwork with all resulting Scaffold.
+     * @throws CDKException if SMILES code of a molecule cannot be created
+     * @throws CloneNotSupportedException if cloning is not possible.
+     * @throws IOException if the checkpoint cannot be read or written or does not belong to a network of the molecules
+     * @throws NullPointerException if a parameter is null
+     * @throws IllegalArgumentException if aCheckpointInterval is smaller than 1
+     */
+    public ScaffoldNetwork generateScaffoldNetwork(List<IAtomContainer> aMoleculeList, Path aCheckpointPath, int aCheckpointInterval,
+                                                   IChemObjectBuilder aBuilder)
+            throws CDKException, CloneNotSupportedException, IOException, NullPointerException, IllegalArgumentException {
+        Objects.requireNonNull(aMoleculeList, "Input molecule list must be non null");
+        Objects.requireNonNull(aCheckpointPath, "Input path must be non null");
+        Objects.requireNonNull(aBuilder, "Input builder must be non null");
+        if(aCheckpointInterval < 1) {
+            throw new IllegalArgumentException("Checkpoint interval must be at least 1");
+        }
+        ScaffoldNetwork tmpScaffoldNetwork;
+        int tmpPosition = 0;
+        if(Files.exists(aCheckpointPath)) {
+            try(InputStream tmpStream = new BufferedInputStream(Files.newInputStream(aCheckpointPath))) {
+                tmpPosition = this.readCheckpointPosition(tmpStream, (byte) 1, aMoleculeList.size());
+                tmpScaffoldNetwork = ScaffoldNetwork.readBinary(tmpStream, this.smilesGeneratorSetting, aBuilder);
+            }
+        } else {
+            tmpScaffoldNetwork = new ScaffoldNetwork(this.smilesGeneratorSetting);
+        }
+        do {
+            int tmpEnd = (int) Math.min((long) tmpPosition + aCheckpointInterval, aMoleculeList.size());
+            this.addToScaffoldNetwork(tmpScaffoldNetwork, aMoleculeList.subList(tmpPosition, tmpEnd));
+            tmpPosition = tmpEnd;
+            try(OutputStream tmpStream = this.openCheckpoint(aCheckpointPath, (byte) 1, tmpPosition)) {
+                tmpScaffoldNetwork.writeBinary(tmpStream);
+            }
+            this.commitCheckpoint(aCheckpointPath);
+        } while(tmpPosition < aMoleculeList.size());
+        return tmpScaffoldNetwork;
+    }
+
+    /**
+     * Generates scaffold networks of the molecules in several representations at once, linked by projections
+     * from each representation onto the more abstract ones. The network of {@link ScaffoldGenerator#scaffoldModeSetting}
+     * is generated like {@link ScaffoldGenerator#generateScaffoldNetwork(List)}, i.e. the rings are perceived and removed once per fragment.
+     * The nodes of the other representations are derived from each fragment by {@link ScaffoldGenerator#getScaffolds(IAtomContainer, boolean, Set)}
+     * and linked where the fragments are linked, so each of these networks consists of the projections of the fragments.
+     * Fragments with the same projection are merged and links between them are dropped. <p>
+     *
+     * The network of {@link ScaffoldGenerator#scaffoldModeSetting} is always generated.
+     * BASIC_FRAMEWORK is not derived from fragments, since it is built from a molecule whose heteroatoms are already carbons
+     * and its rings are removed in that form, so it is only available as {@link ScaffoldGenerator#scaffoldModeSetting}.
+     * Molecules that cause an exception are skipped and logged.
+     * @param aMoleculeList List of Molecules to be disassembled and merged.
+     * @param aScaffoldModeSet Requested representations. Each must be {@link ScaffoldGenerator#scaffoldModeSetting} or more abstract,
+     * see {@link MultiRepresentationScaffoldNetwork#isMoreAbstract(ScaffoldModeOption, ScaffoldModeOption)}.
+     * @return networks of the representations and the projections between them
+     * @throws CDKException In case of a problem with the SmilesGenerator
+     * @throws NullPointerException if a parameter is null
+     * @throws IllegalArgumentException if a representation cannot be derived from {@link ScaffoldGenerator#scaffoldModeSetting}
+     * or BASIC_FRAMEWORK is requested with another {@link ScaffoldGenerator#scaffoldModeSetting}
+     */
+    public MultiRepresentationScaffoldNetwork generateMultiRepresentationNetwork(List<IAtomContainer> aMoleculeList, Set<ScaffoldModeOption> aScaffoldModeSet)
+            throws CDKException, NullPointerException, IllegalArgumentException {
+        Objects.requireNonNull(aMoleculeList, "Input molecule list must be non null");
+        Objects.requireNonNull(aScaffoldModeSet, "Input scaffold mode set must be non null");
+        /*The derived representations exclude the one the rings are removed in*/
+        EnumSet<ScaffoldModeOption> tmpDerivedModeSet = EnumSet.noneOf(ScaffoldModeOption.class);
+        for(ScaffoldModeOption tmpScaffoldMode : aScaffoldModeSet) {
+            if(tmpScaffoldMode.equals(ScaffoldModeOption.BASIC_FRAMEWORK) && !this.scaffoldModeSetting.equals(ScaffoldModeOption.BASIC_FRAMEWORK)) {
+                /*Carbon atoms replacing aromatic heteroatoms of removed rings are typed as radicals and the rings removed
+                from the carbon framework differ from those removed from the fragments*/
+                throw new IllegalArgumentException(tmpScaffoldMode + " can only be generated as " + ScaffoldModeOption.BASIC_FRAMEWORK
+                        + " scaffold mode setting");
+            } else if(MultiRepresentationScaffoldNetwork.isMoreAbstract(tmpScaffoldMode, this.scaffoldModeSetting)) {
+                tmpDerivedModeSet.add(tmpScaffoldMode);
+            } else if(!tmpScaffoldMode.equals(this.scaffoldModeSetting)) {
+                throw new IllegalArgumentException(tmpScaffoldMode + " cannot be derived from " + this.scaffoldModeSetting);
+            }
+        }
+        EnumMap<ScaffoldModeOption, ScaffoldNetwork> tmpNetworkMap = new EnumMap<>(ScaffoldModeOption.class);
+        tmpNetworkMap.put(this.scaffoldModeSetting, new ScaffoldNetwork(this.smilesGeneratorSetting));
+        for(ScaffoldModeOption tmpScaffoldMode : tmpDerivedModeSet) {
+            tmpNetworkMap.put(tmpScaffoldMode, new ScaffoldNetwork(this.smilesGeneratorSetting));
+        }
+        MultiRepresentationScaffoldNetwork tmpResult = new MultiRepresentationScaffoldNetwork(tmpNetworkMap);
+        for(IAtomContainer tmpMolecule : aMoleculeList) {
+            Objects.requireNonNull(tmpMolecule, "Input molecule must be non null");
+            EnumMap<ScaffoldModeOption, ScaffoldNetwork> tmpMoleculeNetworkMap = new EnumMap<>(ScaffoldModeOption.class);
+            HashMap<String, ScaffoldRepresentations> tmpRepresentationMap = new HashMap<>();
+            try {
+                ScaffoldNetwork tmpBaseNetwork = this.generateScaffoldNetwork(tmpMolecule.clone(), 1, Integer.MAX_VALUE);
+                tmpMoleculeNetworkMap.put(this.scaffoldModeSetting, tmpBaseNetwork);
+                /*Derive the representations of each fragment. The atom types of the fragment are cleared,
+                since they would prevent the atoms that lose bonds from being typed again*/
+                for(ScaffoldNodeBase tmpNode : tmpBaseNetwork.getAllNodes()) {
+                    IAtomContainer tmpFragment = ((IAtomContainer) tmpNode.getMolecule()).clone();
+                    AtomContainerManipulator.clearAtomConfigurations(tmpFragment);
+                    tmpRepresentationMap.put(this.smilesGeneratorSetting.create((IAtomContainer) tmpNode.getMolecule()),
+                            this.getScaffolds(tmpFragment, true, tmpDerivedModeSet));
+                }
+                for(ScaffoldModeOption tmpScaffoldMode : tmpDerivedModeSet) {
+                    tmpMoleculeNetworkMap.put(tmpScaffoldMode, this.projectScaffoldNetwork(tmpBaseNetwork, tmpRepresentationMap, tmpScaffoldMode));
+                }
+            } catch (Exception anException) {
+                /*Log the skipped molecule*/
+                int tmpLogExceptionNumber = this.tmpLogExceptionCounter.incrementAndGet();
+                try {
+                    ScaffoldGenerator.LOGGER.warn(anException.toString()
+                            + "\n generateMultiRepresentationNetwork() Exception. SMILES of the skipped molecule number " + tmpLogExceptionNumber + ": "
+                            + this.smilesGeneratorSetting.create(tmpMolecule), anException);
+                } catch (Exception anExceptionException) {
+                    ScaffoldGenerator.LOGGER.warn(anException.toString()
+                            + "\nException inside the generateMultiRepresentationNetwork() Exception. Probably a problem with the SMILES generator.",
+                            anException);
+                }
+                continue;
+            }
+            for(Map.Entry<ScaffoldModeOption, ScaffoldNetwork> tmpEntry : tmpMoleculeNetworkMap.entrySet()) {
+                tmpNetworkMap.get(tmpEntry.getKey()).mergeNetwork(tmpEntry.getValue());
+            }
+            /*Record the projections between all comparable representations*/
+            for(Map.Entry<String, ScaffoldRepresentations> tmpEntry : tmpRepresentationMap.entrySet()) {
+                ScaffoldRepresentations tmpRepresentations = tmpEntry.getValue();
+                for(ScaffoldModeOption tmpTargetMode : tmpDerivedModeSet) {
+                    tmpResult.addProjection(this.scaffoldModeSetting, tmpEntry.getKey(), tmpTargetMode, tmpRepresentations.getKey(tmpTargetMode));
+                    for(ScaffoldModeOption tmpSourceMode : tmpDerivedModeSet) {
+                        if(MultiRepresentationScaffoldNetwork.isMoreAbstract(tmpTargetMode, tmpSourceMode)) {
+                            tmpResult.addProjection(tmpSourceMode, tmpRepresentations.getKey(tmpSourceMode), tmpTargetMode, tmpRepresentations.getKey(tmpTargetMode));
+                        }
+                    }
+                }
+            }
+        }
+        return tmpResult;
+    }
+
+    /**
+     * Projects the network of one molecule onto another representation. Each fragment is replaced by its representation,
+     * fragments with the same representation become one node and the links between different nodes are kept.
+     * The projection of a fragment carries the origins of the fragment and the non-virtual origin if the fragment has one.
+     * @param aScaffoldNetwork Network of one molecule
+     * @param aRepresentationMap Representations of the fragments by their unique SMILES
+     * @param aScaffoldMode Representation of the projected network
+     * @return projected network
+     * @throws CDKException In case of a problem with the SmilesGenerator
+     */
+    protected ScaffoldNetwork projectScaffoldNetwork(ScaffoldNetwork aScaffoldNetwork, Map<String, ScaffoldRepresentations> aRepresentationMap,
+                                                     ScaffoldModeOption aScaffoldMode) throws CDKException {
+        ScaffoldNetwork tmpProjectedNetwork = new ScaffoldNetwork(this.smilesGeneratorSetting);
+        HashMap<String, NetworkNode<IAtomContainer>> tmpProjectedNodeMap = new HashMap<>();
+        HashMap<ScaffoldNodeBase, NetworkNode<IAtomContainer>> tmpNodeProjectionMap = new HashMap<>();
+        for(ScaffoldNodeBase tmpNode : aScaffoldNetwork.getAllNodes()) {
+            ScaffoldRepresentations tmpRepresentations = aRepresentationMap.get(this.smilesGeneratorSetting.create((IAtomContainer) tmpNode.getMolecule()));
+            String tmpKey = tmpRepresentations.getKey(aScaffoldMode);
+            NetworkNode<IAtomContainer> tmpProjectedNode = tmpProjectedNodeMap.get(tmpKey);
+            if(tmpProjectedNode == null) {
+                tmpProjectedNode = new NetworkNode<>(tmpRepresentations.getScaffold(aScaffoldMode));
+                tmpProjectedNodeMap.put(tmpKey, tmpProjectedNode);
+            }
+            for(Object tmpOriginSmiles : tmpNode.getOriginSmilesList()) {
+                tmpProjectedNode.addOriginSmiles((String) tmpOriginSmiles);
+            }
+            for(Object tmpNonVirtualOriginSmiles : tmpNode.getNonVirtualOriginSmilesList()) {
+                tmpProjectedNode.addNonVirtualOriginSmiles((String) tmpNonVirtualOriginSmiles);
+            }
+            tmpNodeProjectionMap.put(tmpNode, tmpProjectedNode);
+        }
+        /*Link the projections like the fragments. The parents have fewer rings, so the projection cannot create cycles*/
+        for(ScaffoldNodeBase tmpNode : aScaffoldNetwork.getAllNodes()) {
+            NetworkNode<IAtomContainer> tmpProjectedNode = tmpNodeProjectionMap.get(tmpNode);
+            for(Object tmpParent : ((NetworkNode<IAtomContainer>) tmpNode).getParents()) {
+                NetworkNode<IAtomContainer> tmpProjectedParent = tmpNodeProjectionMap.get((ScaffoldNodeBase) tmpParent);
+                if(tmpProjectedParent != tmpProjectedNode && !tmpProjectedNode.getParents().contains(tmpProjectedParent)) {
+                    tmpProjectedNode.addParent(tmpProjectedParent);
+                }
+            }
+        }
+        for(NetworkNode<IAtomContainer> tmpProjectedNode : tmpProjectedNodeMap.values()) {
+            tmpProjectedNetwork.addNode(tmpProjectedNode);
+        }
+        for(String tmpTruncatedOriginSmiles : aScaffoldNetwork.getTruncatedOriginSmilesList()) {
+            tmpProjectedNetwork.addTruncatedOriginSmiles(tmpTruncatedOriginSmiles);
+        }
+        tmpProjectedNetwork.updateLevelMap();
+        return tmpProjectedNetwork;
+    }
+
+    /**
+     * Adds the molecules of the list to an existing network, e.g. one loaded by
+     * {@link ScaffoldNetwork#readBinary(java.io.InputStream, SmilesGenerator, org.openscience.cdk.interfaces.IChemObjectBuilder)}.
+     * A network is generated for each new molecule like {@link ScaffoldGenerator#generateScaffoldNetwork(List)}
+     * and merged into the existing network in place by {@link ScaffoldNetwork#mergeNetwork(ScaffoldNetwork)}.
+     * New fragments become new nodes, the origins of fragments that are already in the network are extended.
+     * Only the new molecules and their fragments are processed, so the cost depends on the number of new molecules
+     * and not on the size of the existing network. <p>
+     *
+     * The network must have been created with the same SMILES generator as this generator uses.
+     * Molecules that cause an exception are skipped and logged.
+     * @param aScaffoldNetwork Existing network that is extended
+     * @param aMoleculeList New molecules to be disassembled and merged into the network
+     * @throws CloneNotSupportedException if cloning is not possible.
+     * @throws NullPointerException if a parameter is null
+     */
+    public void addToScaffoldNetwork(ScaffoldNetwork aScaffoldNetwork, List<IAtomContainer> aMoleculeList)
+            throws CloneNotSupportedException, NullPointerException {
+        this.addToScaffoldNetwork(aScaffoldNetwork, aMoleculeList, 1, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Adds the molecules of the list to an existing network like {@link ScaffoldGenerator#addToScaffoldNetwork(ScaffoldNetwork, List)},
+     * but stops the removal of each molecule early as described in {@link ScaffoldGenerator#generateScaffoldNetwork(IAtomContainer, int, int)}.
+     * @param aScaffoldNetwork Existing network that is extended
+     * @param aMoleculeList New molecules to be disassembled and merged into the network
+     * @param aMinimumRingCount Minimum number of rings of the generated scaffolds, the scaffold of each molecule excepted. 1 for no limit.
+     * @param aMaximumRemovalDepth Maximum number of rings removed from the scaffold of each molecule. Integer.MAX_VALUE for no limit.
+     * @throws CloneNotSupportedException if cloning is not possible.
+     * @throws NullPointerException if a parameter is null
+     */
+    protected void addToScaffoldNetwork(ScaffoldNetwork aScaffoldNetwork, List<IAtomContainer> aMoleculeList, int aMinimumRingCount,
+                                        int aMaximumRemovalDepth) throws CloneNotSupportedException, NullPointerException {
+        Objects.requireNonNull(aScaffoldNetwork, "Input network must be non null");
+        Objects.requireNonNull(aMoleculeList, "Input molecule list must be non null");
+        if(aScaffoldNetwork.getOriginSpillStore() == null) {
+            aScaffoldNetwork.setOriginSpillStore(this.createOriginSpillStore());
+        }
         for(IAtomContainer tmpMolecule : aMoleculeList) {
             Objects.requireNonNull(tmpMolecule, "Input molecule must be non null");
             IAtomContainer tmpClonedMolecule = tmpMolecule.clone();
             try {
-                tmpScaffoldNetwork.mergeNetwork(this.generateScaffoldNetwork(tmpClonedMolecule));
+                aScaffoldNetwork.mergeNetwork(this.generateScaffoldNetwork(tmpClonedMolecule, aMinimumRingCount, aMaximumRemovalDepth));
             } catch (Exception anException) {
                 /*Log the skipped molecule*/
-                this.tmpLogExceptionCounter++;
+                int tmpLogExceptionNumber = this.tmpLogExceptionCounter.incrementAndGet();
                 try {
                     ScaffoldGenerator.LOGGER.warn(anException.toString()
-                            + "\n generateScaffoldNetwork() Exception. SMILES of the skipped molecule number " + this.tmpLogExceptionCounter + ": "
+                            + "\n generateScaffoldNetwork() Exception. SMILES of the skipped molecule number " + tmpLogExceptionNumber + ": "
                             + this.smilesGeneratorSetting.create(tmpClonedMolecule), anException);
                 } catch (Exception anExceptionException) {
                     ScaffoldGenerator.LOGGER.warn(anException.toString()
@@ -693,7 +2112,195 @@ public class ScaffoldGenerator {
                 }
             }
         }
-        return  tmpScaffoldNetwork;
+    }
+
+    /**
+     * Removes the contribution of a molecule from a network or tree, e.g. when the molecule is deprecated.
+     * The molecule is removed from the origins and non-virtual origins of its fragments
+     * and fragments without any remaining origin are removed from the collection.
+     * The fragments are found by starting from the scaffold of the molecule, which is generated with the current settings.
+     * The molecule is not decomposed again, so the cost depends on the number of its fragments and not on the size of the collection. <p>
+     *
+     * The collection must have been created by this generator with the same settings.
+     * @param aScaffoldCollection Network or tree the molecule is removed from
+     * @param aMolecule Molecule that has been added to the collection
+     * @return number of removed nodes
+     * @throws CDKException problem with CDKHydrogenAdder or the SMILES generator
+     * @throws CloneNotSupportedException if cloning is not possible.
+     * @throws NullPointerException if a parameter is null
+     */
+    public int removeMolecule(ScaffoldNodeCollectionBase aScaffoldCollection, IAtomContainer aMolecule)
+            throws CDKException, CloneNotSupportedException, NullPointerException {
+        Objects.requireNonNull(aScaffoldCollection, "Input collection must be non null");
+        Objects.requireNonNull(aMolecule, "Input molecule must be non null");
+        IAtomContainer tmpClonedMolecule = aMolecule.clone();
+        String tmpOriginSmiles = this.getSmilesGenerator().create(tmpClonedMolecule);
+        IAtomContainer tmpScaffold = this.getScaffoldInternal(tmpClonedMolecule, true, this.determineAromaticitySetting,
+                this.aromaticityModelSetting, this.scaffoldModeSetting);
+        return aScaffoldCollection.removeOrigin(tmpOriginSmiles, tmpScaffold);
+    }
+
+    /**
+     * Removes the contribution of a molecule from a forest like {@link ScaffoldGenerator#removeMolecule(ScaffoldNodeCollectionBase, IAtomContainer)}.
+     * Only the tree that contains the scaffold of the molecule is changed. Trees without any remaining node are removed from the forest.
+     * If no tree contains the scaffold, the molecule is removed from all trees.
+     * @param aScaffoldForest Forest as generated by {@link ScaffoldGenerator#generateSchuffenhauerForest(List)}, changed in place
+     * @param aMolecule Molecule that has been added to the forest
+     * @return number of removed nodes
+     * @throws CDKException problem with CDKHydrogenAdder or the SMILES generator
+     * @throws CloneNotSupportedException if cloning is not possible.
+     * @throws NullPointerException if a parameter is null
+     */
+    public int removeMoleculeFromForest(List<ScaffoldTree> aScaffoldForest, IAtomContainer aMolecule)
+            throws CDKException, CloneNotSupportedException, NullPointerException {
+        Objects.requireNonNull(aScaffoldForest, "Input forest must be non null");
+        Objects.requireNonNull(aMolecule, "Input molecule must be non null");
+        IAtomContainer tmpClonedMolecule = aMolecule.clone();
+        String tmpOriginSmiles = this.getSmilesGenerator().create(tmpClonedMolecule);
+        IAtomContainer tmpScaffold = this.getScaffoldInternal(tmpClonedMolecule, true, this.determineAromaticitySetting,
+                this.aromaticityModelSetting, this.scaffoldModeSetting);
+        String tmpScaffoldSmiles = this.getSmilesGenerator().create(tmpScaffold);
+        int tmpRemovedNodeCount = 0;
+        boolean tmpIsScaffoldFound = false;
+        for(ScaffoldTree tmpTree : aScaffoldForest) {
+            ScaffoldNodeBase tmpScaffoldNode = tmpTree.smilesMap.get(tmpScaffoldSmiles);
+            if(tmpScaffoldNode != null && tmpScaffoldNode.getOriginSmilesList().contains(tmpOriginSmiles)) {
+                tmpRemovedNodeCount += tmpTree.removeOrigin(tmpOriginSmiles, tmpScaffold);
+                tmpIsScaffoldFound = true;
+                break;
+            }
+        }
+        if(!tmpIsScaffoldFound) {
+            for(ScaffoldTree tmpTree : aScaffoldForest) {
+                tmpRemovedNodeCount += tmpTree.removeOrigin(tmpOriginSmiles);
+            }
+        }
+        aScaffoldForest.removeIf(tmpTree -> tmpTree.getAllNodes().isEmpty());
+        return tmpRemovedNodeCount;
+    }
+
+    /**
+     * Returns the shard a molecule belongs to in a sharded build.
+     * The shard is determined by the hash of the unique SMILES of the molecule, so it is the same in every process.
+     * @param aMolecule Molecule whose shard is determined
+     * @param aShardCount Number of shards
+     * @return shard index between 0 and aShardCount - 1
+     * @throws CDKException if the SMILES of the molecule cannot be created
+     * @throws NullPointerException if parameter is null
+     * @throws IllegalArgumentException if aShardCount is smaller than 1
+     */
+    public int getShardIndex(IAtomContainer aMolecule, int aShardCount) throws CDKException, NullPointerException, IllegalArgumentException {
+        Objects.requireNonNull(aMolecule, "Input molecule must be non null");
+        if(aShardCount < 1) {
+            throw new IllegalArgumentException("Shard count must be at least 1");
+        }
+        return Math.floorMod(this.getSmilesGenerator().create(aMolecule).hashCode(), aShardCount);
+    }
+
+    /**
+     * Builds the network of one shard of the molecules and writes it to a mapped network file.
+     * Only the molecules whose {@link ScaffoldGenerator#getShardIndex(IAtomContainer, int)} is aShardIndex are decomposed,
+     * so each shard can be built by a separate process from the same input.
+     * The shard files can be combined in any order by {@link MappedScaffoldNetwork#merge(List, Path)}
+     * and the result loaded by {@link MappedScaffoldNetwork#toScaffoldNetwork(IChemObjectBuilder)}. <p>
+     *
+     * Molecules that cause an exception are skipped and logged.
+     * @param aMoleculeList Molecules of all shards
+     * @param aShardIndex Shard to build
+     * @param aShardCount Number of shards
+     * @param aPath File the network of the shard is written to
+     * @throws CDKException if the SMILES of a molecule cannot be created
+     * @throws CloneNotSupportedException if cloning is not possible.
+     * @throws IOException if the file cannot be written
+     * @throws NullPointerException if a parameter is null
+     * @throws IllegalArgumentException if aShardIndex is not between 0 and aShardCount - 1
+     */
+    public void buildScaffoldNetworkShard(List<IAtomContainer> aMoleculeList, int aShardIndex, int aShardCount, Path aPath)
+            throws CDKException, CloneNotSupportedException, IOException, NullPointerException, IllegalArgumentException {
+        Objects.requireNonNull(aPath, "Input path must be non null");
+        ScaffoldNetwork tmpScaffoldNetwork = new ScaffoldNetwork(this.smilesGeneratorSetting);
+        this.addToScaffoldNetwork(tmpScaffoldNetwork, this.getShard(aMoleculeList, aShardIndex, aShardCount));
+        MappedScaffoldNetwork.write(tmpScaffoldNetwork, aPath);
+    }
+
+    /**
+     * Builds the forest of one shard of the molecules like {@link ScaffoldGenerator#generateSchuffenhauerForest(List)}
+     * and writes its nodes sorted by SMILES to a file by {@link ScaffoldTree#writeSortedForestBinary(List, OutputStream)}.
+     * The shard files can be combined in any order by {@link ScaffoldGenerator#mergeSchuffenhauerForestShards(List, Path)}
+     * and the result loaded by {@link ScaffoldTree#readSortedForestBinary(InputStream, SmilesGenerator, IChemObjectBuilder)}.
+     * @param aMoleculeList Molecules of all shards
+     * @param aShardIndex Shard to build
+     * @param aShardCount Number of shards
+     * @param aPath File the forest of the shard is written to
+     * @throws CDKException if the SMILES of a molecule cannot be created
+     * @throws CloneNotSupportedException if cloning is not possible.
+     * @throws IOException if the file cannot be written
+     * @throws NullPointerException if a parameter is null
+     * @throws IllegalArgumentException if aShardIndex is not between 0 and aShardCount - 1
+     */
+    public void buildSchuffenhauerForestShard(List<IAtomContainer> aMoleculeList, int aShardIndex, int aShardCount, Path aPath)
+            throws CDKException, CloneNotSupportedException, IOException, NullPointerException, IllegalArgumentException {
+        Objects.requireNonNull(aPath, "Input path must be non null");
+        List<ScaffoldTree> tmpScaffoldForest = this.generateSchuffenhauerForest(this.getShard(aMoleculeList, aShardIndex, aShardCount));
+        try(OutputStream tmpStream = Files.newOutputStream(aPath)) {
+            ScaffoldTree.writeSortedForestBinary(tmpScaffoldForest, tmpStream);
+        }
+    }
+
+    /**
+     * Merges forest files written by {@link ScaffoldGenerator#buildSchuffenhauerForestShard(List, int, int, Path)} or by this method
+     * and writes the merged forest to a file of the same format. Trees with the same root are merged.
+     * Merging is associative, so the files can be merged in any order and grouping. <p>
+     *
+     * Like {@link MappedScaffoldNetwork#merge(List, Path)} the sorted files are merged in one pass by
+     * {@link ScaffoldTree#mergeSortedForestBinary(List, OutputStream)}, reading one node of each file at a time,
+     * so neither the trees nor their molecules are loaded.
+     * @param anInputPathList Files to merge
+     * @param anOutputPath File the merged forest is written to, must not be one of the input files
+     * @throws IOException if a file cannot be read or written
+     * @throws NullPointerException if a parameter is null
+     */
+    public void mergeSchuffenhauerForestShards(List<Path> anInputPathList, Path anOutputPath) throws IOException, NullPointerException {
+        Objects.requireNonNull(anInputPathList, "Input path list must be non null");
+        Objects.requireNonNull(anOutputPath, "Output path must be non null");
+        List<InputStream> tmpInputStreamList = new ArrayList<>(anInputPathList.size());
+        try {
+            for(Path tmpPath : anInputPathList) {
+                tmpInputStreamList.add(new BufferedInputStream(Files.newInputStream(Objects.requireNonNull(tmpPath, "Input path must be non null"))));
+            }
+            try(OutputStream tmpStream = Files.newOutputStream(anOutputPath)) {
+                ScaffoldTree.mergeSortedForestBinary(tmpInputStreamList, tmpStream);
+            }
+        } finally {
+            for(InputStream tmpStream : tmpInputStreamList) {
+                tmpStream.close();
+            }
+        }
+    }
+
+    /**
+     * Returns the molecules of the list that belong to a shard.
+     * @param aMoleculeList Molecules of all shards
+     * @param aShardIndex Shard whose molecules are returned
+     * @param aShardCount Number of shards
+     * @return molecules of the shard
+     * @throws CDKException if the SMILES of a molecule cannot be created
+     * @throws NullPointerException if the list or a molecule is null
+     * @throws IllegalArgumentException if aShardIndex is not between 0 and aShardCount - 1
+     */
+    protected List<IAtomContainer> getShard(List<IAtomContainer> aMoleculeList, int aShardIndex, int aShardCount)
+            throws CDKException, NullPointerException, IllegalArgumentException {
+        Objects.requireNonNull(aMoleculeList, "Input molecule list must be non null");
+        if(aShardIndex < 0 || aShardIndex >= aShardCount) {
+            throw new IllegalArgumentException("Shard index must be between 0 and the shard count - 1");
+        }
+        List<IAtomContainer> tmpShardList = new ArrayList<>(aMoleculeList.size() / aShardCount + 1);
+        for(IAtomContainer tmpMolecule : aMoleculeList) {
+            if(this.getShardIndex(tmpMolecule, aShardCount) == aShardIndex) {
+                tmpShardList.add(tmpMolecule);
+            }
+        }
+        return tmpShardList;
     }
 
     /**
@@ -702,7 +2309,9 @@ public class ScaffoldGenerator {
      * Based on the rules from the  <a href="https://doi.org/10.1021/ci600338x"> "The Scaffold Tree"</a> paper by Schuffenhauer et al.
      * Rule 7 {@link ScaffoldGenerator#applySchuffenhauerRuleSeven(IAtomContainer, List)} is only applied
      * if {@link ScaffoldGenerator#ruleSevenAppliedSetting} is true.
-     * The aromaticity is also redetermined by {@link ScaffoldGenerator#determineAromaticitySetting}. <p>
+     * The aromaticity is also redetermined by {@link ScaffoldGenerator#determineAromaticitySetting}.
+     * The removal stops early after {@link ScaffoldGenerator#maximumSchuffenhauerRemovalCountSetting} removals
+     * or at {@link ScaffoldGenerator#minimumSchuffenhauerRingCountSetting} rings. <p>
      *
      * The removal of atoms can create open valences. These are compensated with implicit hydrogens.
      * @param aMolecule Molecule that is to be broken down into its fragments
@@ -715,35 +2324,43 @@ public class ScaffoldGenerator {
         Objects.requireNonNull(aMolecule, "Input molecule must be non null");
         IAtomContainer tmpClonedMolecule = aMolecule.clone();
         IAtomContainer tmpScaffold = this.getScaffoldInternal(tmpClonedMolecule, true, this.determineAromaticitySetting ,this.aromaticityModelSetting, this.scaffoldModeSetting);
-        /*All molecules with an atom-to-ring ratio of less than 1.0 are assigned the CYCLE_FINDER_BACKUP_PROPERTY = true property,
-         since too many rings were probably detected. The fact that a molecule has more rings than atoms seems concerning. That is why this value was chosen.*/
-        int tmpRingNumber = this.getRingsInternal(tmpScaffold, false).size();
+        //The cycle finder is selected once for the whole run
+        CycleFinderContext tmpCycleFinderContext = this.predictCycleFinderContext(tmpClonedMolecule);
+        /*All molecules with an atom-to-ring ratio of less than 1.0 are decomposed with the CYCLE_FINDER_BACKUP,
+         since too many rings were probably detected. The fact that a molecule has more rings than atoms seems concerning. That is why this value was chosen.
+         The number of cycles is the number of rings getRingsInternal() would create. The scaffold itself does not depend on the cycle finder,
+         so it is not created again after the switch. Its atoms get the CYCLE_FINDER_BACKUP_PROPERTY at the end of the run like all other fragments.*/
+        int tmpRingNumber = tmpCycleFinderContext.getCycleFinder().find(tmpScaffold).numberOfCycles();
         float tmpRingAtomRatio = (float) tmpScaffold.getAtomCount() / tmpRingNumber;
-        if(tmpRingAtomRatio < 1.0 ) {
-            /*Change the property of all atoms of the molecule*/
-            for(IAtom tmpAtom : tmpClonedMolecule.atoms()) {
-                tmpAtom.setProperty(ScaffoldGenerator.CYCLE_FINDER_BACKUP_PROPERTY, true);
-            }
-            /*Apply the new CycleFinder to the molecules*/
-            tmpRingNumber = this.getRingsInternal(tmpScaffold, false).size();
-            tmpScaffold = this.getScaffoldInternal(tmpClonedMolecule, true, this.determineAromaticitySetting ,this.aromaticityModelSetting, this.scaffoldModeSetting);
+        if(tmpRingAtomRatio < 1.0 && tmpCycleFinderContext.switchToBackupCycleFinder()) {
+            this.reactiveCycleFinderFallbackCounter.incrementAndGet();
         }
         //List of all generated fragments
         List<IAtomContainer> tmpScaffoldFragments = new ArrayList<>(tmpRingNumber);
         tmpScaffoldFragments.add(tmpScaffold);
         /*Go through all the fragments generated and try to break them down further*/
         for(int tmpCounter = 0 ; tmpCounter < tmpScaffoldFragments.size(); tmpCounter++) {
-            List<IAtomContainer> tmpRings = this.getRingsInternal(tmpScaffoldFragments.get(tmpCounter), true);
+            //Each fragment has one ring less than the one before, so the counter is the number of removals
+            if(tmpCounter >= this.maximumSchuffenhauerRemovalCountSetting) {
+                break;
+            }
+            List<IAtomContainer> tmpRings = this.getRingsInternal(tmpScaffoldFragments.get(tmpCounter), true, tmpCycleFinderContext);
             /*If the fragment has only one ring or no ring, it does not need to be disassembled further*/
             if(tmpRings.size() == 1 || tmpRings.isEmpty()) {
                 break;
             }
+            //Stop at the minimum ring count
+            if(tmpRings.size() <= this.minimumSchuffenhauerRingCountSetting) {
+                break;
+            }
             /*Only the removable terminal rings are further investigated*/
+            IAtomContainer tmpFragment = tmpScaffoldFragments.get(tmpCounter);
+            List<Boolean> tmpIsRemovableList = this.evaluateCandidates(tmpRings, tmpRing ->
+                    this.isRingTerminal(tmpFragment, tmpRing) && this.isRingRemovable(tmpRing, tmpRings, tmpFragment, tmpCycleFinderContext));
             List<IAtomContainer> tmpRemovableRings = new ArrayList<>(tmpRings.size());
-            for (IAtomContainer tmpRing : tmpRings) {
-                if (this.isRingTerminal(tmpScaffoldFragments.get(tmpCounter), tmpRing)
-                        && this.isRingRemovable(tmpRing, tmpRings, tmpScaffoldFragments.get(tmpCounter))) {
-                    tmpRemovableRings.add(tmpRing); //Add the candidate rings
+            for (int tmpRingCounter = 0; tmpRingCounter < tmpRings.size(); tmpRingCounter++) {
+                if (tmpIsRemovableList.get(tmpRingCounter)) {
+                    tmpRemovableRings.add(tmpRings.get(tmpRingCounter)); //Add the candidate rings
                 }
             }
             /*If the fragment has no candidate ring, it does not need to be disassembled further*/
@@ -753,192 +2370,781 @@ public class ScaffoldGenerator {
             /*Apply rule number one*/
             tmpRemovableRings = this.applySchuffenhauerRuleOne(tmpRemovableRings);
             if (tmpRemovableRings.size() == 1) { //If only one eligible ring remains, it can be removed
-                this.removeRingForSchuffenhauerRule(tmpRemovableRings.get(0), tmpScaffoldFragments);
+                this.removeRingForSchuffenhauerRule(tmpRemovableRings.get(0), tmpScaffoldFragments, tmpCycleFinderContext);
                 //After a new fragment has been added, the next one is investigated
                 continue;
             }
             /*Apply rule number two*/
-            tmpRemovableRings = this.applySchuffenhauerRuleTwo(tmpRemovableRings);
+            tmpRemovableRings = this.applySchuffenhauerRuleTwo(tmpRemovableRings, tmpCycleFinderContext);
             if (tmpRemovableRings.size() == 1) { //If only one eligible ring remains, it can be removed
-                this.removeRingForSchuffenhauerRule(tmpRemovableRings.get(0), tmpScaffoldFragments);
+                this.removeRingForSchuffenhauerRule(tmpRemovableRings.get(0), tmpScaffoldFragments, tmpCycleFinderContext);
                 //After a new fragment has been added, the next one is investigated
                 continue;
             }
             /*Apply rule number three*/
-            tmpRemovableRings = this.applySchuffenhauerRuleThree(tmpScaffoldFragments.get(tmpScaffoldFragments.size() - 1), tmpRemovableRings);
+            tmpRemovableRings = this.applySchuffenhauerRuleThree(tmpScaffoldFragments.get(tmpScaffoldFragments.size() - 1), tmpRemovableRings, tmpCycleFinderContext);
             if (tmpRemovableRings.size() == 1) { //If only one eligible ring remains, it can be removed
-                this.removeRingForSchuffenhauerRule(tmpRemovableRings.get(0), tmpScaffoldFragments);
+                this.removeRingForSchuffenhauerRule(tmpRemovableRings.get(0), tmpScaffoldFragments, tmpCycleFinderContext);
                 //After a new fragment has been added, the next one is investigated
                 continue;
             }
             /*Apply rule number four and five*/
-            tmpRemovableRings = this.applySchuffenhauerRuleFourAndFive(tmpScaffoldFragments.get(tmpScaffoldFragments.size() - 1), tmpRemovableRings);
+            tmpRemovableRings = this.applySchuffenhauerRuleFourAndFive(tmpScaffoldFragments.get(tmpScaffoldFragments.size() - 1), tmpRemovableRings, tmpCycleFinderContext);
             if (tmpRemovableRings.size() == 1) { //If only one eligible ring remains, it can be removed
-                this.removeRingForSchuffenhauerRule(tmpRemovableRings.get(0), tmpScaffoldFragments);
+                this.removeRingForSchuffenhauerRule(tmpRemovableRings.get(0), tmpScaffoldFragments, tmpCycleFinderContext);
                 //After a new fragment has been added, the next one is investigated
                 continue;
             }
             /*Apply rule number six*/
-            tmpRemovableRings = this.applySchuffenhauerRuleSix(tmpRemovableRings);
+            tmpRemovableRings = this.applySchuffenhauerRuleSix(tmpRemovableRings, tmpCycleFinderContext);
             if (tmpRemovableRings.size() == 1) { //If only one eligible ring remains, it can be removed
-                this.removeRingForSchuffenhauerRule(tmpRemovableRings.get(0), tmpScaffoldFragments);
+                this.removeRingForSchuffenhauerRule(tmpRemovableRings.get(0), tmpScaffoldFragments, tmpCycleFinderContext);
                 //After a new fragment has been added, the next one is investigated
                 continue;
             }
-            //Rule seven is only useful when aromaticity is redetermined
-            if(this.ruleSevenAppliedSetting && this.determineAromaticitySetting) {
-                /*Apply rule number seven*/
-                tmpRemovableRings = this.applySchuffenhauerRuleSeven(tmpScaffoldFragments.get(tmpScaffoldFragments.size() - 1), tmpRemovableRings);
-                if (tmpRemovableRings.size() == 1) { //If only one eligible ring remains, it can be removed
-                    this.removeRingForSchuffenhauerRule(tmpRemovableRings.get(0), tmpScaffoldFragments);
-                    //After a new fragment has been added, the next one is investigated
+            //Rule seven is only useful when aromaticity is redetermined
+            if(this.ruleSevenAppliedSetting && this.determineAromaticitySetting) {
+                /*Apply rule number seven*/
+                tmpRemovableRings = this.applySchuffenhauerRuleSeven(tmpScaffoldFragments.get(tmpScaffoldFragments.size() - 1), tmpRemovableRings, tmpCycleFinderContext);
+                if (tmpRemovableRings.size() == 1) { //If only one eligible ring remains, it can be removed
+                    this.removeRingForSchuffenhauerRule(tmpRemovableRings.get(0), tmpScaffoldFragments, tmpCycleFinderContext);
+                    //After a new fragment has been added, the next one is investigated
+                    continue;
+                }
+            }
+            /*Apply rule number eight*/
+            tmpRemovableRings = this.applySchuffenhauerRuleEight(tmpRemovableRings, tmpCycleFinderContext);
+            if (tmpRemovableRings.size() == 1) { //If only one eligible ring remains, it can be removed
+                this.removeRingForSchuffenhauerRule(tmpRemovableRings.get(0), tmpScaffoldFragments, tmpCycleFinderContext);
+                //After a new fragment has been added, the next one is investigated
+                continue;
+            }
+            /*Apply rule number nine*/
+            tmpRemovableRings = this.applySchuffenhauerRuleNine(tmpRemovableRings, tmpCycleFinderContext);
+            if (tmpRemovableRings.size() == 1) { //If only one eligible ring remains, it can be removed
+                this.removeRingForSchuffenhauerRule(tmpRemovableRings.get(0), tmpScaffoldFragments, tmpCycleFinderContext);
+                //After a new fragment has been added, the next one is investigated
+                continue;
+            }
+            /*Apply rule number ten*/
+            tmpRemovableRings = this.applySchuffenhauerRuleTen(tmpRemovableRings, tmpCycleFinderContext);
+            if (tmpRemovableRings.size() == 1) { //If only one eligible ring remains, it can be removed
+                this.removeRingForSchuffenhauerRule(tmpRemovableRings.get(0), tmpScaffoldFragments, tmpCycleFinderContext);
+                //After a new fragment has been added, the next one is investigated
+                continue;
+            }
+            /*Apply rule number eleven*/
+            tmpRemovableRings = this.applySchuffenhauerRuleEleven(tmpRemovableRings, tmpCycleFinderContext);
+            if (tmpRemovableRings.size() == 1) { //If only one eligible ring remains, it can be removed
+                this.removeRingForSchuffenhauerRule(tmpRemovableRings.get(0), tmpScaffoldFragments, tmpCycleFinderContext);
+                //After a new fragment has been added, the next one is investigated
+                continue;
+            }
+            /*Apply rule number twelve*/
+            tmpRemovableRings = this.applySchuffenhauerRuleTwelve(tmpScaffoldFragments.get(tmpScaffoldFragments.size() - 1), tmpRemovableRings, tmpCycleFinderContext);
+            if (tmpRemovableRings.size() == 1) { //If only one eligible ring remains, it can be removed
+                this.removeRingForSchuffenhauerRule(tmpRemovableRings.get(0), tmpScaffoldFragments, tmpCycleFinderContext);
+                //After a new fragment has been added, the next one is investigated
+                continue;
+            }
+            /*Apply rule number thirteen, the tiebreaking rule */
+            IAtomContainer tmpTiebreakFragment = this.getScaffoldInternal(this.applySchuffenhauerRuleThirteen(tmpScaffoldFragments.get(tmpScaffoldFragments.size() - 1),
+                    tmpRemovableRings, tmpCycleFinderContext), true, this.determineAromaticitySetting, this.aromaticityModelSetting, this.scaffoldModeSetting);
+            tmpScaffoldFragments.add(tmpTiebreakFragment);
+        }
+        /*Fragments of a run with the CYCLE_FINDER_BACKUP keep it for all further processing*/
+        if(tmpCycleFinderContext.isBackupCycleFinderUsed()) {
+            for(IAtomContainer tmpFragment : tmpScaffoldFragments) {
+                for(IAtom tmpAtom : tmpFragment.atoms()) {
+                    tmpAtom.setProperty(ScaffoldGenerator.CYCLE_FINDER_BACKUP_PROPERTY, true);
+                }
+            }
+        }
+        return tmpScaffoldFragments;
+    }
+
+    /**
+     * Iteratively removes the rings of the molecule according to specific rules that are queried hierarchically. <p>
+     * A tree is built from the resulting fragments.
+     * A tree has one single root, the smallest fragment. Each node can have several children but only one parent. <p>
+     * Based on the rules from the  <a href="https://doi.org/10.1021/ci600338x">
+     * "The Scaffold Tree"</a> paper by Schuffenhauer et al.
+     * Rule 7 {@link ScaffoldGenerator#applySchuffenhauerRuleSeven(IAtomContainer, List)} is only applied
+     * if {@link ScaffoldGenerator#ruleSevenAppliedSetting} is true
+     * and the aromaticity is also redetermined by {@link ScaffoldGenerator#determineAromaticitySetting}. <p>
+     *
+     * If a molecule does not generate a Scaffold,
+     * it is stored as node with empty SMILES in a ScaffoldTree and is treated normally. <p>
+     *
+     * The removal of atoms can create open valences. These are compensated with implicit hydrogens.
+     * @param aMolecule Molecule that is to be broken down into its fragments
+     * @return A tree consisting of fragments of the molecule according to the Schuffenhauer rules
+     * @throws CDKException problem with CDKHydrogenAdder: Throws if insufficient information is present
+     * @throws CloneNotSupportedException if cloning is not possible.
+     * @throws NullPointerException if parameter is null
+     */
+    public ScaffoldTree generateSchuffenhauerTree(IAtomContainer aMolecule) throws CloneNotSupportedException, CDKException, NullPointerException {
+        Objects.requireNonNull(aMolecule, "Input molecule must be non null");
+        IAtomContainer tmpClonedMolecule = aMolecule.clone();
+        List<IAtomContainer> tmpFragmentList = this.applySchuffenhauerRules(tmpClonedMolecule);
+        return this.createSchuffenhauerTree(tmpFragmentList, this.getSmilesGenerator().create(tmpClonedMolecule), true);
+    }
+
+    /**
+     * Builds a ScaffoldTree from the fragments of a molecule as returned by {@link ScaffoldGenerator#applySchuffenhauerRules(IAtomContainer)}.
+     * The last and smallest fragment becomes the root, each fragment is the child of the following one.
+     * @param aFragmentList Fragments of the molecule, the largest first
+     * @param anOriginSmiles SMILES of the molecule, added as origin to all nodes
+     * @param anIsScaffoldIncluded true if the first fragment is the scaffold of the molecule and thus gets the molecule as non-virtual origin
+     * @return A tree consisting of the fragments
+     * @throws CDKException In case of a problem with the SmilesGenerator
+     */
+    protected ScaffoldTree createSchuffenhauerTree(List<IAtomContainer> aFragmentList, String anOriginSmiles, boolean anIsScaffoldIncluded) throws CDKException {
+        /*Set the root for the ScaffoldTree and add the origin of the root*/
+        TreeNode<IAtomContainer> tmpReverseParentNode =  new TreeNode<>(aFragmentList.get(aFragmentList.size()-1));
+        tmpReverseParentNode.addOriginSmiles(anOriginSmiles);
+        //Add non-virtual if aFragmentList.size loop do not run
+        if(aFragmentList.size() == 1 && anIsScaffoldIncluded) {
+            tmpReverseParentNode.addNonVirtualOriginSmiles(anOriginSmiles);
+        }
+        ScaffoldTree tmpScaffoldTree = new ScaffoldTree(this.smilesGeneratorSetting);
+        tmpScaffoldTree.addNode(tmpReverseParentNode);
+        /*Build the ScaffoldTree with the smallest fragment as root and add the origin to each fragment*/
+        for(int i = 1; i < aFragmentList.size(); i++) {
+            TreeNode<IAtomContainer> tmpNewNode = new TreeNode<>(aFragmentList.get((aFragmentList.size() - 1) - i));
+            IAtomContainer tmpTestMol = tmpNewNode.getMolecule();
+            TreeNode<IAtomContainer> tmpNode = (TreeNode<IAtomContainer>) tmpScaffoldTree.getAllNodesOnLevel(i - 1).get(0);
+            tmpNode.addChild(tmpTestMol);
+            TreeNode<IAtomContainer> tmpChildNode = (TreeNode<IAtomContainer>) tmpScaffoldTree.getAllNodesOnLevel(i - 1).get(0).getChildren().get(0);
+            tmpChildNode.addOriginSmiles(anOriginSmiles);
+            /*The last and thus largest fragment is directly related to the original molecule*/
+            if(i == (aFragmentList.size() - 1) && anIsScaffoldIncluded){
+                tmpChildNode.addNonVirtualOriginSmiles(anOriginSmiles);
+            }
+            tmpScaffoldTree.addNode(tmpChildNode);
+        }
+        return tmpScaffoldTree;
+    }
+
+    /**
+     * Decomposes the entered molecules into Scaffolds, creates ScaffoldTrees from them and then assembles these trees if possible.
+     * If trees have the same root (the smallest fragment), they are joined together so that the same fragments are no longer duplicated.
+     * In this way, no fragment created is lost when it is joined together. <p>
+     *
+     * The trees are generated with {@link ScaffoldGenerator#generateSchuffenhauerTree(IAtomContainer)}. <p>
+     *
+     * If a molecule does not generate a Scaffold, it is stored as a node with empty SMILES in a new ScaffoldTree and is treated normally. <p>
+     * All other empty nodes are then added to this tree accordingly.
+     *
+     * The removal of atoms can create open valences. These are compensated with implicit hydrogens.
+     * @param aMoleculeList Molecules to be transferred into list of trees
+     * @return List of ScaffoldTrees consisting of the fragments of the entered molecules.
+     * @throws CDKException problem with CDKHydrogenAdder: Throws if insufficient information is present
+     * @throws CloneNotSupportedException if cloning is not possible
+     * @throws NullPointerException if parameter is null
+     */
+    public List<ScaffoldTree> generateSchuffenhauerForest(List<IAtomContainer> aMoleculeList) throws CDKException, CloneNotSupportedException, NullPointerException {
+        Objects.requireNonNull(aMoleculeList, "Input molecule list must be non null");
+        /*Prepare the output list*/
+        List<ScaffoldTree> tmpOutputForest = new ArrayList<>();
+        ScaffoldTree tmpFirstTree = new ScaffoldTree(this.getSmilesGenerator());
+        tmpFirstTree.setOriginSpillStore(this.createOriginSpillStore());
+        tmpOutputForest.add(tmpFirstTree);
+        /*Go through all molecules*/
+        for(IAtomContainer tmpMolecule : aMoleculeList) {
+            this.addMoleculeToForest(tmpOutputForest, tmpMolecule);
+        }
+        return tmpOutputForest;
+    }
+
+    /**
+     * Generates a forest of the molecules like {@link ScaffoldGenerator#generateSchuffenhauerForest(List)} and writes a checkpoint
+     * after every aCheckpointInterval molecules and after the last one. A checkpoint consists of the number of processed molecules
+     * and the partial forest in the format of {@link ScaffoldTree#writeForestBinary(List, OutputStream)}.
+     * Checkpoints are written and resumed like in {@link ScaffoldGenerator#generateScaffoldNetwork(List, Path, int, IChemObjectBuilder)},
+     * so a restarted job with the same molecules and settings produces the same trees in the same order as an uninterrupted run.
+     * @param aMoleculeList Molecules to be transferred into list of trees
+     * @param aCheckpointPath File the checkpoints are written to and resumed from
+     * @param aCheckpointInterval Number of molecules processed between two checkpoints
+     * @param aBuilder Builder used to parse the molecules of a loaded checkpoint
+     * @return List of ScaffoldTrees consisting of the fragments of the entered molecules.
+     * @throws CDKException if SMILES code of a molecule cannot be created
+     * @throws IOException if the checkpoint cannot be read or written or does not belong to a forest of the molecules
+     * @throws NullPointerException if a parameter is null
+     * @throws IllegalArgumentException if aCheckpointInterval is smaller than 1
+     */
+    public List<ScaffoldTree> generateSchuffenhauerForest(List<IAtomContainer> aMoleculeList, Path aCheckpointPath, int aCheckpointInterval,
+                                                          IChemObjectBuilder aBuilder)
+            throws CDKException, IOException, NullPointerException, IllegalArgumentException {
+        Objects.requireNonNull(aMoleculeList, "Input molecule list must be non null");
+        Objects.requireNonNull(aCheckpointPath, "Input path must be non null");
+        Objects.requireNonNull(aBuilder, "Input builder must be non null");
+        if(aCheckpointInterval < 1) {
+            throw new IllegalArgumentException("Checkpoint interval must be at least 1");
+        }
+        List<ScaffoldTree> tmpOutputForest;
+        int tmpPosition = 0;
+        if(Files.exists(aCheckpointPath)) {
+            try(InputStream tmpStream = new BufferedInputStream(Files.newInputStream(aCheckpointPath))) {
+                tmpPosition = this.readCheckpointPosition(tmpStream, (byte) 2, aMoleculeList.size());
+                tmpOutputForest = ScaffoldTree.readForestBinary(tmpStream, this.smilesGeneratorSetting, aBuilder);
+            }
+            OriginSpillStore tmpOriginSpillStore = this.createOriginSpillStore();
+            for(ScaffoldTree tmpTree : tmpOutputForest) {
+                tmpTree.setOriginSpillStore(tmpOriginSpillStore);
+            }
+        } else {
+            tmpOutputForest = new ArrayList<>();
+        }
+        if(tmpOutputForest.isEmpty()) {
+            ScaffoldTree tmpFirstTree = new ScaffoldTree(this.getSmilesGenerator());
+            tmpFirstTree.setOriginSpillStore(this.createOriginSpillStore());
+            tmpOutputForest.add(tmpFirstTree);
+        }
+        do {
+            int tmpEnd = (int) Math.min((long) tmpPosition + aCheckpointInterval, aMoleculeList.size());
+            for(IAtomContainer tmpMolecule : aMoleculeList.subList(tmpPosition, tmpEnd)) {
+                this.addMoleculeToForest(tmpOutputForest, tmpMolecule);
+            }
+            tmpPosition = tmpEnd;
+            try(OutputStream tmpStream = this.openCheckpoint(aCheckpointPath, (byte) 2, tmpPosition)) {
+                ScaffoldTree.writeForestBinary(tmpOutputForest, tmpStream);
+            }
+            this.commitCheckpoint(aCheckpointPath);
+        } while(tmpPosition < aMoleculeList.size());
+        return tmpOutputForest;
+    }
+
+    /**
+     * Generates the tree of a molecule and adds it to the forest by {@link ScaffoldGenerator#addTreeToForest(List, ScaffoldTree)}.
+     * If the molecule causes an exception, it is skipped and logged.
+     * @param aForest Forest the tree of the molecule is added to
+     * @param aMolecule Molecule to be added
+     */
+    protected void addMoleculeToForest(List<ScaffoldTree> aForest, IAtomContainer aMolecule) {
+        try {
+            this.addTreeToForest(aForest, this.generateSchuffenhauerTree(aMolecule));
+        } catch (Exception anException) {
+            /*Log the skipped molecule*/
+            int tmpLogExceptionNumber = this.tmpLogExceptionCounter.incrementAndGet();
+            try {
+                ScaffoldGenerator.LOGGER.warn(anException.toString()
+                        + "\n generateSchuffenhauerForest() Exception. SMILES of the skipped molecule number "
+                        + tmpLogExceptionNumber + ": " + this.smilesGeneratorSetting.create(aMolecule), anException);
+            } catch (Exception anExceptionException) {
+                ScaffoldGenerator.LOGGER.warn(anException.toString()
+                        + "\nException inside the generateSchuffenhauerForest() Exception. Probably a problem with the SMILES generator.", anException);
+            }
+        }
+    }
+
+    /**
+     * Opens the temporary file of a checkpoint and writes the header: magic number, collection type and number of processed molecules.
+     * The file is moved in place by {@link ScaffoldGenerator#commitCheckpoint(Path)} after the collection has been written.
+     * @param aCheckpointPath File of the checkpoint
+     * @param aCollectionType 1 for a network, 2 for a forest
+     * @param aPosition Number of processed molecules
+     * @return stream the collection is written to
+     * @throws IOException if the file cannot be written
+     */
+    protected OutputStream openCheckpoint(Path aCheckpointPath, byte aCollectionType, int aPosition) throws IOException {
+        DataOutputStream tmpStream = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(this.getTemporaryCheckpointPath(aCheckpointPath))));
+        tmpStream.writeInt(ScaffoldGenerator.CHECKPOINT_MAGIC_NUMBER);
+        tmpStream.writeByte(aCollectionType);
+        tmpStream.writeInt(aPosition);
+        return tmpStream;
+    }
+
+    /**
+     * Replaces the checkpoint by its completely written temporary file, atomically if the file system supports it.
+     * The temporary file is forced to the storage device first, so a crash after the move cannot leave a checkpoint
+     * whose content is still only in the page cache.
+     * @param aCheckpointPath File of the checkpoint
+     * @throws IOException if the file cannot be forced or moved
+     */
+    protected void commitCheckpoint(Path aCheckpointPath) throws IOException {
+        Path tmpTemporaryPath = this.getTemporaryCheckpointPath(aCheckpointPath);
+        try(FileChannel tmpChannel = FileChannel.open(tmpTemporaryPath, StandardOpenOption.WRITE)) {
+            tmpChannel.force(true);
+        }
+        try {
+            Files.move(tmpTemporaryPath, aCheckpointPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException anException) {
+            Files.move(tmpTemporaryPath, aCheckpointPath, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    /**
+     * Reads the header of a checkpoint written by {@link ScaffoldGenerator#openCheckpoint(Path, byte, int)}.
+     * @param anInputStream Stream of the checkpoint. The collection follows the header.
+     * @param aCollectionType Expected collection type
+     * @param aMoleculeCount Number of molecules of the resumed job
+     * @return number of processed molecules
+     * @throws IOException if the stream fails or does not contain a checkpoint of the expected type and input
+     */
+    protected int readCheckpointPosition(InputStream anInputStream, byte aCollectionType, int aMoleculeCount) throws IOException {
+        DataInputStream tmpStream = new DataInputStream(anInputStream);
+        if(tmpStream.readInt() != ScaffoldGenerator.CHECKPOINT_MAGIC_NUMBER) {
+            throw new IOException("Not a scaffold checkpoint");
+        }
+        if(tmpStream.readByte() != aCollectionType) {
+            throw new IOException("Checkpoint contains a different collection type");
+        }
+        int tmpPosition = tmpStream.readInt();
+        if(tmpPosition < 0 || tmpPosition > aMoleculeCount) {
+            throw new IOException("Checkpoint position " + tmpPosition + " does not fit " + aMoleculeCount + " molecules");
+        }
+        return tmpPosition;
+    }
+
+    /**
+     * Returns the file a checkpoint is written to before it is moved in place.
+     * @param aCheckpointPath File of the checkpoint
+     * @return temporary file in the same directory
+     */
+    protected Path getTemporaryCheckpointPath(Path aCheckpointPath) {
+        return aCheckpointPath.resolveSibling(aCheckpointPath.getFileName() + ".tmp");
+    }
+
+    /**
+     * Generates a network of the molecules like {@link ScaffoldGenerator#generateScaffoldNetwork(List)}, but overlaps reading,
+     * decomposition and merging in a pipeline. A reader thread pulls the molecules from the iterator, e.g. an IteratingSDFReader
+     * or {@link ScaffoldGenerator#iterateSmiles(BufferedReader, IChemObjectBuilder)}, so parsing happens in the reader stage.
+     * aWorkerCount worker threads generate the network of each molecule and the calling thread merges them into the result
+     * in input order, so the result is the same as the one of the sequential generation. <p>
+     *
+     * The stages are connected by bounded queues and at most aQueueCapacity molecules are between reading and merging at any time,
+     * so the memory use does not depend on the size of the input.
+     * Molecules that cause an exception are skipped and logged.
+     * @param aMoleculeIterator Molecules to be disassembled and merged
+     * @param aWorkerCount Number of worker threads
+     * @param aQueueCapacity Maximum number of molecules in the pipeline
+     * @return ScaffoldNetwork with all resulting Scaffold.
+     * @throws CDKException if a network cannot be merged or the iterator fails
+     * @throws InterruptedException if the calling thread is interrupted
+     * @throws NullPointerException if parameter is null
+     * @throws IllegalArgumentException if aWorkerCount or aQueueCapacity is smaller than 1
+     */
+    public ScaffoldNetwork generateScaffoldNetwork(Iterator<IAtomContainer> aMoleculeIterator, int aWorkerCount, int aQueueCapacity)
+            throws CDKException, InterruptedException, NullPointerException, IllegalArgumentException {
+        ScaffoldNetwork tmpScaffoldNetwork = new ScaffoldNetwork(this.smilesGeneratorSetting);
+        tmpScaffoldNetwork.setOriginSpillStore(this.createOriginSpillStore());
+        this.runPipeline(aMoleculeIterator, aWorkerCount, aQueueCapacity,
+                tmpMolecule -> this.generateScaffoldNetwork(tmpMolecule.clone(), 1, Integer.MAX_VALUE), tmpScaffoldNetwork::mergeNetwork);
+        return tmpScaffoldNetwork;
+    }
+
+    /**
+     * Generates a forest of the molecules like {@link ScaffoldGenerator#generateSchuffenhauerForest(List)}, but overlaps reading,
+     * tree generation and merging in a pipeline as described in {@link ScaffoldGenerator#generateScaffoldNetwork(Iterator, int, int)}.
+     * The trees are merged in input order, so the forest is the same as the one of the sequential generation.
+     * @param aMoleculeIterator Molecules to be transferred into list of trees
+     * @param aWorkerCount Number of worker threads
+     * @param aQueueCapacity Maximum number of molecules in the pipeline
+     * @return List of ScaffoldTrees consisting of the fragments of the entered molecules.
+     * @throws CDKException if a tree cannot be merged or the iterator fails
+     * @throws InterruptedException if the calling thread is interrupted
+     * @throws NullPointerException if parameter is null
+     * @throws IllegalArgumentException if aWorkerCount or aQueueCapacity is smaller than 1
+     */
+    public List<ScaffoldTree> generateSchuffenhauerForest(Iterator<IAtomContainer> aMoleculeIterator, int aWorkerCount, int aQueueCapacity)
+            throws CDKException, InterruptedException, NullPointerException, IllegalArgumentException {
+        List<ScaffoldTree> tmpOutputForest = new ArrayList<>();
+        ScaffoldTree tmpFirstTree = new ScaffoldTree(this.getSmilesGenerator());
+        tmpFirstTree.setOriginSpillStore(this.createOriginSpillStore());
+        tmpOutputForest.add(tmpFirstTree);
+        this.runPipeline(aMoleculeIterator, aWorkerCount, aQueueCapacity, this::generateSchuffenhauerTree,
+                tmpTree -> this.addTreeToForest(tmpOutputForest, tmpTree));
+        return tmpOutputForest;
+    }
+
+    /**
+     * Returns an iterator over the molecules of a SMILES file with one SMILES per line, optionally followed by a title.
+     * The lines are only read and parsed when the next molecule is requested, so the parsing takes place in the reader stage
+     * of {@link ScaffoldGenerator#generateScaffoldNetwork(Iterator, int, int)}. Empty lines are skipped,
+     * lines that cannot be parsed are skipped and logged. The reader is not closed.
+     * @param aReader Reader of the SMILES file
+     * @param aBuilder Builder used to parse the molecules
+     * @return iterator over the parsed molecules; it throws an UncheckedIOException if the reader fails
+     * @throws NullPointerException if a parameter is null
+     */
+    public static Iterator<IAtomContainer> iterateSmiles(BufferedReader aReader, IChemObjectBuilder aBuilder) throws NullPointerException {
+        Objects.requireNonNull(aReader, "Given reader is 'null'");
+        SmilesParser tmpSmilesParser = new SmilesParser(Objects.requireNonNull(aBuilder, "Given builder is 'null'"));
+        return new Iterator<IAtomContainer>() {
+            private IAtomContainer nextMolecule;
+
+            @Override
+            public boolean hasNext() {
+                try {
+                    String tmpLine;
+                    while(this.nextMolecule == null && (tmpLine = aReader.readLine()) != null) {
+                        if(tmpLine.trim().isEmpty()) {
+                            continue;
+                        }
+                        try {
+                            this.nextMolecule = tmpSmilesParser.parseSmiles(tmpLine);
+                        } catch (InvalidSmilesException anException) {
+                            ScaffoldGenerator.LOGGER.warn(anException.toString() + "\n iterateSmiles() skipped the line: " + tmpLine, anException);
+                        }
+                    }
+                } catch (IOException anException) {
+                    throw new UncheckedIOException(anException);
+                }
+                return this.nextMolecule != null;
+            }
+
+            @Override
+            public IAtomContainer next() {
+                if(!this.hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                IAtomContainer tmpMolecule = this.nextMolecule;
+                this.nextMolecule = null;
+                return tmpMolecule;
+            }
+        };
+    }
+
+    /**
+     * Runs the pipelined batch engine: a reader thread pulls the molecules from the iterator, aWorkerCount worker threads
+     * apply the operation to them and the calling thread merges the results in input order.
+     * A semaphore limits the molecules between reading and merging to aQueueCapacity, which also bounds the queues
+     * and the results waiting for a slower molecule before them. Exceptions of the operation are logged in the merger stage
+     * and the molecule is skipped. Errors of the operation or the iterator stop the pipeline and are rethrown by the calling thread.
+     * If the merger fails or is interrupted, the reader and the workers are cancelled.
+     * The workers share this generator: they only read its settings, which must not be changed while the pipeline runs,
+     * and the counters they update are atomic.
+     * @param aMoleculeIterator Input molecules
+     * @param aWorkerCount Number of worker threads
+     * @param aQueueCapacity Maximum number of molecules in the pipeline
+     * @param anOperation Operation of the worker stage
+     * @param aMerge Operation of the merger stage
+     * @param <ResultType> type of the worker results
+     * @throws CDKException if a result cannot be merged or the iterator fails
+     * @throws InterruptedException if the calling thread is interrupted
+     * @throws NullPointerException if a parameter is null
+     * @throws IllegalArgumentException if aWorkerCount or aQueueCapacity is smaller than 1
+     * @throws Error if the operation or the iterator throws an error
+     */
+    protected <ResultType> void runPipeline(Iterator<IAtomContainer> aMoleculeIterator, int aWorkerCount, int aQueueCapacity,
+                                            CandidateEvaluation<IAtomContainer, ResultType> anOperation, PipelineMerge<ResultType> aMerge)
+            throws CDKException, InterruptedException, NullPointerException, IllegalArgumentException {
+        Objects.requireNonNull(aMoleculeIterator, "Input molecule iterator must be non null");
+        if(aWorkerCount < 1 || aQueueCapacity < 1) {
+            throw new IllegalArgumentException("Worker count and queue capacity must be at least 1");
+        }
+        BlockingQueue<PipelineItem<ResultType>> tmpInputQueue = new ArrayBlockingQueue<>(aQueueCapacity);
+        BlockingQueue<PipelineItem<ResultType>> tmpOutputQueue = new ArrayBlockingQueue<>(aQueueCapacity + aWorkerCount);
+        Semaphore tmpPermits = new Semaphore(aQueueCapacity);
+        AtomicReference<Throwable> tmpReaderException = new AtomicReference<>();
+        ExecutorService tmpExecutor = Executors.newFixedThreadPool(aWorkerCount + 1);
+        try {
+            /*Reader stage*/
+            tmpExecutor.execute(() -> {
+                long tmpPosition = 0;
+                boolean tmpIsInterrupted = false;
+                try {
+                    while(aMoleculeIterator.hasNext()) {
+                        IAtomContainer tmpMolecule = Objects.requireNonNull(aMoleculeIterator.next(), "Input molecule must be non null");
+                        tmpPermits.acquire();
+                        tmpInputQueue.put(new PipelineItem<>(tmpPosition++, tmpMolecule));
+                    }
+                } catch (InterruptedException anException) {
+                    tmpIsInterrupted = true;
+                } catch (Throwable aThrowable) {
+                    tmpReaderException.set(aThrowable);
+                } finally {
+                    /*The end markers are sent whatever stopped the reader, otherwise the merger would wait forever*/
+                    try {
+                        for(int tmpWorker = 0; !tmpIsInterrupted && tmpWorker < aWorkerCount; tmpWorker++) {
+                            tmpInputQueue.put(new PipelineItem<>(-1, null));
+                        }
+                    } catch (InterruptedException anException) {
+                        Thread.currentThread().interrupt();
+                    }
+                }
+            });
+            /*Worker stage*/
+            for(int tmpWorker = 0; tmpWorker < aWorkerCount; tmpWorker++) {
+                tmpExecutor.execute(() -> {
+                    try {
+                        while(true) {
+                            PipelineItem<ResultType> tmpItem = tmpInputQueue.take();
+                            try {
+                                if(tmpItem.molecule != null) {
+                                    tmpItem.result = anOperation.evaluate(tmpItem.molecule);
+                                }
+                            } catch (Throwable aThrowable) {
+                                tmpItem.exception = aThrowable;
+                            } finally {
+                                /*The item is always handed on, so the merger can release its permit or stop on an error*/
+                                tmpOutputQueue.put(tmpItem);
+                            }
+                            if(tmpItem.molecule == null) {
+                                return;
+                            }
+                        }
+                    } catch (InterruptedException anException) {
+                        Thread.currentThread().interrupt();
+                    }
+                });
+            }
+            /*Merger stage: results are merged in input order*/
+            HashMap<Long, PipelineItem<ResultType>> tmpWaitingItemMap = new HashMap<>();
+            long tmpNextPosition = 0;
+            int tmpFinishedWorkerCount = 0;
+            while(tmpFinishedWorkerCount < aWorkerCount) {
+                PipelineItem<ResultType> tmpItem = tmpOutputQueue.take();
+                if(tmpItem.molecule == null) {
+                    tmpFinishedWorkerCount++;
                     continue;
                 }
+                if(tmpItem.exception instanceof Error) {
+                    throw (Error) tmpItem.exception;
+                }
+                tmpWaitingItemMap.put(tmpItem.position, tmpItem);
+                while((tmpItem = tmpWaitingItemMap.remove(tmpNextPosition)) != null) {
+                    if(tmpItem.exception == null) {
+                        aMerge.merge(tmpItem.result);
+                    } else {
+                        /*Log the skipped molecule*/
+                        int tmpLogExceptionNumber = this.tmpLogExceptionCounter.incrementAndGet();
+                        try {
+                            ScaffoldGenerator.LOGGER.warn(tmpItem.exception.toString()
+                                    + "\n runPipeline() Exception. SMILES of the skipped molecule number " + tmpLogExceptionNumber + ": "
+                                    + this.smilesGeneratorSetting.create(tmpItem.molecule), tmpItem.exception);
+                        } catch (Exception anExceptionException) {
+                            ScaffoldGenerator.LOGGER.warn(tmpItem.exception.toString()
+                                    + "\nException inside the runPipeline() Exception. Probably a problem with the SMILES generator.",
+                                    tmpItem.exception);
+                        }
+                    }
+                    tmpNextPosition++;
+                    tmpPermits.release();
+                }
             }
-            /*Apply rule number eight*/
-            tmpRemovableRings = this.applySchuffenhauerRuleEight(tmpRemovableRings);
-            if (tmpRemovableRings.size() == 1) { //If only one eligible ring remains, it can be removed
-                this.removeRingForSchuffenhauerRule(tmpRemovableRings.get(0), tmpScaffoldFragments);
-                //After a new fragment has been added, the next one is investigated
-                continue;
-            }
-            /*Apply rule number nine*/
-            tmpRemovableRings = this.applySchuffenhauerRuleNine(tmpRemovableRings);
-            if (tmpRemovableRings.size() == 1) { //If only one eligible ring remains, it can be removed
-                this.removeRingForSchuffenhauerRule(tmpRemovableRings.get(0), tmpScaffoldFragments);
-                //After a new fragment has been added, the next one is investigated
-                continue;
-            }
-            /*Apply rule number ten*/
-            tmpRemovableRings = this.applySchuffenhauerRuleTen(tmpRemovableRings);
-            if (tmpRemovableRings.size() == 1) { //If only one eligible ring remains, it can be removed
-                this.removeRingForSchuffenhauerRule(tmpRemovableRings.get(0), tmpScaffoldFragments);
-                //After a new fragment has been added, the next one is investigated
-                continue;
-            }
-            /*Apply rule number eleven*/
-            tmpRemovableRings = this.applySchuffenhauerRuleEleven(tmpRemovableRings);
-            if (tmpRemovableRings.size() == 1) { //If only one eligible ring remains, it can be removed
-                this.removeRingForSchuffenhauerRule(tmpRemovableRings.get(0), tmpScaffoldFragments);
-                //After a new fragment has been added, the next one is investigated
-                continue;
+            Throwable tmpThrowable = tmpReaderException.get();
+            if(tmpThrowable instanceof Error) {
+                throw (Error) tmpThrowable;
+            } else if(tmpThrowable != null) {
+                throw new CDKException("Reading the input molecules failed: " + tmpThrowable.getMessage(), tmpThrowable);
             }
-            /*Apply rule number twelve*/
-            tmpRemovableRings = this.applySchuffenhauerRuleTwelve(tmpScaffoldFragments.get(tmpScaffoldFragments.size() - 1), tmpRemovableRings);
-            if (tmpRemovableRings.size() == 1) { //If only one eligible ring remains, it can be removed
-                this.removeRingForSchuffenhauerRule(tmpRemovableRings.get(0), tmpScaffoldFragments);
-                //After a new fragment has been added, the next one is investigated
-                continue;
+        } finally {
+            tmpExecutor.shutdownNow();
+        }
+    }
+
+    /**
+     * Creates the store the origins of the nodes of a generated collection are spilled to.
+     * The store is handed over with the collection, so the caller of the generating method owns it and closes it.
+     * No file is created before the first node is spilled.
+     * @return spill store or null if {@link ScaffoldGenerator#originSpillHeapCapacitySetting} is Integer.MAX_VALUE
+     */
+    protected OriginSpillStore createOriginSpillStore() {
+        if(this.originSpillHeapCapacitySetting == Integer.MAX_VALUE) {
+            return null;
+        }
+        return new OriginSpillStore(this.originSpillDirectorySetting, this.originSpillHeapCapacitySetting);
+    }
+
+    /**
+     * Merges the tree into the first tree of the forest with the same root. If there is none, the tree is added to the forest.
+     * @param aForest Forest the tree is added to
+     * @param aTree Tree of one molecule
+     * @throws CDKException In case of a problem with the SmilesGenerator
+     */
+    protected void addTreeToForest(List<ScaffoldTree> aForest, ScaffoldTree aTree) throws CDKException {
+        /*Go through each newly created tree*/
+        for(ScaffoldTree tmpNewTree : aForest) {
+            /*When one of the new trees has been joined with the tree, move on to the next molecule*/
+            if(tmpNewTree.mergeTree(aTree)) {
+                return;
             }
-            /*Apply rule number thirteen, the tiebreaking rule */
-            IAtomContainer tmpFragment = this.getScaffoldInternal(this.applySchuffenhauerRuleThirteen(tmpScaffoldFragments.get(tmpScaffoldFragments.size() - 1),
-                    tmpRemovableRings), true, this.determineAromaticitySetting, this.aromaticityModelSetting, this.scaffoldModeSetting);
-            tmpScaffoldFragments.add(tmpFragment);
         }
-        return tmpScaffoldFragments;
+        /*If the molecule could not be included in a tree add the tree of the molecule*/
+        if(!aForest.isEmpty()) {
+            aTree.setOriginSpillStore(aForest.get(0).getOriginSpillStore());
+        }
+        aForest.add(aTree);
     }
 
     /**
-     * Iteratively removes the rings of the molecule according to specific rules that are queried hierarchically. <p>
-     * A tree is built from the resulting fragments.
-     * A tree has one single root, the smallest fragment. Each node can have several children but only one parent. <p>
-     * Based on the rules from the  <a href="https://doi.org/10.1021/ci600338x">
-     * "The Scaffold Tree"</a> paper by Schuffenhauer et al.
-     * Rule 7 {@link ScaffoldGenerator#applySchuffenhauerRuleSeven(IAtomContainer, List)} is only applied
-     * if {@link ScaffoldGenerator#ruleSevenAppliedSetting} is true
-     * and the aromaticity is also redetermined by {@link ScaffoldGenerator#determineAromaticitySetting}. <p>
+     * Generates a network of the molecules like {@link ScaffoldGenerator#generateScaffoldNetwork(List)},
+     * but only creates nodes for scaffolds that occur in at least aMinimumOriginCount of the molecules. <p>
      *
-     * If a molecule does not generate a Scaffold,
-     * it is stored as node with empty SMILES in a ScaffoldTree and is treated normally. <p>
+     * The molecules are processed twice. The first pass enumerates the scaffolds of each molecule with
+     * {@link ScaffoldGenerator#iterateEnumerativeRemoval(IAtomContainer)} and counts them in a {@link ScaffoldFrequencySketch}
+     * of width {@link ScaffoldGenerator#frequencySketchWidthSetting}, without creating any nodes.
+     * The second pass disassembles each molecule again and checks each scaffold against the sketch as soon as it is created.
+     * Only the scaffolds whose estimated frequency reaches the threshold get a node, the others are never added to a network.
+     * Since a smaller scaffold occurs in all molecules of its larger scaffolds, the kept nodes remain connected to their parents.
+     * The estimate can be too high, so a few scaffolds below the threshold may be kept; the origin counts of the network are exact. <p>
      *
-     * The removal of atoms can create open valences. These are compensated with implicit hydrogens.
-     * @param aMolecule Molecule that is to be broken down into its fragments
-     * @return A tree consisting of fragments of the molecule according to the Schuffenhauer rules
+     * Only the nodes are pruned, not the ring removal: an infrequent scaffold still has to be disassembled to reach
+     * the frequent scaffolds below it. The method therefore takes about twice as long as {@link ScaffoldGenerator#generateScaffoldNetwork(List)}.
+     * Besides the frequent network, only the scaffolds of the molecule that is currently disassembled are held in memory. <p>
+     *
+     * Molecules that cannot be processed are logged in the first pass and skipped in both passes.
+     * Molecules whose scaffolds are all infrequent are not part of the network.
+     * @param aMoleculeList List of Molecules to be disassembled and merged.
+     * @param aMinimumOriginCount Minimum number of molecules a scaffold must occur in
+     * @return ScaffoldNetwork with the frequent scaffolds
      * @throws CDKException problem with CDKHydrogenAdder: Throws if insufficient information is present
      * @throws CloneNotSupportedException if cloning is not possible.
      * @throws NullPointerException if parameter is null
+     * @throws IllegalArgumentException if aMinimumOriginCount is smaller than 1
      */
-    public ScaffoldTree generateSchuffenhauerTree(IAtomContainer aMolecule) throws CloneNotSupportedException, CDKException, NullPointerException {
-        Objects.requireNonNull(aMolecule, "Input molecule must be non null");
-        IAtomContainer tmpClonedMolecule = aMolecule.clone();
-        List<IAtomContainer> tmpFragmentList = this.applySchuffenhauerRules(tmpClonedMolecule);
-        /*Set the root for the ScaffoldTree and add the origin of the root*/
-        TreeNode<IAtomContainer> tmpReverseParentNode =  new TreeNode<>(tmpFragmentList.get(tmpFragmentList.size()-1));
-        String tmpSmiles = this.getSmilesGenerator().create(tmpClonedMolecule);
-        tmpReverseParentNode.addOriginSmiles(tmpSmiles);
-        //Add non-virtual if tmpFragmentList.size loop do not run
-        if(tmpFragmentList.size() == 1) {
-            tmpReverseParentNode.addNonVirtualOriginSmiles(tmpSmiles);
+    public ScaffoldNetwork generateFrequentScaffoldNetwork(List<IAtomContainer> aMoleculeList, int aMinimumOriginCount)
+            throws CDKException, CloneNotSupportedException, NullPointerException, IllegalArgumentException {
+        Objects.requireNonNull(aMoleculeList, "Input molecule list must be non null");
+        if(aMinimumOriginCount < 1) {
+            throw new IllegalArgumentException("Given minimum origin count must be at least 1: " + aMinimumOriginCount);
         }
-        ScaffoldTree tmpScaffoldTree = new ScaffoldTree(this.smilesGeneratorSetting);
-        tmpScaffoldTree.addNode(tmpReverseParentNode);
-        /*Build the ScaffoldTree with the smallest fragment as root and add the origin to each fragment*/
-        for(int i = 1; i < tmpFragmentList.size(); i++) {
-            TreeNode<IAtomContainer> tmpNewNode = new TreeNode<>(tmpFragmentList.get((tmpFragmentList.size() - 1) - i));
-            IAtomContainer tmpTestMol = tmpNewNode.getMolecule();
-            TreeNode<IAtomContainer> tmpNode = (TreeNode<IAtomContainer>) tmpScaffoldTree.getAllNodesOnLevel(i - 1).get(0);
-            tmpNode.addChild(tmpTestMol);
-            TreeNode<IAtomContainer> tmpChildNode = (TreeNode<IAtomContainer>) tmpScaffoldTree.getAllNodesOnLevel(i - 1).get(0).getChildren().get(0);
-            tmpChildNode.addOriginSmiles(tmpSmiles);
-            /*The last and thus largest fragment is directly related to the original molecule*/
-            if(i == (tmpFragmentList.size() - 1)){
-                tmpChildNode.addNonVirtualOriginSmiles(tmpSmiles);
+        /*First pass: count the scaffolds without creating nodes*/
+        ScaffoldFrequencySketch tmpSketch = new ScaffoldFrequencySketch(this.frequencySketchWidthSetting);
+        BitSet tmpSkippedMolecules = new BitSet(aMoleculeList.size());
+        int tmpMoleculeIndex = 0;
+        for(IAtomContainer tmpMolecule : aMoleculeList) {
+            Objects.requireNonNull(tmpMolecule, "Input molecule must be non null");
+            try {
+                EnumerativeRemovalIterator tmpIterator = this.iterateEnumerativeRemoval(tmpMolecule.clone());
+                while(tmpIterator.hasNext()) {
+                    tmpSketch.add(this.smilesGeneratorSetting.create(tmpIterator.next()));
+                }
+            } catch (Exception anException) {
+                /*Log the skipped molecule*/
+                tmpSkippedMolecules.set(tmpMoleculeIndex);
+                int tmpLogExceptionNumber = this.tmpLogExceptionCounter.incrementAndGet();
+                try {
+                    ScaffoldGenerator.LOGGER.warn(anException.toString()
+                            + "\n generateFrequentScaffoldNetwork() Exception. SMILES of the skipped molecule number " + tmpLogExceptionNumber + ": "
+                            + this.smilesGeneratorSetting.create(tmpMolecule), anException);
+                } catch (Exception anExceptionException) {
+                    ScaffoldGenerator.LOGGER.warn(anException.toString()
+                            + "\nException inside the generateFrequentScaffoldNetwork() Exception. Probably a problem with the SMILES generator.",
+                            anException);
+                }
             }
-            tmpScaffoldTree.addNode(tmpChildNode);
+            tmpMoleculeIndex++;
         }
-        return tmpScaffoldTree;
+        /*Second pass: merge only the frequent scaffolds*/
+        ScaffoldNetwork tmpScaffoldNetwork = new ScaffoldNetwork(this.smilesGeneratorSetting);
+        tmpMoleculeIndex = 0;
+        for(IAtomContainer tmpMolecule : aMoleculeList) {
+            if(tmpSkippedMolecules.get(tmpMoleculeIndex++)) {
+                continue;
+            }
+            IAtomContainer tmpClonedMolecule = tmpMolecule.clone();
+            try {
+                ScaffoldNetwork tmpFrequentNetwork = this.generateScaffoldNetwork(tmpClonedMolecule, 1, Integer.MAX_VALUE, tmpSketch, aMinimumOriginCount);
+                if(!tmpFrequentNetwork.getAllNodes().isEmpty()) {
+                    tmpScaffoldNetwork.mergeNetwork(tmpFrequentNetwork);
+                }
+            } catch (Exception anException) {
+                /*Log the skipped molecule*/
+                int tmpLogExceptionNumber = this.tmpLogExceptionCounter.incrementAndGet();
+                try {
+                    ScaffoldGenerator.LOGGER.warn(anException.toString()
+                            + "\n generateFrequentScaffoldNetwork() Exception. SMILES of the skipped molecule number " + tmpLogExceptionNumber + ": "
+                            + this.smilesGeneratorSetting.create(tmpClonedMolecule), anException);
+                } catch (Exception anExceptionException) {
+                    ScaffoldGenerator.LOGGER.warn(anException.toString()
+                            + "\nException inside the generateFrequentScaffoldNetwork() Exception. Probably a problem with the SMILES generator.",
+                            anException);
+                }
+            }
+        }
+        return tmpScaffoldNetwork;
     }
 
     /**
-     * Decomposes the entered molecules into Scaffolds, creates ScaffoldTrees from them and then assembles these trees if possible.
-     * If trees have the same root (the smallest fragment), they are joined together so that the same fragments are no longer duplicated.
-     * In this way, no fragment created is lost when it is joined together. <p>
+     * Generates a forest of the molecules like {@link ScaffoldGenerator#generateSchuffenhauerForest(List)},
+     * but only creates nodes for scaffolds that occur in at least aMinimumOriginCount of the molecules. <p>
      *
-     * The trees are generated with {@link ScaffoldGenerator#generateSchuffenhauerTree(IAtomContainer)}. <p>
+     * The molecules are processed twice. The first pass applies {@link ScaffoldGenerator#applySchuffenhauerRules(IAtomContainer)}
+     * to each molecule and counts the fragments in a {@link ScaffoldFrequencySketch} of width
+     * {@link ScaffoldGenerator#frequencySketchWidthSetting}, without creating any nodes.
+     * The second pass builds the tree of each molecule only from its smallest fragments up to the first one whose
+     * estimated frequency is below the threshold. The trees therefore keep their roots and are merged as usual.
+     * The estimate can be too high, so a few scaffolds below the threshold may be kept; the origin counts of the trees are exact. <p>
      *
-     * If a molecule does not generate a Scaffold, it is stored as a node with empty SMILES in a new ScaffoldTree and is treated normally. <p>
-     * All other empty nodes are then added to this tree accordingly.
+     * The fragments are not kept between the passes, so the rules are applied to each molecule twice and the method
+     * takes about twice as long as {@link ScaffoldGenerator#generateSchuffenhauerForest(List)}. What is saved are the nodes
+     * of the infrequent fragments. <p>
      *
-     * The removal of atoms can create open valences. These are compensated with implicit hydrogens.
+     * Molecules that cannot be processed are logged in the first pass and skipped in both passes.
+     * Molecules whose root is infrequent are not part of the forest.
      * @param aMoleculeList Molecules to be transferred into list of trees
-     * @return List of ScaffoldTrees consisting of the fragments of the entered molecules.
+     * @param aMinimumOriginCount Minimum number of molecules a scaffold must occur in
+     * @return List of ScaffoldTrees consisting of the frequent fragments of the entered molecules.
      * @throws CDKException problem with CDKHydrogenAdder: Throws if insufficient information is present
      * @throws CloneNotSupportedException if cloning is not possible
      * @throws NullPointerException if parameter is null
+     * @throws IllegalArgumentException if aMinimumOriginCount is smaller than 1
      */
-    public List<ScaffoldTree> generateSchuffenhauerForest(List<IAtomContainer> aMoleculeList) throws CDKException, CloneNotSupportedException, NullPointerException {
+    public List<ScaffoldTree> generateFrequentSchuffenhauerForest(List<IAtomContainer> aMoleculeList, int aMinimumOriginCount)
+            throws CDKException, CloneNotSupportedException, NullPointerException, IllegalArgumentException {
         Objects.requireNonNull(aMoleculeList, "Input molecule list must be non null");
-        /*Prepare the output list*/
+        if(aMinimumOriginCount < 1) {
+            throw new IllegalArgumentException("Given minimum origin count must be at least 1: " + aMinimumOriginCount);
+        }
+        /*First pass: count the fragments without creating nodes*/
+        ScaffoldFrequencySketch tmpSketch = new ScaffoldFrequencySketch(this.frequencySketchWidthSetting);
+        BitSet tmpSkippedMolecules = new BitSet(aMoleculeList.size());
+        int tmpMoleculeIndex = 0;
+        for(IAtomContainer tmpMolecule : aMoleculeList) {
+            Objects.requireNonNull(tmpMolecule, "Input molecule must be non null");
+            try {
+                for(IAtomContainer tmpFragment : this.applySchuffenhauerRules(tmpMolecule)) {
+                    tmpSketch.add(this.smilesGeneratorSetting.create(tmpFragment));
+                }
+            } catch (Exception anException) {
+                /*Log the skipped molecule*/
+                tmpSkippedMolecules.set(tmpMoleculeIndex);
+                int tmpLogExceptionNumber = this.tmpLogExceptionCounter.incrementAndGet();
+                try {
+                    ScaffoldGenerator.LOGGER.warn(anException.toString()
+                            + "\n generateFrequentSchuffenhauerForest() Exception. SMILES of the skipped molecule number "
+                            + tmpLogExceptionNumber + ": " + this.smilesGeneratorSetting.create(tmpMolecule), anException);
+                } catch (Exception anExceptionException) {
+                    ScaffoldGenerator.LOGGER.warn(anException.toString()
+                            + "\nException inside the generateFrequentSchuffenhauerForest() Exception. Probably a problem with the SMILES generator.", anException);
+                }
+            }
+            tmpMoleculeIndex++;
+        }
+        /*Second pass: build the trees from the frequent fragments*/
         List<ScaffoldTree> tmpOutputForest = new ArrayList<>();
-        ScaffoldTree tmpFirstTree = new ScaffoldTree(this.getSmilesGenerator());
-        tmpOutputForest.add(tmpFirstTree);
-        /*Go through all molecules*/
+        tmpMoleculeIndex = 0;
         for(IAtomContainer tmpMolecule : aMoleculeList) {
+            if(tmpSkippedMolecules.get(tmpMoleculeIndex++)) {
+                continue;
+            }
             try {
-                boolean isMoleculeMerged = false;
-                ScaffoldTree tmpOldTree = this.generateSchuffenhauerTree(tmpMolecule);
-                /*Go through each newly created tree*/
-                for(ScaffoldTree tmpNewTree : tmpOutputForest) {
-                    /*When one of the new trees has been joined with one of the old trees, move on to the next molecule*/
-                    if(tmpNewTree.mergeTree(tmpOldTree)) {
-                        isMoleculeMerged = true;
-                        break;
-                    }
+                IAtomContainer tmpClonedMolecule = tmpMolecule.clone();
+                List<IAtomContainer> tmpFragmentList = this.applySchuffenhauerRules(tmpClonedMolecule);
+                /*Keep the smallest fragments up to the first infrequent one*/
+                int tmpFirstKeptIndex = tmpFragmentList.size();
+                while(tmpFirstKeptIndex > 0
+                        && tmpSketch.estimate(this.smilesGeneratorSetting.create(tmpFragmentList.get(tmpFirstKeptIndex - 1))) >= aMinimumOriginCount) {
+                    tmpFirstKeptIndex--;
                 }
-                /*If the molecule could not be included in a tree add the tree of the molecule*/
-                if(!isMoleculeMerged) {
-                    tmpOutputForest.add(tmpOldTree);
+                if(tmpFirstKeptIndex == tmpFragmentList.size()) {
+                    continue;
                 }
+                this.addTreeToForest(tmpOutputForest, this.createSchuffenhauerTree(tmpFragmentList.subList(tmpFirstKeptIndex, tmpFragmentList.size()),
+                        this.getSmilesGenerator().create(tmpClonedMolecule), tmpFirstKeptIndex == 0));
             } catch (Exception anException) {
                 /*Log the skipped molecule*/
-                this.tmpLogExceptionCounter++;
+                int tmpLogExceptionNumber = this.tmpLogExceptionCounter.incrementAndGet();
                 try {
                     ScaffoldGenerator.LOGGER.warn(anException.toString()
-                            + "\n generateSchuffenhauerForest() Exception. SMILES of the skipped molecule number "
-                            + this.tmpLogExceptionCounter + ": " + this.smilesGeneratorSetting.create(tmpMolecule), anException);
+                            + "\n generateFrequentSchuffenhauerForest() Exception. SMILES of the skipped molecule number "
+                            + tmpLogExceptionNumber + ": " + this.smilesGeneratorSetting.create(tmpMolecule), anException);
                 } catch (Exception anExceptionException) {
                     ScaffoldGenerator.LOGGER.warn(anException.toString()
-                            + "\nException inside the generateSchuffenhauerForest() Exception. Probably a problem with the SMILES generator.", anException);
+                            + "\nException inside the generateFrequentSchuffenhauerForest() Exception. Probably a problem with the SMILES generator.", anException);
                 }
             }
         }
@@ -972,7 +3178,77 @@ public class ScaffoldGenerator {
             }
         }
         /*Generate the murckoFragment*/
+        IAtomContainer tmpMurckoFragment = this.applyScaffoldMode(tmpClonedMolecule, this.getMurckoFragment(tmpClonedMolecule), aScaffoldModeOption);
+        this.completeScaffold(tmpMurckoFragment, anAddImplicitHydrogens, anIsAromaticitySet, anAromaticity);
+        return tmpMurckoFragment;
+    }
+
+    /**
+     * Generates the scaffolds of the molecule in the given modes from a single Murcko fragment.
+     * The scaffold of each mode is the same as the one of {@link ScaffoldGenerator#getScaffold(IAtomContainer, boolean)}
+     * with {@link ScaffoldGenerator#scaffoldModeSetting} set to that mode,
+     * but the molecule is cloned and numbered once and the Murcko fragment is extracted once for all modes.
+     * The unique SMILES of each scaffold, created by {@link ScaffoldGenerator#smilesGeneratorSetting}, is returned as its key.
+     * @param aMolecule molecule whose scaffolds are produced.
+     * @param anAddImplicitHydrogens Specifies whether implicit hydrogens are to be added at the end.
+     * The removal of atoms can create open valences. These are not compensated with hydrogens at the end if this parameter is false.
+     * @param aScaffoldModeSet Modes whose scaffolds are generated
+     * @return scaffolds and keys of the molecule in the given modes
+     * @throws CDKException problem with CDKHydrogenAdder: Throws if insufficient information is present or problem with aromaticity.apply()
+     * @throws CloneNotSupportedException if cloning is not possible.
+     * @throws NullPointerException if a parameter is null
+     */
+    public ScaffoldRepresentations getScaffolds(IAtomContainer aMolecule, boolean anAddImplicitHydrogens, Set<ScaffoldModeOption> aScaffoldModeSet)
+            throws CDKException, CloneNotSupportedException, NullPointerException {
+        Objects.requireNonNull(aMolecule, "Input molecule must be non null");
+        Objects.requireNonNull(aScaffoldModeSet, "Input scaffold mode set must be non null");
+        IAtomContainer tmpClonedMolecule = aMolecule.clone();
+        /*Mark each atom with ascending number*/
+        Integer tmpCounter = 0;
+        for(IAtom tmpAtom : tmpClonedMolecule.atoms()) {
+            tmpAtom.setProperty(ScaffoldGenerator.SCAFFOLD_ATOM_COUNTER_PROPERTY, tmpCounter);
+            tmpCounter++;
+        }
         IAtomContainer tmpMurckoFragment = this.getMurckoFragment(tmpClonedMolecule);
+        EnumMap<ScaffoldModeOption, IAtomContainer> tmpScaffoldMap = new EnumMap<>(ScaffoldModeOption.class);
+        /*All modes are derived from the unchanged Murcko fragment, so it is only used itself by the last mode*/
+        for(ScaffoldModeOption tmpScaffoldMode : aScaffoldModeSet) {
+            if(ScaffoldModeOption.MURCKO_FRAMEWORK.equals(Objects.requireNonNull(tmpScaffoldMode, "Input scaffold mode must be non null"))) {
+                continue;
+            }
+            IAtomContainer tmpScaffold;
+            if(ScaffoldModeOption.SCAFFOLD.equals(tmpScaffoldMode) || ScaffoldModeOption.BASIC_FRAMEWORK.equals(tmpScaffoldMode)) {
+                /*These modes change the Murcko fragment in place*/
+                tmpScaffold = this.applyScaffoldMode(tmpClonedMolecule, tmpMurckoFragment.clone(), tmpScaffoldMode);
+            } else {
+                tmpScaffold = this.applyScaffoldMode(tmpClonedMolecule, tmpMurckoFragment, tmpScaffoldMode);
+            }
+            tmpScaffoldMap.put(tmpScaffoldMode, tmpScaffold);
+        }
+        if(aScaffoldModeSet.contains(ScaffoldModeOption.MURCKO_FRAMEWORK)) {
+            tmpScaffoldMap.put(ScaffoldModeOption.MURCKO_FRAMEWORK, tmpMurckoFragment);
+        }
+        EnumMap<ScaffoldModeOption, String> tmpKeyMap = new EnumMap<>(ScaffoldModeOption.class);
+        for(Map.Entry<ScaffoldModeOption, IAtomContainer> tmpEntry : tmpScaffoldMap.entrySet()) {
+            this.completeScaffold(tmpEntry.getValue(), anAddImplicitHydrogens, this.determineAromaticitySetting, this.aromaticityModelSetting);
+            tmpKeyMap.put(tmpEntry.getKey(), this.smilesGeneratorSetting.create(tmpEntry.getValue()));
+        }
+        return new ScaffoldRepresentations(tmpScaffoldMap, tmpKeyMap);
+    }
+
+    /**
+     * Generates the scaffold of the given mode from the Murcko fragment of a numbered molecule.
+     * Atom types, hydrogens and aromaticity are set afterwards by
+     * {@link ScaffoldGenerator#completeScaffold(IAtomContainer, boolean, boolean, Aromaticity)}.
+     * @param aMolecule Numbered molecule the Murcko fragment was extracted from
+     * @param aMurckoFragment Murcko fragment of the molecule. It is changed by SCAFFOLD and BASIC_FRAMEWORK.
+     * @param aScaffoldModeOption Indicates which scaffold is to be used.
+     * @return scaffold of the given mode
+     * @throws CloneNotSupportedException if cloning is not possible.
+     */
+    protected IAtomContainer applyScaffoldMode(IAtomContainer aMolecule, IAtomContainer aMurckoFragment, ScaffoldModeOption aScaffoldModeOption)
+            throws CloneNotSupportedException {
+        IAtomContainer tmpMurckoFragment = aMurckoFragment;
         switch (aScaffoldModeOption) {
             /*Generate the Murcko scaffold*/
             case MURCKO_FRAMEWORK:
@@ -990,13 +3266,13 @@ public class ScaffoldGenerator {
             /*Generate the common scaffold retaining atoms multi-bonded to rings and linkers directly*/
             case SCAFFOLD:
                 /*Store the number of each Atom of the murckoFragment*/
-                HashSet<Integer> tmpMurckoAtomNumbers = new HashSet<>((int)(tmpClonedMolecule.getAtomCount() * 1.5), 0.75f);
+                HashSet<Integer> tmpMurckoAtomNumbers = new HashSet<>((int)(aMolecule.getAtomCount() * 1.5), 0.75f);
                 for (IAtom tmpMurckoAtom : tmpMurckoFragment.atoms()) {
                     tmpMurckoAtomNumbers.add(tmpMurckoAtom.getProperty(ScaffoldGenerator.SCAFFOLD_ATOM_COUNTER_PROPERTY));
                 }
                 /*Store the number of each Atom that is not single bonded and the respective bond*/
-                HashSet<IBond> tmpAddBondSet = new HashSet<>(tmpClonedMolecule.getAtomCount(), 0.75f);
-                for (IBond tmpBond : tmpClonedMolecule.bonds()) {
+                HashSet<IBond> tmpAddBondSet = new HashSet<>(aMolecule.getAtomCount(), 0.75f);
+                for (IBond tmpBond : aMolecule.bonds()) {
                     if (!tmpBond.getOrder().equals(IBond.Order.SINGLE) && !tmpBond.getOrder().equals(IBond.Order.UNSET)) {//Consider non-single bonds
                         //If both atoms of the bond are in the Murcko fragment, they are taken over anyway
                         Integer tmpBondProperty0 = tmpBond.getAtom(0).getProperty(ScaffoldGenerator.SCAFFOLD_ATOM_COUNTER_PROPERTY);
@@ -1067,20 +3343,33 @@ public class ScaffoldGenerator {
                 }
                 break;
         }
+        return tmpMurckoFragment;
+    }
+
+    /**
+     * Configures the atoms of a scaffold generated by {@link ScaffoldGenerator#applyScaffoldMode(IAtomContainer, IAtomContainer, ScaffoldModeOption)},
+     * adds implicit hydrogens and sets the aromaticity if necessary.
+     * @param aScaffold Scaffold to be completed
+     * @param anAddImplicitHydrogens Specifies whether implicit hydrogens are to be added.
+     * @param anIsAromaticitySet Indicates whether the aromaticity is to be set.
+     * @param anAromaticity anAromaticity Model to be used to determine aromaticity. Can be null if anIsAromaticitySet == false.
+     * @throws CDKException problem with CDKHydrogenAdder: Throws if insufficient information is present or problem with aromaticity.apply()
+     */
+    protected void completeScaffold(IAtomContainer aScaffold, boolean anAddImplicitHydrogens, boolean anIsAromaticitySet, Aromaticity anAromaticity)
+            throws CDKException {
         /*The Murcko fragmenter class does not adjust the hybridisation when the atoms are removed.
         Therefore, this is deleted and determined again.*/
-        AtomContainerManipulator.percieveAtomTypesAndConfigureAtoms(tmpMurckoFragment);
+        AtomContainerManipulator.percieveAtomTypesAndConfigureAtoms(aScaffold);
         /*Add back hydrogens removed by the MurckoFragmenter class*/
         if(anAddImplicitHydrogens) {
-            CDKHydrogenAdder.getInstance(tmpMurckoFragment.getBuilder()).addImplicitHydrogens(tmpMurckoFragment);
+            CDKHydrogenAdder.getInstance(aScaffold.getBuilder()).addImplicitHydrogens(aScaffold);
         }
         /*Set aromaticity if necessary*/
         if (anIsAromaticitySet) {
             Objects.requireNonNull(anAromaticity, "If anIsAromaticitySet == true, anAromaticity must be non null");
             //Set aromaticity
-            anAromaticity.apply(tmpMurckoFragment);
+            anAromaticity.apply(aScaffold);
         }
-        return tmpMurckoFragment;
     }
 
     /**
@@ -1094,9 +3383,22 @@ public class ScaffoldGenerator {
      * @throws CDKException problem with CDKHydrogenAdder: Throws if insufficient information is present or problem with aromaticity.apply()
      */
     protected List<IAtomContainer> getRingsInternal(IAtomContainer aMolecule, boolean anIsKeepingNonSingleBonds) throws CloneNotSupportedException, CDKException {
+        return this.getRingsInternal(aMolecule, anIsKeepingNonSingleBonds, this.createCycleFinderContext(aMolecule));
+    }
+
+    /**
+     * Generates a set of rings with the CycleFinder of the given per-run context.
+     * @param aMolecule molecule whose rings are produced.
+     * @param anIsKeepingNonSingleBonds if true, non-single bonded atoms are retained on the ring.
+     * @param aCycleFinderContext per-run context that provides the cycle finder
+     * @return rings of the inserted molecule.
+     * @throws CloneNotSupportedException if cloning is not possible.
+     * @throws CDKException problem with CDKHydrogenAdder: Throws if insufficient information is present or problem with aromaticity.apply()
+     */
+    protected List<IAtomContainer> getRingsInternal(IAtomContainer aMolecule, boolean anIsKeepingNonSingleBonds, CycleFinderContext aCycleFinderContext) throws CloneNotSupportedException, CDKException {
         IAtomContainer tmpClonedMolecule = aMolecule.clone();
         /*Generate cycles*/
-        Cycles tmpNewCycles = this.getCycleFinder(tmpClonedMolecule).find(tmpClonedMolecule);
+        Cycles tmpNewCycles = aCycleFinderContext.getCycleFinder().find(tmpClonedMolecule);
         IRingSet tmpRingSet = tmpNewCycles.toRingSet();
         List<IAtomContainer> tmpCycles = new ArrayList<>(tmpNewCycles.numberOfCycles());
         int tmpCycleNumber = tmpNewCycles.numberOfCycles();
@@ -1107,18 +3409,13 @@ public class ScaffoldGenerator {
             /*Generate the murckoFragment*/
             IAtomContainer tmpMurckoFragment = this.getMurckoFragment(tmpClonedMolecule);
             /*Store the number of each Atom of the murckoFragment*/
-            HashSet<Integer> tmpMurckoAtomNumbers = new HashSet<>((int)(tmpClonedMolecule.getAtomCount() * 1.5), 0.75f);
-            for (IAtom tmpMurckoAtom : tmpMurckoFragment.atoms()) {
-                tmpMurckoAtomNumbers.add(tmpMurckoAtom.getProperty(ScaffoldGenerator.SCAFFOLD_ATOM_COUNTER_PROPERTY));
-            }
+            BitSet tmpMurckoAtomNumbers = ScaffoldGenerator.getAtomNumberSet(tmpMurckoFragment);
             /*Store the number of each Atom that is not single bonded and the respective bond*/
             for (IBond tmpBond : tmpClonedMolecule.bonds()) {
                 if (!tmpBond.getOrder().equals(IBond.Order.SINGLE)) {//Consider non-single bonds
                     //If both atoms of the bond are in the Murcko fragment, they are taken over anyway
-                    Integer tmpBondProperty0 = tmpBond.getAtom(0).getProperty(ScaffoldGenerator.SCAFFOLD_ATOM_COUNTER_PROPERTY);
-                    Integer tmpBondProperty1 = tmpBond.getAtom(1).getProperty(ScaffoldGenerator.SCAFFOLD_ATOM_COUNTER_PROPERTY);
-                    if (tmpMurckoAtomNumbers.contains(tmpBondProperty0)
-                            && tmpMurckoAtomNumbers.contains(tmpBondProperty1)) {
+                    if (tmpMurckoAtomNumbers.get(ScaffoldGenerator.getAtomNumber(tmpBond.getBegin()))
+                            && tmpMurckoAtomNumbers.get(ScaffoldGenerator.getAtomNumber(tmpBond.getEnd()))) {
                         continue;
                     }
                     /*The binding has not yet been added to the list*/
@@ -1132,38 +3429,33 @@ public class ScaffoldGenerator {
             IAtomContainer tmpCycle = tmpRingSet.getAtomContainer(tmpCount); //Store rings as AtomContainer
             if(anIsKeepingNonSingleBonds) {
                 /*Add the missing atom and the respective bond*/
-                HashMap<Integer, IAtom> tmpMurckoAtomMap = new HashMap<>((int)(tmpCycle.getAtomCount() * 1.5), 0.75f);
-                for(IAtom tmpAtom : tmpCycle.atoms()) {
-                    /*Save the properties of the murcko fragment*/
-                    int tmpAtomPropertyNumber = tmpAtom.getProperty(ScaffoldGenerator.SCAFFOLD_ATOM_COUNTER_PROPERTY);
-                    tmpMurckoAtomMap.put(tmpAtomPropertyNumber, tmpAtom);
-                }
+                /*Save the atoms of the cycle by their numbers*/
+                IAtom[] tmpMurckoAtomsByNumber = ScaffoldGenerator.getAtomsByNumber(tmpCycle);
                 for(IBond tmpBond : tmpAddBondSet) { //Go thought all saved bonds
                     /*If both atoms of the bond are contained in the murcko fragment, this bond does not need to be added anymore*/
-                    Integer tmpBondProperty0 = tmpBond.getAtom(0).getProperty(ScaffoldGenerator.SCAFFOLD_ATOM_COUNTER_PROPERTY);
-                    Integer tmpBondProperty1 = tmpBond.getAtom(1).getProperty(ScaffoldGenerator.SCAFFOLD_ATOM_COUNTER_PROPERTY);
-                    if(tmpMurckoAtomMap.containsKey(tmpBondProperty0) &&
-                            tmpMurckoAtomMap.containsKey(tmpBondProperty1)) {
+                    IAtom tmpMurckoAtom0 = ScaffoldGenerator.getAtomByNumber(tmpMurckoAtomsByNumber, ScaffoldGenerator.getAtomNumber(tmpBond.getBegin()));
+                    IAtom tmpMurckoAtom1 = ScaffoldGenerator.getAtomByNumber(tmpMurckoAtomsByNumber, ScaffoldGenerator.getAtomNumber(tmpBond.getEnd()));
+                    if(tmpMurckoAtom0 != null && tmpMurckoAtom1 != null) {
                         continue; //Skip this bond
                     }
                     /*Atom 1 of the bond is in the Murcko fragment*/
-                    if(tmpMurckoAtomMap.containsKey(tmpBondProperty1)) {
+                    if(tmpMurckoAtom1 != null) {
                         IAtom tmpClonedAtom = tmpBond.getAtom(0).clone();
                         tmpCycle.addAtom(tmpClonedAtom); //Add the atom that is not yet in the murcko fragment
                         IBond tmpNewBond = tmpBond.clone();
                         //Set the first atom
-                        tmpNewBond.setAtom(tmpMurckoAtomMap.get(tmpBondProperty1), 1);
+                        tmpNewBond.setAtom(tmpMurckoAtom1, 1);
                         tmpNewBond.setAtom(tmpClonedAtom, 0); //Set the second atom
                         tmpCycle.addBond(tmpNewBond); //Add the whole bond
                         continue; //Next bond
                     }
                     /*Atom 0 of the bond is in the Murcko fragment*/
-                    if(tmpMurckoAtomMap.containsKey(tmpBondProperty0)) {
+                    if(tmpMurckoAtom0 != null) {
                         IAtom tmpClonedAtom = tmpBond.getAtom(1).clone();
                         tmpCycle.addAtom(tmpClonedAtom); //Add the atom that is not yet in the murcko fragment
                         IBond tmpNewBond = tmpBond.clone();
                         //Set the first atom
-                        tmpNewBond.setAtom(tmpMurckoAtomMap.get(tmpBondProperty0), 0);
+                        tmpNewBond.setAtom(tmpMurckoAtom0, 0);
                         tmpNewBond.setAtom(tmpClonedAtom, 1); //Set the second atom
                         tmpCycle.addBond(tmpNewBond); //Add the whole bond
                     }
@@ -1236,192 +3528,271 @@ public class ScaffoldGenerator {
      * @throws CDKException problem with CDKHydrogenAdder: Throws if insufficient information is present
      */
     protected IAtomContainer removeRing(IAtomContainer aMolecule, boolean anAddImplicitHydrogens, IAtomContainer aRing) throws CloneNotSupportedException, CDKException {
+        return this.removeRing(aMolecule, anAddImplicitHydrogens, aRing, this.createCycleFinderContext(aMolecule));
+    }
+
+    /**
+     * Removes the given ring from the total molecule and returns it.
+     * @param aMolecule Molecule whose ring is to be removed.
+     * @param anAddImplicitHydrogens Specifies whether implicit hydrogens are to be added at the end.
+     * The removal of atoms can create open valences. These are not compensated with hydrogens at the end if this parameter is false.
+     * @param aRing Ring to be removed.
+     * @param aCycleFinderContext per-run context that provides the cycle finder
+     * @return Molecule whose ring has been removed.
+     * @throws CloneNotSupportedException if cloning is not possible.
+     * @throws CDKException problem with CDKHydrogenAdder: Throws if insufficient information is present
+     */
+    protected IAtomContainer removeRing(IAtomContainer aMolecule, boolean anAddImplicitHydrogens, IAtomContainer aRing, CycleFinderContext aCycleFinderContext) throws CloneNotSupportedException, CDKException {
         /*Clone original molecules*/
         IAtomContainer tmpMoleculeClone = aMolecule.clone();
         IAtomContainer tmpRingClone = aRing.clone();
         boolean tmpIsRingAromatic = true;
-        HashSet<Integer> tmpIsNotRing = new HashSet<>((int)(aMolecule.getAtomCount() * 1.5), 0.75f);
-        HashSet<Integer> tmpDoNotRemove = new HashSet<>((int)(aMolecule.getAtomCount() * 1.5), 0.75f);
+        /*The atoms are identified by their numbers, which are read once into primitive arrays and bit sets*/
+        int[] tmpMoleculeNumbers = ScaffoldGenerator.getAtomNumbers(tmpMoleculeClone);
+        IAtom[] tmpMoleculeAtomsByNumber = ScaffoldGenerator.getAtomsByNumber(tmpMoleculeClone);
+        BitSet tmpRingPropertySet = ScaffoldGenerator.getAtomNumberSet(tmpRingClone);
+        BitSet tmpDoNotRemove = new BitSet(tmpMoleculeAtomsByNumber.length);
         int tmpBoundNumber = 0;
         /*Preparation for insertion of double bonds with removal of aromatic rings*/
-        HashSet<Integer> tmpEdgeAtomNumbers = new HashSet<>((int)(tmpMoleculeClone.getAtomCount() * 1.5), 0.75f);
-        /*Store the number of each atom in the molecule*/
-        for(IAtom tmpMolAtom : tmpMoleculeClone.atoms()) {
-            tmpIsNotRing.add(tmpMolAtom.getProperty(ScaffoldGenerator.SCAFFOLD_ATOM_COUNTER_PROPERTY));
-        }
-        /*Remove all numbers of the ring that is to be removed*/
-        for(IAtom tmpRingAtom : tmpRingClone.atoms()) {
-            Integer tmpRemoveProperty = tmpRingAtom.getProperty(ScaffoldGenerator.SCAFFOLD_ATOM_COUNTER_PROPERTY);
-            tmpIsNotRing.remove(tmpRemoveProperty);
-        }
+        BitSet tmpEdgeAtomNumbers = new BitSet(tmpMoleculeAtomsByNumber.length);
         /*Get the number of bonds of the ring to other atoms*/
-        for(IAtom tmpRingAtom : tmpRingClone.atoms()) {
-            for(IAtom tmpMolAtom : tmpMoleculeClone.atoms()) {
-                //All atoms of the ring in the original molecule
-                if(tmpMolAtom.getProperty(ScaffoldGenerator.SCAFFOLD_ATOM_COUNTER_PROPERTY).equals(tmpRingAtom.getProperty(ScaffoldGenerator.SCAFFOLD_ATOM_COUNTER_PROPERTY))) {
-                    for(IBond tmpBond : tmpMolAtom.bonds()){
-                        //Bond between ring and non ring atom
-                        Integer tmpBondProperty0 = tmpBond.getAtom(0).getProperty(ScaffoldGenerator.SCAFFOLD_ATOM_COUNTER_PROPERTY);
-                        Integer tmpBondProperty1 = tmpBond.getAtom(1).getProperty(ScaffoldGenerator.SCAFFOLD_ATOM_COUNTER_PROPERTY);
-                        if(tmpIsNotRing.contains(tmpBondProperty0) ||
-                                tmpIsNotRing.contains(tmpBondProperty1)) {
-                            tmpBoundNumber++;
-                        }
-                    }
-                }
+        for(IBond tmpBond : tmpMoleculeClone.bonds()) {
+            //Bond between ring and non ring atom
+            if(tmpRingPropertySet.get(tmpMoleculeNumbers[tmpMoleculeClone.indexOf(tmpBond.getBegin())])
+                    != tmpRingPropertySet.get(tmpMoleculeNumbers[tmpMoleculeClone.indexOf(tmpBond.getEnd())])) {
+                tmpBoundNumber++;
             }
         }
         /*Add all atoms of rings that are not to be removed to tmpDoNotRemove*/
-        //Get all cycles of the molecule
-        Cycles tmpCycles = this.getCycleFinder(tmpMoleculeClone).find(tmpMoleculeClone);
-        HashSet<Integer> tmpRingPropertySet = new HashSet<>((int)(tmpRingClone.getAtomCount() * 1.5), 0.75f);
-        //Save the properties of the ring
-        for(IAtom tmpRingAtom : tmpRingClone.atoms()) {
-            tmpRingPropertySet.add(tmpRingAtom.getProperty(ScaffoldGenerator.SCAFFOLD_ATOM_COUNTER_PROPERTY));
-        }
-        for(IAtomContainer tmpCycle : tmpCycles.toRingSet().atomContainers()) {
+        //Get all cycles of the molecule as paths of atom positions
+        Cycles tmpCycles = aCycleFinderContext.getCycleFinder().find(tmpMoleculeClone);
+        for(int[] tmpPath : tmpCycles.paths()) {
             boolean tmpIsRingToRemove = true;
-            /*Check if it is the ring to be removed*/
-            for(IAtom tmpCycleAtom : tmpCycle.atoms()) {
+            /*Check if it is the ring to be removed. The last position of a path repeats the first one*/
+            for(int tmpIndex = 0; tmpIndex < tmpPath.length - 1; tmpIndex++) {
                 //If one of the atoms of the ring to be removed is not included, it is not this ring
-                Integer tmpCycleAtomProperty = tmpCycleAtom.getProperty(ScaffoldGenerator.SCAFFOLD_ATOM_COUNTER_PROPERTY);
-                if(!tmpRingPropertySet.contains(tmpCycleAtomProperty)) {
+                if(!tmpRingPropertySet.get(tmpMoleculeNumbers[tmpPath[tmpIndex]])) {
                     tmpIsRingToRemove = false;
+                    break;
                 }
             }
             /*If it is not the ring you want to remove, add its atoms to the tmpDoNotRemove list*/
             if(!tmpIsRingToRemove) {
-                for(IAtom tmpCycleAtom : tmpCycle.atoms()) {
-                    Integer tmpPropertyNumber = tmpCycleAtom.getProperty(ScaffoldGenerator.SCAFFOLD_ATOM_COUNTER_PROPERTY);
-                    tmpDoNotRemove.add(tmpPropertyNumber);
+                for(int tmpIndex = 0; tmpIndex < tmpPath.length - 1; tmpIndex++) {
+                    tmpDoNotRemove.set(tmpMoleculeNumbers[tmpPath[tmpIndex]]);
                 }
             }
         }
         if(tmpBoundNumber < 2) { //Remove all ring atoms, as there are less than two bonds to other atoms
             for(IAtom tmpRingAtom : tmpRingClone.atoms()) {
-                for (IAtom tmpMolAtom : tmpMoleculeClone.atoms()) {
-                    //All atoms of the ring in the original molecule
-                    if (tmpMolAtom.getProperty(ScaffoldGenerator.SCAFFOLD_ATOM_COUNTER_PROPERTY).equals(tmpRingAtom.getProperty(ScaffoldGenerator.SCAFFOLD_ATOM_COUNTER_PROPERTY))) {
-                        tmpMoleculeClone.removeAtom(tmpMolAtom); //Remove atoms. tmpMoleculeCone.remove() not possible
-                        /*Saturate the molecule with hydrogens after removal. Important for Scheme 16*/
-                        AtomContainerManipulator.percieveAtomTypesAndConfigureAtoms(tmpMoleculeClone);
-                        if(anAddImplicitHydrogens) {
-                            CDKHydrogenAdder.getInstance(tmpMoleculeClone.getBuilder()).addImplicitHydrogens(tmpMoleculeClone);
-                        }
+                //The atom of the ring in the original molecule
+                IAtom tmpMolAtom = ScaffoldGenerator.getAtomByNumber(tmpMoleculeAtomsByNumber, ScaffoldGenerator.getAtomNumber(tmpRingAtom));
+                if (tmpMolAtom != null) {
+                    tmpMoleculeClone.removeAtom(tmpMolAtom); //Remove atoms. tmpMoleculeCone.remove() not possible
+                    /*Saturate the molecule with hydrogens after removal. Important for Scheme 16*/
+                    AtomContainerManipulator.percieveAtomTypesAndConfigureAtoms(tmpMoleculeClone);
+                    if(anAddImplicitHydrogens) {
+                        CDKHydrogenAdder.getInstance(tmpMoleculeClone.getBuilder()).addImplicitHydrogens(tmpMoleculeClone);
                     }
                 }
             }
         } else { //Remove only the ring atoms that are not bound to the rest of the molecule
+            //Numbers of the removed atoms, used to compact tmpMoleculeNumbers instead of reading the remaining numbers again
+            BitSet tmpRemovedNumbers = new BitSet(tmpMoleculeAtomsByNumber.length);
             /* Rings consisting of 3 atoms are specially treated*/
             if(tmpRingClone.getAtomCount() == 3) {
                 int tmpNonCCounter = 0;
                 IAtom tmpNonCAtom = null;
                 /*Count the DoNotRemove heteroatoms*/
                 for(IAtom tmpRingAtom : tmpRingClone.atoms()) {
-                    if(!tmpRingAtom.getSymbol().equals("C") && !tmpDoNotRemove.contains((int)tmpRingAtom.getProperty(SCAFFOLD_ATOM_COUNTER_PROPERTY))) {
+                    if(!tmpRingAtom.getSymbol().equals("C") && !tmpDoNotRemove.get(ScaffoldGenerator.getAtomNumber(tmpRingAtom))) {
                         tmpNonCCounter++;
                         tmpNonCAtom = tmpRingAtom;
                     }
                 }
                 /*If the ring contains one heteroatom, it is treated specially.*/
                 if (tmpNonCCounter == 1) {
+                    //The heteroatom is to be removed
+                    IAtom tmpRemoveAtom = ScaffoldGenerator.getAtomByNumber(tmpMoleculeAtomsByNumber, ScaffoldGenerator.getAtomNumber(tmpNonCAtom));
                     tmpRingClone.removeAtom(tmpNonCAtom); //remove the heteroatom from the ring
-                    IAtom tmpBondAtom1 = null;
-                    IAtom tmpRemoveAtom = null;
-                    for(IAtom tmpMolAtom : tmpMoleculeClone.atoms()) { //go through the whole molecule
-                        Integer tmpMolAtomProperty = tmpMolAtom.getProperty(SCAFFOLD_ATOM_COUNTER_PROPERTY);
-                        Integer tmpRingCloneProperty0 = tmpRingClone.getAtom(0).getProperty(SCAFFOLD_ATOM_COUNTER_PROPERTY);
-                        Integer tmpRingCloneProperty1 = tmpRingClone.getAtom(1).getProperty(SCAFFOLD_ATOM_COUNTER_PROPERTY);
-                        /* Find the second atom to which the heteroatom was bonded if it was sp3 hybridised*/
-                        if(tmpMolAtomProperty.equals(tmpRingCloneProperty0) || tmpMolAtomProperty.equals(tmpRingCloneProperty1)) {
-                            if (tmpBondAtom1 != null) {
-                                //insert a double bond between the two atoms
-                                tmpMoleculeClone.getBond(tmpBondAtom1 , tmpMolAtom).setOrder(IBond.Order.DOUBLE);
-                            } else {
-                                /*Find the first atom to which the heteroatom was bonded if it was sp3 hybridised*/
-                                //Save this atom
-                                tmpBondAtom1 = tmpMolAtom;
-                            }
-                        }
-                        /*The heteroatom is to be removed*/
-                        if(tmpNonCAtom.getProperty(SCAFFOLD_ATOM_COUNTER_PROPERTY).equals(tmpMolAtom.getProperty(SCAFFOLD_ATOM_COUNTER_PROPERTY))) {
-                            tmpRemoveAtom = tmpMolAtom;
-                        }
+                    /* Find the two atoms to which the heteroatom was bonded if it was sp3 hybridised*/
+                    IAtom tmpBondAtom0 = ScaffoldGenerator.getAtomByNumber(tmpMoleculeAtomsByNumber, ScaffoldGenerator.getAtomNumber(tmpRingClone.getAtom(0)));
+                    IAtom tmpBondAtom1 = ScaffoldGenerator.getAtomByNumber(tmpMoleculeAtomsByNumber, ScaffoldGenerator.getAtomNumber(tmpRingClone.getAtom(1)));
+                    if(tmpBondAtom0 != null && tmpBondAtom1 != null) {
+                        //insert a double bond between the two atoms
+                        tmpMoleculeClone.getBond(tmpBondAtom0, tmpBondAtom1).setOrder(IBond.Order.DOUBLE);
                     }
                     //remove the heteroatom
                     tmpMoleculeClone.removeAtom(tmpRemoveAtom);
+                    tmpRemovedNumbers.set(ScaffoldGenerator.getAtomNumber(tmpNonCAtom));
                 }
             }
             /*To test whether the ring is aromatic, exocyclic atoms should not be included*/
-            IAtomContainer tmpExocyclicRemovedRing = this.getRingsInternal(aRing.clone(), false).get(0);
+            IAtomContainer tmpExocyclicRemovedRing = this.getRingsInternal(aRing.clone(), false, aCycleFinderContext).get(0);
             tmpIsRingAromatic = this.isAtomContainerAromatic(tmpExocyclicRemovedRing);
             for(IAtom tmpRingAtom : tmpRingClone.atoms()) {
-                for (IAtom tmpMolAtom : tmpMoleculeClone.atoms()) {
-                    /*All atoms of the ring in the original molecule that are not bound to the rest of the molecule*/
-                    Integer tmpMolAtomProperty = tmpMolAtom.getProperty(ScaffoldGenerator.SCAFFOLD_ATOM_COUNTER_PROPERTY);
-                    if ((tmpMolAtomProperty.equals(tmpRingAtom.getProperty(ScaffoldGenerator.SCAFFOLD_ATOM_COUNTER_PROPERTY)))
-                            && !tmpDoNotRemove.contains(tmpMolAtomProperty)) {
-                        tmpMoleculeClone.removeAtom(tmpMolAtom); //Remove atoms
-                        /*Saturate the molecule with hydrogens after removal*/
-                        AtomContainerManipulator.percieveAtomTypesAndConfigureAtoms(tmpMoleculeClone);
-                        if (anAddImplicitHydrogens) {
-                            CDKHydrogenAdder.getInstance(tmpMoleculeClone.getBuilder()).addImplicitHydrogens(tmpMoleculeClone);
-                        }
+                /*All atoms of the ring in the original molecule that are not bound to the rest of the molecule*/
+                int tmpRingAtomNumber = ScaffoldGenerator.getAtomNumber(tmpRingAtom);
+                IAtom tmpMolAtom = ScaffoldGenerator.getAtomByNumber(tmpMoleculeAtomsByNumber, tmpRingAtomNumber);
+                if (tmpMolAtom != null && !tmpDoNotRemove.get(tmpRingAtomNumber)) {
+                    tmpMoleculeClone.removeAtom(tmpMolAtom); //Remove atoms
+                    tmpRemovedNumbers.set(tmpRingAtomNumber);
+                    /*Saturate the molecule with hydrogens after removal*/
+                    AtomContainerManipulator.percieveAtomTypesAndConfigureAtoms(tmpMoleculeClone);
+                    if (anAddImplicitHydrogens) {
+                        CDKHydrogenAdder.getInstance(tmpMoleculeClone.getBuilder()).addImplicitHydrogens(tmpMoleculeClone);
                     }
                 }
             }
+            /*The positions have changed by the removal. The remaining atoms keep their order, so the removed numbers are dropped*/
+            tmpMoleculeNumbers = ScaffoldGenerator.removeAtomNumbers(tmpMoleculeNumbers, tmpRemovedNumbers);
             /*Store the number of all atoms from which an aromatic ring has been removed.
              * In these atoms, a double bond was removed without changing the hybridisation from sp2 to sp3.*/
             //Perform calculation only if the ring to be removed is aromatic or if non-aromatic atom hybridisation should also be preserved
             if(tmpIsRingAromatic || !this.retainOnlyHybridisationsAtAromaticBondsSetting) {
-                for (IAtom tmpMolAtom : tmpMoleculeClone.atoms()) {
+                for (int tmpPosition = 0; tmpPosition < tmpMoleculeNumbers.length; tmpPosition++) {
+                    IAtom tmpMolAtom = tmpMoleculeClone.getAtom(tmpPosition);
                     //All Atoms that are sp2 hybridised and in the ring to be removed
-                    Integer tmpMolAtomProperty = tmpMolAtom.getProperty(ScaffoldGenerator.SCAFFOLD_ATOM_COUNTER_PROPERTY);
                     if (tmpMolAtom.getHybridization() == IAtomType.Hybridization.SP2
-                            && tmpRingPropertySet.contains(tmpMolAtomProperty)) {
+                            && tmpRingPropertySet.get(tmpMoleculeNumbers[tmpPosition])) {
                         boolean tmpIsSp3 = true;
                         for (IBond tmpBond : tmpMolAtom.bonds()) { //All bonds of the Atom
                             if (!tmpBond.getOrder().equals(IBond.Order.SINGLE)) { //If it contains a non-single bond it cannot be sp3
                                 tmpIsSp3 = false;
+                                break;
                             }
                         }
                         if (tmpIsSp3) { //If the Atom contains only single bonds, it must be a wanted atom
-                            tmpEdgeAtomNumbers.add(tmpMolAtom.getProperty(ScaffoldGenerator.SCAFFOLD_ATOM_COUNTER_PROPERTY));
+                            tmpEdgeAtomNumbers.set(tmpMoleculeNumbers[tmpPosition]);
                         }
                     }
                 }
             }
-            for(IBond tmpBond : tmpMoleculeClone.bonds()) {
-                /*If both atoms of a bond were previously part of an aromatic ring, insert a double bond*/
-                Integer tmpBondProperty0 = tmpBond.getAtom(0).getProperty(ScaffoldGenerator.SCAFFOLD_ATOM_COUNTER_PROPERTY);
-                Integer tmpBondProperty1 = tmpBond.getAtom(1).getProperty(ScaffoldGenerator.SCAFFOLD_ATOM_COUNTER_PROPERTY);
-                if(tmpEdgeAtomNumbers.contains(tmpBondProperty0)
-                        && tmpEdgeAtomNumbers.contains(tmpBondProperty1)) {
-                    tmpBond.setOrder(IBond.Order.DOUBLE);
-                    //Remove the atoms that have already been treated from the set
-                    tmpEdgeAtomNumbers.remove(tmpBondProperty0);
-                    tmpEdgeAtomNumbers.remove(tmpBondProperty1);
+            if(!tmpEdgeAtomNumbers.isEmpty()) {
+                for(IBond tmpBond : tmpMoleculeClone.bonds()) {
+                    /*If both atoms of a bond were previously part of an aromatic ring, insert a double bond*/
+                    int tmpBondNumber0 = tmpMoleculeNumbers[tmpMoleculeClone.indexOf(tmpBond.getBegin())];
+                    int tmpBondNumber1 = tmpMoleculeNumbers[tmpMoleculeClone.indexOf(tmpBond.getEnd())];
+                    if(tmpEdgeAtomNumbers.get(tmpBondNumber0) && tmpEdgeAtomNumbers.get(tmpBondNumber1)) {
+                        tmpBond.setOrder(IBond.Order.DOUBLE);
+                        //Remove the atoms that have already been treated from the set
+                        tmpEdgeAtomNumbers.clear(tmpBondNumber0);
+                        tmpEdgeAtomNumbers.clear(tmpBondNumber1);
+                    }
                 }
-            }
-            /*Increase the number of hydrogens by 1 for all previously untreated edge C atoms to compensate for the removed atom.*/
-            for(IAtom tmpAtom : tmpMoleculeClone.atoms()) {
-                Integer tmpAtomProperty = tmpAtom.getProperty(ScaffoldGenerator.SCAFFOLD_ATOM_COUNTER_PROPERTY);
-                if(tmpEdgeAtomNumbers.contains(tmpAtomProperty) && tmpAtom.getSymbol().equals("C")) {
-                    tmpAtom.setImplicitHydrogenCount(tmpAtom.getImplicitHydrogenCount() + 1);
+                /*Increase the number of hydrogens by 1 for all previously untreated edge C atoms to compensate for the removed atom.*/
+                for(int tmpPosition = 0; tmpPosition < tmpMoleculeNumbers.length; tmpPosition++) {
+                    IAtom tmpAtom = tmpMoleculeClone.getAtom(tmpPosition);
+                    if(tmpEdgeAtomNumbers.get(tmpMoleculeNumbers[tmpPosition]) && tmpAtom.getSymbol().equals("C")) {
+                        tmpAtom.setImplicitHydrogenCount(tmpAtom.getImplicitHydrogenCount() + 1);
+                    }
                 }
             }
         }
-        /*Clear hybridisation. The hybridisation must be reset later by percieveAtomTypesAndConfigureAtoms, as the hybridisation is not changed on its own when the atoms are removed.
-        sp2 atoms whose double bonds have been removed must be declared as sp3.*/
-        for(IAtom tmpAtom : tmpMoleculeClone.atoms()) {
-            tmpAtom.setHybridization((IAtomType.Hybridization) CDKConstants.UNSET);
+        /*Clear hybridisation. The hybridisation must be reset later by percieveAtomTypesAndConfigureAtoms, as the hybridisation is not changed on its own when the atoms are removed.
+        sp2 atoms whose double bonds have been removed must be declared as sp3.*/
+        for(IAtom tmpAtom : tmpMoleculeClone.atoms()) {
+            tmpAtom.setHybridization((IAtomType.Hybridization) CDKConstants.UNSET);
+        }
+        /*Add back hydrogens removed by the MurckoFragmenter class*/
+        AtomContainerManipulator.percieveAtomTypesAndConfigureAtoms(tmpMoleculeClone);
+        if(anAddImplicitHydrogens) {
+            CDKHydrogenAdder.getInstance(tmpMoleculeClone.getBuilder()).addImplicitHydrogens(tmpMoleculeClone);
+        }
+        return tmpMoleculeClone;
+    }
+
+    /**
+     * Returns the number of the atom that is stored in the property ScaffoldGenerator.SCAFFOLD_ATOM_COUNTER_PROPERTY.
+     * @param anAtom Atom whose number is to be returned
+     * @return number of the atom
+     */
+    protected static int getAtomNumber(IAtom anAtom) {
+        Integer tmpNumber = anAtom.getProperty(ScaffoldGenerator.SCAFFOLD_ATOM_COUNTER_PROPERTY);
+        return tmpNumber;
+    }
+
+    /**
+     * Reads the numbers of all atoms of the container once.
+     * The number of an atom is stored at the position of the atom in the container.
+     * Important: Property (ScaffoldGenerator.SCAFFOLD_ATOM_COUNTER_PROPERTY) must be set for aMolecule.
+     * @param aMolecule Container whose atom numbers are to be read
+     * @return numbers of the atoms indexed by atom position
+     */
+    protected static int[] getAtomNumbers(IAtomContainer aMolecule) {
+        int[] tmpNumbers = new int[aMolecule.getAtomCount()];
+        for(int tmpPosition = 0; tmpPosition < tmpNumbers.length; tmpPosition++) {
+            tmpNumbers[tmpPosition] = ScaffoldGenerator.getAtomNumber(aMolecule.getAtom(tmpPosition));
+        }
+        return tmpNumbers;
+    }
+
+    /**
+     * Drops the given numbers from an array created by {@link ScaffoldGenerator#getAtomNumbers(IAtomContainer)}.
+     * Removing atoms from a container keeps the order of the remaining atoms,
+     * so the result is indexed by the atom positions after the atoms with these numbers have been removed.
+     * @param aNumbers Numbers of the atoms indexed by atom position
+     * @param aRemovedNumbers Numbers of the removed atoms
+     * @return numbers of the remaining atoms indexed by atom position
+     */
+    protected static int[] removeAtomNumbers(int[] aNumbers, BitSet aRemovedNumbers) {
+        if(aRemovedNumbers.isEmpty()) {
+            return aNumbers;
+        }
+        int[] tmpNumbers = new int[aNumbers.length];
+        int tmpCount = 0;
+        for(int tmpNumber : aNumbers) {
+            if(!aRemovedNumbers.get(tmpNumber)) {
+                tmpNumbers[tmpCount++] = tmpNumber;
+            }
+        }
+        return Arrays.copyOf(tmpNumbers, tmpCount);
+    }
+
+    /**
+     * Returns a bit set in which the numbers of all atoms of the container are set.
+     * Important: Property (ScaffoldGenerator.SCAFFOLD_ATOM_COUNTER_PROPERTY) must be set for aMolecule.
+     * @param aMolecule Container whose atom numbers are to be collected
+     * @return bit set of the atom numbers
+     */
+    protected static BitSet getAtomNumberSet(IAtomContainer aMolecule) {
+        BitSet tmpNumberSet = new BitSet(aMolecule.getAtomCount());
+        for(IAtom tmpAtom : aMolecule.atoms()) {
+            tmpNumberSet.set(ScaffoldGenerator.getAtomNumber(tmpAtom));
+        }
+        return tmpNumberSet;
+    }
+
+    /**
+     * Returns the atoms of the container in an array that is indexed by their numbers.
+     * Numbers that do not occur in the container are null.
+     * Important: Property (ScaffoldGenerator.SCAFFOLD_ATOM_COUNTER_PROPERTY) must be set for aMolecule.
+     * @param aMolecule Container whose atoms are to be indexed
+     * @return atoms of the container indexed by atom number
+     */
+    protected static IAtom[] getAtomsByNumber(IAtomContainer aMolecule) {
+        int tmpMaxNumber = -1;
+        for(IAtom tmpAtom : aMolecule.atoms()) {
+            tmpMaxNumber = Math.max(tmpMaxNumber, ScaffoldGenerator.getAtomNumber(tmpAtom));
         }
-        /*Add back hydrogens removed by the MurckoFragmenter class*/
-        AtomContainerManipulator.percieveAtomTypesAndConfigureAtoms(tmpMoleculeClone);
-        if(anAddImplicitHydrogens) {
-            CDKHydrogenAdder.getInstance(tmpMoleculeClone.getBuilder()).addImplicitHydrogens(tmpMoleculeClone);
+        IAtom[] tmpAtomsByNumber = new IAtom[tmpMaxNumber + 1];
+        for(IAtom tmpAtom : aMolecule.atoms()) {
+            tmpAtomsByNumber[ScaffoldGenerator.getAtomNumber(tmpAtom)] = tmpAtom;
         }
-        return tmpMoleculeClone;
+        return tmpAtomsByNumber;
+    }
+
+    /**
+     * Returns the atom with the given number from an array created by {@link ScaffoldGenerator#getAtomsByNumber(IAtomContainer)}.
+     * @param anAtomsByNumber Atoms indexed by atom number
+     * @param aNumber Number of the atom
+     * @return atom with this number or null if there is none
+     */
+    protected static IAtom getAtomByNumber(IAtom[] anAtomsByNumber, int aNumber) {
+        if(aNumber < 0 || aNumber >= anAtomsByNumber.length) {
+            return null;
+        }
+        return anAtomsByNumber[aNumber];
     }
 
     /**
@@ -1438,14 +3809,12 @@ public class ScaffoldGenerator {
         IAtomContainer tmpClonedMolecule = aMolecule.clone();
         IAtomContainer tmpClonedRing = aRing.clone();
         /*Remove ring atoms from original molecule*/
-        HashMap<Integer, IAtom> tmpMoleculeCounterMap = new HashMap<>((int)(aMolecule.getAtomCount() * 1.5), 0.75f);
-        for(IAtom tmpMolAtom : tmpClonedMolecule.atoms()) { //Save all atoms of the molecule
-            tmpMoleculeCounterMap.put(tmpMolAtom.getProperty(ScaffoldGenerator.SCAFFOLD_ATOM_COUNTER_PROPERTY), tmpMolAtom);
-        }
+        //Save all atoms of the molecule
+        IAtom[] tmpMoleculeAtomsByNumber = ScaffoldGenerator.getAtomsByNumber(tmpClonedMolecule);
         for(IAtom tmpRingAtom : tmpClonedRing.atoms()) { // Go through the ring
-            Integer tmpRingAtomProperty = tmpRingAtom.getProperty(ScaffoldGenerator.SCAFFOLD_ATOM_COUNTER_PROPERTY);
-            if(tmpMoleculeCounterMap.containsKey(tmpRingAtomProperty)) { //Is ring atom in molecule
-                tmpClonedMolecule.removeAtom(tmpMoleculeCounterMap.get(tmpRingAtomProperty)); //Remove them
+            IAtom tmpMolAtom = ScaffoldGenerator.getAtomByNumber(tmpMoleculeAtomsByNumber, ScaffoldGenerator.getAtomNumber(tmpRingAtom));
+            if(tmpMolAtom != null) { //Is ring atom in molecule
+                tmpClonedMolecule.removeAtom(tmpMolAtom); //Remove them
             }
         }
         /*Check if there is more than one molecule in the IAtomContainer*/
@@ -1466,11 +3835,25 @@ public class ScaffoldGenerator {
      * @throws CDKException problem with CDKHydrogenAdder: Throws if insufficient information is present
      */
     protected boolean isRingRemovable(IAtomContainer aRing, List<IAtomContainer> aRings, IAtomContainer aMolecule) throws CloneNotSupportedException, CDKException {
+        return this.isRingRemovable(aRing, aRings, aMolecule, this.createCycleFinderContext(aMolecule));
+    }
+
+    /**
+     * Checks whether rings may be removed.
+     * @param aRing Ring being tested for its removability
+     * @param aRings All rings of the molecule
+     * @param aMolecule Whole molecule
+     * @param aCycleFinderContext per-run context that provides the cycle finder
+     * @return Whether the ring is removable
+     * @throws CloneNotSupportedException if cloning is not possible.
+     * @throws CDKException problem with CDKHydrogenAdder: Throws if insufficient information is present
+     */
+    protected boolean isRingRemovable(IAtomContainer aRing, List<IAtomContainer> aRings, IAtomContainer aMolecule, CycleFinderContext aCycleFinderContext) throws CloneNotSupportedException, CDKException {
         IAtomContainer tmpClonedMolecule = aMolecule.clone();
         IAtomContainer tmpClonedRing = aRing.clone();
         /*---Recognition of rings in which no atom belongs to another ring---*/
         List<IAtomContainer> tmpClonedRings = new ArrayList<>(aRings.size());
-        HashSet<Integer> tmpRingsNumbers = new HashSet<>((int)(aRings.size() * tmpClonedRing.getAtomCount() * 1.5), 0.75f);
+        BitSet tmpRingsNumbers = new BitSet(tmpClonedMolecule.getAtomCount());
         boolean isAnIndependentRing = false;
         /*Store all ring atoms of the whole molecule without the tested ring*/
         for(IAtomContainer tmpRing : aRings) {
@@ -1478,15 +3861,13 @@ public class ScaffoldGenerator {
                 continue;
             }
             tmpClonedRings.add(tmpRing.clone()); //Store the rings
-            for(IAtom tmpAtom : tmpRing.atoms()) { //Store the atoms of the rings
-                tmpRingsNumbers.add(tmpAtom.getProperty(ScaffoldGenerator.SCAFFOLD_ATOM_COUNTER_PROPERTY));
-            }
+            tmpRingsNumbers.or(ScaffoldGenerator.getAtomNumberSet(tmpRing)); //Store the atoms of the rings
         }
         /*Investigate whether the ring contains atoms that do not occur in any other ring*/
         for (IAtom tmpSingleRingAtom : aRing.atoms()) {
-            Integer tmpRingAtomProperty = tmpSingleRingAtom.getProperty(ScaffoldGenerator.SCAFFOLD_ATOM_COUNTER_PROPERTY);
-            if(!tmpRingsNumbers.contains(tmpRingAtomProperty)){
+            if(!tmpRingsNumbers.get(ScaffoldGenerator.getAtomNumber(tmpSingleRingAtom))){
                 isAnIndependentRing = true;
+                break;
             }
         }
         /*If the ring does not contain atoms that are not present in any other rings, it is not removable*/
@@ -1496,7 +3877,7 @@ public class ScaffoldGenerator {
         /*---If it is an aromatic ring that borders two consecutive rings, its removal is not possible.---*/
         /*Is it an aromatic ring at all*/
         //Remove exocyclic atoms
-        IAtomContainer tmpRemovedRing = this.getRingsInternal(tmpClonedRing, false).get(0);
+        IAtomContainer tmpRemovedRing = this.getRingsInternal(tmpClonedRing, false, aCycleFinderContext).get(0);
         /*Do not check aromaticity if both options are false.
         Then pyrene and similar molecules can also be fragmented because no further DB are inserted.*/
         if(this.determineAromaticitySetting || !this.areOnlyHybridisationsAtAromaticBondsRetained()) {
@@ -1505,38 +3886,28 @@ public class ScaffoldGenerator {
         if (!this.isAtomContainerAromatic(tmpRemovedRing)) {
             return true;
         }
-        /*Store the number of all ring atoms*/
-        HashSet<Integer> tmpMoleculeNumbers = new HashSet<>((int)(tmpClonedMolecule.getAtomCount() * 1.5), 0.75f);
-        for(IAtomContainer tmpRing : tmpClonedRings) {
-            for(IAtom tmpRingAtom : tmpRing.atoms()) {
-                int tmpAtomNumber = tmpRingAtom.getProperty(ScaffoldGenerator.SCAFFOLD_ATOM_COUNTER_PROPERTY);
-                tmpMoleculeNumbers.add(tmpAtomNumber);
-            }
-        }
         /*Store all the atoms of the other rings bordering the aromatic ring*/
-        HashSet<Integer> tmpEdgeAtomNumbers = new HashSet<>((int)(tmpClonedMolecule.getAtomCount() * 1.5), 0.75f);
-        for(IAtom tmpRingAtom : tmpClonedRing.atoms()) {
-            //Skip the atom if it is already in the HashSet
-            Integer tmpRingAtomProperty = tmpRingAtom.getProperty(ScaffoldGenerator.SCAFFOLD_ATOM_COUNTER_PROPERTY);
-            if(tmpMoleculeNumbers.contains(tmpRingAtomProperty)) {
-                tmpEdgeAtomNumbers.add(tmpRingAtom.getProperty(ScaffoldGenerator.SCAFFOLD_ATOM_COUNTER_PROPERTY));
-            }
-        }
+        //The numbers of all atoms of the other rings are already stored in tmpRingsNumbers
+        BitSet tmpEdgeAtomNumbers = ScaffoldGenerator.getAtomNumberSet(tmpClonedRing);
+        tmpEdgeAtomNumbers.and(tmpRingsNumbers);
         /*At least 3 edge atoms are needed to cause a problem*/
-        if(tmpEdgeAtomNumbers.size() < 3) {
+        if(tmpEdgeAtomNumbers.cardinality() < 3) {
             return true;
         }
         /*If one of the edge atoms occurs in more than one other ring, it is not possible to remove the ring*/
-        for(Integer tmpEdgeAtomNumber : tmpEdgeAtomNumbers) {
+        List<BitSet> tmpRingNumberSets = new ArrayList<>(aRings.size());
+        for(IAtomContainer tmpRing : aRings) {
+            tmpRingNumberSets.add(ScaffoldGenerator.getAtomNumberSet(tmpRing));
+        }
+        for(int tmpEdgeAtomNumber = tmpEdgeAtomNumbers.nextSetBit(0); tmpEdgeAtomNumber >= 0;
+                tmpEdgeAtomNumber = tmpEdgeAtomNumbers.nextSetBit(tmpEdgeAtomNumber + 1)) {
             int tmpRingCounter = 0;
-            for(IAtomContainer tmpRing : aRings) {
-                for(IAtom tmpRingAtom : tmpRing.atoms()) {
-                    //If one of the atoms of the ring to be tested matches one of the edge atoms
-                    if(tmpRingAtom.getProperty(ScaffoldGenerator.SCAFFOLD_ATOM_COUNTER_PROPERTY).equals(tmpEdgeAtomNumber)) {
-                        tmpRingCounter++;
-                        if(tmpRingCounter > 1) { //More than one bordering ring
-                            return false;
-                        }
+            for(BitSet tmpRingNumberSet : tmpRingNumberSets) {
+                //If one of the atoms of the ring to be tested matches one of the edge atoms
+                if(tmpRingNumberSet.get(tmpEdgeAtomNumber)) {
+                    tmpRingCounter++;
+                    if(tmpRingCounter > 1) { //More than one bordering ring
+                        return false;
                     }
                 }
             }
@@ -1553,40 +3924,226 @@ public class ScaffoldGenerator {
      * @throws CloneNotSupportedException if cloning is not possible.
      */
     protected void removeRingForSchuffenhauerRule(IAtomContainer aRing, List<IAtomContainer> aFragmentList) throws CDKException, CloneNotSupportedException {
+        this.removeRingForSchuffenhauerRule(aRing, aFragmentList, this.createCycleFinderContext(aFragmentList.get(aFragmentList.size() - 1)));
+    }
+
+    /**
+     * Removes the selected ring from the last fragment in the list and adds the resulting fragment to this list.
+     * @param aRing Ring to be removed
+     * @param aFragmentList List of all fragments created so far
+     * @param aCycleFinderContext per-run context that provides the cycle finder
+     * @throws CDKException problem with CDKHydrogenAdder: Throws if insufficient information is present
+     * @throws CloneNotSupportedException if cloning is not possible.
+     */
+    protected void removeRingForSchuffenhauerRule(IAtomContainer aRing, List<IAtomContainer> aFragmentList, CycleFinderContext aCycleFinderContext) throws CDKException, CloneNotSupportedException {
         //Remove the ring from the fragment currently being treated
-        IAtomContainer tmpRingRemoved = this.removeRing(aFragmentList.get(aFragmentList.size() - 1), true, aRing);
+        IAtomContainer tmpRingRemoved = this.removeRing(aFragmentList.get(aFragmentList.size() - 1), true, aRing, aCycleFinderContext);
         //Remove the linkers
         IAtomContainer tmpScaffoldRingRemoved = this.getScaffoldInternal(tmpRingRemoved, true, this.determineAromaticitySetting, this.aromaticityModelSetting, this.scaffoldModeSetting);
         //Add the fragment to the list of fragments
         aFragmentList.add(tmpScaffoldRingRemoved);
     }
+
+    /**
+     * Removes each removable terminal ring from the fragment and returns the resulting scaffolds in the order of the rings.
+     * Fragments with less than two rings are not disassembled any further and yield an empty list.
+     * The candidate rings are evaluated in parallel if {@link ScaffoldGenerator#parallelRingEvaluationSetting} == true.
+     * Specially designed for {@link ScaffoldGenerator#applyEnumerativeRemoval(IAtomContainer)}
+     * and {@link ScaffoldGenerator#generateScaffoldNetwork(IAtomContainer)}.
+     * Important: Property (ScaffoldGenerator.SCAFFOLD_ATOM_COUNTER_PROPERTY) must be set for aFragment.
+     * @param aFragment Fragment whose rings are to be removed
+     * @param aCycleFinderContext Per-run context that selects the cycle finder
+     * @return Scaffolds resulting from the removal of each removable terminal ring
+     * @throws CDKException problem with CDKHydrogenAdder: Throws if insufficient information is present
+     * @throws CloneNotSupportedException if cloning is not possible.
+     */
+    protected List<IAtomContainer> getRingRemovedFragments(IAtomContainer aFragment, CycleFinderContext aCycleFinderContext) throws CDKException, CloneNotSupportedException {
+        List<IAtomContainer> tmpAllRingsList = this.getRingsInternal(aFragment, true, aCycleFinderContext);
+        /*Skip fragments with less than 2 rings*/
+        if (tmpAllRingsList.size() < 2) {
+            return new ArrayList<>(0);
+        }
+        List<IAtomContainer> tmpRingRemovedList = this.getRingRemovedFragments(aFragment, tmpAllRingsList, aCycleFinderContext);
+        tmpRingRemovedList.removeIf(Objects::isNull);
+        return tmpRingRemovedList;
+    }
+
+    /**
+     * Removes each removable terminal ring of the given rings from the fragment.
+     * Used by {@link ScaffoldGenerator#getRingRemovedFragments(IAtomContainer, CycleFinderContext)} and by the
+     * {@link EnumerativeRemovalIterator}, which needs the index of each removed ring.
+     * Important: Property (ScaffoldGenerator.SCAFFOLD_ATOM_COUNTER_PROPERTY) must be set for aFragment.
+     * @param aFragment Fragment whose rings are to be removed
+     * @param aRings All rings of the fragment created by getRingsInternal() with non-single bonds retained
+     * @param aCycleFinderContext Per-run context that selects the cycle finder
+     * @return Scaffold resulting from the removal of each ring, at the index of the ring, or null if the ring is not removable
+     * @throws CDKException problem with CDKHydrogenAdder: Throws if insufficient information is present
+     * @throws CloneNotSupportedException if cloning is not possible.
+     */
+    protected List<IAtomContainer> getRingRemovedFragments(IAtomContainer aFragment, List<IAtomContainer> aRings, CycleFinderContext aCycleFinderContext)
+            throws CDKException, CloneNotSupportedException {
+        /*Remove all removable terminal rings, null marks the rings that are skipped*/
+        return this.evaluateCandidates(aRings, tmpRing -> {
+            if (!this.isRingTerminal(aFragment, tmpRing) || !this.isRingRemovable(tmpRing, aRings, aFragment, aCycleFinderContext)) {
+                return null;
+            }
+            return this.getScaffoldInternal(this.removeRing(aFragment, true, tmpRing, aCycleFinderContext), true,
+                    this.determineAromaticitySetting, this.aromaticityModelSetting, this.scaffoldModeSetting);
+        });
+    }
+
+    /**
+     * Checks the bounds of {@link ScaffoldGenerator#generateScaffoldNetwork(IAtomContainer, int, int)}.
+     * @param aMinimumRingCount Minimum number of rings of the generated scaffolds
+     * @param aMaximumRemovalDepth Maximum number of rings removed from the scaffold of the molecule
+     * @throws IllegalArgumentException if aMinimumRingCount is smaller than 1 or aMaximumRemovalDepth is negative
+     */
+    protected void checkNetworkBounds(int aMinimumRingCount, int aMaximumRemovalDepth) throws IllegalArgumentException {
+        if(aMinimumRingCount < 1) {
+            throw new IllegalArgumentException("Given minimum ring count must be at least 1: " + aMinimumRingCount);
+        }
+        if(aMaximumRemovalDepth < 0) {
+            throw new IllegalArgumentException("Given maximum removal depth must not be negative: " + aMaximumRemovalDepth);
+        }
+    }
+
+    /**
+     * Checks whether the time budget {@link ScaffoldGenerator#maximumWallTimeSetting} of a molecule is exhausted.
+     * @param aStartTime Value of System.nanoTime() at the start of the decomposition of the molecule
+     * @return true if the maximum wall time has been exceeded
+     */
+    protected boolean isWallTimeExceeded(long aStartTime) {
+        if(this.maximumWallTimeSetting == Long.MAX_VALUE) {
+            return false;
+        }
+        return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - aStartTime) >= this.maximumWallTimeSetting;
+    }
+
+    /**
+     * Applies the evaluation to all candidates and returns the results in the order of the candidates.
+     * If {@link ScaffoldGenerator#parallelRingEvaluationSetting} == true, the candidates are evaluated concurrently
+     * on {@link ScaffoldGenerator#forkJoinPoolSetting}. Nested calls from within an evaluation join the running pool.
+     * The evaluation must not modify the candidates or any other shared molecule.
+     * @param aCandidates Candidates to be evaluated
+     * @param anEvaluation Evaluation applied to each candidate
+     * @param <CandidateType> type of the candidates
+     * @param <ResultType> type of the results
+     * @return Results of the evaluation, in the order of the candidates
+     * @throws CDKException if the evaluation of one of the candidates throws it
+     * @throws CloneNotSupportedException if the evaluation of one of the candidates throws it
+     */
+    protected <CandidateType, ResultType> List<ResultType> evaluateCandidates(List<CandidateType> aCandidates,
+            CandidateEvaluation<CandidateType, ResultType> anEvaluation) throws CDKException, CloneNotSupportedException {
+        List<ResultType> tmpResultList = new ArrayList<>(aCandidates.size());
+        /*Sequential evaluation in the calling thread*/
+        if (!this.parallelRingEvaluationSetting || aCandidates.size() < 2) {
+            for (CandidateType tmpCandidate : aCandidates) {
+                tmpResultList.add(anEvaluation.evaluate(tmpCandidate));
+            }
+            return tmpResultList;
+        }
+        /*Parallel evaluation, one task per candidate*/
+        List<ForkJoinTask<ResultType>> tmpTaskList = new ArrayList<>(aCandidates.size());
+        for (CandidateType tmpCandidate : aCandidates) {
+            tmpTaskList.add(ForkJoinTask.adapt(() -> anEvaluation.evaluate(tmpCandidate)));
+        }
+        try {
+            if (ForkJoinTask.inForkJoinPool()) {
+                //Nested evaluation, the current worker takes part in the work
+                ForkJoinTask.invokeAll(tmpTaskList);
+            } else {
+                ForkJoinPool tmpForkJoinPool = this.forkJoinPoolSetting == null ? ForkJoinPool.commonPool() : this.forkJoinPoolSetting;
+                tmpForkJoinPool.invoke(ForkJoinTask.adapt(() -> {
+                    ForkJoinTask.invokeAll(tmpTaskList);
+                }));
+            }
+        } catch (RuntimeException anException) {
+            /*Checked exceptions are wrapped by the tasks and have to be unwrapped again*/
+            Throwable tmpCause = anException;
+            while (tmpCause != null) {
+                if (tmpCause instanceof CDKException) {
+                    throw (CDKException) tmpCause;
+                }
+                if (tmpCause instanceof CloneNotSupportedException) {
+                    throw (CloneNotSupportedException) tmpCause;
+                }
+                tmpCause = tmpCause.getCause();
+            }
+            throw anException;
+        }
+        for (ForkJoinTask<ResultType> tmpTask : tmpTaskList) {
+            tmpResultList.add(tmpTask.join());
+        }
+        return tmpResultList;
+    }
+
     /**
      * Selects the correct CycleFinder based on ScaffoldGenerator.CYCLE_FINDER_BACKUP_PROPERTY.
+     * The backup cycle finder is selected if the property is true for one of the atoms. The atoms are not changed.
      * @param aMolecule Molecule for which a CycleFinder is to be generated
      * @return CycleFinder that matches the properties of the molecule
      */
     protected CycleFinder getCycleFinder(IAtomContainer aMolecule) {
-        boolean tmpIsBackupFinderUsed = false;
-        /*Check whether the backup Cycle finder should be used*/
+        return this.createCycleFinderContext(aMolecule).getCycleFinder();
+    }
+
+    /**
+     * Creates the per-run context for the decomposition of the given molecule.
+     * The backup cycle finder is selected if ScaffoldGenerator.CYCLE_FINDER_BACKUP_PROPERTY is true for one of the atoms.
+     * This is the only place where the property is read; the atoms are not changed.
+     * @param aMolecule Molecule whose decomposition starts
+     * @return new context with the selected cycle finder
+     */
+    protected CycleFinderContext createCycleFinderContext(IAtomContainer aMolecule) {
         for(IAtom tmpAtom : aMolecule.atoms()) {
-            /*If no CycleFinder has been assigned to the Atom yet*/
-            if(tmpAtom.getProperty(ScaffoldGenerator.CYCLE_FINDER_BACKUP_PROPERTY) == null) {
-                //The ScaffoldGenerator.CYCLE_FINDER is used by default
-                tmpAtom.setProperty(ScaffoldGenerator.CYCLE_FINDER_BACKUP_PROPERTY, false);
-                continue;
-            }
             /*If one of the atoms has been assigned to the ScaffoldGenerator.CYCLE_FINDER_BACKUP cycle finder, it is used.*/
-            if(tmpAtom.getProperty(ScaffoldGenerator.CYCLE_FINDER_BACKUP_PROPERTY).equals(true)) {
-                tmpIsBackupFinderUsed = true;
+            if(Boolean.TRUE.equals(tmpAtom.getProperty(ScaffoldGenerator.CYCLE_FINDER_BACKUP_PROPERTY))) {
+                return new CycleFinderContext(true);
+            }
+        }
+        return new CycleFinderContext(false);
+    }
+
+    /**
+     * Creates the per-run context for the decomposition of the given molecule and predicts whether the CYCLE_FINDER would blow up.
+     * In addition to {@link ScaffoldGenerator#createCycleFinderContext(IAtomContainer)}, the CYCLE_FINDER_BACKUP is selected up front
+     * if the cyclomatic number or the atom count of one of the fused ring systems exceeds
+     * {@link ScaffoldGenerator#maximumCyclomaticNumberSetting} or {@link ScaffoldGenerator#maximumRingSystemSizeSetting}.
+     * The ring systems are determined in linear time by RingSearch.
+     * @param aMolecule Molecule whose decomposition starts
+     * @return new context with the selected cycle finder
+     */
+    protected CycleFinderContext predictCycleFinderContext(IAtomContainer aMolecule) {
+        CycleFinderContext tmpCycleFinderContext = this.createCycleFinderContext(aMolecule);
+        if(tmpCycleFinderContext.isBackupCycleFinderUsed()
+                || (this.maximumCyclomaticNumberSetting == Integer.MAX_VALUE && this.maximumRingSystemSizeSetting == Integer.MAX_VALUE)) {
+            return tmpCycleFinderContext;
+        }
+        for(IAtomContainer tmpRingSystem : new RingSearch(aMolecule).fusedRingFragments()) {
+            //Number of independent rings of the ring system
+            int tmpCyclomaticNumber = tmpRingSystem.getBondCount() - tmpRingSystem.getAtomCount() + 1;
+            if(tmpCyclomaticNumber > this.maximumCyclomaticNumberSetting || tmpRingSystem.getAtomCount() > this.maximumRingSystemSizeSetting) {
+                tmpCycleFinderContext.switchToBackupCycleFinder();
+                this.predictedCycleFinderFallbackCounter.incrementAndGet();
                 break;
             }
         }
-        /*Return the right CycleFinder*/
-        if(tmpIsBackupFinderUsed) {
-            return ScaffoldGenerator.CYCLE_FINDER_BACKUP;
-        } else {
-            return ScaffoldGenerator.CYCLE_FINDER;
+        return tmpCycleFinderContext;
+    }
+
+    /**
+     * Creates the per-run context for the given rings.
+     * The backup cycle finder is selected if ScaffoldGenerator.CYCLE_FINDER_BACKUP_PROPERTY is true for one of the atoms of one of the rings.
+     * @param aRings Rings that are to be examined
+     * @return new context with the selected cycle finder
+     */
+    protected CycleFinderContext createCycleFinderContext(List<IAtomContainer> aRings) {
+        for(IAtomContainer tmpRing : aRings) {
+            if(this.createCycleFinderContext(tmpRing).isBackupCycleFinderUsed()) {
+                return new CycleFinderContext(true);
+            }
         }
+        return new CycleFinderContext(false);
     }
 
     /**
@@ -1723,12 +4280,23 @@ public class ScaffoldGenerator {
      * @throws CDKException problem with CDKHydrogenAdder: Throws if insufficient information is present
      */
     protected List<IAtomContainer> applySchuffenhauerRuleTwo(List<IAtomContainer> aRings) throws CDKException {
+        return this.applySchuffenhauerRuleTwo(aRings, this.createCycleFinderContext(aRings));
+    }
+
+    /**
+     * Sort out the rings according to the second Schuffenhauer rule.
+     * @param aRings Removable rings of the molecule to which the rule is applied
+     * @param aCycleFinderContext per-run context that provides the cycle finder
+     * @return List of rings to be removed first according to the rule. Returns the unchanged list if the rule cannot be applied to the rings.
+     * @throws CDKException problem with CDKHydrogenAdder: Throws if insufficient information is present
+     */
+    protected List<IAtomContainer> applySchuffenhauerRuleTwo(List<IAtomContainer> aRings, CycleFinderContext aCycleFinderContext) throws CDKException {
         List<IAtomContainer> tmpSmallRings = new ArrayList<>(aRings.size()); //Rings smaller 12
         /*Identify macrocycles and smaller rings*/
         boolean tmpHasRemovableMacroCycle = false;
         for(IAtomContainer tmpRing : aRings) {
             /*To determine the ring size, the exocyclic atoms must be removed*/
-            Cycles tmpRemovedExocyclic = this.getCycleFinder(tmpRing).find(tmpRing);
+            Cycles tmpRemovedExocyclic = aCycleFinderContext.getCycleFinder().find(tmpRing);
             /*Check whether there are any removable macrocycles at all*/
             if(tmpRemovedExocyclic.toRingSet().getAtomContainer(0).getAtomCount() > 11 ) {
                 tmpHasRemovableMacroCycle = true;
@@ -1760,20 +4328,33 @@ public class ScaffoldGenerator {
      * @throws CloneNotSupportedException if cloning is not possible.
      */
     protected List<IAtomContainer> applySchuffenhauerRuleThree(IAtomContainer aMolecule, List<IAtomContainer> aRings) throws CDKException, CloneNotSupportedException {
+        return this.applySchuffenhauerRuleThree(aMolecule, aRings, this.createCycleFinderContext(aMolecule));
+    }
+
+    /**
+     * Sort out the rings according to the third Schuffenhauer rule.
+     * @param aRings Removable rings of the molecule to which the rule is applied
+     * @param aMolecule Molecule from which a ring is to be removed
+     * @param aCycleFinderContext per-run context that provides the cycle finder
+     * @return List of rings to be removed first according to the rule. Returns the unchanged list if the rule cannot be applied to the rings.
+     * @throws CDKException problem with CDKHydrogenAdder: Throws if insufficient information is present
+     * @throws CloneNotSupportedException if cloning is not possible.
+     */
+    protected List<IAtomContainer> applySchuffenhauerRuleThree(IAtomContainer aMolecule, List<IAtomContainer> aRings, CycleFinderContext aCycleFinderContext) throws CDKException, CloneNotSupportedException {
         IAtomContainer tmpClonedMolecule = aMolecule.clone();
         List<IAtomContainer> tmpRemoveRings = new ArrayList<>(aRings.size()); //Rings with the longest linker
         List<Integer> tmpLinkerSize = new ArrayList<>(aRings.size()); //Linker length of each ring
         /*Generate the murcko fragment, as this removes the multiple bonded atoms at the linkers*/
         int tmpMoleculeAtomCount = this.getMurckoFragment(tmpClonedMolecule).getAtomCount();
         /*Calculate the linker length of each ring. Negative integers are fused rings*/
-        for(IAtomContainer tmpRing : aRings) {
-            IAtomContainer tmpRemovedRing = this.removeRing(tmpClonedMolecule, true, tmpRing);
+        tmpLinkerSize.addAll(this.evaluateCandidates(aRings, tmpRing -> {
+            IAtomContainer tmpRemovedRing = this.removeRing(tmpClonedMolecule, true, tmpRing, aCycleFinderContext);
             //Generate the murcko fragment, as this removes the multiple bonded atoms at the linkers
             IAtomContainer tmpRemovedRingMurckoFragment = this.getMurckoFragment(tmpRemovedRing);
             //The number of atoms of the removed ring and the molecule from which the ring and the linker were removed are subtracted from the atomic number of the whole molecule
             //This leaves only the atomic number of the linker
-            tmpLinkerSize.add(tmpMoleculeAtomCount - (tmpRing.getAtomCount() + tmpRemovedRingMurckoFragment.getAtomCount()));
-        }
+            return tmpMoleculeAtomCount - (tmpRing.getAtomCount() + tmpRemovedRingMurckoFragment.getAtomCount());
+        }));
         //Get the maximum linker size
         Integer tmpMaxList = tmpLinkerSize.stream().mapToInt(v->v).max().orElseThrow(NoSuchElementException::new);
         /*Save the linked rings if available*/
@@ -1812,34 +4393,48 @@ public class ScaffoldGenerator {
      * @throws CloneNotSupportedException if cloning is not possible.
      */
     protected List<IAtomContainer> applySchuffenhauerRuleFourAndFive(IAtomContainer aMolecule, List<IAtomContainer> aRings) throws CDKException, CloneNotSupportedException {
+        return this.applySchuffenhauerRuleFourAndFive(aMolecule, aRings, this.createCycleFinderContext(aMolecule));
+    }
+
+    /**
+     * Sort out the rings according to the fourth and fifth Schuffenhauer rule.
+     * @param aRings Removable rings of the molecule to which the rule is applied
+     * @param aMolecule Molecule from which a ring is to be removed
+     * @param aCycleFinderContext per-run context that provides the cycle finder
+     * @return List of rings to be removed first according to the rule. Returns the unchanged list if the rule cannot be applied to the rings.
+     * @throws CDKException problem with CDKHydrogenAdder: Throws if insufficient information is present
+     * @throws CloneNotSupportedException if cloning is not possible.
+     */
+    protected List<IAtomContainer> applySchuffenhauerRuleFourAndFive(IAtomContainer aMolecule, List<IAtomContainer> aRings, CycleFinderContext aCycleFinderContext) throws CDKException, CloneNotSupportedException {
         IAtomContainer tmpClonedMolecule = aMolecule.clone();
         List<IAtomContainer> tmpRingsReturn = new ArrayList<>(aRings.size()); //Rings that are returned
         List<Integer> tmpDeltaList = new ArrayList<>(aRings.size()); //Delta values of all rings
         List<Integer> tmpDeltaListAbs = new ArrayList<>(aRings.size()); //Absolute Delta values of all rings
+        /*Remove all rings, in parallel if enabled*/
+        List<IAtomContainer> tmpRingRemovedList = this.evaluateCandidates(aRings, tmpRing -> this.removeRing(tmpClonedMolecule, true, tmpRing, aCycleFinderContext));
+        boolean tmpIsBackupFinderSwitched = false;
         /*Calculate the delta values for all rings*/
-        for(IAtomContainer tmpRing : aRings) {
-            IAtomContainer tmpRingRemoved = this.removeRing(tmpClonedMolecule, true, tmpRing); //Remove the ring
+        for(int tmpRingCounter = 0; tmpRingCounter < aRings.size(); tmpRingCounter++) {
+            IAtomContainer tmpRing = aRings.get(tmpRingCounter);
+            IAtomContainer tmpRingRemoved = tmpRingRemovedList.get(tmpRingCounter);
+            //Once the run has switched to the backup cycle finder below, the ring must be removed again to take this into account
+            if(tmpIsBackupFinderSwitched) {
+                tmpRingRemoved = this.removeRing(tmpClonedMolecule, true, tmpRing, aCycleFinderContext); //Remove the ring
+            }
             //-----Eliminate Cycle Error-----
             Cycles tmpCycles = null;
             Iterable<IAtomContainer> tmpCycleIterable = null;
             /*With a few molecules, an error occurs with the relevant CycleFinder. Then the mcb CycleFinder is automatically used.*/
             try {
-                tmpCycles = this.getCycleFinder(tmpRingRemoved).find(tmpRingRemoved); //get cycle number(nR)
+                tmpCycles = aCycleFinderContext.getCycleFinder().find(tmpRingRemoved); //get cycle number(nR)
                 tmpCycleIterable = tmpCycles.toRingSet().atomContainers();
             } catch (NegativeArraySizeException e) {
-                /*Save as a property of the atoms that from now on the CYCLE_FINDER_BACKUP is to be used*/
-                for(IAtomContainer tmpOriginalRing : aRings) {
-                    for(IAtom tmpAtom : tmpOriginalRing.atoms()) {
-                        tmpAtom.setProperty(ScaffoldGenerator.CYCLE_FINDER_BACKUP_PROPERTY, true);
-                    }
-                }
-                for(IAtom tmpAtom : aMolecule.atoms()) {
-                    tmpAtom.setProperty(ScaffoldGenerator.CYCLE_FINDER_BACKUP_PROPERTY, true);
-                }
-                for(IAtom tmpAtom : tmpRingRemoved.atoms()) {
-                    tmpAtom.setProperty(ScaffoldGenerator.CYCLE_FINDER_BACKUP_PROPERTY, true);
+                /*From now on, the CYCLE_FINDER_BACKUP is used for the rest of the run*/
+                if(aCycleFinderContext.switchToBackupCycleFinder()) {
+                    this.reactiveCycleFinderFallbackCounter.incrementAndGet();
                 }
-                tmpCycles = this.getCycleFinder(tmpRingRemoved).find(tmpRingRemoved); //get cycle number(nR)
+                tmpIsBackupFinderSwitched = true;
+                tmpCycles = aCycleFinderContext.getCycleFinder().find(tmpRingRemoved); //get cycle number(nR)
                 tmpCycleIterable = tmpCycles.toRingSet().atomContainers();
             }
             HashSet<IBond> tmpCycleBonds = new HashSet<>((int)(aRings.size() * 1.5), 0.75f);
@@ -1900,11 +4495,22 @@ public class ScaffoldGenerator {
      * @throws CDKException problem with CDKHydrogenAdder: Throws if insufficient information is present
      */
     protected List<IAtomContainer> applySchuffenhauerRuleSix(List<IAtomContainer> aRings) throws CDKException {
+        return this.applySchuffenhauerRuleSix(aRings, this.createCycleFinderContext(aRings));
+    }
+
+    /**
+     * Sort out the rings according to the sixth Schuffenhauer rule.
+     * @param aRings Removable rings of the molecule to which the rule is applied
+     * @param aCycleFinderContext per-run context that provides the cycle finder
+     * @return List of rings to be removed first according to the rule. Returns the unchanged list if the rule cannot be applied to the rings.
+     * @throws CDKException problem with CDKHydrogenAdder: Throws if insufficient information is present
+     */
+    protected List<IAtomContainer> applySchuffenhauerRuleSix(List<IAtomContainer> aRings, CycleFinderContext aCycleFinderContext) throws CDKException {
         List<IAtomContainer> tmpReturnRingList = new ArrayList<>(aRings.size());
         /*Size 3, 5 and 6 rings will be added to the list if present*/
         for(IAtomContainer tmpRing : aRings) {
             //To determine the ring size, the exocyclic atoms must be removed
-            Cycles tmpRemovedExocyclic = this.getCycleFinder(tmpRing).find(tmpRing);
+            Cycles tmpRemovedExocyclic = aCycleFinderContext.getCycleFinder().find(tmpRing);
             IAtomContainer tmpRemovedExoRing = tmpRemovedExocyclic.toRingSet().getAtomContainer(0);
             if(tmpRemovedExoRing.getAtomCount() == 3 || tmpRemovedExoRing.getAtomCount() == 5 || tmpRemovedExoRing.getAtomCount() == 6) {
                 tmpReturnRingList.add(tmpRing);
@@ -1932,23 +4538,48 @@ public class ScaffoldGenerator {
      * @throws CloneNotSupportedException if cloning is not possible.
      */
     protected List<IAtomContainer> applySchuffenhauerRuleSeven(IAtomContainer aMolecule, List<IAtomContainer> aRings) throws CDKException, CloneNotSupportedException {
+        return this.applySchuffenhauerRuleSeven(aMolecule, aRings, this.createCycleFinderContext(aMolecule));
+    }
+
+    /**
+     * Sort out the rings according to the seventh Schuffenhauer rule.
+     * @param aRings Removable rings of the molecule to which the rule is applied
+     * @param aMolecule Molecule from which a ring is to be removed
+     * @param aCycleFinderContext per-run context that provides the cycle finder
+     * @return List of rings to be removed first according to the rule. Returns the unchanged list if the rule cannot be applied to the rings.
+     * @throws CDKException problem with CDKHydrogenAdder: Throws if insufficient information is present
+     * @throws CloneNotSupportedException if cloning is not possible.
+     */
+    protected List<IAtomContainer> applySchuffenhauerRuleSeven(IAtomContainer aMolecule, List<IAtomContainer> aRings, CycleFinderContext aCycleFinderContext) throws CDKException, CloneNotSupportedException {
         List<IAtomContainer> tmpReturnRings = new ArrayList<>(aRings.size());
         IAtomContainer tmpClonedMolecule = aMolecule.clone();
         /*Check the number of aromatic rings in the original molecule*/
         int tmpOriginalAromaticRingCounter = 0;
         //Get all cycles without exocyclic atoms
-        Cycles tmpOriginalCycles = this.getCycleFinder(tmpClonedMolecule).find(tmpClonedMolecule);
+        Cycles tmpOriginalCycles = aCycleFinderContext.getCycleFinder().find(tmpClonedMolecule);
         for(IAtomContainer tmpCycle : tmpOriginalCycles.toRingSet().atomContainers()) {
             /*Count the aromatic rings*/
             if(this.isAtomContainerAromatic(tmpCycle)) {
                 tmpOriginalAromaticRingCounter++;
             }
         }
-        /*Remove each ring and count the number of remaining aromatic rings*/
-        for(IAtomContainer tmpRing : aRings) {
-            IAtomContainer tmpRemovedRing = this.removeRing(aMolecule, true, tmpRing);
+        /*Remove each ring, in parallel if enabled*/
+        CandidateEvaluation<IAtomContainer, IAtomContainer> tmpRingRemoval = tmpRing -> {
+            IAtomContainer tmpRemovedRing = this.removeRing(aMolecule, true, tmpRing, aCycleFinderContext);
             tmpRemovedRing = this.getScaffoldInternal(tmpRemovedRing, true, false, null, this.scaffoldModeSetting);
             this.aromaticityModelSetting.apply(tmpRemovedRing);
+            return tmpRemovedRing;
+        };
+        List<IAtomContainer> tmpRemovedRingList = this.evaluateCandidates(aRings, tmpRingRemoval);
+        boolean tmpIsBackupFinderSwitched = false;
+        /*Count the number of remaining aromatic rings*/
+        for(int tmpRingCounter = 0; tmpRingCounter < aRings.size(); tmpRingCounter++) {
+            IAtomContainer tmpRing = aRings.get(tmpRingCounter);
+            IAtomContainer tmpRemovedRing = tmpRemovedRingList.get(tmpRingCounter);
+            //Once the run has switched to the backup cycle finder below, the ring must be removed again to take this into account
+            if(tmpIsBackupFinderSwitched) {
+                tmpRemovedRing = tmpRingRemoval.evaluate(tmpRing);
+            }
             /*Check the number of aromatic rings*/
             int tmpRemovedAromaticRingCounter = 0;
             //-----Eliminate Cycle Error-----
@@ -1956,22 +4587,15 @@ public class ScaffoldGenerator {
             Iterable<IAtomContainer> tmpCycleIterable = null;
             /*With a few molecules, an error occurs with the relevant CycleFinder. Then the mcb CycleFinder is automatically used.*/
             try {
-                tmpRemovedCycles = this.getCycleFinder(tmpRemovedRing).find(tmpRemovedRing);
+                tmpRemovedCycles = aCycleFinderContext.getCycleFinder().find(tmpRemovedRing);
                 tmpCycleIterable = tmpRemovedCycles.toRingSet().atomContainers();
             } catch (Exception e) {
-                /*Save as a property of the atoms that from now on the CYCLE_FINDER_BACKUP is to be used*/
-                for(IAtomContainer tmpOriginalRing : aRings) {
-                    for(IAtom tmpAtom : tmpOriginalRing.atoms()) {
-                        tmpAtom.setProperty(ScaffoldGenerator.CYCLE_FINDER_BACKUP_PROPERTY, true);
-                    }
-                }
-                for(IAtom tmpAtom : aMolecule.atoms()) {
-                    tmpAtom.setProperty(ScaffoldGenerator.CYCLE_FINDER_BACKUP_PROPERTY, true);
+                /*From now on, the CYCLE_FINDER_BACKUP is used for the rest of the run*/
+                if(aCycleFinderContext.switchToBackupCycleFinder()) {
+                    this.reactiveCycleFinderFallbackCounter.incrementAndGet();
                 }
-                for(IAtom tmpAtom : tmpRemovedRing.atoms()) {
-                    tmpAtom.setProperty(ScaffoldGenerator.CYCLE_FINDER_BACKUP_PROPERTY, true);
-                }
-                tmpRemovedCycles = this.getCycleFinder(tmpRemovedRing).find(tmpRemovedRing);
+                tmpIsBackupFinderSwitched = true;
+                tmpRemovedCycles = aCycleFinderContext.getCycleFinder().find(tmpRemovedRing);
                 tmpCycleIterable = tmpRemovedCycles.toRingSet().atomContainers();
             }
             /*Check the aromaticity of each Cycle*/
@@ -2005,12 +4629,23 @@ public class ScaffoldGenerator {
      * @throws CDKException problem with CDKHydrogenAdder: Throws if insufficient information is present
      */
     protected List<IAtomContainer> applySchuffenhauerRuleEight(List<IAtomContainer> aRings) throws CDKException {
+        return this.applySchuffenhauerRuleEight(aRings, this.createCycleFinderContext(aRings));
+    }
+
+    /**
+     * Sort out the rings according to the eighth Schuffenhauer rule.
+     * @param aRings Removable rings of the molecule to which the rule is applied
+     * @param aCycleFinderContext per-run context that provides the cycle finder
+     * @return List of rings to be removed first according to the rule. Returns the unchanged list if all rings have the same size of heteroatoms.
+     * @throws CDKException problem with CDKHydrogenAdder: Throws if insufficient information is present
+     */
+    protected List<IAtomContainer> applySchuffenhauerRuleEight(List<IAtomContainer> aRings, CycleFinderContext aCycleFinderContext) throws CDKException {
         List<IAtomContainer> tmpReturnRingList = new ArrayList<>(aRings.size());
         Integer tmpMinNumberOfHeteroAtoms = null;
         /*Store the rings with the lowest number of cyclic heteroatoms*/
         for(IAtomContainer tmpRing : aRings) {
             //get the cyclic atoms
-            Cycles tmpRemovedExocyclic = this.getCycleFinder(tmpRing).find(tmpRing);
+            Cycles tmpRemovedExocyclic = aCycleFinderContext.getCycleFinder().find(tmpRing);
             //Number of heteroatoms in the ring
             int tmpNumberOfHeteroAtoms = 0;
             /*Count the heteroatoms*/
@@ -2053,6 +4688,18 @@ public class ScaffoldGenerator {
      * @throws CDKException problem with CDKHydrogenAdder: Throws if insufficient information is present
      */
     protected List<IAtomContainer> applySchuffenhauerRuleNine(List<IAtomContainer> aRings) throws CDKException {
+        return this.applySchuffenhauerRuleNine(aRings, this.createCycleFinderContext(aRings));
+    }
+
+    /**
+     * Sort out the rings according to the ninth Schuffenhauer rule.
+     * @param aRings Removable rings of the molecule to which the rule is applied
+     * @param aCycleFinderContext per-run context that provides the cycle finder
+     * @return List of rings to be removed first according to the rule.
+     * Returns the unchanged list if all rings have the same size of heteroatoms.
+     * @throws CDKException problem with CDKHydrogenAdder: Throws if insufficient information is present
+     */
+    protected List<IAtomContainer> applySchuffenhauerRuleNine(List<IAtomContainer> aRings, CycleFinderContext aCycleFinderContext) throws CDKException {
         List<IAtomContainer> tmpReturnRingList = new ArrayList<>(aRings.size());
         /*Calculate the maximum number of heteroatoms that can occur*/
         Integer tmpMinNCount = null;
@@ -2061,7 +4708,7 @@ public class ScaffoldGenerator {
         /*Get the rings with the smallest value of heteroatoms*/
         for(IAtomContainer tmpRing : aRings) {
             //Only cyclic heteroatoms count
-            Cycles tmpRemovedExocyclic = this.getCycleFinder(tmpRing).find(tmpRing);
+            Cycles tmpRemovedExocyclic = aCycleFinderContext.getCycleFinder().find(tmpRing);
             int tmpNCounter = 0;
             int tmpOCounter = 0;
             int tmpSCounter = 0;
@@ -2144,12 +4791,23 @@ public class ScaffoldGenerator {
      * @throws CDKException problem with CDKHydrogenAdder: Throws if insufficient information is present
      */
     protected List<IAtomContainer> applySchuffenhauerRuleTen(List<IAtomContainer> aRings) throws CDKException {
+        return this.applySchuffenhauerRuleTen(aRings, this.createCycleFinderContext(aRings));
+    }
+
+    /**
+     * Sort out the rings according to the tenth Schuffenhauer rule.
+     * @param aRings Removable rings of the molecule to which the rule is applied
+     * @param aCycleFinderContext per-run context that provides the cycle finder
+     * @return List of rings to be removed first according to the rule. Returns the unchanged list if all rings have the same size of heteroatoms.
+     * @throws CDKException problem with CDKHydrogenAdder: Throws if insufficient information is present
+     */
+    protected List<IAtomContainer> applySchuffenhauerRuleTen(List<IAtomContainer> aRings, CycleFinderContext aCycleFinderContext) throws CDKException {
         List<IAtomContainer> tmpReturnRingList = new ArrayList<>(aRings.size());
         Integer tmpMinimumAtomNumber = null;
         /*Store the rings with the lowest number of atoms*/
         for(IAtomContainer tmpRing : aRings) {
             //Remove the exocyclic atoms
-            Cycles tmpRemovedExocyclic = this.getCycleFinder(tmpRing).find(tmpRing);
+            Cycles tmpRemovedExocyclic = aCycleFinderContext.getCycleFinder().find(tmpRing);
             IAtomContainer tmpCycle = tmpRemovedExocyclic.toRingSet().getAtomContainer(0);
             int tmpAtomNumber = tmpCycle.getAtomCount();
             /*Set the values of the first ring as starting values*/
@@ -2185,11 +4843,24 @@ public class ScaffoldGenerator {
      * @throws CloneNotSupportedException if cloning is not possible.
      */
     protected List<IAtomContainer> applySchuffenhauerRuleEleven(List<IAtomContainer> aRings) throws CDKException, CloneNotSupportedException {
+        return this.applySchuffenhauerRuleEleven(aRings, this.createCycleFinderContext(aRings));
+    }
+
+    /**
+     * Sort out the rings according to the eleventh Schuffenhauer rule.
+     * @param aRings Removable rings of the molecule to which the rule is applied
+     * @param aCycleFinderContext per-run context that provides the cycle finder
+     * @return List of rings to be removed first according to the rule. Returns the unchanged list,
+     * if the molecule is not a mixed ring system.
+     * @throws CDKException problem with CDKHydrogenAdder: Throws if insufficient information is present
+     * @throws CloneNotSupportedException if cloning is not possible.
+     */
+    protected List<IAtomContainer> applySchuffenhauerRuleEleven(List<IAtomContainer> aRings, CycleFinderContext aCycleFinderContext) throws CDKException, CloneNotSupportedException {
         List<IAtomContainer> tmpReturnRingList = new ArrayList<>(aRings.size());
         /*Add all fully aromatic rings to the list*/
         for(IAtomContainer tmpRing  : aRings) {
             //Remove the exocyclic atoms
-            Cycles tmpRemovedExocyclic = this.getCycleFinder(tmpRing).find(tmpRing);
+            Cycles tmpRemovedExocyclic = aCycleFinderContext.getCycleFinder().find(tmpRing);
             IAtomContainer tmpCycle = tmpRemovedExocyclic.toRingSet().getAtomContainer(0);
             /*The ring is only fully aromatic, if all cyclic atoms are aromatic*/
             /*Add aromatic rings to the list*/
@@ -2229,13 +4900,27 @@ public class ScaffoldGenerator {
      * @throws CloneNotSupportedException if cloning is not possible.
      */
     protected List<IAtomContainer> applySchuffenhauerRuleTwelve(IAtomContainer aMolecule, List<IAtomContainer> aRings) throws CDKException, CloneNotSupportedException {
+        return this.applySchuffenhauerRuleTwelve(aMolecule, aRings, this.createCycleFinderContext(aMolecule));
+    }
+
+    /**
+     * Sort out the rings according to the twelfth Schuffenhauer rule.
+     * @param aRings Removable rings of the molecule to which the rule is applied
+     * @param aMolecule Molecule from which a ring is to be removed
+     * @param aCycleFinderContext per-run context that provides the cycle finder
+     * @return List of rings to be removed first according to the rule. Returns the unchanged list if the rule cannot be applied to the rings.
+     * @throws CDKException problem with CDKHydrogenAdder: Throws if insufficient information is present
+     * @throws CloneNotSupportedException if cloning is not possible.
+     */
+    protected List<IAtomContainer> applySchuffenhauerRuleTwelve(IAtomContainer aMolecule, List<IAtomContainer> aRings, CycleFinderContext aCycleFinderContext) throws CDKException, CloneNotSupportedException {
         IAtomContainer tmpClonedMolecule = aMolecule.clone();
         List<IAtomContainer> tmpRemoveRings = new ArrayList<>(aRings.size()); //Rings with the longest linker
         /*Check for each ring whether it is attached to a linker with a heteroatom at the end*/
-        for(IAtomContainer tmpRing : aRings) {
-            if(this.isRingAttachedToHeteroatomLinker(tmpClonedMolecule, tmpRing)) {
+        List<Boolean> tmpIsAttachedList = this.evaluateCandidates(aRings, tmpRing -> this.isRingAttachedToHeteroatomLinker(tmpClonedMolecule, tmpRing, aCycleFinderContext));
+        for(int tmpRingCounter = 0; tmpRingCounter < aRings.size(); tmpRingCounter++) {
+            if(tmpIsAttachedList.get(tmpRingCounter)) {
                 //If the ring is bound to such a linker add it to the list
-                tmpRemoveRings.add(tmpRing);
+                tmpRemoveRings.add(aRings.get(tmpRingCounter));
             }
         }
         /*Return the rings attached to a linker with a heteroatom at the end if available*/
@@ -2267,6 +4952,19 @@ public class ScaffoldGenerator {
      * @throws CloneNotSupportedException if cloning is not possible.
      */
     protected boolean isRingAttachedToHeteroatomLinker(IAtomContainer aMolecule, IAtomContainer aRing) throws CDKException, CloneNotSupportedException {
+        return this.isRingAttachedToHeteroatomLinker(aMolecule, aRing, this.createCycleFinderContext(aMolecule));
+    }
+
+    /**
+     * The ring to be examined is checked to determine whether it is attached to a linker that has a heteroatom at least one end.
+     * @param aMolecule Molecule from which a ring is to be removed
+     * @param aRing rings of the molecule to which the rule is applied
+     * @param aCycleFinderContext per-run context that provides the cycle finder
+     * @return Whether it is one of the rings sought for
+     * @throws CDKException problem with CDKHydrogenAdder: Throws if insufficient information is present
+     * @throws CloneNotSupportedException if cloning is not possible.
+     */
+    protected boolean isRingAttachedToHeteroatomLinker(IAtomContainer aMolecule, IAtomContainer aRing, CycleFinderContext aCycleFinderContext) throws CDKException, CloneNotSupportedException {
         HashSet<Integer> tmpRingPropertyNumbers = new HashSet<>((int)(aRing.getAtomCount() * 1.5), 0.75f);
         HashSet<Integer> tmpRemovedMurckoAtomNumbers = new HashSet<>((int)(aMolecule.getAtomCount() * 1.5), 0.75f);
         /*Save all numbers of the ring atoms*/
@@ -2274,7 +4972,7 @@ public class ScaffoldGenerator {
             tmpRingPropertyNumbers.add(tmpAtom.getProperty(ScaffoldGenerator.SCAFFOLD_ATOM_COUNTER_PROPERTY));
         }
         //Remove the examined ring
-        IAtomContainer tmpRemovedRing = this.removeRing(aMolecule, true, aRing);
+        IAtomContainer tmpRemovedRing = this.removeRing(aMolecule, true, aRing, aCycleFinderContext);
         //Generate the murcko fragment, as this removes the multiple bonded atoms at the linkers and exocyclic bonds
         IAtomContainer tmpRemovedRingMurckoFragment = this.getMurckoFragment(tmpRemovedRing);
         /*Save all numbers of the murcko fragment atoms*/
@@ -2365,13 +5063,28 @@ public class ScaffoldGenerator {
      * @throws CloneNotSupportedException if cloning is not possible.
      */
     protected IAtomContainer applySchuffenhauerRuleThirteen(IAtomContainer aMolecule, List<IAtomContainer> aRings) throws CDKException, CloneNotSupportedException {
+        return this.applySchuffenhauerRuleThirteen(aMolecule, aRings, this.createCycleFinderContext(aMolecule));
+    }
+
+    /**
+     * Remove a ring according to the thirteenth Schuffenhauer rule.
+     * @param aRings Removable rings of the molecule to which the rule is applied
+     * @param aMolecule Molecule from which a ring is to be removed
+     * @param aCycleFinderContext per-run context that provides the cycle finder
+     * @return Molecule from which the ring selected by the rule has been removed
+     * @throws CDKException problem with CDKHydrogenAdder: Throws if insufficient information is present
+     * @throws CloneNotSupportedException if cloning is not possible.
+     */
+    protected IAtomContainer applySchuffenhauerRuleThirteen(IAtomContainer aMolecule, List<IAtomContainer> aRings, CycleFinderContext aCycleFinderContext) throws CDKException, CloneNotSupportedException {
         IAtomContainer tmpClonedMolecule = aMolecule.clone();
         //Strings are stored in a sorted map. The natural order is alphabetical.
         TreeMap<String, IAtomContainer> tmpRingRemovedMap = new TreeMap<>();//Sorted map
-        for (IAtomContainer tmpRing : aRings) {
-            IAtomContainer tmpRingRemoved = this.removeRing(tmpClonedMolecule, true, tmpRing);
+        List<IAtomContainer> tmpScaffoldList = this.evaluateCandidates(aRings, tmpRing -> {
+            IAtomContainer tmpRingRemoved = this.removeRing(tmpClonedMolecule, true, tmpRing, aCycleFinderContext);
             //Remove linker
-            IAtomContainer tmpScaffold = this.getScaffoldInternal(tmpRingRemoved, true, false, null, this.scaffoldModeSetting);
+            return this.getScaffoldInternal(tmpRingRemoved, true, false, null, this.scaffoldModeSetting);
+        });
+        for (IAtomContainer tmpScaffold : tmpScaffoldList) {
             //A few structures do not produce a truly unique SMILES. These are overwritten and are therefore not considered for further selection.
             tmpRingRemovedMap.put(ScaffoldGenerator.SMILES_GENERATOR_SETTING_DEFAULT.create(tmpScaffold), tmpScaffold);
         }
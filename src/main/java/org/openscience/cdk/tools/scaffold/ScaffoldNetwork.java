@@ -25,14 +25,21 @@ package org.openscience.cdk.tools.scaffold;
 
 import org.openscience.cdk.exception.CDKException;
 import org.openscience.cdk.interfaces.IAtomContainer;
+import org.openscience.cdk.interfaces.IChemObjectBuilder;
 import org.openscience.cdk.smiles.SmilesGenerator;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
+import java.util.function.Supplier;
 
 /**
  * Top-level class to organise the NetworkNodes
@@ -96,6 +103,28 @@ public class ScaffoldNetwork extends ScaffoldNodeCollectionBase {
         this.levelMap = tmpLevelMap;
     }
 
+    /**
+     * Expands all nodes of a lazy network, i.e. determines the parents of all nodes that are not expanded yet
+     * and of the nodes that are added in the process. Does nothing for a network that is not lazy.
+     * The level map is updated by each expansion.
+     * @throws CDKException In case of a problem with the decomposition of a molecule
+     * @throws CloneNotSupportedException if cloning is not possible.
+     */
+    public void expandAllNodes() throws CDKException, CloneNotSupportedException {
+        boolean tmpIsNodeExpanded = true;
+        /*Each expansion can add new nodes that are not expanded yet*/
+        while(tmpIsNodeExpanded) {
+            tmpIsNodeExpanded = false;
+            for(ScaffoldNodeBase tmpNodeBase : this.getAllNodes()) {
+                NetworkNode tmpNetworkNode = (NetworkNode) tmpNodeBase;
+                if(!tmpNetworkNode.isExpanded()) {
+                    tmpNetworkNode.getExpandedParents();
+                    tmpIsNodeExpanded = true;
+                }
+            }
+        }
+    }
+
     /**
      * Removes a node. This does not change the order. The numbering does not change.
      * Description copied from {@link ScaffoldNodeCollectionBase}.
@@ -118,6 +147,9 @@ public class ScaffoldNetwork extends ScaffoldNodeCollectionBase {
         int tmpNumberInNodeMap = this.reverseNodeMap.get(aNode); //get number in nodeMap
         this.nodeMap.remove(tmpNumberInNodeMap);
         this.reverseNodeMap.remove(aNode);
+        if(this.originIndex != null) {
+            this.originIndex.removeNode(tmpNumberInNodeMap);
+        }
         /*Remove from smilesMap*/
         String tmpSmiles = this.smilesGenerator.create((IAtomContainer) aNode.getMolecule()); //Convert molecule to SMILES
         this.smilesMap.remove(tmpSmiles, aNode);
@@ -137,24 +169,42 @@ public class ScaffoldNetwork extends ScaffoldNodeCollectionBase {
      * If a molecule generates an empty scaffold, it is stored as a node with empty SMILES and is treated normally.
      * All other empty nodes are then added to this network accordingly.
      * By querying the origins of this node, all molecules that do not produce a scaffold can be returned.
+     * The molecules whose decomposition was stopped early are also taken over. <p>
+     *
+     * Only the nodes of the new network are visited, so the cost depends on the size of the new network
+     * and not on the size of the existing one.
+     * A lazy network is expanded completely by {@link ScaffoldNetwork#expandAllNodes()} first,
+     * because the parents of its nodes can only be added to the lazy network itself.
      * @param aScaffoldNetwork network to be inserted into the existing ScaffoldNetwork.
-     * @throws CDKException In case of a problem with the SmilesGenerator
+     * @throws CDKException In case of a problem with the SmilesGenerator or with the expansion of a lazy network
      */
     public void mergeNetwork(ScaffoldNetwork aScaffoldNetwork) throws CDKException {
+        try {
+            aScaffoldNetwork.expandAllNodes();
+        } catch (CloneNotSupportedException anException) {
+            throw new CDKException("The lazy network cannot be expanded before the merge", anException);
+        }
         /*If the old ScaffoldNetwork is empty, transfer the new ScaffoldNetwork to be added.*/
         if(this.getAllNodes().isEmpty()) {
             for(ScaffoldNodeBase tmpNode : aScaffoldNetwork.getAllNodes()) {
-                this.addNode(tmpNode);
+                this.addNodeToCollections(tmpNode);
+                this.nodeCounter++;
             }
+            this.updateLevelMap();
         }
-        /*If the old Scaffold network is not empty*/
+        /*If the old Scaffold network is not empty, only the nodes of the new network are visited*/
         else {
-            ArrayList<IAtomContainer> tmpMoleculeList = new ArrayList<>(aScaffoldNetwork.getAllNodes().size());
+            /*The SMILES of each node of the new network is only created once*/
+            IdentityHashMap<ScaffoldNodeBase, String> tmpSmilesMap = new IdentityHashMap<>(aScaffoldNetwork.getAllNodes().size());
+            ArrayList<NetworkNode> tmpAddedNodeList = new ArrayList<>(aScaffoldNetwork.getAllNodes().size());
+            ArrayList<NetworkNode> tmpNewChildList = new ArrayList<>(aScaffoldNetwork.getAllNodes().size());
             for(ScaffoldNodeBase tmpNewNetworkObject : aScaffoldNetwork.getAllNodes()) {
                 NetworkNode tmpNewNetworkNode = (NetworkNode) tmpNewNetworkObject;
+                String tmpSmiles = this.getMergeSmiles(tmpNewNetworkNode, tmpSmilesMap);
+                NetworkNode tmpOldNetworkNode = (NetworkNode) this.smilesMap.get(tmpSmiles);
                 /*Node is not in network*/
-                if(!this.containsMolecule((IAtomContainer) tmpNewNetworkNode.getMolecule())) {
-                    /*Add node to lists so that it is added to the network later*/
+                if(tmpOldNetworkNode == null) {
+                    /*Add node to lists so that its parents are added later*/
                     NetworkNode tmpNewNode = new NetworkNode<>((IAtomContainer) tmpNewNetworkNode.getMolecule());
                     /*Add the nonVirtual SMILES to the OldSmilesNetwork fragment*/
                     for(Object tmpNonVirtualOriginSmiles : tmpNewNetworkNode.getNonVirtualOriginSmilesList()) {
@@ -164,13 +214,15 @@ public class ScaffoldNetwork extends ScaffoldNodeCollectionBase {
                     for(Object tmpOriginSmiles : tmpNewNetworkNode.getOriginSmilesList()) {
                         tmpNewNode.addOriginSmiles((String) tmpOriginSmiles);
                     }
-                    this.addNode(tmpNewNode);
-                    tmpMoleculeList.add((IAtomContainer) tmpNewNetworkNode.getMolecule());
+                    this.spillOriginsIfNeeded(tmpNewNode);
+                    this.addNodeToCollections(tmpNewNode, tmpSmiles);
+                    this.nodeCounter++;
+                    tmpAddedNodeList.add(tmpNewNode);
+                    tmpNewChildList.add(tmpNewNetworkNode);
                 } else { /*Node is already in the network*/
-                    NetworkNode tmpOldNetworkNode = (NetworkNode) this.getNode((IAtomContainer) tmpNewNetworkNode.getMolecule());
                     /*Add the origin smiles to the OldSmilesNetwork fragment*/
                     for(Object tmpOriginSmiles : tmpNewNetworkNode.getOriginSmilesList()) {
-                        tmpOldNetworkNode.addOriginSmiles((String) tmpOriginSmiles);
+                        this.addOriginSmilesToNode(tmpOldNetworkNode, (String) tmpOriginSmiles);
                     }
                     /*Add the nonVirtual SMILES to the OldSmilesNetwork fragment*/
                     if(tmpNewNetworkNode.hasNonVirtualOriginSmiles()) {
@@ -178,24 +230,53 @@ public class ScaffoldNetwork extends ScaffoldNodeCollectionBase {
                             tmpOldNetworkNode.addNonVirtualOriginSmiles((String) tmpNonVirtualOriginSmiles);
                         }
                     }
+                    this.spillOriginsIfNeeded(tmpOldNetworkNode);
                 }
             }
-            /*Add the matching parents to the newly added nodes. Children are automatically set when the parents are set.*/
-            for(IAtomContainer tmpMolecule : tmpMoleculeList) {
-                ScaffoldNodeBase tmpChildBase = aScaffoldNetwork.getNode(tmpMolecule);
-                NetworkNode tmpChild = (NetworkNode) tmpChildBase;
-                ArrayList<NetworkNode> tmpParentList = (ArrayList<NetworkNode>) tmpChild.getParents();
+            /*Link the newly added nodes with their parents in the network. The nodes are linked by identity like loaded nodes,
+            so the existing children of the parents are neither compared nor parsed.
+            The parents of a node in the new network have different SMILES, so no link is added twice.*/
+            for(int tmpIndex = 0; tmpIndex < tmpAddedNodeList.size(); tmpIndex++) {
+                NetworkNode tmpOldChild = tmpAddedNodeList.get(tmpIndex);
+                List<NetworkNode> tmpParentList = tmpNewChildList.get(tmpIndex).getParents();
                 for(NetworkNode tmpParentNode : tmpParentList) {
                     /*Only molecules that are in the network*/
-                    if(this.containsMolecule((IAtomContainer) tmpParentNode.getMolecule())) {
-                        NetworkNode tmpOldParentNode = (NetworkNode) this.getNode((IAtomContainer) tmpParentNode.getMolecule());
-                        NetworkNode tmpOldChild = (NetworkNode) this.getNode(tmpMolecule);
-                        tmpOldChild.addParent(tmpOldParentNode);
+                    NetworkNode tmpOldParentNode = (NetworkNode) this.smilesMap.get(this.getMergeSmiles(tmpParentNode, tmpSmilesMap));
+                    if(tmpOldParentNode != null) {
+                        this.linkLoadedNodes(tmpOldParentNode, tmpOldChild);
                     }
                 }
             }
+            /*Only the levels of the added nodes change, they were added on level 0 before their parents were set*/
+            for(NetworkNode tmpAddedNode : tmpAddedNodeList) {
+                int tmpLevel = tmpAddedNode.getLevel();
+                if(tmpLevel != 0) {
+                    this.levelMap.get(0).remove(tmpAddedNode);
+                    this.levelMap.computeIfAbsent(tmpLevel, k -> new HashSet<>(50, 0.75f));
+                    this.levelMap.get(tmpLevel).add(tmpAddedNode);
+                }
+            }
+        }
+        /*Take over the molecules whose decomposition was stopped early*/
+        for(String tmpTruncatedOriginSmiles : aScaffoldNetwork.getTruncatedOriginSmilesList()) {
+            this.addTruncatedOriginSmiles(tmpTruncatedOriginSmiles);
         }
-        this.updateLevelMap();
+    }
+
+    /**
+     * Returns the SMILES of a node of a network that is merged and caches it.
+     * @param aNode Node of the merged network
+     * @param aSmilesMap Cache of the already created SMILES
+     * @return SMILES of the node created by the SMILES generator of this network
+     * @throws CDKException if the SMILES cannot be created
+     */
+    protected String getMergeSmiles(ScaffoldNodeBase aNode, Map<ScaffoldNodeBase, String> aSmilesMap) throws CDKException {
+        String tmpSmiles = aSmilesMap.get(aNode);
+        if(tmpSmiles == null) {
+            tmpSmiles = this.smilesGenerator.create((IAtomContainer) aNode.getMolecule());
+            aSmilesMap.put(aNode, tmpSmiles);
+        }
+        return tmpSmiles;
     }
 
     /**
@@ -234,6 +315,48 @@ public class ScaffoldNetwork extends ScaffoldNodeCollectionBase {
         return tmpMatrix;
     }
 
+    /**
+     * Loads a network written by {@link ScaffoldNodeCollectionBase#writeBinary(OutputStream)}.
+     * The molecules of the nodes are only parsed from their SMILES when they are first requested.
+     * The SMILES generator must be the same as the one of the written network.
+     * @param anInputStream Stream the network is read from. It is not closed.
+     * @param aSmilesGenerator Used SMILES Generator
+     * @param aBuilder Builder used to parse the molecules of the nodes
+     * @return loaded network
+     * @throws IOException if the stream fails or does not contain a network in a supported version
+     * @throws NullPointerException if a parameter is null
+     */
+    public static ScaffoldNetwork readBinary(InputStream anInputStream, SmilesGenerator aSmilesGenerator, IChemObjectBuilder aBuilder)
+            throws IOException, NullPointerException {
+        Objects.requireNonNull(anInputStream, "Given input stream is 'null'");
+        Objects.requireNonNull(aSmilesGenerator, "Given SMILES generator is 'null'");
+        Objects.requireNonNull(aBuilder, "Given builder is 'null'");
+        ScaffoldNetwork tmpScaffoldNetwork = new ScaffoldNetwork(aSmilesGenerator);
+        tmpScaffoldNetwork.readBinaryInto(anInputStream, aBuilder);
+        return tmpScaffoldNetwork;
+    }
+
+    /**
+     * Returns the type of the network in the binary format.
+     * Description copied from {@link ScaffoldNodeCollectionBase}.
+     * @return type of the collection
+     */
+    @Override
+    protected byte getBinaryCollectionType() {
+        return 1;
+    }
+
+    /**
+     * Creates a lazily loaded NetworkNode.
+     * Description copied from {@link ScaffoldNodeCollectionBase}.
+     * @param aMoleculeSupplier creates the molecule of the node
+     * @return lazily loaded node
+     */
+    @Override
+    protected ScaffoldNodeBase createLazyNode(Supplier<IAtomContainer> aMoleculeSupplier) {
+        return new NetworkNode<>(aMoleculeSupplier);
+    }
+
     /**
      * Outputs root nodes of the network.
      * @return root nodes of the network
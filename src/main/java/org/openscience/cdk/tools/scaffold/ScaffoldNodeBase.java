@@ -23,10 +23,9 @@
 
 package org.openscience.cdk.tools.scaffold;
 
-import java.util.ArrayList;
-import java.util.LinkedList;
 import java.util.List;
 import java.util.Objects;
+import java.util.function.Supplier;
 
 /**
  * Inspired by: <a href="https://github.com/gt4dev/yet-another-tree-structure">Another Tree Structure</a>
@@ -43,9 +42,10 @@ import java.util.Objects;
  */
 public abstract class ScaffoldNodeBase<MoleculeType> {
     /**
-     * Molecule that can be stored in each node
+     * Molecule that can be stored in each node.
+     * Volatile, so that a molecule created lazily by one thread is seen completely by all other threads.
      */
-    protected MoleculeType molecule;
+    protected volatile MoleculeType molecule;
 
     /**
      * List of SMILES of the molecules from which this fragment originates.
@@ -65,10 +65,15 @@ public abstract class ScaffoldNodeBase<MoleculeType> {
     protected List<String> nonVirtualOriginSmilesList;
 
     /**
-     * Children of the Node
+     * Children of the Node. An {@link IndexedSetList} by default, so that a child is found and removed by identity in constant time.
      */
     protected List<ScaffoldNodeBase<MoleculeType>> children;
 
+    /**
+     * Creates the molecule of a lazily loaded node when it is first requested. Null once the molecule exists.
+     */
+    protected Supplier<MoleculeType> moleculeSupplier;
+
     /**
      * Constructor
      * @param aMolecule molecule of the ScaffoldNodeBase
@@ -77,9 +82,23 @@ public abstract class ScaffoldNodeBase<MoleculeType> {
     protected ScaffoldNodeBase(MoleculeType aMolecule) throws NullPointerException {
         Objects.requireNonNull(aMolecule, "Given molecule is 'null'");
         this.molecule = aMolecule;
-        this.children = new LinkedList<>();
-        this.originSmilesList = new ArrayList<>();
-        this.nonVirtualOriginSmilesList = new ArrayList<>();
+        this.children = new IndexedSetList<>();
+        this.originSmilesList = new IndexedSetList<>();
+        this.nonVirtualOriginSmilesList = new IndexedSetList<>();
+    }
+
+    /**
+     * Constructor for lazily loaded nodes. The molecule is only created by the supplier when it is first requested by getMolecule().
+     * @param aMoleculeSupplier creates the molecule of the ScaffoldNodeBase
+     * @throws NullPointerException if parameter is null
+     */
+    protected ScaffoldNodeBase(Supplier<MoleculeType> aMoleculeSupplier) throws NullPointerException {
+        Objects.requireNonNull(aMoleculeSupplier, "Given molecule supplier is 'null'");
+        this.molecule = null;
+        this.moleculeSupplier = aMoleculeSupplier;
+        this.children = new IndexedSetList<>();
+        this.originSmilesList = new IndexedSetList<>();
+        this.nonVirtualOriginSmilesList = new IndexedSetList<>();
     }
 
     /**
@@ -111,7 +130,8 @@ public abstract class ScaffoldNodeBase<MoleculeType> {
      */
     public void addOriginSmiles(String aString) throws NullPointerException {
         Objects.requireNonNull(aString, "Given SMILES of the molecule is 'null'");
-        if(!this.originSmilesList.contains(aString)) {
+        /*A spilled list drops duplicates itself and checks the spilled origins by their filters*/
+        if(this.originSmilesList instanceof OriginSpillStore.SpillingOriginList || !this.originSmilesList.contains(aString)) {
             this.originSmilesList.add(aString);
         }
     }
@@ -124,11 +144,33 @@ public abstract class ScaffoldNodeBase<MoleculeType> {
      */
     public void addNonVirtualOriginSmiles(String aString) throws NullPointerException {
         Objects.requireNonNull(aString, "Given SMILES of the molecule is 'null'");
-        if(!this.nonVirtualOriginSmilesList.contains(aString)) {
+        if(this.nonVirtualOriginSmilesList instanceof OriginSpillStore.SpillingOriginList || !this.nonVirtualOriginSmilesList.contains(aString)) {
             this.nonVirtualOriginSmilesList.add(aString);
         }
     }
 
+    /**
+     * Removes a string from the OriginSmilesList.
+     * @param aString String to be removed
+     * @return true if the string was present
+     * @throws NullPointerException if parameter is null
+     */
+    public boolean removeOriginSmiles(String aString) throws NullPointerException {
+        Objects.requireNonNull(aString, "Given SMILES of the molecule is 'null'");
+        return this.originSmilesList.remove(aString);
+    }
+
+    /**
+     * Removes a string from the NonVirtualOriginSmilesList.
+     * @param aString String to be removed
+     * @return true if the string was present
+     * @throws NullPointerException if parameter is null
+     */
+    public boolean removeNonVirtualOriginSmiles(String aString) throws NullPointerException {
+        Objects.requireNonNull(aString, "Given SMILES of the molecule is 'null'");
+        return this.nonVirtualOriginSmilesList.remove(aString);
+    }
+
     /**
      * Indicates whether the molecule has at least one nonVirtualOrigin.
      * NonVirtualOrigin: This node is the direct(without further fragmentation) scaffold of this origin molecule.
@@ -148,11 +190,24 @@ public abstract class ScaffoldNodeBase<MoleculeType> {
     public abstract int getLevel();
 
     /**
-     * Get the node molecule.
+     * Get the node molecule. The molecule of a lazily loaded node is created on the first call.
+     * Concurrent first calls are safe: the molecule is created only once by double-checked locking on the node
+     * and all threads get the same molecule.
      * @return node molecule
      */
     public MoleculeType getMolecule() {
-        return this.molecule;
+        MoleculeType tmpMolecule = this.molecule;
+        if(tmpMolecule == null) {
+            synchronized(this) {
+                tmpMolecule = this.molecule;
+                if(tmpMolecule == null && this.moleculeSupplier != null) {
+                    tmpMolecule = this.moleculeSupplier.get();
+                    this.molecule = tmpMolecule;
+                    this.moleculeSupplier = null;
+                }
+            }
+        }
+        return tmpMolecule;
     }
 
     /**
@@ -160,9 +215,10 @@ public abstract class ScaffoldNodeBase<MoleculeType> {
      * @param aMolecule molecule that are set
      * @throws NullPointerException if parameter is null
      */
-    public void setMolecule(MoleculeType aMolecule) throws  NullPointerException {
+    public synchronized void setMolecule(MoleculeType aMolecule) throws  NullPointerException {
         Objects.requireNonNull(aMolecule, "Given molecule is 'null'");
         this.molecule = aMolecule;
+        this.moleculeSupplier = null;
     }
 
     /**
@@ -24,16 +24,35 @@
 package org.openscience.cdk.tools.scaffold;
 
 import org.openscience.cdk.exception.CDKException;
+import org.openscience.cdk.exception.InvalidSmilesException;
 import org.openscience.cdk.interfaces.IAtomContainer;
+import org.openscience.cdk.interfaces.IChemObjectBuilder;
 import org.openscience.cdk.smiles.SmilesGenerator;
+import org.openscience.cdk.smiles.SmilesParser;
 
+import java.io.BufferedOutputStream;
+import java.io.DataInput;
+import java.io.DataInputStream;
+import java.io.DataOutput;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
+import java.util.Set;
+import java.util.function.Supplier;
 
 /**
  * Base class of node collection objects.
@@ -54,6 +73,16 @@ public abstract class ScaffoldNodeCollectionBase {
      */
     protected static final float NODE_MAPS_LOAD_FACTOR = 0.6f;
 
+    /**
+     * First four bytes ("SCAF") of the binary format written by {@link ScaffoldNodeCollectionBase#writeBinary(OutputStream)}.
+     */
+    public static final int BINARY_FORMAT_MAGIC_NUMBER = 0x53434146;
+
+    /**
+     * Version of the binary format written by {@link ScaffoldNodeCollectionBase#writeBinary(OutputStream)}.
+     */
+    public static final int BINARY_FORMAT_VERSION = 1;
+
     /**
      * Saves all ScaffoldNodes and numbers them in ascending order. Starts at 0.
      * reverseNodeMap with key and value swapped. Key:Number, Value:ScaffoldNodeBase
@@ -86,6 +115,23 @@ public abstract class ScaffoldNodeCollectionBase {
      */
     protected int nodeCounter;
 
+    /**
+     * SMILES of the molecules whose decomposition was stopped early because one of the budgets of the
+     * ScaffoldGenerator was exhausted. The fragments of these molecules in the collection are incomplete.
+     * The set keeps the order in which the molecules were added.
+     */
+    protected Set<String> truncatedOriginSmilesSet;
+
+    /**
+     * Store the origins of nodes with many origins are spilled to, null if all origins are kept in the heap.
+     */
+    protected OriginSpillStore originSpillStore;
+
+    /**
+     * Inverted index between the origins and the nodes that is maintained by the collection, null if it was not requested yet.
+     */
+    protected ScaffoldOriginIndex originIndex;
+
     /**
      * Constructor
      * @param aSmilesGenerator Used SMILES Generator
@@ -101,6 +147,7 @@ public abstract class ScaffoldNodeCollectionBase {
                 ScaffoldNodeCollectionBase.NODE_MAPS_LOAD_FACTOR);
         this.smilesGenerator = aSmilesGenerator;
         this.nodeCounter = 0;
+        this.truncatedOriginSmilesSet = new LinkedHashSet<>();
     }
 
     /**
@@ -247,6 +294,663 @@ public abstract class ScaffoldNodeCollectionBase {
         return tmpList;
     }
 
+    /**
+     * Adds the SMILES of a molecule whose decomposition was stopped early. Duplicates are not added.
+     * @param aString SMILES of the truncated molecule
+     * @throws NullPointerException if parameter is null
+     */
+    public void addTruncatedOriginSmiles(String aString) throws NullPointerException {
+        Objects.requireNonNull(aString, "Given SMILES of the truncated molecule is 'null'");
+        this.truncatedOriginSmilesSet.add(aString);
+    }
+
+    /**
+     * Get the SMILES of all molecules whose decomposition was stopped early because one of the budgets
+     * of the ScaffoldGenerator was exhausted.
+     * @return copy of the SMILES of the truncated molecules in the order they were added
+     */
+    public List<String> getTruncatedOriginSmilesList() {
+        return new ArrayList<>(this.truncatedOriginSmilesSet);
+    }
+
+    /**
+     * Indicates whether the decomposition of at least one molecule of the collection was stopped early.
+     * @return true if the collection contains incomplete decompositions
+     */
+    public boolean isTruncated() {
+        return !this.truncatedOriginSmilesSet.isEmpty();
+    }
+
+    /**
+     * Writes the collection in the GraphML format. Each node is written with its matrix number as id
+     * and its SMILES, level, origin count and non-virtual origin count as data. Each edge leads from the parent to the child node. <p>
+     *
+     * The nodes and their parent links are walked once and written directly, so the time is linear in the number of nodes and edges.
+     * The SMILES are taken from the smiles map, so lazily loaded molecules are not parsed and only a map
+     * from the nodes to their SMILES is kept in memory. The writer is neither flushed nor closed.
+     * @param aWriter Writer the GraphML document is written to
+     * @throws IOException if the writer fails
+     * @throws CDKException if SMILES code of a molecule cannot be created
+     * @throws NullPointerException if parameter is null
+     */
+    public void writeGraphML(Writer aWriter) throws IOException, CDKException, NullPointerException {
+        Objects.requireNonNull(aWriter, "Given writer is 'null'");
+        aWriter.write("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n");
+        aWriter.write("<graphml xmlns=\"http://graphml.graphdrawing.org/xmlns\">\n");
+        aWriter.write("  <key id=\"smiles\" for=\"node\" attr.name=\"smiles\" attr.type=\"string\"/>\n");
+        aWriter.write("  <key id=\"level\" for=\"node\" attr.name=\"level\" attr.type=\"int\"/>\n");
+        aWriter.write("  <key id=\"originCount\" for=\"node\" attr.name=\"originCount\" attr.type=\"int\"/>\n");
+        aWriter.write("  <key id=\"nonVirtualOriginCount\" for=\"node\" attr.name=\"nonVirtualOriginCount\" attr.type=\"int\"/>\n");
+        aWriter.write("  <graph id=\"G\" edgedefault=\"directed\">\n");
+        IdentityHashMap<ScaffoldNodeBase, String> tmpNodeSmilesMap = this.getNodeSmilesMap();
+        for(Map.Entry<Integer, ScaffoldNodeBase> tmpEntry : this.nodeMap.entrySet()) {
+            ScaffoldNodeBase tmpNode = tmpEntry.getValue();
+            aWriter.write("    <node id=\"n" + tmpEntry.getKey() + "\">");
+            aWriter.write("<data key=\"smiles\">" + ScaffoldNodeCollectionBase.escapeMarkup(this.getNodeSmiles(tmpNode, tmpNodeSmilesMap)) + "</data>");
+            aWriter.write("<data key=\"level\">" + tmpNode.getLevel() + "</data>");
+            aWriter.write("<data key=\"originCount\">" + tmpNode.getOriginCount() + "</data>");
+            aWriter.write("<data key=\"nonVirtualOriginCount\">" + tmpNode.getNonVirtualOriginCount() + "</data>");
+            aWriter.write("</node>\n");
+        }
+        for(Map.Entry<Integer, ScaffoldNodeBase> tmpEntry : this.nodeMap.entrySet()) {
+            for(ScaffoldNodeBase tmpParent : this.getParentNodes(tmpEntry.getValue())) {
+                Integer tmpParentNumber = this.reverseNodeMap.get(tmpParent);
+                /*Check if a node has been removed*/
+                if(tmpParentNumber != null) {
+                    aWriter.write("    <edge source=\"n" + tmpParentNumber + "\" target=\"n" + tmpEntry.getKey() + "\"/>\n");
+                }
+            }
+        }
+        aWriter.write("  </graph>\n");
+        aWriter.write("</graphml>\n");
+    }
+
+    /**
+     * Writes the collection in the GML format. The nodes and edges are written as described in
+     * {@link ScaffoldNodeCollectionBase#writeGraphML(Writer)}, in linear time and without parsing lazily loaded molecules.
+     * The writer is neither flushed nor closed.
+     * @param aWriter Writer the GML document is written to
+     * @throws IOException if the writer fails
+     * @throws CDKException if SMILES code of a molecule cannot be created
+     * @throws NullPointerException if parameter is null
+     */
+    public void writeGML(Writer aWriter) throws IOException, CDKException, NullPointerException {
+        Objects.requireNonNull(aWriter, "Given writer is 'null'");
+        aWriter.write("graph [\n");
+        aWriter.write("  directed 1\n");
+        IdentityHashMap<ScaffoldNodeBase, String> tmpNodeSmilesMap = this.getNodeSmilesMap();
+        for(Map.Entry<Integer, ScaffoldNodeBase> tmpEntry : this.nodeMap.entrySet()) {
+            ScaffoldNodeBase tmpNode = tmpEntry.getValue();
+            aWriter.write("  node [\n");
+            aWriter.write("    id " + tmpEntry.getKey() + "\n");
+            aWriter.write("    smiles \"" + ScaffoldNodeCollectionBase.escapeMarkup(this.getNodeSmiles(tmpNode, tmpNodeSmilesMap)) + "\"\n");
+            aWriter.write("    level " + tmpNode.getLevel() + "\n");
+            aWriter.write("    originCount " + tmpNode.getOriginCount() + "\n");
+            aWriter.write("    nonVirtualOriginCount " + tmpNode.getNonVirtualOriginCount() + "\n");
+            aWriter.write("  ]\n");
+        }
+        for(Map.Entry<Integer, ScaffoldNodeBase> tmpEntry : this.nodeMap.entrySet()) {
+            for(ScaffoldNodeBase tmpParent : this.getParentNodes(tmpEntry.getValue())) {
+                Integer tmpParentNumber = this.reverseNodeMap.get(tmpParent);
+                /*Check if a node has been removed*/
+                if(tmpParentNumber != null) {
+                    aWriter.write("  edge [\n    source " + tmpParentNumber + "\n    target " + tmpEntry.getKey() + "\n  ]\n");
+                }
+            }
+        }
+        aWriter.write("]\n");
+    }
+
+    /**
+     * Writes the nodes of the collection as tab-separated values with the columns
+     * id (matrix number), SMILES, level, origin count and non-virtual origin count, preceded by a header line.
+     * Written in linear time and without parsing lazily loaded molecules. The writer is neither flushed nor closed.
+     * @param aWriter Writer the node list is written to
+     * @throws IOException if the writer fails
+     * @throws CDKException if SMILES code of a molecule cannot be created
+     * @throws NullPointerException if parameter is null
+     */
+    public void writeNodeListTsv(Writer aWriter) throws IOException, CDKException, NullPointerException {
+        Objects.requireNonNull(aWriter, "Given writer is 'null'");
+        aWriter.write("id\tsmiles\tlevel\toriginCount\tnonVirtualOriginCount\n");
+        IdentityHashMap<ScaffoldNodeBase, String> tmpNodeSmilesMap = this.getNodeSmilesMap();
+        for(Map.Entry<Integer, ScaffoldNodeBase> tmpEntry : this.nodeMap.entrySet()) {
+            ScaffoldNodeBase tmpNode = tmpEntry.getValue();
+            aWriter.write(tmpEntry.getKey() + "\t" + this.getNodeSmiles(tmpNode, tmpNodeSmilesMap) + "\t" + tmpNode.getLevel()
+                    + "\t" + tmpNode.getOriginCount() + "\t" + tmpNode.getNonVirtualOriginCount() + "\n");
+        }
+    }
+
+    /**
+     * Writes the edges of the collection as tab-separated values with the columns parent id and child id (matrix numbers),
+     * preceded by a header line. Written in linear time and without further memory. The writer is neither flushed nor closed.
+     * @param aWriter Writer the edge list is written to
+     * @throws IOException if the writer fails
+     * @throws NullPointerException if parameter is null
+     */
+    public void writeEdgeListTsv(Writer aWriter) throws IOException, NullPointerException {
+        Objects.requireNonNull(aWriter, "Given writer is 'null'");
+        aWriter.write("parent\tchild\n");
+        for(Map.Entry<Integer, ScaffoldNodeBase> tmpEntry : this.nodeMap.entrySet()) {
+            for(ScaffoldNodeBase tmpParent : this.getParentNodes(tmpEntry.getValue())) {
+                Integer tmpParentNumber = this.reverseNodeMap.get(tmpParent);
+                /*Check if a node has been removed*/
+                if(tmpParentNumber != null) {
+                    aWriter.write(tmpParentNumber + "\t" + tmpEntry.getKey() + "\n");
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns the store the origins of nodes with many origins are spilled to.
+     * @return spill store or null if all origins are kept in the heap
+     */
+    public OriginSpillStore getOriginSpillStore() {
+        return this.originSpillStore;
+    }
+
+    /**
+     * Sets the store the origins of nodes with many origins are spilled to while collections are merged into this one.
+     * If a node that is merged into this collection, or added by the merge, has more origins or non-virtual origins than
+     * the heap capacity of the store, its list is replaced by a list of the store. The lists of the store share its heap capacity.
+     * The store is not closed by the collection.
+     * @param anOriginSpillStore spill store or null to keep all origins in the heap
+     */
+    public void setOriginSpillStore(OriginSpillStore anOriginSpillStore) {
+        this.originSpillStore = anOriginSpillStore;
+    }
+
+    /**
+     * Returns the inverted index between the origin molecules and the nodes of the collection.
+     * The index is created on the first call and is updated by the collection afterwards,
+     * see {@link ScaffoldOriginIndex} for the changes that are tracked.
+     * @return origin index of the collection
+     */
+    public ScaffoldOriginIndex getOriginIndex() {
+        if(this.originIndex == null) {
+            this.originIndex = new ScaffoldOriginIndex(this);
+        }
+        return this.originIndex;
+    }
+
+    /**
+     * Adds an origin to a node of the collection and to the origin index.
+     * @param aNode Node of the collection
+     * @param anOriginSmiles SMILES of the origin molecule
+     */
+    protected void addOriginSmilesToNode(ScaffoldNodeBase aNode, String anOriginSmiles) {
+        aNode.addOriginSmiles(anOriginSmiles);
+        if(this.originIndex != null) {
+            Integer tmpNumber = this.reverseNodeMap.get(aNode);
+            if(tmpNumber != null) {
+                this.originIndex.addOrigin(tmpNumber, anOriginSmiles);
+            }
+        }
+    }
+
+    /**
+     * Replaces the origin lists of a node by lists of the spill store if they are longer than its heap capacity.
+     * Called for existing and for new nodes of a merge.
+     * @param aNode Node whose origins have been extended
+     */
+    protected void spillOriginsIfNeeded(ScaffoldNodeBase aNode) {
+        if(this.originSpillStore == null) {
+            return;
+        }
+        List<String> tmpOriginList = aNode.getOriginSmilesList();
+        if(!(tmpOriginList instanceof OriginSpillStore.SpillingOriginList) && tmpOriginList.size() > this.originSpillStore.getHeapCapacity()) {
+            aNode.setOriginSmilesList(this.originSpillStore.createList(tmpOriginList));
+        }
+        List<String> tmpNonVirtualOriginList = aNode.getNonVirtualOriginSmilesList();
+        if(!(tmpNonVirtualOriginList instanceof OriginSpillStore.SpillingOriginList)
+                && tmpNonVirtualOriginList.size() > this.originSpillStore.getHeapCapacity()) {
+            aNode.setNonVirtualOriginSmilesList(this.originSpillStore.createList(tmpNonVirtualOriginList));
+        }
+    }
+
+    /**
+     * Removes the contribution of an origin molecule from the collection.
+     * The origin is removed from the origins and non-virtual origins of all nodes and from the truncated origins.
+     * Nodes that have no origin left are removed and unlinked from their parents and children. <p>
+     *
+     * The nodes with the origin are found by following the parents of the node of the scaffold of the molecule,
+     * so the cost depends on the number of fragments of the molecule. If the scaffold is not in the collection,
+     * e.g. because it was pruned, all nodes are searched. The origins of the nodes and the children are kept in
+     * {@link IndexedSetList}s, so an origin is found and removed and a removed node is unlinked in constant time.
+     * @param anOriginSmiles SMILES of the molecule as stored in the origins
+     * @param aScaffold Scaffold of the molecule, i.e. the node that has the molecule as non-virtual origin
+     * @return number of removed nodes
+     * @throws CDKException if SMILES code of a molecule cannot be created
+     * @throws NullPointerException if a parameter is null
+     */
+    public int removeOrigin(String anOriginSmiles, IAtomContainer aScaffold) throws CDKException, NullPointerException {
+        Objects.requireNonNull(anOriginSmiles, "Given origin SMILES is 'null'");
+        Objects.requireNonNull(aScaffold, "Given scaffold is 'null'");
+        ScaffoldNodeBase tmpScaffoldNode = this.smilesMap.get(this.smilesGenerator.create(aScaffold));
+        if(tmpScaffoldNode == null || !tmpScaffoldNode.getOriginSmilesList().contains(anOriginSmiles)) {
+            return this.removeOrigin(anOriginSmiles);
+        }
+        return this.removeOriginFromNodes(anOriginSmiles, Collections.singletonList(tmpScaffoldNode));
+    }
+
+    /**
+     * Removes the contribution of an origin molecule from the collection like
+     * {@link ScaffoldNodeCollectionBase#removeOrigin(String, IAtomContainer)}, but searches all nodes for the origin.
+     * @param anOriginSmiles SMILES of the molecule as stored in the origins
+     * @return number of removed nodes
+     * @throws CDKException if SMILES code of a molecule cannot be created
+     * @throws NullPointerException if parameter is null
+     */
+    public int removeOrigin(String anOriginSmiles) throws CDKException, NullPointerException {
+        Objects.requireNonNull(anOriginSmiles, "Given origin SMILES is 'null'");
+        List<ScaffoldNodeBase> tmpStartNodeList = new ArrayList<>();
+        for(ScaffoldNodeBase tmpNode : this.nodeMap.values()) {
+            if(tmpNode.getOriginSmilesList().contains(anOriginSmiles)) {
+                tmpStartNodeList.add(tmpNode);
+            }
+        }
+        return this.removeOriginFromNodes(anOriginSmiles, tmpStartNodeList);
+    }
+
+    /**
+     * Removes an origin from the given nodes and all their ancestors that have it, then removes the nodes without origin.
+     * @param anOriginSmiles SMILES of the origin molecule
+     * @param aStartNodeList Nodes with the origin the search starts from
+     * @return number of removed nodes
+     * @throws CDKException if SMILES code of a molecule cannot be created
+     */
+    protected int removeOriginFromNodes(String anOriginSmiles, List<ScaffoldNodeBase> aStartNodeList) throws CDKException {
+        ArrayDeque<ScaffoldNodeBase> tmpQueue = new ArrayDeque<>(aStartNodeList);
+        Set<ScaffoldNodeBase> tmpVisitedSet = Collections.newSetFromMap(new IdentityHashMap<>());
+        tmpVisitedSet.addAll(aStartNodeList);
+        List<ScaffoldNodeBase> tmpEmptyNodeList = new ArrayList<>();
+        while(!tmpQueue.isEmpty()) {
+            ScaffoldNodeBase tmpNode = tmpQueue.poll();
+            tmpNode.removeOriginSmiles(anOriginSmiles);
+            tmpNode.removeNonVirtualOriginSmiles(anOriginSmiles);
+            if(this.originIndex != null) {
+                this.originIndex.removeOrigin(this.reverseNodeMap.get(tmpNode), anOriginSmiles);
+            }
+            if(tmpNode.getOriginSmilesList().isEmpty()) {
+                tmpEmptyNodeList.add(tmpNode);
+            }
+            /*Every fragment of the molecule is an ancestor of its scaffold*/
+            for(ScaffoldNodeBase tmpParent : this.getParentNodes(tmpNode)) {
+                if(this.reverseNodeMap.containsKey(tmpParent) && tmpParent.getOriginSmilesList().contains(anOriginSmiles)
+                        && tmpVisitedSet.add(tmpParent)) {
+                    tmpQueue.add(tmpParent);
+                }
+            }
+        }
+        /*The levels depend on the links, so all nodes are removed from the collections before they are unlinked*/
+        for(ScaffoldNodeBase tmpNode : tmpEmptyNodeList) {
+            this.removeNode(tmpNode);
+        }
+        for(ScaffoldNodeBase tmpNode : tmpEmptyNodeList) {
+            this.unlinkNode(tmpNode);
+        }
+        /*Levels without nodes are dropped, so that the maximum level stays correct*/
+        this.levelMap.values().removeIf(HashSet::isEmpty);
+        this.truncatedOriginSmilesSet.remove(anOriginSmiles);
+        return tmpEmptyNodeList.size();
+    }
+
+    /**
+     * Removes the links between a removed node and its parents and children. The node is removed by identity from the children
+     * of its parents and, for a NetworkNode, from the parents of its children. No molecules are requested.
+     * The children of a removed TreeNode have no origin either and are removed as well, so their parent is not reset.
+     * @param aNode Node that was removed from the collection
+     */
+    protected void unlinkNode(ScaffoldNodeBase aNode) {
+        for(ScaffoldNodeBase tmpParent : this.getParentNodes(aNode)) {
+            tmpParent.getChildren().remove(aNode);
+        }
+        if(aNode instanceof NetworkNode) {
+            for(Object tmpChild : aNode.getChildren()) {
+                ((NetworkNode) tmpChild).getParents().remove(aNode);
+            }
+        }
+    }
+
+    /**
+     * Writes the collection in a compact, versioned binary format that can be loaded again by
+     * {@link ScaffoldNetwork#readBinary(InputStream, SmilesGenerator, IChemObjectBuilder)} or
+     * {@link ScaffoldTree#readBinary(InputStream, SmilesGenerator, IChemObjectBuilder)}. <p>
+     *
+     * The format consists of the magic number, the version and the collection type, followed by
+     * a table of all origin SMILES, the origin numbers of the truncated molecules,
+     * the nodes with matrix number, SMILES, level and the origin numbers of their origins and non-virtual origins,
+     * and the edges as pairs of parent and child matrix numbers. Counts and numbers are stored as variable-length integers,
+     * strings as UTF-8. The molecules themselves are not stored. The stream is flushed but not closed.
+     * @param anOutputStream Stream the collection is written to
+     * @throws IOException if the stream fails
+     * @throws CDKException if SMILES code of a molecule cannot be created
+     * @throws NullPointerException if parameter is null
+     */
+    public void writeBinary(OutputStream anOutputStream) throws IOException, CDKException, NullPointerException {
+        Objects.requireNonNull(anOutputStream, "Given output stream is 'null'");
+        DataOutputStream tmpStream = new DataOutputStream(new BufferedOutputStream(anOutputStream));
+        tmpStream.writeInt(ScaffoldNodeCollectionBase.BINARY_FORMAT_MAGIC_NUMBER);
+        ScaffoldNodeCollectionBase.writeVarInt(tmpStream, ScaffoldNodeCollectionBase.BINARY_FORMAT_VERSION);
+        tmpStream.writeByte(this.getBinaryCollectionType());
+        /*Number the origins*/
+        LinkedHashMap<String, Integer> tmpOriginNumberMap = new LinkedHashMap<>();
+        for(ScaffoldNodeBase tmpNode : this.nodeMap.values()) {
+            for(Object tmpOrigin : tmpNode.getOriginSmilesList()) {
+                tmpOriginNumberMap.putIfAbsent((String) tmpOrigin, tmpOriginNumberMap.size());
+            }
+            for(Object tmpOrigin : tmpNode.getNonVirtualOriginSmilesList()) {
+                tmpOriginNumberMap.putIfAbsent((String) tmpOrigin, tmpOriginNumberMap.size());
+            }
+        }
+        for(String tmpOrigin : this.truncatedOriginSmilesSet) {
+            tmpOriginNumberMap.putIfAbsent(tmpOrigin, tmpOriginNumberMap.size());
+        }
+        ScaffoldNodeCollectionBase.writeVarInt(tmpStream, tmpOriginNumberMap.size());
+        for(String tmpOrigin : tmpOriginNumberMap.keySet()) {
+            ScaffoldNodeCollectionBase.writeString(tmpStream, tmpOrigin);
+        }
+        ScaffoldNodeCollectionBase.writeOriginNumbers(tmpStream, new ArrayList<>(this.truncatedOriginSmilesSet), tmpOriginNumberMap);
+        IdentityHashMap<ScaffoldNodeBase, String> tmpNodeSmilesMap = this.getNodeSmilesMap();
+        ScaffoldNodeCollectionBase.writeVarInt(tmpStream, this.nodeMap.size());
+        int tmpEdgeCount = 0;
+        for(Map.Entry<Integer, ScaffoldNodeBase> tmpEntry : this.nodeMap.entrySet()) {
+            ScaffoldNodeBase tmpNode = tmpEntry.getValue();
+            String tmpSmiles = this.getNodeSmiles(tmpNode, tmpNodeSmilesMap);
+            ScaffoldNodeCollectionBase.writeVarInt(tmpStream, tmpEntry.getKey());
+            ScaffoldNodeCollectionBase.writeString(tmpStream, tmpSmiles);
+            ScaffoldNodeCollectionBase.writeVarInt(tmpStream, tmpNode.getLevel());
+            ScaffoldNodeCollectionBase.writeOriginNumbers(tmpStream, tmpNode.getOriginSmilesList(), tmpOriginNumberMap);
+            ScaffoldNodeCollectionBase.writeOriginNumbers(tmpStream, tmpNode.getNonVirtualOriginSmilesList(), tmpOriginNumberMap);
+            for(ScaffoldNodeBase tmpParent : this.getParentNodes(tmpNode)) {
+                if(this.reverseNodeMap.containsKey(tmpParent)) {
+                    tmpEdgeCount++;
+                }
+            }
+        }
+        ScaffoldNodeCollectionBase.writeVarInt(tmpStream, tmpEdgeCount);
+        for(Map.Entry<Integer, ScaffoldNodeBase> tmpEntry : this.nodeMap.entrySet()) {
+            for(ScaffoldNodeBase tmpParent : this.getParentNodes(tmpEntry.getValue())) {
+                Integer tmpParentNumber = this.reverseNodeMap.get(tmpParent);
+                /*Check if a node has been removed*/
+                if(tmpParentNumber != null) {
+                    ScaffoldNodeCollectionBase.writeVarInt(tmpStream, tmpParentNumber);
+                    ScaffoldNodeCollectionBase.writeVarInt(tmpStream, tmpEntry.getKey());
+                }
+            }
+        }
+        tmpStream.flush();
+    }
+
+    /**
+     * Loads a collection written by {@link ScaffoldNodeCollectionBase#writeBinary(OutputStream)} into this empty collection.
+     * The nodes are inserted into the node collections directly, without creating their molecules or SMILES.
+     * The molecule of a node is only parsed from its SMILES when it is first requested.
+     * @param anInputStream Stream the collection is read from
+     * @param aBuilder Builder used to parse the molecules of the nodes
+     * @throws IOException if the stream fails or does not contain a collection of this type in a supported version
+     */
+    protected void readBinaryInto(InputStream anInputStream, IChemObjectBuilder aBuilder) throws IOException {
+        DataInputStream tmpStream = new DataInputStream(anInputStream);
+        if(tmpStream.readInt() != ScaffoldNodeCollectionBase.BINARY_FORMAT_MAGIC_NUMBER) {
+            throw new IOException("Stream does not contain a binary scaffold collection");
+        }
+        int tmpVersion = ScaffoldNodeCollectionBase.readVarInt(tmpStream);
+        if(tmpVersion != ScaffoldNodeCollectionBase.BINARY_FORMAT_VERSION) {
+            throw new IOException("Unsupported binary format version: " + tmpVersion);
+        }
+        byte tmpType = tmpStream.readByte();
+        if(tmpType != this.getBinaryCollectionType()) {
+            throw new IOException("Stream contains a different type of scaffold collection: " + tmpType);
+        }
+        String[] tmpOrigins = new String[ScaffoldNodeCollectionBase.readVarInt(tmpStream)];
+        for(int tmpIndex = 0; tmpIndex < tmpOrigins.length; tmpIndex++) {
+            tmpOrigins[tmpIndex] = ScaffoldNodeCollectionBase.readString(tmpStream);
+        }
+        this.truncatedOriginSmilesSet = new LinkedHashSet<>(ScaffoldNodeCollectionBase.readOriginNumbers(tmpStream, tmpOrigins));
+        int tmpNodeCount = ScaffoldNodeCollectionBase.readVarInt(tmpStream);
+        for(int tmpIndex = 0; tmpIndex < tmpNodeCount; tmpIndex++) {
+            int tmpNumber = ScaffoldNodeCollectionBase.readVarInt(tmpStream);
+            String tmpSmiles = ScaffoldNodeCollectionBase.readString(tmpStream);
+            int tmpLevel = ScaffoldNodeCollectionBase.readVarInt(tmpStream);
+            ScaffoldNodeBase tmpNode = this.createLazyNode(ScaffoldNodeCollectionBase.createMoleculeSupplier(tmpSmiles, aBuilder));
+            tmpNode.setOriginSmilesList(ScaffoldNodeCollectionBase.readOriginNumbers(tmpStream, tmpOrigins));
+            tmpNode.setNonVirtualOriginSmilesList(ScaffoldNodeCollectionBase.readOriginNumbers(tmpStream, tmpOrigins));
+            this.addLoadedNode(tmpNumber, tmpSmiles, tmpLevel, tmpNode);
+        }
+        int tmpEdgeCount = ScaffoldNodeCollectionBase.readVarInt(tmpStream);
+        for(int tmpIndex = 0; tmpIndex < tmpEdgeCount; tmpIndex++) {
+            ScaffoldNodeBase tmpParent = this.nodeMap.get(ScaffoldNodeCollectionBase.readVarInt(tmpStream));
+            ScaffoldNodeBase tmpChild = this.nodeMap.get(ScaffoldNodeCollectionBase.readVarInt(tmpStream));
+            if(tmpParent == null || tmpChild == null) {
+                throw new IOException("Edge refers to a node that is not in the stream");
+            }
+            this.linkLoadedNodes(tmpParent, tmpChild);
+        }
+    }
+
+    /**
+     * Adds a loaded node to the node collections with its stored number, SMILES and level,
+     * without requesting its molecule.
+     * @param aNumber Number of the node
+     * @param aSmiles SMILES of the node
+     * @param aLevel Level of the node
+     * @param aNode Loaded node
+     */
+    protected void addLoadedNode(int aNumber, String aSmiles, int aLevel, ScaffoldNodeBase aNode) {
+        this.nodeMap.put(aNumber, aNode);
+        this.reverseNodeMap.put(aNode, aNumber);
+        this.smilesMap.put(aSmiles, aNode);
+        this.levelMap.computeIfAbsent(aLevel, k -> new HashSet<>(50, 0.75f));
+        this.levelMap.get(aLevel).add(aNode);
+        this.nodeCounter = Math.max(this.nodeCounter, aNumber + 1);
+        if(this.originIndex != null) {
+            this.originIndex.addNode(aNumber, aNode);
+        }
+    }
+
+    /**
+     * Returns the type of the collection stored in the binary format. A file can only be loaded
+     * into a collection of the type it was written from. Collections other than networks and trees are written with type 0.
+     * @return type of the collection
+     */
+    protected byte getBinaryCollectionType() {
+        return 0;
+    }
+
+    /**
+     * Creates a node of the type of this collection whose molecule is only created when it is first requested.
+     * Networks and trees create their own nodes, other collections must override this method to be loaded
+     * from the binary format.
+     * @param aMoleculeSupplier creates the molecule of the node
+     * @return lazily loaded node
+     * @throws UnsupportedOperationException if the collection does not support loading from the binary format
+     */
+    protected ScaffoldNodeBase createLazyNode(Supplier<IAtomContainer> aMoleculeSupplier) throws UnsupportedOperationException {
+        throw new UnsupportedOperationException("Collection cannot be loaded from the binary format: " + this.getClass().getName());
+    }
+
+    /**
+     * Links two loaded nodes of this collection without requesting their molecules.
+     * The child is added to the children of the parent and the parent is added to the parents of a NetworkNode
+     * or set as parent of a TreeNode.
+     * @param aParent Node on the level above
+     * @param aChild Node on the level below
+     */
+    protected void linkLoadedNodes(ScaffoldNodeBase aParent, ScaffoldNodeBase aChild) {
+        if(aChild instanceof NetworkNode) {
+            ((NetworkNode) aChild).getParents().add(aParent);
+        } else if(aChild instanceof TreeNode) {
+            ((TreeNode) aChild).setParent((TreeNode) aParent);
+        }
+        aParent.getChildren().add(aChild);
+    }
+
+    /**
+     * Creates a supplier that parses the molecule of a lazily loaded node from its SMILES.
+     * @param aSmiles SMILES of the node
+     * @param aBuilder Builder used to parse the molecule
+     * @return supplier of the molecule
+     */
+    protected static Supplier<IAtomContainer> createMoleculeSupplier(String aSmiles, IChemObjectBuilder aBuilder) {
+        return () -> {
+            try {
+                return new SmilesParser(aBuilder).parseSmiles(aSmiles);
+            } catch (InvalidSmilesException anException) {
+                throw new IllegalStateException("Stored SMILES cannot be parsed: " + aSmiles, anException);
+            }
+        };
+    }
+
+    /**
+     * Writes a non-negative integer with 7 bits per byte, so that small numbers only take one byte.
+     * @param anOutput Output to write to
+     * @param aValue Non-negative value
+     * @throws IOException if the output fails
+     */
+    protected static void writeVarInt(DataOutput anOutput, int aValue) throws IOException {
+        int tmpValue = aValue;
+        while((tmpValue & ~0x7F) != 0) {
+            anOutput.writeByte((tmpValue & 0x7F) | 0x80);
+            tmpValue >>>= 7;
+        }
+        anOutput.writeByte(tmpValue);
+    }
+
+    /**
+     * Reads an integer written by {@link ScaffoldNodeCollectionBase#writeVarInt(DataOutput, int)}.
+     * @param anInput Input to read from
+     * @return read value
+     * @throws IOException if the input fails or the value is malformed
+     */
+    protected static int readVarInt(DataInput anInput) throws IOException {
+        int tmpValue = 0;
+        for(int tmpShift = 0; tmpShift < 35; tmpShift += 7) {
+            byte tmpByte = anInput.readByte();
+            tmpValue |= (tmpByte & 0x7F) << tmpShift;
+            if((tmpByte & 0x80) == 0) {
+                return tmpValue;
+            }
+        }
+        throw new IOException("Malformed variable-length integer");
+    }
+
+    /**
+     * Writes a string as length and UTF-8 bytes.
+     * @param anOutput Output to write to
+     * @param aString String to write
+     * @throws IOException if the output fails
+     */
+    protected static void writeString(DataOutput anOutput, String aString) throws IOException {
+        byte[] tmpBytes = aString.getBytes(StandardCharsets.UTF_8);
+        ScaffoldNodeCollectionBase.writeVarInt(anOutput, tmpBytes.length);
+        anOutput.write(tmpBytes);
+    }
+
+    /**
+     * Reads a string written by {@link ScaffoldNodeCollectionBase#writeString(DataOutput, String)}.
+     * @param anInput Input to read from
+     * @return read string
+     * @throws IOException if the input fails
+     */
+    protected static String readString(DataInput anInput) throws IOException {
+        byte[] tmpBytes = new byte[ScaffoldNodeCollectionBase.readVarInt(anInput)];
+        anInput.readFully(tmpBytes);
+        return new String(tmpBytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Writes the numbers of the given origins.
+     * @param anOutput Output to write to
+     * @param anOriginList Origin SMILES
+     * @param anOriginNumberMap Number of each origin SMILES
+     * @throws IOException if the output fails
+     */
+    protected static void writeOriginNumbers(DataOutput anOutput, List<?> anOriginList, Map<String, Integer> anOriginNumberMap) throws IOException {
+        ScaffoldNodeCollectionBase.writeVarInt(anOutput, anOriginList.size());
+        for(Object tmpOrigin : anOriginList) {
+            ScaffoldNodeCollectionBase.writeVarInt(anOutput, anOriginNumberMap.get((String) tmpOrigin));
+        }
+    }
+
+    /**
+     * Reads origin numbers written by {@link ScaffoldNodeCollectionBase#writeOriginNumbers(DataOutput, List, Map)}.
+     * @param anInput Input to read from
+     * @param anOrigins Origin SMILES by number
+     * @return Origin SMILES
+     * @throws IOException if the input fails or a number is not in the origin table
+     */
+    protected static List<String> readOriginNumbers(DataInput anInput, String[] anOrigins) throws IOException {
+        int tmpCount = ScaffoldNodeCollectionBase.readVarInt(anInput);
+        List<String> tmpOriginList = new IndexedSetList<>();
+        for(int tmpIndex = 0; tmpIndex < tmpCount; tmpIndex++) {
+            int tmpNumber = ScaffoldNodeCollectionBase.readVarInt(anInput);
+            if(tmpNumber < 0 || tmpNumber >= anOrigins.length) {
+                throw new IOException("Origin number is not in the origin table: " + tmpNumber);
+            }
+            tmpOriginList.add(anOrigins[tmpNumber]);
+        }
+        return tmpOriginList;
+    }
+
+    /**
+     * Returns the parent nodes of a node of the collection, i.e. the nodes on the level above.
+     * The parents of NetworkNodes and the parent of TreeNodes are returned, other nodes have no parents.
+     * Lazy NetworkNodes are not expanded.
+     * @param aNode Node of the collection
+     * @return parents of the node, empty if the node has no parent
+     */
+    protected List<? extends ScaffoldNodeBase> getParentNodes(ScaffoldNodeBase aNode) {
+        if(aNode instanceof NetworkNode) {
+            List<NetworkNode> tmpParents = ((NetworkNode) aNode).getParents();
+            return tmpParents == null ? Collections.emptyList() : tmpParents;
+        }
+        if(aNode instanceof TreeNode) {
+            TreeNode tmpParent = ((TreeNode) aNode).getParent();
+            return tmpParent == null ? Collections.emptyList() : Collections.singletonList(tmpParent);
+        }
+        return Collections.emptyList();
+    }
+
+    /**
+     * Maps each node of the collection to its SMILES in the smiles map.
+     * The SMILES are taken from the map, so that lazily loaded molecules are not created while the collection is written.
+     * @return SMILES of the nodes by node identity
+     */
+    protected IdentityHashMap<ScaffoldNodeBase, String> getNodeSmilesMap() {
+        IdentityHashMap<ScaffoldNodeBase, String> tmpNodeSmilesMap = new IdentityHashMap<>(this.smilesMap.size());
+        for(Map.Entry<String, ScaffoldNodeBase> tmpEntry : this.smilesMap.entrySet()) {
+            tmpNodeSmilesMap.put(tmpEntry.getValue(), tmpEntry.getKey());
+        }
+        return tmpNodeSmilesMap;
+    }
+
+    /**
+     * Returns the SMILES of a node from the map created by {@link ScaffoldNodeCollectionBase#getNodeSmilesMap()}.
+     * The SMILES is only generated from the molecule if the node is not in the map.
+     * @param aNode Node of the collection
+     * @param aNodeSmilesMap SMILES of the nodes by node identity
+     * @return SMILES of the node
+     * @throws CDKException if SMILES code of the molecule cannot be created
+     */
+    protected String getNodeSmiles(ScaffoldNodeBase aNode, IdentityHashMap<ScaffoldNodeBase, String> aNodeSmilesMap) throws CDKException {
+        String tmpSmiles = aNodeSmilesMap.get(aNode);
+        if(tmpSmiles == null) {
+            tmpSmiles = this.smilesGenerator.create((IAtomContainer) aNode.getMolecule());
+        }
+        return tmpSmiles;
+    }
+
+    /**
+     * Escapes the characters of a string that have a special meaning in XML and GML.
+     * @param aString String to escape
+     * @return escaped string
+     */
+    protected static String escapeMarkup(String aString) {
+        return aString.replace("&", "&amp;").replace("<", "&lt;").replace(">", "&gt;").replace("\"", "&quot;");
+    }
+
     /**
      * Adds the node to the internal node collections node map, reverse node map, smiles map, and level map.
      * Does not test anything!
@@ -254,17 +958,32 @@ public abstract class ScaffoldNodeCollectionBase {
      * @throws CDKException if SMILES code of the molecule the node contains cannot be created
      */
     protected void addNodeToCollections(ScaffoldNodeBase aNode) throws CDKException {
+        IAtomContainer tmpMolecule = (IAtomContainer) aNode.getMolecule();
+        String tmpSmiles = this.smilesGenerator.create(tmpMolecule); //Convert molecule to SMILES
+        this.addNodeToCollections(aNode, tmpSmiles);
+    }
+
+    /**
+     * Adds the node to the internal node collections node map, reverse node map, smiles map, and level map
+     * under the given SMILES, e.g. if it was already created by the caller.
+     * Does not test anything!
+     * @param aNode node to be added
+     * @param aSmiles SMILES of the molecule the node contains, created by the SMILES generator of this collection
+     */
+    protected void addNodeToCollections(ScaffoldNodeBase aNode, String aSmiles) {
         //Add to nodeMap
         this.nodeMap.put(this.nodeCounter, aNode);
         //Add to reverseNodeMap
         this.reverseNodeMap.put(aNode, this.nodeCounter);
-        /*Add to smilesMap*/
-        IAtomContainer tmpMolecule = (IAtomContainer) aNode.getMolecule();
-        String tmpSmiles = this.smilesGenerator.create(tmpMolecule); //Convert molecule to SMILES
-        this.smilesMap.put(tmpSmiles, aNode);
+        //Add to smilesMap
+        this.smilesMap.put(aSmiles, aNode);
         //Add to levelMap
         int tmpLevel = aNode.getLevel();
         this.levelMap.computeIfAbsent(tmpLevel, k -> new HashSet<>(50, 0.75f));
         this.levelMap.get(tmpLevel).add(aNode);
+        //Add to originIndex
+        if(this.originIndex != null) {
+            this.originIndex.addNode(this.nodeCounter, aNode);
+        }
     }
 }
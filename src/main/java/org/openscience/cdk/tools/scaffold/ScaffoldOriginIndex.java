@@ -0,0 +1,461 @@
+/*
+ * Copyright (c) 2026 Julian Zander <zanderjulian@gmx.de>
+ *                    Jonas Schaub <jonas.schaub@uni-jena.de>
+ *                    Achim Zielesny <achim.zielesny@w-hs.de>
+ *                    Christoph Steinbeck <christoph.steinbeck@uni-jena.de>
+ *
+ * Contact: cdk-devel@lists.sourceforge.net
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+
+package org.openscience.cdk.tools.scaffold;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Bidirectional inverted index between the origin molecules and the nodes of a scaffold node collection.
+ * It answers which nodes a molecule contributed to as well as which molecules a node originates from,
+ * without scanning the origin lists of all nodes. <p>
+ *
+ * Each distinct origin SMILES gets a molecule id in the order in which it is first found in the nodes, walked by ascending matrix number,
+ * or later added to the collection.
+ * The postings of both directions are sorted int lists that are stored delta-encoded as variable-length integers in byte arrays.
+ * A lookup decodes only the postings of the requested molecule or node, so its time is linear in the size of the result. <p>
+ *
+ * The index of a collection is created by {@link ScaffoldNodeCollectionBase#getOriginIndex()} and is maintained by the collection afterwards:
+ * added and removed nodes, the origins added to existing nodes by {@link ScaffoldNetwork#mergeNetwork(ScaffoldNetwork)},
+ * {@link ScaffoldTree#mergeTree(ScaffoldTree)} and {@link ScaffoldTree#addNode(ScaffoldNodeBase)}, and the origins removed by
+ * {@link ScaffoldNodeCollectionBase#removeOrigin(String)} update the postings of the affected nodes and molecules.
+ * Ids and node numbers that are added are usually larger than the existing ones and are appended to the postings,
+ * other changes re-encode the changed postings. Origins that are added to or removed from the nodes directly are not tracked.
+ * A molecule that no longer has any node loses its id, which is not reused.
+ *
+ * @author Julian Zander (zanderjulian@gmx.de)
+ * @author Jonas Schaub (jonas.schaub@uni-jena.de)
+ * @version 1.0.0.0
+ */
+public class ScaffoldOriginIndex {
+    /**
+     * Empty postings
+     */
+    private static final byte[] EMPTY_POSTINGS = new byte[0];
+
+    /**
+     * Indexed collection
+     */
+    private final ScaffoldNodeCollectionBase collection;
+
+    /**
+     * Origin SMILES indexed by molecule id.
+     */
+    private final List<String> originSmilesList;
+
+    /**
+     * Molecule id of each origin SMILES that has nodes. Key: origin SMILES, Value: molecule id
+     */
+    private final HashMap<String, Integer> moleculeIdMap;
+
+    /**
+     * Matrix numbers of the nodes of each molecule, indexed by molecule id.
+     */
+    private final List<Postings> moleculePostingsList;
+
+    /**
+     * Molecule ids of the origins of each node, indexed by matrix number. Null if there is no node with this number.
+     */
+    private Postings[] nodePostings;
+
+    /**
+     * Constructor. Indexes the current origins of all nodes of the collection.
+     * Use {@link ScaffoldNodeCollectionBase#getOriginIndex()} to get an index that is maintained by the collection.
+     * @param aCollection Collection whose origins are to be indexed
+     * @throws NullPointerException if parameter is null
+     */
+    protected ScaffoldOriginIndex(ScaffoldNodeCollectionBase aCollection) throws NullPointerException {
+        Objects.requireNonNull(aCollection, "Given collection is 'null'");
+        this.collection = aCollection;
+        List<Integer> tmpNumberList = aCollection.getMatrixNodesNumbers();
+        tmpNumberList.sort(null);
+        int tmpNodeArraySize = tmpNumberList.isEmpty() ? 0 : tmpNumberList.get(tmpNumberList.size() - 1) + 1;
+        this.nodePostings = new Postings[tmpNodeArraySize];
+        this.originSmilesList = new ArrayList<>();
+        this.moleculeIdMap = new HashMap<>(ScaffoldNodeCollectionBase.NODE_MAPS_INIT_CAPACITY, ScaffoldNodeCollectionBase.NODE_MAPS_LOAD_FACTOR);
+        this.moleculePostingsList = new ArrayList<>();
+        /*The nodes are walked in ascending order, so their numbers are appended to the postings of the molecules*/
+        for(Integer tmpNumber : tmpNumberList) {
+            this.addNode(tmpNumber, aCollection.getMatrixNode(tmpNumber));
+        }
+    }
+
+    /**
+     * Returns the number of molecule ids assigned so far, including the ids of molecules that no longer have any node.
+     * @return number of molecule ids
+     */
+    public int getMoleculeCount() {
+        return this.originSmilesList.size();
+    }
+
+    /**
+     * Returns the molecule id of an origin.
+     * @param anOriginSmiles SMILES of the molecule as stored in the origins
+     * @return molecule id or -1 if the molecule is not an origin of the collection
+     * @throws NullPointerException if parameter is null
+     */
+    public int getMoleculeId(String anOriginSmiles) throws NullPointerException {
+        Objects.requireNonNull(anOriginSmiles, "Given origin SMILES is 'null'");
+        Integer tmpId = this.moleculeIdMap.get(anOriginSmiles);
+        return tmpId == null ? -1 : tmpId;
+    }
+
+    /**
+     * Returns the origin SMILES of a molecule id.
+     * @param aMoleculeId Molecule id
+     * @return SMILES of the molecule as stored in the origins
+     * @throws IllegalArgumentException if there is no molecule with this id
+     */
+    public String getOriginSmiles(int aMoleculeId) throws IllegalArgumentException {
+        this.checkMoleculeId(aMoleculeId);
+        return this.originSmilesList.get(aMoleculeId);
+    }
+
+    /**
+     * Returns the matrix numbers of all nodes the molecule contributed to, i.e. of all nodes that have it as origin.
+     * @param aMoleculeId Molecule id
+     * @return matrix numbers in ascending order, empty if the molecule no longer has any node
+     * @throws IllegalArgumentException if there is no molecule with this id
+     */
+    public int[] getNodeNumbers(int aMoleculeId) throws IllegalArgumentException {
+        this.checkMoleculeId(aMoleculeId);
+        return this.moleculePostingsList.get(aMoleculeId).toArray();
+    }
+
+    /**
+     * Returns all nodes the molecule contributed to, i.e. all nodes that have it as origin.
+     * @param anOriginSmiles SMILES of the molecule as stored in the origins
+     * @return nodes in the order of their matrix numbers, empty if the molecule is not an origin of the collection
+     * @throws NullPointerException if parameter is null
+     */
+    public List<ScaffoldNodeBase> getNodes(String anOriginSmiles) throws NullPointerException {
+        int tmpId = this.getMoleculeId(anOriginSmiles);
+        if(tmpId < 0) {
+            return Collections.emptyList();
+        }
+        int[] tmpNumbers = this.getNodeNumbers(tmpId);
+        List<ScaffoldNodeBase> tmpNodeList = new ArrayList<>(tmpNumbers.length);
+        for(int tmpNumber : tmpNumbers) {
+            tmpNodeList.add(this.collection.getMatrixNode(tmpNumber));
+        }
+        return tmpNodeList;
+    }
+
+    /**
+     * Returns the ids of all molecules the node originates from.
+     * @param aNodeNumber Matrix number of the node
+     * @return molecule ids in ascending order
+     * @throws IllegalArgumentException if there is no node with this number
+     */
+    public int[] getMoleculeIds(int aNodeNumber) throws IllegalArgumentException {
+        if(aNodeNumber < 0 || aNodeNumber >= this.nodePostings.length || this.nodePostings[aNodeNumber] == null) {
+            throw new IllegalArgumentException("There is no node with the given number: " + aNodeNumber);
+        }
+        return this.nodePostings[aNodeNumber].toArray();
+    }
+
+    /**
+     * Returns the SMILES of all molecules the node originates from.
+     * @param aNodeNumber Matrix number of the node
+     * @return origin SMILES in the order of their molecule ids
+     * @throws IllegalArgumentException if there is no node with this number
+     */
+    public List<String> getOriginSmilesList(int aNodeNumber) throws IllegalArgumentException {
+        int[] tmpIds = this.getMoleculeIds(aNodeNumber);
+        List<String> tmpOriginList = new ArrayList<>(tmpIds.length);
+        for(int tmpId : tmpIds) {
+            tmpOriginList.add(this.originSmilesList.get(tmpId));
+        }
+        return tmpOriginList;
+    }
+
+    /**
+     * Indexes a node that was added to the collection with all its current origins.
+     * @param aNodeNumber Matrix number of the node
+     * @param aNode Added node
+     */
+    protected void addNode(int aNodeNumber, ScaffoldNodeBase aNode) {
+        if(aNodeNumber >= this.nodePostings.length) {
+            this.nodePostings = Arrays.copyOf(this.nodePostings, Math.max(aNodeNumber + 1, this.nodePostings.length * 2));
+        }
+        List<String> tmpNodeOriginList = aNode.getOriginSmilesList();
+        int[] tmpIds = new int[tmpNodeOriginList.size()];
+        int tmpIdCount = 0;
+        for(String tmpOrigin : tmpNodeOriginList) {
+            tmpIds[tmpIdCount++] = this.getOrCreateMoleculeId(tmpOrigin);
+        }
+        /*Sort the ids and drop duplicates*/
+        Arrays.sort(tmpIds, 0, tmpIdCount);
+        int tmpUniqueCount = 0;
+        for(int tmpIndex = 0; tmpIndex < tmpIdCount; tmpIndex++) {
+            if(tmpUniqueCount == 0 || tmpIds[tmpUniqueCount - 1] != tmpIds[tmpIndex]) {
+                tmpIds[tmpUniqueCount++] = tmpIds[tmpIndex];
+                this.moleculePostingsList.get(tmpIds[tmpIndex]).add(aNodeNumber);
+            }
+        }
+        Postings tmpPostings = new Postings();
+        tmpPostings.set(tmpIds, tmpUniqueCount);
+        this.nodePostings[aNodeNumber] = tmpPostings;
+    }
+
+    /**
+     * Removes a node that was removed from the collection from the postings of its molecules.
+     * @param aNodeNumber Matrix number of the node
+     */
+    protected void removeNode(int aNodeNumber) {
+        if(aNodeNumber >= this.nodePostings.length || this.nodePostings[aNodeNumber] == null) {
+            return;
+        }
+        for(int tmpId : this.nodePostings[aNodeNumber].toArray()) {
+            this.removeNodeFromMolecule(tmpId, aNodeNumber);
+        }
+        this.nodePostings[aNodeNumber] = null;
+    }
+
+    /**
+     * Adds an origin that was added to an indexed node. Nothing is changed if the node already has the origin.
+     * @param aNodeNumber Matrix number of the node
+     * @param anOriginSmiles Added origin
+     */
+    protected void addOrigin(int aNodeNumber, String anOriginSmiles) {
+        if(aNodeNumber >= this.nodePostings.length || this.nodePostings[aNodeNumber] == null) {
+            return;
+        }
+        int tmpId = this.getOrCreateMoleculeId(anOriginSmiles);
+        this.nodePostings[aNodeNumber].add(tmpId);
+        this.moleculePostingsList.get(tmpId).add(aNodeNumber);
+    }
+
+    /**
+     * Removes an origin that was removed from an indexed node.
+     * @param aNodeNumber Matrix number of the node
+     * @param anOriginSmiles Removed origin
+     */
+    protected void removeOrigin(int aNodeNumber, String anOriginSmiles) {
+        Integer tmpId = this.moleculeIdMap.get(anOriginSmiles);
+        if(tmpId == null || aNodeNumber >= this.nodePostings.length || this.nodePostings[aNodeNumber] == null) {
+            return;
+        }
+        this.nodePostings[aNodeNumber].remove(tmpId);
+        this.removeNodeFromMolecule(tmpId, aNodeNumber);
+    }
+
+    /**
+     * Returns the id of a molecule and assigns a new one if the molecule has none.
+     * @param anOriginSmiles SMILES of the molecule
+     * @return molecule id
+     */
+    protected int getOrCreateMoleculeId(String anOriginSmiles) {
+        Integer tmpId = this.moleculeIdMap.get(anOriginSmiles);
+        if(tmpId == null) {
+            tmpId = this.originSmilesList.size();
+            this.moleculeIdMap.put(anOriginSmiles, tmpId);
+            this.originSmilesList.add(anOriginSmiles);
+            this.moleculePostingsList.add(new Postings());
+        }
+        return tmpId;
+    }
+
+    /**
+     * Removes a node from the postings of a molecule. The molecule loses its id if it has no node left.
+     * @param aMoleculeId Molecule id
+     * @param aNodeNumber Matrix number of the node
+     */
+    protected void removeNodeFromMolecule(int aMoleculeId, int aNodeNumber) {
+        Postings tmpPostings = this.moleculePostingsList.get(aMoleculeId);
+        tmpPostings.remove(aNodeNumber);
+        if(tmpPostings.count == 0) {
+            this.moleculeIdMap.remove(this.originSmilesList.get(aMoleculeId), aMoleculeId);
+        }
+    }
+
+    /**
+     * Checks whether there is a molecule with this id.
+     * @param aMoleculeId Molecule id
+     * @throws IllegalArgumentException if there is no molecule with this id
+     */
+    protected void checkMoleculeId(int aMoleculeId) throws IllegalArgumentException {
+        if(aMoleculeId < 0 || aMoleculeId >= this.originSmilesList.size()) {
+            throw new IllegalArgumentException("There is no molecule with the given id: " + aMoleculeId);
+        }
+    }
+
+    /**
+     * Encodes sorted non-negative numbers as differences to their predecessors in variable-length integers of 7 bits per byte.
+     * @param aSortedNumbers Numbers in ascending order
+     * @param aCount Number of numbers to encode from the start of the array
+     * @return compressed postings
+     */
+    protected static byte[] encode(int[] aSortedNumbers, int aCount) {
+        if(aCount == 0) {
+            return ScaffoldOriginIndex.EMPTY_POSTINGS;
+        }
+        byte[] tmpBytes = new byte[aCount * 5];
+        int tmpLength = 0;
+        int tmpPrevious = 0;
+        for(int tmpIndex = 0; tmpIndex < aCount; tmpIndex++) {
+            int tmpDelta = aSortedNumbers[tmpIndex] - tmpPrevious;
+            tmpPrevious = aSortedNumbers[tmpIndex];
+            while((tmpDelta & ~0x7F) != 0) {
+                tmpBytes[tmpLength++] = (byte) ((tmpDelta & 0x7F) | 0x80);
+                tmpDelta >>>= 7;
+            }
+            tmpBytes[tmpLength++] = (byte) tmpDelta;
+        }
+        return Arrays.copyOf(tmpBytes, tmpLength);
+    }
+
+    /**
+     * Decodes postings created by {@link ScaffoldOriginIndex#encode(int[], int)}.
+     * @param aBytes Compressed postings
+     * @param aCount Number of encoded numbers
+     * @return numbers in ascending order
+     */
+    protected static int[] decode(byte[] aBytes, int aCount) {
+        int[] tmpNumbers = new int[aCount];
+        int tmpPosition = 0;
+        int tmpPrevious = 0;
+        for(int tmpIndex = 0; tmpIndex < aCount; tmpIndex++) {
+            int tmpDelta = 0;
+            int tmpShift = 0;
+            byte tmpByte;
+            do {
+                tmpByte = aBytes[tmpPosition++];
+                tmpDelta |= (tmpByte & 0x7F) << tmpShift;
+                tmpShift += 7;
+            } while((tmpByte & 0x80) != 0);
+            tmpPrevious += tmpDelta;
+            tmpNumbers[tmpIndex] = tmpPrevious;
+        }
+        return tmpNumbers;
+    }
+
+    /**
+     * Sorted int list that is stored like {@link ScaffoldOriginIndex#encode(int[], int)} in a byte array with spare capacity.
+     * A number larger than the last one is appended, other changes decode and encode the list again.
+     */
+    protected static class Postings {
+        /**
+         * Compressed numbers, followed by spare capacity
+         */
+        private byte[] bytes;
+
+        /**
+         * Number of used bytes
+         */
+        private int length;
+
+        /**
+         * Number of stored numbers
+         */
+        private int count;
+
+        /**
+         * Last and largest stored number, 0 if there is none
+         */
+        private int last;
+
+        /**
+         * Constructor of empty postings
+         */
+        protected Postings() {
+            this.bytes = ScaffoldOriginIndex.EMPTY_POSTINGS;
+        }
+
+        /**
+         * Adds a number. Nothing is changed if the number is already stored.
+         * @param aNumber Non-negative number
+         */
+        protected void add(int aNumber) {
+            if(this.count > 0 && aNumber <= this.last) {
+                int[] tmpNumbers = this.toArray();
+                int tmpPosition = Arrays.binarySearch(tmpNumbers, aNumber);
+                if(tmpPosition >= 0) {
+                    return;
+                }
+                tmpPosition = -tmpPosition - 1;
+                int[] tmpNewNumbers = new int[tmpNumbers.length + 1];
+                System.arraycopy(tmpNumbers, 0, tmpNewNumbers, 0, tmpPosition);
+                tmpNewNumbers[tmpPosition] = aNumber;
+                System.arraycopy(tmpNumbers, tmpPosition, tmpNewNumbers, tmpPosition + 1, tmpNumbers.length - tmpPosition);
+                this.set(tmpNewNumbers, tmpNewNumbers.length);
+                return;
+            }
+            if(this.length + 5 > this.bytes.length) {
+                this.bytes = Arrays.copyOf(this.bytes, Math.max(this.length + 5, this.bytes.length * 2));
+            }
+            int tmpDelta = aNumber - this.last;
+            while((tmpDelta & ~0x7F) != 0) {
+                this.bytes[this.length++] = (byte) ((tmpDelta & 0x7F) | 0x80);
+                tmpDelta >>>= 7;
+            }
+            this.bytes[this.length++] = (byte) tmpDelta;
+            this.last = aNumber;
+            this.count++;
+        }
+
+        /**
+         * Removes a number.
+         * @param aNumber Number to remove
+         * @return true if the number was stored
+         */
+        protected boolean remove(int aNumber) {
+            if(this.count == 0 || aNumber > this.last) {
+                return false;
+            }
+            int[] tmpNumbers = this.toArray();
+            int tmpPosition = Arrays.binarySearch(tmpNumbers, aNumber);
+            if(tmpPosition < 0) {
+                return false;
+            }
+            System.arraycopy(tmpNumbers, tmpPosition + 1, tmpNumbers, tmpPosition, tmpNumbers.length - tmpPosition - 1);
+            this.set(tmpNumbers, tmpNumbers.length - 1);
+            return true;
+        }
+
+        /**
+         * Replaces the stored numbers.
+         * @param aSortedNumbers Distinct numbers in ascending order
+         * @param aCount Number of numbers to store from the start of the array
+         */
+        protected void set(int[] aSortedNumbers, int aCount) {
+            this.bytes = ScaffoldOriginIndex.encode(aSortedNumbers, aCount);
+            this.length = this.bytes.length;
+            this.count = aCount;
+            this.last = aCount == 0 ? 0 : aSortedNumbers[aCount - 1];
+        }
+
+        /**
+         * Decodes the stored numbers.
+         * @return numbers in ascending order
+         */
+        protected int[] toArray() {
+            return ScaffoldOriginIndex.decode(this.bytes, this.count);
+        }
+    }
+}
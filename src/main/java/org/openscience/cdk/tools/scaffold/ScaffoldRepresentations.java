@@ -0,0 +1,89 @@
+/*
+ * Copyright (c) 2026 Julian Zander <zanderjulian@gmx.de>
+ *                    Jonas Schaub <jonas.schaub@uni-jena.de>
+ *                    Achim Zielesny <achim.zielesny@w-hs.de>
+ *                    Christoph Steinbeck <christoph.steinbeck@uni-jena.de>
+ *
+ * Contact: cdk-devel@lists.sourceforge.net
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+
+package org.openscience.cdk.tools.scaffold;
+
+import org.openscience.cdk.interfaces.IAtomContainer;
+
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * Scaffolds of one molecule in several {@link ScaffoldGenerator.ScaffoldModeOption}s together with their unique SMILES as keys,
+ * generated from a single Murcko fragment by {@link ScaffoldGenerator#getScaffolds(IAtomContainer, boolean, Set)}.
+ *
+ * @author Julian Zander (zanderjulian@gmx.de)
+ * @author Jonas Schaub (jonas.schaub@uni-jena.de)
+ * @version 1.0.0.0
+ */
+public class ScaffoldRepresentations {
+    /**
+     * Scaffold of each generated mode
+     */
+    private final EnumMap<ScaffoldGenerator.ScaffoldModeOption, IAtomContainer> scaffoldMap;
+
+    /**
+     * Unique SMILES of each generated mode
+     */
+    private final EnumMap<ScaffoldGenerator.ScaffoldModeOption, String> keyMap;
+
+    /**
+     * Constructor
+     * @param aScaffoldMap Scaffold of each generated mode
+     * @param aKeyMap Unique SMILES of each generated mode
+     * @throws NullPointerException if a parameter is null
+     */
+    protected ScaffoldRepresentations(EnumMap<ScaffoldGenerator.ScaffoldModeOption, IAtomContainer> aScaffoldMap,
+                                      EnumMap<ScaffoldGenerator.ScaffoldModeOption, String> aKeyMap) throws NullPointerException {
+        this.scaffoldMap = Objects.requireNonNull(aScaffoldMap, "Given scaffold map is 'null'");
+        this.keyMap = Objects.requireNonNull(aKeyMap, "Given key map is 'null'");
+    }
+
+    /**
+     * Returns the generated modes.
+     * @return unmodifiable set of modes
+     */
+    public Set<ScaffoldGenerator.ScaffoldModeOption> getScaffoldModes() {
+        return Collections.unmodifiableSet(this.scaffoldMap.keySet());
+    }
+
+    /**
+     * Returns the scaffold of a mode.
+     * @param aScaffoldMode Mode of the scaffold
+     * @return scaffold, an empty molecule if the molecule does not contain a scaffold, or null if the mode was not generated
+     */
+    public IAtomContainer getScaffold(ScaffoldGenerator.ScaffoldModeOption aScaffoldMode) {
+        return this.scaffoldMap.get(aScaffoldMode);
+    }
+
+    /**
+     * Returns the unique SMILES of the scaffold of a mode.
+     * @param aScaffoldMode Mode of the scaffold
+     * @return unique SMILES or null if the mode was not generated
+     */
+    public String getKey(ScaffoldGenerator.ScaffoldModeOption aScaffoldMode) {
+        return this.keyMap.get(aScaffoldMode);
+    }
+}
@@ -0,0 +1,363 @@
+/*
+ * Copyright (c) 2026 Julian Zander <zanderjulian@gmx.de>
+ *                    Jonas Schaub <jonas.schaub@uni-jena.de>
+ *                    Achim Zielesny <achim.zielesny@w-hs.de>
+ *                    Christoph Steinbeck <christoph.steinbeck@uni-jena.de>
+ *
+ * Contact: cdk-devel@lists.sourceforge.net
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+
+package org.openscience.cdk.tools.scaffold;
+
+import org.openscience.cdk.exception.CDKException;
+import org.openscience.cdk.interfaces.IAtomContainer;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Objects;
+import java.util.PriorityQueue;
+
+/**
+ * Similarity search index over the nodes of a scaffold node collection, e.g. to find the scaffolds of a network
+ * that are most similar to a query scaffold for scaffold hopping.
+ * A path fingerprint of each node is computed once by a {@link ScaffoldFingerprinter} and stored as packed long[] bit set together with its popcount.
+ * The nodes are grouped by popcount. As the Tanimoto similarity of two fingerprints with the popcounts a and b can never be larger
+ * than min(a, b) / max(a, b), whole groups are skipped if this bound is below the threshold or below the k-th best similarity found so far. <p>
+ *
+ * Like {@link ScaffoldSubstructureIndex}, the index is a snapshot of the collection.
+ * Nodes for which no fingerprint can be created, e.g. because they have too many paths, are not indexed.
+ * The results are ordered by descending similarity and ascending matrix number of the node.
+ *
+ * @author Julian Zander (zanderjulian@gmx.de)
+ * @author Jonas Schaub (jonas.schaub@uni-jena.de)
+ * @version 1.0.0.0
+ */
+public class ScaffoldSimilarityIndex {
+    /**
+     * Node of the collection and its similarity to the query.
+     */
+    public static class SimilarityHit {
+        /**
+         * Matching node
+         */
+        private final ScaffoldNodeBase node;
+
+        /**
+         * Matrix number of the node in the collection
+         */
+        private final int number;
+
+        /**
+         * Tanimoto similarity of the node to the query
+         */
+        private final double similarity;
+
+        /**
+         * Constructor
+         * @param aNode Matching node
+         * @param aNumber Matrix number of the node in the collection
+         * @param aSimilarity Tanimoto similarity of the node to the query
+         */
+        protected SimilarityHit(ScaffoldNodeBase aNode, int aNumber, double aSimilarity) {
+            this.node = aNode;
+            this.number = aNumber;
+            this.similarity = aSimilarity;
+        }
+
+        /**
+         * Returns the matching node.
+         * @return node of the collection
+         */
+        public ScaffoldNodeBase getNode() {
+            return this.node;
+        }
+
+        /**
+         * Returns the matrix number of the node in the collection.
+         * @return matrix number of the node
+         */
+        public int getNumber() {
+            return this.number;
+        }
+
+        /**
+         * Returns the Tanimoto similarity of the node to the query.
+         * @return similarity between 0 and 1
+         */
+        public double getSimilarity() {
+            return this.similarity;
+        }
+    }
+
+    /**
+     * Order of the results: descending similarity, then ascending matrix number.
+     */
+    protected static final Comparator<SimilarityHit> HIT_ORDER = Comparator.comparingDouble(SimilarityHit::getSimilarity).reversed()
+            .thenComparingInt(SimilarityHit::getNumber);
+
+    /**
+     * Indexed nodes sorted by the popcount of their fingerprints and then by matrix number.
+     */
+    private final ScaffoldNodeBase[] nodes;
+
+    /**
+     * Matrix numbers of the nodes, indexed like the nodes.
+     */
+    private final int[] numbers;
+
+    /**
+     * Packed fingerprints of the nodes, indexed like the nodes.
+     */
+    private final long[][] fingerprints;
+
+    /**
+     * Start of the nodes with a specific popcount. The nodes with popcount p are at the positions
+     * from popcountStarts[p] inclusive to popcountStarts[p + 1] exclusive.
+     */
+    private final int[] popcountStarts;
+
+    /**
+     * Fingerprinter used for the nodes and the queries
+     */
+    private final ScaffoldFingerprinter fingerprinter;
+
+    /**
+     * Constructor
+     * @param aCollection Collection whose nodes are to be indexed
+     * @param aFingerprintSize Number of bits of the path fingerprints
+     * @param aSearchDepth Maximum path length of the path fingerprints
+     * @throws CloneNotSupportedException if cloning is not possible.
+     * @throws IllegalArgumentException if the fingerprint size or the search depth is smaller than 1
+     * @throws NullPointerException if parameter is null
+     */
+    public ScaffoldSimilarityIndex(ScaffoldNodeCollectionBase aCollection, int aFingerprintSize, int aSearchDepth)
+            throws CloneNotSupportedException, IllegalArgumentException, NullPointerException {
+        Objects.requireNonNull(aCollection, "Given collection is 'null'");
+        this.fingerprinter = new ScaffoldFingerprinter(aFingerprintSize, aSearchDepth);
+        List<Integer> tmpNumberList = aCollection.getMatrixNodesNumbers();
+        tmpNumberList.sort(null);
+        /*Create the fingerprints and count the nodes per popcount*/
+        List<long[]> tmpFingerprintList = new ArrayList<>(tmpNumberList.size());
+        List<Integer> tmpIndexedNumberList = new ArrayList<>(tmpNumberList.size());
+        this.popcountStarts = new int[this.fingerprinter.getFingerprintSize() + 2];
+        for(Integer tmpNumber : tmpNumberList) {
+            long[] tmpFingerprint = this.fingerprinter.createFingerprint(((IAtomContainer) aCollection.getMatrixNode(tmpNumber).getMolecule()).clone());
+            if(tmpFingerprint == null) {
+                continue;
+            }
+            tmpFingerprintList.add(tmpFingerprint);
+            tmpIndexedNumberList.add(tmpNumber);
+            this.popcountStarts[ScaffoldSimilarityIndex.getPopcount(tmpFingerprint) + 1]++;
+        }
+        for(int tmpPopcount = 1; tmpPopcount < this.popcountStarts.length; tmpPopcount++) {
+            this.popcountStarts[tmpPopcount] += this.popcountStarts[tmpPopcount - 1];
+        }
+        /*Sort the nodes by popcount, the matrix number order is kept within a popcount*/
+        int[] tmpNextPositions = Arrays.copyOf(this.popcountStarts, this.popcountStarts.length);
+        this.nodes = new ScaffoldNodeBase[tmpFingerprintList.size()];
+        this.numbers = new int[tmpFingerprintList.size()];
+        this.fingerprints = new long[tmpFingerprintList.size()][];
+        for(int tmpIndex = 0; tmpIndex < tmpFingerprintList.size(); tmpIndex++) {
+            long[] tmpFingerprint = tmpFingerprintList.get(tmpIndex);
+            int tmpPosition = tmpNextPositions[ScaffoldSimilarityIndex.getPopcount(tmpFingerprint)]++;
+            this.nodes[tmpPosition] = aCollection.getMatrixNode(tmpIndexedNumberList.get(tmpIndex));
+            this.numbers[tmpPosition] = tmpIndexedNumberList.get(tmpIndex);
+            this.fingerprints[tmpPosition] = tmpFingerprint;
+        }
+    }
+
+    /**
+     * Constructor with {@link ScaffoldFingerprinter#FINGERPRINT_SIZE_DEFAULT} bits and
+     * a search depth of {@link ScaffoldFingerprinter#SEARCH_DEPTH_DEFAULT}.
+     * @param aCollection Collection whose nodes are to be indexed
+     * @throws CloneNotSupportedException if cloning is not possible.
+     * @throws NullPointerException if parameter is null
+     */
+    public ScaffoldSimilarityIndex(ScaffoldNodeCollectionBase aCollection) throws CloneNotSupportedException, NullPointerException {
+        this(aCollection, ScaffoldFingerprinter.FINGERPRINT_SIZE_DEFAULT, ScaffoldFingerprinter.SEARCH_DEPTH_DEFAULT);
+    }
+
+    /**
+     * Returns the number of indexed nodes.
+     * @return number of indexed nodes
+     */
+    public int size() {
+        return this.nodes.length;
+    }
+
+    /**
+     * Returns the k nodes that are most similar to the query.
+     * The popcount groups are visited in the order of their similarity bound and the search stops
+     * as soon as no remaining group can reach the k-th best similarity.
+     * @param aQuery Query scaffold
+     * @param aK Maximum number of nodes to be returned
+     * @return at most k hits ordered by descending similarity and ascending matrix number
+     * @throws CDKException if no fingerprint can be created for the query
+     * @throws CloneNotSupportedException if cloning is not possible.
+     * @throws IllegalArgumentException if k is smaller than 1
+     * @throws NullPointerException if the query is null
+     */
+    public List<SimilarityHit> getMostSimilarNodes(IAtomContainer aQuery, int aK)
+            throws CDKException, CloneNotSupportedException, IllegalArgumentException, NullPointerException {
+        Objects.requireNonNull(aQuery, "Given query is 'null'");
+        if(aK < 1) {
+            throw new IllegalArgumentException("Given k must be at least 1: " + aK);
+        }
+        long[] tmpQueryFingerprint = this.getQueryFingerprint(aQuery);
+        int tmpQueryPopcount = ScaffoldSimilarityIndex.getPopcount(tmpQueryFingerprint);
+        /*The head of the queue is the worst of the best k hits found so far*/
+        PriorityQueue<SimilarityHit> tmpHitQueue = new PriorityQueue<>(aK + 1, ScaffoldSimilarityIndex.HIT_ORDER.reversed());
+        for(int tmpPopcount : this.getPopcountsByBound(tmpQueryPopcount)) {
+            if(tmpHitQueue.size() == aK
+                    && ScaffoldSimilarityIndex.getBound(tmpQueryPopcount, tmpPopcount) < tmpHitQueue.peek().getSimilarity()) {
+                //No node of this or the following groups can be better than the k-th hit
+                break;
+            }
+            for(int tmpPosition = this.popcountStarts[tmpPopcount]; tmpPosition < this.popcountStarts[tmpPopcount + 1]; tmpPosition++) {
+                SimilarityHit tmpHit = new SimilarityHit(this.nodes[tmpPosition], this.numbers[tmpPosition],
+                        ScaffoldSimilarityIndex.getTanimoto(tmpQueryFingerprint, tmpQueryPopcount, this.fingerprints[tmpPosition], tmpPopcount));
+                if(tmpHitQueue.size() < aK) {
+                    tmpHitQueue.add(tmpHit);
+                } else if(ScaffoldSimilarityIndex.HIT_ORDER.compare(tmpHit, tmpHitQueue.peek()) < 0) {
+                    tmpHitQueue.poll();
+                    tmpHitQueue.add(tmpHit);
+                }
+            }
+        }
+        List<SimilarityHit> tmpHitList = new ArrayList<>(tmpHitQueue);
+        tmpHitList.sort(ScaffoldSimilarityIndex.HIT_ORDER);
+        return tmpHitList;
+    }
+
+    /**
+     * Returns all nodes whose similarity to the query is at least the given threshold.
+     * Only the popcount groups whose similarity bound reaches the threshold are compared.
+     * @param aQuery Query scaffold
+     * @param aThreshold Minimum Tanimoto similarity
+     * @return hits ordered by descending similarity and ascending matrix number
+     * @throws CDKException if no fingerprint can be created for the query
+     * @throws CloneNotSupportedException if cloning is not possible.
+     * @throws IllegalArgumentException if the threshold is not between 0 and 1
+     * @throws NullPointerException if the query is null
+     */
+    public List<SimilarityHit> getSimilarNodes(IAtomContainer aQuery, double aThreshold)
+            throws CDKException, CloneNotSupportedException, IllegalArgumentException, NullPointerException {
+        Objects.requireNonNull(aQuery, "Given query is 'null'");
+        if(!(aThreshold >= 0.0 && aThreshold <= 1.0)) {
+            throw new IllegalArgumentException("Given threshold must be between 0 and 1: " + aThreshold);
+        }
+        long[] tmpQueryFingerprint = this.getQueryFingerprint(aQuery);
+        int tmpQueryPopcount = ScaffoldSimilarityIndex.getPopcount(tmpQueryFingerprint);
+        List<SimilarityHit> tmpHitList = new ArrayList<>();
+        for(int tmpPopcount = 0; tmpPopcount < this.popcountStarts.length - 1; tmpPopcount++) {
+            if(ScaffoldSimilarityIndex.getBound(tmpQueryPopcount, tmpPopcount) < aThreshold) {
+                continue;
+            }
+            for(int tmpPosition = this.popcountStarts[tmpPopcount]; tmpPosition < this.popcountStarts[tmpPopcount + 1]; tmpPosition++) {
+                double tmpSimilarity = ScaffoldSimilarityIndex.getTanimoto(tmpQueryFingerprint, tmpQueryPopcount, this.fingerprints[tmpPosition], tmpPopcount);
+                if(tmpSimilarity >= aThreshold) {
+                    tmpHitList.add(new SimilarityHit(this.nodes[tmpPosition], this.numbers[tmpPosition], tmpSimilarity));
+                }
+            }
+        }
+        tmpHitList.sort(ScaffoldSimilarityIndex.HIT_ORDER);
+        return tmpHitList;
+    }
+
+    /**
+     * Returns all popcounts that occur in the index, ordered by descending similarity bound to the query popcount.
+     * Popcounts with the same bound are ordered ascending.
+     * @param aQueryPopcount Popcount of the query fingerprint
+     * @return popcounts of the non-empty groups
+     */
+    protected List<Integer> getPopcountsByBound(int aQueryPopcount) {
+        List<Integer> tmpPopcountList = new ArrayList<>();
+        for(int tmpPopcount = 0; tmpPopcount < this.popcountStarts.length - 1; tmpPopcount++) {
+            if(this.popcountStarts[tmpPopcount] < this.popcountStarts[tmpPopcount + 1]) {
+                tmpPopcountList.add(tmpPopcount);
+            }
+        }
+        tmpPopcountList.sort(Comparator.<Integer>comparingDouble(aPopcount -> ScaffoldSimilarityIndex.getBound(aQueryPopcount, aPopcount))
+                .reversed().thenComparingInt(aPopcount -> aPopcount));
+        return tmpPopcountList;
+    }
+
+    /**
+     * Creates the packed fingerprint of the query.
+     * @param aQuery Query scaffold. Is not changed.
+     * @return packed fingerprint of the query
+     * @throws CDKException if no fingerprint can be created for the query
+     * @throws CloneNotSupportedException if cloning is not possible.
+     */
+    protected long[] getQueryFingerprint(IAtomContainer aQuery) throws CDKException, CloneNotSupportedException {
+        long[] tmpFingerprint = this.fingerprinter.createFingerprint(aQuery.clone());
+        if(tmpFingerprint == null) {
+            throw new CDKException("No fingerprint can be created for the given query");
+        }
+        return tmpFingerprint;
+    }
+
+    /**
+     * Returns the number of set bits of the packed bit set.
+     * @param aFingerprint Packed bit set
+     * @return number of set bits
+     */
+    protected static int getPopcount(long[] aFingerprint) {
+        int tmpPopcount = 0;
+        for(long tmpWord : aFingerprint) {
+            tmpPopcount += Long.bitCount(tmpWord);
+        }
+        return tmpPopcount;
+    }
+
+    /**
+     * Returns the largest Tanimoto similarity two fingerprints with the given popcounts can have.
+     * @param aPopcount1 Popcount of the first fingerprint
+     * @param aPopcount2 Popcount of the second fingerprint
+     * @return min(aPopcount1, aPopcount2) / max(aPopcount1, aPopcount2), 1 if both are 0
+     */
+    protected static double getBound(int aPopcount1, int aPopcount2) {
+        int tmpMax = Math.max(aPopcount1, aPopcount2);
+        if(tmpMax == 0) {
+            return 1.0;
+        }
+        return (double) Math.min(aPopcount1, aPopcount2) / tmpMax;
+    }
+
+    /**
+     * Returns the Tanimoto similarity of two packed bit sets.
+     * @param aFingerprint1 First packed bit set
+     * @param aPopcount1 Popcount of the first bit set
+     * @param aFingerprint2 Second packed bit set
+     * @param aPopcount2 Popcount of the second bit set
+     * @return Tanimoto similarity, 1 if both bit sets are empty
+     */
+    protected static double getTanimoto(long[] aFingerprint1, int aPopcount1, long[] aFingerprint2, int aPopcount2) {
+        int tmpCommon = 0;
+        int tmpLength = Math.min(aFingerprint1.length, aFingerprint2.length);
+        for(int tmpWord = 0; tmpWord < tmpLength; tmpWord++) {
+            tmpCommon += Long.bitCount(aFingerprint1[tmpWord] & aFingerprint2[tmpWord]);
+        }
+        int tmpUnion = aPopcount1 + aPopcount2 - tmpCommon;
+        if(tmpUnion == 0) {
+            return 1.0;
+        }
+        return (double) tmpCommon / tmpUnion;
+    }
+}
@@ -0,0 +1,246 @@
+/*
+ * Copyright (c) 2026 Julian Zander <zanderjulian@gmx.de>
+ *                    Jonas Schaub <jonas.schaub@uni-jena.de>
+ *                    Achim Zielesny <achim.zielesny@w-hs.de>
+ *                    Christoph Steinbeck <christoph.steinbeck@uni-jena.de>
+ *
+ * Contact: cdk-devel@lists.sourceforge.net
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+
+package org.openscience.cdk.tools.scaffold;
+
+import org.openscience.cdk.exception.CDKException;
+import org.openscience.cdk.interfaces.IAtomContainer;
+import org.openscience.cdk.isomorphism.UniversalIsomorphismTester;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+/**
+ * Substructure search index over the nodes of a scaffold node collection, e.g. to find all scaffolds
+ * of a network that contain a given ring system.
+ * A path fingerprint of each node is computed once by a {@link ScaffoldFingerprinter} and stored as packed long[] bit set.
+ * A query is screened against these fingerprints with bitwise operations first and the full isomorphism check
+ * is only run for the remaining candidates, optionally in parallel. <p>
+ *
+ * The index is a snapshot of the collection at the time of its creation. Nodes added later are not found.
+ * The node molecules are cloned for the index, atom types are perceived and the CDK legacy aromaticity model is applied
+ * to the clones and to the queries alike, so that the screening and the isomorphism check see the same molecules.
+ *
+ * @author Julian Zander (zanderjulian@gmx.de)
+ * @author Jonas Schaub (jonas.schaub@uni-jena.de)
+ * @version 1.0.0.0
+ */
+public class ScaffoldSubstructureIndex {
+    /**
+     * Indexed nodes in the order of their matrix numbers.
+     */
+    private final ScaffoldNodeBase[] nodes;
+
+    /**
+     * Prepared clones of the node molecules, indexed like the nodes.
+     */
+    private final IAtomContainer[] molecules;
+
+    /**
+     * Packed fingerprints of the node molecules, indexed like the nodes.
+     * Null if no fingerprint could be created for the node. Such a node is always a candidate.
+     */
+    private final long[][] fingerprints;
+
+    /**
+     * Fingerprinter used for the nodes and the queries
+     */
+    private final ScaffoldFingerprinter fingerprinter;
+
+    /**
+     * Constructor
+     * @param aCollection Collection whose nodes are to be indexed
+     * @param aFingerprintSize Number of bits of the path fingerprints
+     * @param aSearchDepth Maximum path length of the path fingerprints
+     * @throws CloneNotSupportedException if cloning is not possible.
+     * @throws IllegalArgumentException if the fingerprint size or the search depth is smaller than 1
+     * @throws NullPointerException if parameter is null
+     */
+    public ScaffoldSubstructureIndex(ScaffoldNodeCollectionBase aCollection, int aFingerprintSize, int aSearchDepth)
+            throws CloneNotSupportedException, IllegalArgumentException, NullPointerException {
+        Objects.requireNonNull(aCollection, "Given collection is 'null'");
+        this.fingerprinter = new ScaffoldFingerprinter(aFingerprintSize, aSearchDepth);
+        List<Integer> tmpNumberList = aCollection.getMatrixNodesNumbers();
+        tmpNumberList.sort(null);
+        this.nodes = new ScaffoldNodeBase[tmpNumberList.size()];
+        this.molecules = new IAtomContainer[tmpNumberList.size()];
+        this.fingerprints = new long[tmpNumberList.size()][];
+        for(int tmpIndex = 0; tmpIndex < this.nodes.length; tmpIndex++) {
+            this.nodes[tmpIndex] = aCollection.getMatrixNode(tmpNumberList.get(tmpIndex));
+            this.molecules[tmpIndex] = ((IAtomContainer) this.nodes[tmpIndex].getMolecule()).clone();
+            this.fingerprints[tmpIndex] = this.fingerprinter.createFingerprint(this.molecules[tmpIndex]);
+        }
+    }
+
+    /**
+     * Constructor with {@link ScaffoldFingerprinter#FINGERPRINT_SIZE_DEFAULT} bits and
+     * a search depth of {@link ScaffoldFingerprinter#SEARCH_DEPTH_DEFAULT}.
+     * @param aCollection Collection whose nodes are to be indexed
+     * @throws CloneNotSupportedException if cloning is not possible.
+     * @throws NullPointerException if parameter is null
+     */
+    public ScaffoldSubstructureIndex(ScaffoldNodeCollectionBase aCollection) throws CloneNotSupportedException, NullPointerException {
+        this(aCollection, ScaffoldFingerprinter.FINGERPRINT_SIZE_DEFAULT, ScaffoldFingerprinter.SEARCH_DEPTH_DEFAULT);
+    }
+
+    /**
+     * Returns the number of indexed nodes.
+     * @return number of indexed nodes
+     */
+    public int size() {
+        return this.nodes.length;
+    }
+
+    /**
+     * Returns the nodes whose fingerprints contain all bits of the query fingerprint, i.e. the nodes that pass the screening.
+     * The isomorphism check is not performed, so the list can contain nodes that do not contain the query.
+     * @param aQuery Query substructure, e.g. a ring system
+     * @return candidate nodes in the order of their matrix numbers
+     * @throws CloneNotSupportedException if cloning is not possible.
+     * @throws NullPointerException if parameter is null
+     */
+    public List<ScaffoldNodeBase> getCandidateNodes(IAtomContainer aQuery) throws CloneNotSupportedException, NullPointerException {
+        Objects.requireNonNull(aQuery, "Given query is 'null'");
+        List<ScaffoldNodeBase> tmpCandidateList = new ArrayList<>();
+        for(int tmpIndex : this.screen(this.fingerprinter.createFingerprint(aQuery.clone()))) {
+            tmpCandidateList.add(this.nodes[tmpIndex]);
+        }
+        return tmpCandidateList;
+    }
+
+    /**
+     * Returns all nodes whose molecule contains the query as substructure.
+     * The candidates are screened with the fingerprints and checked one after the other in the calling thread.
+     * @param aQuery Query substructure, e.g. a ring system
+     * @return matching nodes in the order of their matrix numbers
+     * @throws CDKException if the isomorphism check fails
+     * @throws CloneNotSupportedException if cloning is not possible.
+     * @throws NullPointerException if parameter is null
+     */
+    public List<ScaffoldNodeBase> getMatchingNodes(IAtomContainer aQuery) throws CDKException, CloneNotSupportedException, NullPointerException {
+        return this.getMatchingNodes(aQuery, null);
+    }
+
+    /**
+     * Returns all nodes whose molecule contains the query as substructure.
+     * The candidates are screened with the fingerprints and the isomorphism checks of the remaining candidates
+     * are run as tasks of the given fork-join pool.
+     * @param aQuery Query substructure, e.g. a ring system
+     * @param aForkJoinPool Pool the isomorphism checks are run in. If null, they are run in the calling thread.
+     * @return matching nodes in the order of their matrix numbers
+     * @throws CDKException if the isomorphism check fails
+     * @throws CloneNotSupportedException if cloning is not possible.
+     * @throws NullPointerException if the query is null
+     */
+    public List<ScaffoldNodeBase> getMatchingNodes(IAtomContainer aQuery, ForkJoinPool aForkJoinPool)
+            throws CDKException, CloneNotSupportedException, NullPointerException {
+        Objects.requireNonNull(aQuery, "Given query is 'null'");
+        IAtomContainer tmpQuery = aQuery.clone();
+        List<Integer> tmpCandidateList = this.screen(this.fingerprinter.createFingerprint(tmpQuery));
+        List<ScaffoldNodeBase> tmpMatchList = new ArrayList<>(tmpCandidateList.size());
+        /*Sequential check in the calling thread*/
+        if(aForkJoinPool == null || tmpCandidateList.size() < 2) {
+            for(int tmpIndex : tmpCandidateList) {
+                if(this.isSubstructure(tmpIndex, tmpQuery)) {
+                    tmpMatchList.add(this.nodes[tmpIndex]);
+                }
+            }
+            return tmpMatchList;
+        }
+        /*Parallel check, one task per candidate. The query is only read by the tasks*/
+        List<ForkJoinTask<Boolean>> tmpTaskList = new ArrayList<>(tmpCandidateList.size());
+        for(int tmpIndex : tmpCandidateList) {
+            tmpTaskList.add(ForkJoinTask.adapt(() -> this.isSubstructure(tmpIndex, tmpQuery)));
+        }
+        try {
+            aForkJoinPool.invoke(ForkJoinTask.adapt(() -> {
+                ForkJoinTask.invokeAll(tmpTaskList);
+            }));
+        } catch (RuntimeException anException) {
+            /*Checked exceptions are wrapped by the tasks and have to be unwrapped again*/
+            Throwable tmpCause = anException;
+            while (tmpCause != null) {
+                if (tmpCause instanceof CDKException) {
+                    throw (CDKException) tmpCause;
+                }
+                tmpCause = tmpCause.getCause();
+            }
+            throw anException;
+        }
+        for(int tmpPosition = 0; tmpPosition < tmpTaskList.size(); tmpPosition++) {
+            if(tmpTaskList.get(tmpPosition).join()) {
+                tmpMatchList.add(this.nodes[tmpCandidateList.get(tmpPosition)]);
+            }
+        }
+        return tmpMatchList;
+    }
+
+    /**
+     * Returns the positions of all indexed nodes whose fingerprints contain all bits of the query fingerprint.
+     * @param aQueryFingerprint Packed fingerprint of the query, null if none could be created
+     * @return positions of the candidate nodes in ascending order
+     */
+    protected List<Integer> screen(long[] aQueryFingerprint) {
+        List<Integer> tmpCandidateList = new ArrayList<>();
+        for(int tmpIndex = 0; tmpIndex < this.nodes.length; tmpIndex++) {
+            long[] tmpFingerprint = this.fingerprints[tmpIndex];
+            if(aQueryFingerprint == null || tmpFingerprint == null || ScaffoldSubstructureIndex.isSubset(aQueryFingerprint, tmpFingerprint)) {
+                tmpCandidateList.add(tmpIndex);
+            }
+        }
+        return tmpCandidateList;
+    }
+
+    /**
+     * Checks whether the molecule of an indexed node contains the query as substructure.
+     * The pattern matchers that replace the deprecated UniversalIsomorphismTester are part of cdk-isomorphism,
+     * which is not a dependency of this module, so the deprecation warning is suppressed here only.
+     * @param anIndex Position of the node
+     * @param aQuery Query substructure, only read
+     * @return true if the molecule of the node contains the query
+     * @throws CDKException if the isomorphism check fails
+     */
+    @SuppressWarnings("deprecation")
+    protected boolean isSubstructure(int anIndex, IAtomContainer aQuery) throws CDKException {
+        return new UniversalIsomorphismTester().isSubgraph(this.molecules[anIndex], aQuery);
+    }
+
+    /**
+     * Checks whether all bits of the first packed bit set are also set in the second one.
+     * @param aSubset Packed bit set that should be the subset
+     * @param aSuperset Packed bit set that should be the superset
+     * @return true if aSubset is a subset of aSuperset
+     */
+    protected static boolean isSubset(long[] aSubset, long[] aSuperset) {
+        for(int tmpWord = 0; tmpWord < aSubset.length; tmpWord++) {
+            long tmpSupersetWord = tmpWord < aSuperset.length ? aSuperset[tmpWord] : 0L;
+            if((aSubset[tmpWord] & ~tmpSupersetWord) != 0L) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
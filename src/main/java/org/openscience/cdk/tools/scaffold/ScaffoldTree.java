@@ -25,11 +25,29 @@ package org.openscience.cdk.tools.scaffold;
 
 import org.openscience.cdk.exception.CDKException;
 import org.openscience.cdk.interfaces.IAtomContainer;
+import org.openscience.cdk.interfaces.IChemObjectBuilder;
 import org.openscience.cdk.smiles.SmilesGenerator;
 
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
 import java.util.Objects;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.function.Supplier;
 
 /**
  * Top-level class to organise the TreeNodes as a tree.
@@ -40,6 +58,16 @@ import java.util.Objects;
  * @version 1.0.2.0
  */
 public class ScaffoldTree extends ScaffoldNodeCollectionBase {
+    /**
+     * First four bytes ("SCSF") of the sorted forest format written by {@link ScaffoldTree#writeSortedForestBinary(List, OutputStream)}.
+     */
+    public static final int SORTED_FOREST_MAGIC_NUMBER = 0x53435346;
+
+    /**
+     * Version of the sorted forest format written by {@link ScaffoldTree#writeSortedForestBinary(List, OutputStream)}.
+     */
+    public static final int SORTED_FOREST_VERSION = 1;
+
     /**
      * Constructor
      * @param aSmilesGenerator Used SMILES Generator
@@ -77,7 +105,7 @@ public class ScaffoldTree extends ScaffoldNodeCollectionBase {
         for(int tmpCount = 0; tmpCount < tmpNewNodeLevel; tmpCount++) {
             TreeNode<?> tmpNextNode = ((TreeNode<?>) tmpIterNode).getParent();
             for(Object tmpString : tmpIterNode.getOriginSmilesList()) {
-                tmpNextNode.addOriginSmiles((String) tmpString);
+                this.addOriginSmilesToNode(tmpNextNode, (String) tmpString);
             }
             tmpIterNode = tmpNextNode;
         }
@@ -107,6 +135,9 @@ public class ScaffoldTree extends ScaffoldNodeCollectionBase {
         int tmpNumberInNodeMap = this.reverseNodeMap.get(aNode); //get number in nodeMap
         this.nodeMap.remove(tmpNumberInNodeMap);
         this.reverseNodeMap.remove(aNode);
+        if(this.originIndex != null) {
+            this.originIndex.removeNode(tmpNumberInNodeMap);
+        }
         /*Remove from smilesMap*/
         String tmpSmiles = this.smilesGenerator.create((IAtomContainer) aNode.getMolecule()); //Convert molecule to SMILES
         this.smilesMap.remove(tmpSmiles, aNode);
@@ -146,6 +177,7 @@ public class ScaffoldTree extends ScaffoldNodeCollectionBase {
         if(this.getAllNodes().isEmpty()) {
             for(ScaffoldNodeBase tmpBaseNode : aScaffoldTree.getAllNodes()) {
                 TreeNode tmpNode = (TreeNode) tmpBaseNode;
+                this.spillOriginsIfNeeded(tmpNode);
                 this.addNode(tmpNode);
             }
             /*The new tree was inserted*/
@@ -169,12 +201,13 @@ public class ScaffoldTree extends ScaffoldNodeCollectionBase {
                         if(tmpOldSmiles.equals(tmpNewSmiles)) {
                             /*Add the origin smiles to the OldSmilesTree fragment*/
                             for(Object tmpOriginSmiles : tmpNewTreeNode.getOriginSmilesList()) {
-                                tmpOldTreeNode.addOriginSmiles((String) tmpOriginSmiles);
+                                this.addOriginSmilesToNode(tmpOldTreeNode, (String) tmpOriginSmiles);
                             }
                             /*Add the nonVirtualOrigin smiles to the OldSmilesTree fragment*/
                             for(Object tmpNonVirtualOriginSmiles : tmpNewTreeNode.getNonVirtualOriginSmilesList()) {
                                 tmpOldTreeNode.addNonVirtualOriginSmiles((String) tmpNonVirtualOriginSmiles);
                             }
+                            this.spillOriginsIfNeeded(tmpOldTreeNode);
                             //Trees are overlapping if a fragment occurs in both trees
                             tmpAreTreesOverlapping = true;
                             /*Get the children of the overlapping node*/
@@ -242,6 +275,272 @@ public class ScaffoldTree extends ScaffoldNodeCollectionBase {
         return tmpMatrix;
     }
 
+    /**
+     * Loads a tree written by {@link ScaffoldNodeCollectionBase#writeBinary(OutputStream)}.
+     * The molecules of the nodes are only parsed from their SMILES when they are first requested.
+     * The SMILES generator must be the same as the one of the written tree.
+     * @param anInputStream Stream the tree is read from. It is not closed.
+     * @param aSmilesGenerator Used SMILES Generator
+     * @param aBuilder Builder used to parse the molecules of the nodes
+     * @return loaded tree
+     * @throws IOException if the stream fails or does not contain a tree in a supported version
+     * @throws NullPointerException if a parameter is null
+     */
+    public static ScaffoldTree readBinary(InputStream anInputStream, SmilesGenerator aSmilesGenerator, IChemObjectBuilder aBuilder)
+            throws IOException, NullPointerException {
+        Objects.requireNonNull(anInputStream, "Given input stream is 'null'");
+        Objects.requireNonNull(aSmilesGenerator, "Given SMILES generator is 'null'");
+        Objects.requireNonNull(aBuilder, "Given builder is 'null'");
+        ScaffoldTree tmpScaffoldTree = new ScaffoldTree(aSmilesGenerator);
+        tmpScaffoldTree.readBinaryInto(anInputStream, aBuilder);
+        return tmpScaffoldTree;
+    }
+
+    /**
+     * Writes a forest, i.e. a list of trees, as number of trees followed by the trees in the format of
+     * {@link ScaffoldNodeCollectionBase#writeBinary(OutputStream)}. The stream is flushed but not closed.
+     * @param aScaffoldForest Trees to write
+     * @param anOutputStream Stream the forest is written to
+     * @throws IOException if the stream fails
+     * @throws CDKException if SMILES code of a molecule cannot be created
+     * @throws NullPointerException if a parameter is null
+     */
+    public static void writeForestBinary(List<ScaffoldTree> aScaffoldForest, OutputStream anOutputStream)
+            throws IOException, CDKException, NullPointerException {
+        Objects.requireNonNull(aScaffoldForest, "Given forest is 'null'");
+        Objects.requireNonNull(anOutputStream, "Given output stream is 'null'");
+        DataOutputStream tmpStream = new DataOutputStream(anOutputStream);
+        ScaffoldNodeCollectionBase.writeVarInt(tmpStream, aScaffoldForest.size());
+        tmpStream.flush();
+        for(ScaffoldTree tmpScaffoldTree : aScaffoldForest) {
+            tmpScaffoldTree.writeBinary(anOutputStream);
+        }
+    }
+
+    /**
+     * Loads a forest written by {@link ScaffoldTree#writeForestBinary(List, OutputStream)}.
+     * The molecules of the nodes are only parsed from their SMILES when they are first requested.
+     * @param anInputStream Stream the forest is read from. It is not closed.
+     * @param aSmilesGenerator Used SMILES Generator
+     * @param aBuilder Builder used to parse the molecules of the nodes
+     * @return loaded trees
+     * @throws IOException if the stream fails or does not contain a forest in a supported version
+     * @throws NullPointerException if a parameter is null
+     */
+    public static List<ScaffoldTree> readForestBinary(InputStream anInputStream, SmilesGenerator aSmilesGenerator, IChemObjectBuilder aBuilder)
+            throws IOException, NullPointerException {
+        Objects.requireNonNull(anInputStream, "Given input stream is 'null'");
+        int tmpTreeCount = ScaffoldNodeCollectionBase.readVarInt(new DataInputStream(anInputStream));
+        List<ScaffoldTree> tmpScaffoldForest = new ArrayList<>(tmpTreeCount);
+        for(int tmpIndex = 0; tmpIndex < tmpTreeCount; tmpIndex++) {
+            tmpScaffoldForest.add(ScaffoldTree.readBinary(anInputStream, aSmilesGenerator, aBuilder));
+        }
+        return tmpScaffoldForest;
+    }
+
+    /**
+     * Writes a forest as a list of its nodes sorted by SMILES, so that several such files can be merged by
+     * {@link ScaffoldTree#mergeSortedForestBinary(List, OutputStream)} without loading them. Each node is written
+     * as its SMILES, the SMILES of its parent and its origins. Nodes with the same SMILES in different trees are written once
+     * with the union of their origins. The stream is flushed but not closed.
+     * @param aScaffoldForest Trees to write
+     * @param anOutputStream Stream the forest is written to
+     * @throws IOException if the stream fails
+     * @throws CDKException if SMILES code of a molecule cannot be created
+     * @throws NullPointerException if a parameter is null
+     */
+    public static void writeSortedForestBinary(List<ScaffoldTree> aScaffoldForest, OutputStream anOutputStream)
+            throws IOException, CDKException, NullPointerException {
+        Objects.requireNonNull(aScaffoldForest, "Given forest is 'null'");
+        Objects.requireNonNull(anOutputStream, "Given output stream is 'null'");
+        TreeMap<String, SortedForestRecord> tmpRecordMap = new TreeMap<>();
+        for(ScaffoldTree tmpScaffoldTree : aScaffoldForest) {
+            IdentityHashMap<ScaffoldNodeBase, String> tmpNodeSmilesMap = tmpScaffoldTree.getNodeSmilesMap();
+            for(Map.Entry<ScaffoldNodeBase, String> tmpEntry : tmpNodeSmilesMap.entrySet()) {
+                TreeNode<?> tmpNode = (TreeNode<?>) tmpEntry.getKey();
+                String tmpParentSmiles = tmpNode.getParent() == null ? null : tmpScaffoldTree.getNodeSmiles(tmpNode.getParent(), tmpNodeSmilesMap);
+                SortedForestRecord tmpRecord = tmpRecordMap.computeIfAbsent(tmpEntry.getValue(), k -> new SortedForestRecord(k, tmpParentSmiles));
+                for(Object tmpOrigin : tmpNode.getOriginSmilesList()) {
+                    tmpRecord.originSmilesSet.add((String) tmpOrigin);
+                }
+                for(Object tmpOrigin : tmpNode.getNonVirtualOriginSmilesList()) {
+                    tmpRecord.nonVirtualOriginSmilesSet.add((String) tmpOrigin);
+                }
+            }
+        }
+        DataOutputStream tmpStream = new DataOutputStream(new BufferedOutputStream(anOutputStream));
+        tmpStream.writeInt(ScaffoldTree.SORTED_FOREST_MAGIC_NUMBER);
+        ScaffoldNodeCollectionBase.writeVarInt(tmpStream, ScaffoldTree.SORTED_FOREST_VERSION);
+        for(SortedForestRecord tmpRecord : tmpRecordMap.values()) {
+            tmpRecord.write(tmpStream);
+        }
+        tmpStream.writeByte(0);
+        tmpStream.flush();
+    }
+
+    /**
+     * Merges forests written by {@link ScaffoldTree#writeSortedForestBinary(List, OutputStream)} or by this method
+     * and writes the merged forest in the same format. The sorted node lists are merged in one pass like in a k-way merge sort,
+     * reading one node of each stream at a time, so nodes with the same SMILES become one node with the union of their origins.
+     * Since a scaffold has the same parent in every tree, trees with the same root are merged that way. No trees, nodes or molecules
+     * are created and the memory use does not depend on the size of the forests. Merging is associative and commutative,
+     * so the streams can be merged in any order and grouping. The output stream is flushed but not closed, the input streams are not closed.
+     * @param anInputStreamList Streams to merge
+     * @param anOutputStream Stream the merged forest is written to
+     * @throws IOException if a stream fails or does not contain a sorted forest in a supported version
+     * @throws NullPointerException if a parameter is null
+     */
+    public static void mergeSortedForestBinary(List<InputStream> anInputStreamList, OutputStream anOutputStream)
+            throws IOException, NullPointerException {
+        Objects.requireNonNull(anInputStreamList, "Given input stream list is 'null'");
+        Objects.requireNonNull(anOutputStream, "Given output stream is 'null'");
+        int tmpStreamCount = anInputStreamList.size();
+        DataInputStream[] tmpInputStreams = new DataInputStream[tmpStreamCount];
+        /*The current node of each stream is read once when the stream enters the queue*/
+        SortedForestRecord[] tmpHeadRecords = new SortedForestRecord[tmpStreamCount];
+        PriorityQueue<Integer> tmpQueue = new PriorityQueue<>(Math.max(1, tmpStreamCount), (aFirstStream, aSecondStream) ->
+                tmpHeadRecords[aFirstStream].smiles.compareTo(tmpHeadRecords[aSecondStream].smiles));
+        for(int tmpIndex = 0; tmpIndex < tmpStreamCount; tmpIndex++) {
+            tmpInputStreams[tmpIndex] = new DataInputStream(Objects.requireNonNull(anInputStreamList.get(tmpIndex), "Given input stream is 'null'"));
+            ScaffoldTree.readSortedForestHeader(tmpInputStreams[tmpIndex]);
+            tmpHeadRecords[tmpIndex] = SortedForestRecord.read(tmpInputStreams[tmpIndex]);
+            if(tmpHeadRecords[tmpIndex] != null) {
+                tmpQueue.add(tmpIndex);
+            }
+        }
+        DataOutputStream tmpStream = new DataOutputStream(new BufferedOutputStream(anOutputStream));
+        tmpStream.writeInt(ScaffoldTree.SORTED_FOREST_MAGIC_NUMBER);
+        ScaffoldNodeCollectionBase.writeVarInt(tmpStream, ScaffoldTree.SORTED_FOREST_VERSION);
+        SortedForestRecord tmpMergedRecord = null;
+        while(!tmpQueue.isEmpty()) {
+            int tmpIndex = tmpQueue.poll();
+            SortedForestRecord tmpRecord = tmpHeadRecords[tmpIndex];
+            if(tmpMergedRecord != null && tmpMergedRecord.smiles.equals(tmpRecord.smiles)) {
+                tmpMergedRecord.originSmilesSet.addAll(tmpRecord.originSmilesSet);
+                tmpMergedRecord.nonVirtualOriginSmilesSet.addAll(tmpRecord.nonVirtualOriginSmilesSet);
+            } else {
+                if(tmpMergedRecord != null) {
+                    tmpMergedRecord.write(tmpStream);
+                }
+                tmpMergedRecord = tmpRecord;
+            }
+            tmpHeadRecords[tmpIndex] = SortedForestRecord.read(tmpInputStreams[tmpIndex]);
+            if(tmpHeadRecords[tmpIndex] != null) {
+                if(tmpHeadRecords[tmpIndex].smiles.compareTo(tmpRecord.smiles) <= 0) {
+                    throw new IOException("Nodes of the sorted forest are not sorted by SMILES: " + tmpHeadRecords[tmpIndex].smiles);
+                }
+                tmpQueue.add(tmpIndex);
+            }
+        }
+        if(tmpMergedRecord != null) {
+            tmpMergedRecord.write(tmpStream);
+        }
+        tmpStream.writeByte(0);
+        tmpStream.flush();
+    }
+
+    /**
+     * Loads a forest written by {@link ScaffoldTree#writeSortedForestBinary(List, OutputStream)} or
+     * {@link ScaffoldTree#mergeSortedForestBinary(List, OutputStream)}. There is one tree per root node,
+     * the trees are ordered by the SMILES of their roots. The molecules of the nodes are only parsed from their SMILES
+     * when they are first requested.
+     * @param anInputStream Stream the forest is read from. It is not closed.
+     * @param aSmilesGenerator Used SMILES Generator
+     * @param aBuilder Builder used to parse the molecules of the nodes
+     * @return loaded trees
+     * @throws IOException if the stream fails, does not contain a sorted forest in a supported version or a parent is missing
+     * @throws NullPointerException if a parameter is null
+     */
+    public static List<ScaffoldTree> readSortedForestBinary(InputStream anInputStream, SmilesGenerator aSmilesGenerator, IChemObjectBuilder aBuilder)
+            throws IOException, NullPointerException {
+        Objects.requireNonNull(anInputStream, "Given input stream is 'null'");
+        Objects.requireNonNull(aSmilesGenerator, "Given SMILES generator is 'null'");
+        Objects.requireNonNull(aBuilder, "Given builder is 'null'");
+        DataInputStream tmpStream = new DataInputStream(anInputStream);
+        ScaffoldTree.readSortedForestHeader(tmpStream);
+        /*Nodes are created with a first tree, they do not depend on it*/
+        List<ScaffoldTree> tmpScaffoldForest = new ArrayList<>();
+        ScaffoldTree tmpNodeFactory = new ScaffoldTree(aSmilesGenerator);
+        LinkedHashMap<String, ScaffoldNodeBase> tmpNodeMap = new LinkedHashMap<>();
+        List<SortedForestRecord> tmpRecordList = new ArrayList<>();
+        for(SortedForestRecord tmpRecord = SortedForestRecord.read(tmpStream); tmpRecord != null; tmpRecord = SortedForestRecord.read(tmpStream)) {
+            ScaffoldNodeBase tmpNode = tmpNodeFactory.createLazyNode(ScaffoldNodeCollectionBase.createMoleculeSupplier(tmpRecord.smiles, aBuilder));
+            tmpNode.setOriginSmilesList(new IndexedSetList<>(tmpRecord.originSmilesSet));
+            tmpNode.setNonVirtualOriginSmilesList(new IndexedSetList<>(tmpRecord.nonVirtualOriginSmilesSet));
+            tmpNodeMap.put(tmpRecord.smiles, tmpNode);
+            tmpRecordList.add(tmpRecord);
+        }
+        IdentityHashMap<ScaffoldNodeBase, String> tmpNodeSmilesMap = new IdentityHashMap<>(tmpNodeMap.size());
+        List<ScaffoldNodeBase> tmpRootList = new ArrayList<>();
+        for(SortedForestRecord tmpRecord : tmpRecordList) {
+            ScaffoldNodeBase tmpNode = tmpNodeMap.get(tmpRecord.smiles);
+            tmpNodeSmilesMap.put(tmpNode, tmpRecord.smiles);
+            if(tmpRecord.parentSmiles == null) {
+                tmpRootList.add(tmpNode);
+                continue;
+            }
+            ScaffoldNodeBase tmpParent = tmpNodeMap.get(tmpRecord.parentSmiles);
+            if(tmpParent == null) {
+                throw new IOException("Parent of a node is not in the stream: " + tmpRecord.parentSmiles);
+            }
+            tmpNodeFactory.linkLoadedNodes(tmpParent, tmpNode);
+        }
+        /*Add the nodes of each root level by level*/
+        for(ScaffoldNodeBase tmpRoot : tmpRootList) {
+            ScaffoldTree tmpScaffoldTree = tmpScaffoldForest.isEmpty() ? tmpNodeFactory : new ScaffoldTree(aSmilesGenerator);
+            List<ScaffoldNodeBase> tmpLevelNodeList = Collections.singletonList(tmpRoot);
+            int tmpNumber = 0;
+            for(int tmpLevel = 0; !tmpLevelNodeList.isEmpty(); tmpLevel++) {
+                List<ScaffoldNodeBase> tmpNextLevelNodeList = new ArrayList<>();
+                for(ScaffoldNodeBase tmpNode : tmpLevelNodeList) {
+                    tmpScaffoldTree.addLoadedNode(tmpNumber++, tmpNodeSmilesMap.get(tmpNode), tmpLevel, tmpNode);
+                    for(Object tmpChild : tmpNode.getChildren()) {
+                        tmpNextLevelNodeList.add((ScaffoldNodeBase) tmpChild);
+                    }
+                }
+                tmpLevelNodeList = tmpNextLevelNodeList;
+            }
+            tmpScaffoldForest.add(tmpScaffoldTree);
+        }
+        return tmpScaffoldForest;
+    }
+
+    /**
+     * Reads and checks the magic number and version of a sorted forest.
+     * @param aStream Stream the header is read from
+     * @throws IOException if the stream fails or does not contain a sorted forest in a supported version
+     */
+    private static void readSortedForestHeader(DataInputStream aStream) throws IOException {
+        if(aStream.readInt() != ScaffoldTree.SORTED_FOREST_MAGIC_NUMBER) {
+            throw new IOException("Stream does not contain a sorted scaffold forest");
+        }
+        int tmpVersion = ScaffoldNodeCollectionBase.readVarInt(aStream);
+        if(tmpVersion != ScaffoldTree.SORTED_FOREST_VERSION) {
+            throw new IOException("Unsupported sorted forest version: " + tmpVersion);
+        }
+    }
+
+    /**
+     * Returns the type of the tree in the binary format.
+     * Description copied from {@link ScaffoldNodeCollectionBase}.
+     * @return type of the collection
+     */
+    @Override
+    protected byte getBinaryCollectionType() {
+        return 2;
+    }
+
+    /**
+     * Creates a lazily loaded TreeNode.
+     * Description copied from {@link ScaffoldNodeCollectionBase}.
+     * @param aMoleculeSupplier creates the molecule of the node
+     * @return lazily loaded node
+     */
+    @Override
+    protected ScaffoldNodeBase createLazyNode(Supplier<IAtomContainer> aMoleculeSupplier) {
+        return new TreeNode<>(aMoleculeSupplier);
+    }
+
     /**
      * Outputs root node of the tree.
      * @return root node of the tree
@@ -304,4 +603,101 @@ public class ScaffoldTree extends ScaffoldNodeCollectionBase {
         }
         return tmpRootCounter == 1;
     }
+
+    /**
+     * Node of a sorted forest file: SMILES, parent SMILES and origins.
+     */
+    private static class SortedForestRecord {
+        /**
+         * SMILES of the node
+         */
+        private final String smiles;
+
+        /**
+         * SMILES of the parent, null for a root
+         */
+        private final String parentSmiles;
+
+        /**
+         * Origins of the node
+         */
+        private final LinkedHashSet<String> originSmilesSet;
+
+        /**
+         * Non-virtual origins of the node
+         */
+        private final LinkedHashSet<String> nonVirtualOriginSmilesSet;
+
+        /**
+         * Constructor
+         * @param aSmiles SMILES of the node
+         * @param aParentSmiles SMILES of the parent, null for a root
+         */
+        private SortedForestRecord(String aSmiles, String aParentSmiles) {
+            this.smiles = aSmiles;
+            this.parentSmiles = aParentSmiles;
+            this.originSmilesSet = new LinkedHashSet<>();
+            this.nonVirtualOriginSmilesSet = new LinkedHashSet<>();
+        }
+
+        /**
+         * Reads the next node of a sorted forest.
+         * @param aStream Stream the node is read from
+         * @return read node or null at the end of the forest
+         * @throws IOException if the stream fails
+         */
+        private static SortedForestRecord read(DataInputStream aStream) throws IOException {
+            if(aStream.readByte() == 0) {
+                return null;
+            }
+            String tmpSmiles = ScaffoldNodeCollectionBase.readString(aStream);
+            String tmpParentSmiles = aStream.readBoolean() ? ScaffoldNodeCollectionBase.readString(aStream) : null;
+            SortedForestRecord tmpRecord = new SortedForestRecord(tmpSmiles, tmpParentSmiles);
+            SortedForestRecord.readStrings(aStream, tmpRecord.originSmilesSet);
+            SortedForestRecord.readStrings(aStream, tmpRecord.nonVirtualOriginSmilesSet);
+            return tmpRecord;
+        }
+
+        /**
+         * Writes the node.
+         * @param aStream Stream the node is written to
+         * @throws IOException if the stream fails
+         */
+        private void write(DataOutputStream aStream) throws IOException {
+            aStream.writeByte(1);
+            ScaffoldNodeCollectionBase.writeString(aStream, this.smiles);
+            aStream.writeBoolean(this.parentSmiles != null);
+            if(this.parentSmiles != null) {
+                ScaffoldNodeCollectionBase.writeString(aStream, this.parentSmiles);
+            }
+            SortedForestRecord.writeStrings(aStream, this.originSmilesSet);
+            SortedForestRecord.writeStrings(aStream, this.nonVirtualOriginSmilesSet);
+        }
+
+        /**
+         * Reads a number of strings followed by the strings.
+         * @param aStream Stream the strings are read from
+         * @param aStringSet Set the strings are added to
+         * @throws IOException if the stream fails
+         */
+        private static void readStrings(DataInputStream aStream, Set<String> aStringSet) throws IOException {
+            int tmpCount = ScaffoldNodeCollectionBase.readVarInt(aStream);
+            for(int tmpIndex = 0; tmpIndex < tmpCount; tmpIndex++) {
+                aStringSet.add(ScaffoldNodeCollectionBase.readString(aStream));
+            }
+        }
+
+        /**
+         * Writes the number of strings followed by the strings.
+         * @param aStream Stream the strings are written to
+         * @param aStringSet Strings to write
+         * @throws IOException if the stream fails
+         */
+        private static void writeStrings(DataOutputStream aStream, Set<String> aStringSet) throws IOException {
+            ScaffoldNodeCollectionBase.writeVarInt(aStream, aStringSet.size());
+            for(String tmpString : aStringSet) {
+                ScaffoldNodeCollectionBase.writeString(aStream, tmpString);
+            }
+        }
+    }
 }
@@ -24,6 +24,7 @@
 package org.openscience.cdk.tools.scaffold;
 
 import java.util.Objects;
+import java.util.function.Supplier;
 
 /**
  * The TreeNodes are nodes from which a {@link ScaffoldTree} can be built.
@@ -52,6 +53,14 @@ public class TreeNode<MoleculeType> extends ScaffoldNodeBase<MoleculeType> {
         super(aMolecule);
     }
 
+    /**
+     * Creates a lazily loaded TreeNode whose molecule is only created when it is first requested.
+     * @param aMoleculeSupplier creates the molecule of the TreeNode
+     */
+    protected TreeNode(Supplier<MoleculeType> aMoleculeSupplier) {
+        super(aMoleculeSupplier);
+    }
+
     /**
      * Shows if the node has parents. Description copied from {@link ScaffoldNodeBase}.
      * @return Whether the node has parents
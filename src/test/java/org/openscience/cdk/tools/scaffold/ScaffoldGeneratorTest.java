@@ -28,7 +28,10 @@ import org.junit.jupiter.api.Tag;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.Disabled;
 import org.openscience.cdk.AtomContainer;
+import org.openscience.cdk.aromaticity.Aromaticity;
 import org.openscience.cdk.aromaticity.Kekulization;
+import org.openscience.cdk.exception.InvalidSmilesException;
+import org.openscience.cdk.fingerprint.Fingerprinter;
 import org.openscience.cdk.interfaces.IAtom;
 import org.openscience.cdk.interfaces.IAtomContainer;
 import org.openscience.cdk.interfaces.IBond;
@@ -37,6 +40,7 @@ import org.openscience.cdk.io.FormatFactory;
 import org.openscience.cdk.io.MDLV2000Reader;
 import org.openscience.cdk.io.MDLV3000Reader;
 import org.openscience.cdk.io.formats.IChemFormat;
+import org.openscience.cdk.isomorphism.UniversalIsomorphismTester;
 import org.openscience.cdk.silent.SilentChemObjectBuilder;
 import org.openscience.cdk.smiles.SmiFlavor;
 import org.openscience.cdk.smiles.SmilesGenerator;
@@ -45,15 +49,32 @@ import org.openscience.cdk.tools.CDKHydrogenAdder;
 import org.openscience.cdk.tools.manipulator.AtomContainerManipulator;
 
 import java.io.BufferedInputStream;
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.BitSet;
 import java.util.Collections;
+import java.util.EnumSet;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 /**
  * JUnit test class for the Scaffold Generator.
@@ -2116,6 +2137,1524 @@ public class ScaffoldGeneratorTest extends ScaffoldGenerator {
         Assertions.assertEquals("C1=CCCNC1", tmpSmilesGenerator.create(tmpSchuffenhauerFragments.get(1)));
     }
 
+    /**
+     * Test of ScaffoldGenerator.setParallelRingEvaluationSetting() with SMILES.
+     * Generates the Schuffenhauer fragments, the enumerative removal fragments and the scaffold network of several
+     * polycyclic molecules sequentially and in parallel on a separate fork-join pool and checks that the results are identical.
+     *
+     * @throws Exception if anything goes wrong
+     */
+    @Test
+    public void setParallelRingEvaluationSettingTest() throws Exception {
+        //SMILES to IAtomContainer
+        SmilesParser tmpParser  = new SmilesParser(SilentChemObjectBuilder.getInstance());
+        List<IAtomContainer> tmpMoleculeList = new ArrayList<>(3);
+        tmpMoleculeList.add(tmpParser.parseSmiles("CC1=C(C(=NO1)C2=C(C=CC=C2Cl)F)C(=O)NC3C4N(C3=O)C(C(S4)(C)C)C(=O)O")); //Flucloxacillin
+        tmpMoleculeList.add(tmpParser.parseSmiles("CCN(C1=CC=CC(=C1)C2=CC=NC3=C(C=NN23)C#N)C(=O)C")); //Scheme12
+        tmpMoleculeList.add(tmpParser.parseSmiles("CC1=NN(C2=C1C(=NCC(=O)N2C)C3=CC=CC=C3F)C")); //Zolazepam
+        ScaffoldGenerator tmpScaffoldGenerator = this.getScaffoldGeneratorTestSettings();
+        SmilesGenerator tmpSmilesGenerator = new SmilesGenerator(SmiFlavor.Unique);
+        ForkJoinPool tmpForkJoinPool = new ForkJoinPool(4);
+        try {
+            for (IAtomContainer tmpMolecule : tmpMoleculeList) {
+                /*Sequential results*/
+                tmpScaffoldGenerator.setParallelRingEvaluationSetting(false);
+                List<IAtomContainer> tmpSequentialRules = tmpScaffoldGenerator.applySchuffenhauerRules(tmpMolecule);
+                List<IAtomContainer> tmpSequentialRemoval = tmpScaffoldGenerator.applyEnumerativeRemoval(tmpMolecule);
+                ScaffoldNetwork tmpSequentialNetwork = tmpScaffoldGenerator.generateScaffoldNetwork(tmpMolecule);
+                /*Parallel results*/
+                tmpScaffoldGenerator.setParallelRingEvaluationSetting(true);
+                tmpScaffoldGenerator.setForkJoinPoolSetting(tmpForkJoinPool);
+                List<IAtomContainer> tmpParallelRules = tmpScaffoldGenerator.applySchuffenhauerRules(tmpMolecule);
+                List<IAtomContainer> tmpParallelRemoval = tmpScaffoldGenerator.applyEnumerativeRemoval(tmpMolecule);
+                ScaffoldNetwork tmpParallelNetwork = tmpScaffoldGenerator.generateScaffoldNetwork(tmpMolecule);
+                /*Compare the SMILES*/
+                Assertions.assertEquals(tmpSequentialRules.size(), tmpParallelRules.size());
+                for (int i = 0; i < tmpSequentialRules.size(); i++) {
+                    Assertions.assertEquals(tmpSmilesGenerator.create(tmpSequentialRules.get(i)), tmpSmilesGenerator.create(tmpParallelRules.get(i)));
+                }
+                Assertions.assertEquals(tmpSequentialRemoval.size(), tmpParallelRemoval.size());
+                for (int i = 0; i < tmpSequentialRemoval.size(); i++) {
+                    Assertions.assertEquals(tmpSmilesGenerator.create(tmpSequentialRemoval.get(i)), tmpSmilesGenerator.create(tmpParallelRemoval.get(i)));
+                }
+                Assertions.assertEquals(tmpSequentialNetwork.getMaxLevel(), tmpParallelNetwork.getMaxLevel());
+                for (int i = 0; i <= tmpSequentialNetwork.getMaxLevel(); i++) {
+                    HashSet<String> tmpSequentialSmilesSet = new HashSet<>();
+                    for (ScaffoldNodeBase tmpNode : tmpSequentialNetwork.getAllNodesOnLevel(i)) {
+                        tmpSequentialSmilesSet.add(tmpSmilesGenerator.create((IAtomContainer) tmpNode.getMolecule()));
+                    }
+                    HashSet<String> tmpParallelSmilesSet = new HashSet<>();
+                    for (ScaffoldNodeBase tmpNode : tmpParallelNetwork.getAllNodesOnLevel(i)) {
+                        tmpParallelSmilesSet.add(tmpSmilesGenerator.create((IAtomContainer) tmpNode.getMolecule()));
+                    }
+                    Assertions.assertEquals(tmpSequentialSmilesSet, tmpParallelSmilesSet);
+                }
+            }
+        } finally {
+            tmpForkJoinPool.shutdown();
+        }
+        /*Restore the defaults*/
+        tmpScaffoldGenerator.restoreDefaultSettings();
+        Assertions.assertFalse(tmpScaffoldGenerator.isRingEvaluationParallel());
+        Assertions.assertNull(tmpScaffoldGenerator.getForkJoinPool());
+        /*Without a pool setting, the common pool is used*/
+        tmpScaffoldGenerator.setParallelRingEvaluationSetting(true);
+        List<IAtomContainer> tmpSequentialRules = this.getScaffoldGeneratorTestSettings().applySchuffenhauerRules(tmpMoleculeList.get(0));
+        List<IAtomContainer> tmpCommonPoolRules = tmpScaffoldGenerator.applySchuffenhauerRules(tmpMoleculeList.get(0));
+        Assertions.assertEquals(tmpSequentialRules.size(), tmpCommonPoolRules.size());
+        for (int i = 0; i < tmpSequentialRules.size(); i++) {
+            Assertions.assertEquals(tmpSmilesGenerator.create(tmpSequentialRules.get(i)), tmpSmilesGenerator.create(tmpCommonPoolRules.get(i)));
+        }
+    }
+
+    /**
+     * Test of the fragment and ring budgets of ScaffoldGenerator.applyEnumerativeRemoval() and
+     * ScaffoldGenerator.generateScaffoldNetwork() with Flucloxacillin, which yields 10 fragments without budgets.
+     *
+     * @throws Exception if anything goes wrong
+     */
+    @Test
+    public void setMaximumFragmentAndRingCountSettingTest() throws Exception {
+        //SMILES to IAtomContainer
+        SmilesParser tmpParser  = new SmilesParser(SilentChemObjectBuilder.getInstance());
+        IAtomContainer tmpMolecule = tmpParser.parseSmiles("CC1=C(C(=NO1)C2=C(C=CC=C2Cl)F)C(=O)NC3C4N(C3=O)C(C(S4)(C)C)C(=O)O");
+        ScaffoldGenerator tmpScaffoldGenerator = this.getScaffoldGeneratorTestSettings();
+        /*Without budgets*/
+        List<IAtomContainer> tmpFragmentList = tmpScaffoldGenerator.applyEnumerativeRemoval(tmpMolecule);
+        Assertions.assertEquals(10, tmpFragmentList.size());
+        Assertions.assertNull(tmpFragmentList.get(0).getProperty(ScaffoldGenerator.SCAFFOLD_TRUNCATED_PROPERTY));
+        ScaffoldNetwork tmpNetwork = tmpScaffoldGenerator.generateScaffoldNetwork(tmpMolecule);
+        Assertions.assertEquals(10, tmpNetwork.getAllNodes().size());
+        Assertions.assertFalse(tmpNetwork.isTruncated());
+        /*Fragment budget*/
+        tmpScaffoldGenerator.setMaximumFragmentCountSetting(4);
+        tmpFragmentList = tmpScaffoldGenerator.applyEnumerativeRemoval(tmpMolecule);
+        Assertions.assertEquals(4, tmpFragmentList.size());
+        Assertions.assertEquals(true, tmpFragmentList.get(0).getProperty(ScaffoldGenerator.SCAFFOLD_TRUNCATED_PROPERTY));
+        tmpNetwork = tmpScaffoldGenerator.generateScaffoldNetwork(tmpMolecule);
+        Assertions.assertEquals(4, tmpNetwork.getAllNodes().size());
+        Assertions.assertTrue(tmpNetwork.isTruncated());
+        /*The truncated molecule is taken over when merging*/
+        ScaffoldNetwork tmpMergedNetwork = tmpScaffoldGenerator.generateScaffoldNetwork(Collections.singletonList(tmpMolecule));
+        Assertions.assertEquals(1, tmpMergedNetwork.getTruncatedOriginSmilesList().size());
+        /*Duplicates are not added and the returned list is a copy*/
+        tmpMergedNetwork.addTruncatedOriginSmiles(tmpMergedNetwork.getTruncatedOriginSmilesList().get(0));
+        tmpMergedNetwork.getTruncatedOriginSmilesList().clear();
+        Assertions.assertEquals(1, tmpMergedNetwork.getTruncatedOriginSmilesList().size());
+        /*Ring budget*/
+        tmpScaffoldGenerator.restoreDefaultSettings();
+        tmpScaffoldGenerator.setMaximumRingCountSetting(3);
+        tmpFragmentList = tmpScaffoldGenerator.applyEnumerativeRemoval(tmpMolecule);
+        Assertions.assertEquals(1, tmpFragmentList.size());
+        Assertions.assertEquals(true, tmpFragmentList.get(0).getProperty(ScaffoldGenerator.SCAFFOLD_TRUNCATED_PROPERTY));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> tmpScaffoldGenerator.setMaximumWallTimeSetting(0));
+    }
+
+    /**
+     * Test of the CycleFinderContext: The cycle finder is selected once from the CYCLE_FINDER_BACKUP_PROPERTY
+     * and the selection does not change the atoms of the molecule.
+     *
+     * @throws Exception if anything goes wrong
+     */
+    @Test
+    public void cycleFinderContextTest() throws Exception {
+        //SMILES to IAtomContainer
+        SmilesParser tmpParser  = new SmilesParser(SilentChemObjectBuilder.getInstance());
+        IAtomContainer tmpMolecule = tmpParser.parseSmiles("CC1=C(C(=NO1)C2=C(C=CC=C2Cl)F)C(=O)NC3C4N(C3=O)C(C(S4)(C)C)C(=O)O");
+        ScaffoldGenerator tmpScaffoldGenerator = this.getScaffoldGeneratorTestSettings();
+        CycleFinderContext tmpContext = tmpScaffoldGenerator.createCycleFinderContext(tmpMolecule);
+        Assertions.assertFalse(tmpContext.isBackupCycleFinderUsed());
+        Assertions.assertSame(ScaffoldGenerator.CYCLE_FINDER, tmpContext.getCycleFinder());
+        /*The rings are the same as with the legacy signature*/
+        Assertions.assertEquals(this.getRingsInternal(tmpMolecule, false).size(), this.getRingsInternal(tmpMolecule, false, tmpContext).size());
+        tmpContext.switchToBackupCycleFinder();
+        Assertions.assertSame(ScaffoldGenerator.CYCLE_FINDER_BACKUP, tmpContext.getCycleFinder());
+        /*Selecting the cycle finder does not write the property*/
+        for(IAtom tmpAtom : tmpMolecule.atoms()) {
+            Assertions.assertNull(tmpAtom.getProperty(ScaffoldGenerator.CYCLE_FINDER_BACKUP_PROPERTY));
+        }
+        /*The property of a single atom selects the backup cycle finder*/
+        tmpMolecule.getAtom(0).setProperty(ScaffoldGenerator.CYCLE_FINDER_BACKUP_PROPERTY, true);
+        Assertions.assertTrue(tmpScaffoldGenerator.createCycleFinderContext(tmpMolecule).isBackupCycleFinderUsed());
+        Assertions.assertSame(ScaffoldGenerator.CYCLE_FINDER_BACKUP, this.getCycleFinder(tmpMolecule));
+        Assertions.assertEquals(10, tmpScaffoldGenerator.applyEnumerativeRemoval(tmpMolecule).size());
+    }
+
+    /**
+     * Test of the reactive fallback to the CYCLE_FINDER_BACKUP in applySchuffenhauerRules().
+     * The scaffold with the K5 graph has 10 relevant cycles but only 7 atoms. The fragments are the same
+     * as those of the molecule that carries the CYCLE_FINDER_BACKUP_PROPERTY from the start, and they all keep the property.
+     *
+     * @throws Exception if anything goes wrong
+     */
+    @Test
+    public void reactiveCycleFinderFallbackTest() throws Exception {
+        //SMILES to IAtomContainer
+        SmilesParser tmpParser  = new SmilesParser(SilentChemObjectBuilder.getInstance());
+        IAtomContainer tmpMolecule = tmpParser.parseSmiles("C1CC1C123C45C16C24C356");
+        IAtomContainer tmpMarkedMolecule = tmpMolecule.clone();
+        for(IAtom tmpAtom : tmpMarkedMolecule.atoms()) {
+            tmpAtom.setProperty(ScaffoldGenerator.CYCLE_FINDER_BACKUP_PROPERTY, true);
+        }
+        ScaffoldGenerator tmpScaffoldGenerator = this.getScaffoldGeneratorTestSettings();
+        SmilesGenerator tmpSmilesGenerator = new SmilesGenerator(SmiFlavor.Unique);
+        List<IAtomContainer> tmpFragmentList = tmpScaffoldGenerator.applySchuffenhauerRules(tmpMolecule);
+        Assertions.assertEquals(1, tmpScaffoldGenerator.getReactiveCycleFinderFallbackCount());
+        List<IAtomContainer> tmpMarkedFragmentList = tmpScaffoldGenerator.applySchuffenhauerRules(tmpMarkedMolecule);
+        Assertions.assertEquals(1, tmpScaffoldGenerator.getReactiveCycleFinderFallbackCount());
+        Assertions.assertEquals(tmpMarkedFragmentList.size(), tmpFragmentList.size());
+        for (int i = 0; i < tmpFragmentList.size(); i++) {
+            Assertions.assertEquals(tmpSmilesGenerator.create(tmpMarkedFragmentList.get(i)), tmpSmilesGenerator.create(tmpFragmentList.get(i)));
+            for(IAtom tmpAtom : tmpFragmentList.get(i).atoms()) {
+                Assertions.assertEquals(true, tmpAtom.getProperty(ScaffoldGenerator.CYCLE_FINDER_BACKUP_PROPERTY));
+            }
+        }
+    }
+
+    /**
+     * Test of the predictive fallback to the CYCLE_FINDER_BACKUP with the thresholds for the fused ring systems.
+     * Flucloxacillin has a fused ring system with 7 atoms and a cyclomatic number of 2.
+     *
+     * @throws Exception if anything goes wrong
+     */
+    @Test
+    public void setMaximumCyclomaticNumberAndRingSystemSizeSettingTest() throws Exception {
+        //SMILES to IAtomContainer
+        SmilesParser tmpParser  = new SmilesParser(SilentChemObjectBuilder.getInstance());
+        IAtomContainer tmpMolecule = tmpParser.parseSmiles("CC1=C(C(=NO1)C2=C(C=CC=C2Cl)F)C(=O)NC3C4N(C3=O)C(C(S4)(C)C)C(=O)O");
+        ScaffoldGenerator tmpScaffoldGenerator = this.getScaffoldGeneratorTestSettings();
+        List<IAtomContainer> tmpFragmentList = tmpScaffoldGenerator.applySchuffenhauerRules(tmpMolecule);
+        Assertions.assertEquals(0, tmpScaffoldGenerator.getPredictedCycleFinderFallbackCount());
+        Assertions.assertEquals(0, tmpScaffoldGenerator.getReactiveCycleFinderFallbackCount());
+        /*The thresholds are not exceeded*/
+        tmpScaffoldGenerator.setMaximumCyclomaticNumberSetting(2);
+        tmpScaffoldGenerator.setMaximumRingSystemSizeSetting(7);
+        Assertions.assertFalse(tmpScaffoldGenerator.predictCycleFinderContext(tmpMolecule).isBackupCycleFinderUsed());
+        Assertions.assertEquals(0, tmpScaffoldGenerator.getPredictedCycleFinderFallbackCount());
+        /*The cyclomatic number is exceeded*/
+        tmpScaffoldGenerator.setMaximumCyclomaticNumberSetting(1);
+        List<IAtomContainer> tmpBackupFragmentList = tmpScaffoldGenerator.applySchuffenhauerRules(tmpMolecule);
+        Assertions.assertEquals(1, tmpScaffoldGenerator.getPredictedCycleFinderFallbackCount());
+        Assertions.assertEquals(tmpFragmentList.size(), tmpBackupFragmentList.size());
+        Assertions.assertEquals(true, tmpBackupFragmentList.get(0).getAtom(0).getProperty(ScaffoldGenerator.CYCLE_FINDER_BACKUP_PROPERTY));
+        /*The ring system size is exceeded*/
+        tmpScaffoldGenerator.restoreDefaultSettings();
+        tmpScaffoldGenerator.setMaximumRingSystemSizeSetting(6);
+        tmpScaffoldGenerator.generateScaffoldNetwork(tmpMolecule);
+        Assertions.assertEquals(2, tmpScaffoldGenerator.getPredictedCycleFinderFallbackCount());
+        tmpScaffoldGenerator.resetCycleFinderFallbackCounts();
+        Assertions.assertEquals(0, tmpScaffoldGenerator.getPredictedCycleFinderFallbackCount());
+        Assertions.assertThrows(IllegalArgumentException.class, () -> tmpScaffoldGenerator.setMaximumCyclomaticNumberSetting(0));
+    }
+
+    /**
+     * Test of generateLazyScaffoldNetwork(): The parents are only generated on request and the completely expanded
+     * network contains the same nodes as the one of generateScaffoldNetwork().
+     *
+     * @throws Exception if anything goes wrong
+     */
+    @Test
+    public void generateLazyScaffoldNetworkTest() throws Exception {
+        //SMILES to IAtomContainer
+        SmilesParser tmpParser  = new SmilesParser(SilentChemObjectBuilder.getInstance());
+        IAtomContainer tmpMolecule = tmpParser.parseSmiles("CC1=C(C(=NO1)C2=C(C=CC=C2Cl)F)C(=O)NC3C4N(C3=O)C(C(S4)(C)C)C(=O)O");
+        ScaffoldGenerator tmpScaffoldGenerator = this.getScaffoldGeneratorTestSettings();
+        SmilesGenerator tmpSmilesGenerator = new SmilesGenerator(SmiFlavor.Unique);
+        ScaffoldNetwork tmpLazyNetwork = tmpScaffoldGenerator.generateLazyScaffoldNetwork(tmpMolecule);
+        Assertions.assertEquals(1, tmpLazyNetwork.getAllNodes().size());
+        NetworkNode<IAtomContainer> tmpFirstNode = (NetworkNode<IAtomContainer>) tmpLazyNetwork.getAllNodes().get(0);
+        Assertions.assertFalse(tmpFirstNode.isExpanded());
+        /*Expansion of the first node only*/
+        List<NetworkNode<IAtomContainer>> tmpParents = tmpFirstNode.getExpandedParents();
+        Assertions.assertTrue(tmpFirstNode.isExpanded());
+        Assertions.assertEquals(tmpParents.size() + 1, tmpLazyNetwork.getAllNodes().size());
+        Assertions.assertSame(tmpParents, tmpFirstNode.getExpandedParents());
+        Assertions.assertFalse(tmpParents.get(0).isExpanded());
+        /*Expansion of all nodes*/
+        List<NetworkNode<IAtomContainer>> tmpQueue = new ArrayList<>(tmpParents);
+        while (!tmpQueue.isEmpty()) {
+            tmpQueue.addAll(tmpQueue.remove(0).getExpandedParents());
+        }
+        ScaffoldNetwork tmpEagerNetwork = tmpScaffoldGenerator.generateScaffoldNetwork(tmpMolecule);
+        Assertions.assertEquals(tmpEagerNetwork.getAllNodes().size(), tmpLazyNetwork.getAllNodes().size());
+        for (ScaffoldNodeBase tmpNode : tmpEagerNetwork.getAllNodes()) {
+            Assertions.assertTrue(tmpLazyNetwork.containsMolecule((IAtomContainer) tmpNode.getMolecule()),
+                    tmpSmilesGenerator.create((IAtomContainer) tmpNode.getMolecule()));
+        }
+        Assertions.assertEquals(tmpEagerNetwork.getRoots().size(), tmpLazyNetwork.getRoots().size());
+        /*A lazy network is expanded before it is merged*/
+        IAtomContainer tmpOtherMolecule = tmpParser.parseSmiles("CC1=NN(C2=C1C(=NCC(=O)N2C)C3=CC=CC=C3F)C");
+        ScaffoldNetwork tmpMergedLazyNetwork = tmpScaffoldGenerator.generateScaffoldNetwork(tmpOtherMolecule);
+        tmpMergedLazyNetwork.mergeNetwork(tmpScaffoldGenerator.generateLazyScaffoldNetwork(tmpMolecule));
+        ScaffoldNetwork tmpMergedEagerNetwork = tmpScaffoldGenerator.generateScaffoldNetwork(tmpOtherMolecule);
+        tmpMergedEagerNetwork.mergeNetwork(tmpEagerNetwork);
+        Assertions.assertEquals(tmpMergedEagerNetwork.getAllNodes().size(), tmpMergedLazyNetwork.getAllNodes().size());
+        Assertions.assertEquals(tmpMergedEagerNetwork.getMaxLevel(), tmpMergedLazyNetwork.getMaxLevel());
+        for (ScaffoldNodeBase tmpNode : tmpMergedLazyNetwork.getAllNodes()) {
+            Assertions.assertTrue(((NetworkNode<?>) tmpNode).isExpanded());
+            Assertions.assertTrue(tmpMergedLazyNetwork.getAllNodesOnLevel(tmpNode.getLevel()).contains(tmpNode));
+            Assertions.assertEquals(tmpMergedEagerNetwork.getNode((IAtomContainer) tmpNode.getMolecule()).getLevel(), tmpNode.getLevel());
+        }
+    }
+
+    /**
+     * Test of iterateEnumerativeRemoval() and streamEnumerativeRemoval(): The scaffolds are returned in the same order
+     * as by applyEnumerativeRemoval().
+     *
+     * @throws Exception if anything goes wrong
+     */
+    @Test
+    public void iterateEnumerativeRemovalTest() throws Exception {
+        //SMILES to IAtomContainer
+        SmilesParser tmpParser  = new SmilesParser(SilentChemObjectBuilder.getInstance());
+        IAtomContainer tmpMolecule = tmpParser.parseSmiles("CC1=C(C(=NO1)C2=C(C=CC=C2Cl)F)C(=O)NC3C4N(C3=O)C(C(S4)(C)C)C(=O)O");
+        ScaffoldGenerator tmpScaffoldGenerator = this.getScaffoldGeneratorTestSettings();
+        SmilesGenerator tmpSmilesGenerator = new SmilesGenerator(SmiFlavor.Unique);
+        List<String> tmpExpectedSmilesList = new ArrayList<>();
+        for (IAtomContainer tmpFragment : tmpScaffoldGenerator.applyEnumerativeRemoval(tmpMolecule)) {
+            tmpExpectedSmilesList.add(tmpSmilesGenerator.create(tmpFragment));
+        }
+        List<String> tmpIteratedSmilesList = new ArrayList<>();
+        ScaffoldGenerator.EnumerativeRemovalIterator tmpIterator = tmpScaffoldGenerator.iterateEnumerativeRemoval(tmpMolecule);
+        while (tmpIterator.hasNext()) {
+            tmpIteratedSmilesList.add(tmpSmilesGenerator.create(tmpIterator.next()));
+        }
+        Assertions.assertEquals(tmpExpectedSmilesList, tmpIteratedSmilesList);
+        Assertions.assertFalse(tmpIterator.isTruncated());
+        Assertions.assertThrows(NoSuchElementException.class, tmpIterator::next);
+        /*The pending scaffolds are created from their removal paths, so changes of the returned scaffolds have no effect*/
+        tmpIteratedSmilesList.clear();
+        tmpIterator = tmpScaffoldGenerator.iterateEnumerativeRemoval(tmpMolecule);
+        while (tmpIterator.hasNext()) {
+            IAtomContainer tmpFragment = tmpIterator.next();
+            tmpIteratedSmilesList.add(tmpSmilesGenerator.create(tmpFragment));
+            tmpFragment.removeAllElements();
+        }
+        Assertions.assertEquals(tmpExpectedSmilesList, tmpIteratedSmilesList);
+        /*Stream with fragment budget*/
+        tmpScaffoldGenerator.setMaximumFragmentCountSetting(4);
+        Assertions.assertEquals(4, tmpScaffoldGenerator.streamEnumerativeRemoval(tmpMolecule).count());
+        Assertions.assertEquals(2, tmpScaffoldGenerator.streamEnumerativeRemoval(tmpMolecule).limit(2).count());
+        tmpIterator = tmpScaffoldGenerator.iterateEnumerativeRemoval(tmpMolecule);
+        while (tmpIterator.hasNext()) {
+            tmpIterator.next();
+        }
+        Assertions.assertTrue(tmpIterator.isTruncated());
+    }
+
+    /**
+     * Test of generateScaffoldNetwork() with a minimum ring count and a maximum removal depth.
+     * The bounded networks contain exactly the corresponding nodes of the complete network.
+     *
+     * @throws Exception if anything goes wrong
+     */
+    @Test
+    public void generateBoundedScaffoldNetworkTest() throws Exception {
+        //SMILES to IAtomContainer
+        SmilesParser tmpParser  = new SmilesParser(SilentChemObjectBuilder.getInstance());
+        IAtomContainer tmpMolecule = tmpParser.parseSmiles("CC1=C(C(=NO1)C2=C(C=CC=C2Cl)F)C(=O)NC3C4N(C3=O)C(C(S4)(C)C)C(=O)O");
+        ScaffoldGenerator tmpScaffoldGenerator = this.getScaffoldGeneratorTestSettings();
+        ScaffoldNetwork tmpNetwork = tmpScaffoldGenerator.generateScaffoldNetwork(tmpMolecule);
+        /*Count the nodes of the complete network*/
+        int tmpNodesWithAtLeastThreeRings = 0;
+        for (ScaffoldNodeBase tmpNode : tmpNetwork.getAllNodes()) {
+            if (ScaffoldGenerator.CYCLE_FINDER.find((IAtomContainer) tmpNode.getMolecule()).numberOfCycles() >= 3) {
+                tmpNodesWithAtLeastThreeRings++;
+            }
+        }
+        NetworkNode<IAtomContainer> tmpOriginNode = (NetworkNode<IAtomContainer>) tmpNetwork.getNode(
+                tmpScaffoldGenerator.getScaffold(tmpMolecule, true));
+        /*Minimum ring count*/
+        ScaffoldNetwork tmpBoundedNetwork = tmpScaffoldGenerator.generateScaffoldNetwork(tmpMolecule, 3, Integer.MAX_VALUE);
+        Assertions.assertEquals(tmpNodesWithAtLeastThreeRings, tmpBoundedNetwork.getAllNodes().size());
+        Assertions.assertTrue(tmpBoundedNetwork.getAllNodes().size() < tmpNetwork.getAllNodes().size());
+        Assertions.assertFalse(tmpBoundedNetwork.isTruncated());
+        /*Exactly the nodes with more than three rings are disassembled and only the parents with at least three rings are kept*/
+        for (ScaffoldNodeBase tmpNodeBase : tmpBoundedNetwork.getAllNodes()) {
+            NetworkNode<IAtomContainer> tmpNode = (NetworkNode<IAtomContainer>) tmpNodeBase;
+            NetworkNode<IAtomContainer> tmpCompleteNode = (NetworkNode<IAtomContainer>) tmpNetwork.getNode(tmpNode.getMolecule());
+            boolean tmpIsExpanded = ScaffoldGenerator.CYCLE_FINDER.find(tmpNode.getMolecule()).numberOfCycles() > 3;
+            int tmpExpectedParentCount = 0;
+            if (tmpIsExpanded) {
+                for (NetworkNode<IAtomContainer> tmpCompleteParent : tmpCompleteNode.getParents()) {
+                    if (ScaffoldGenerator.CYCLE_FINDER.find(tmpCompleteParent.getMolecule()).numberOfCycles() >= 3) {
+                        tmpExpectedParentCount++;
+                    }
+                }
+            }
+            Assertions.assertEquals(tmpExpectedParentCount, tmpNode.getParents().size());
+            if (tmpNode != tmpBoundedNetwork.getNode(tmpScaffoldGenerator.getScaffold(tmpMolecule, true))) {
+                Assertions.assertTrue(ScaffoldGenerator.CYCLE_FINDER.find(tmpNode.getMolecule()).numberOfCycles() >= 3);
+            }
+        }
+        /*Maximum removal depth*/
+        tmpBoundedNetwork = tmpScaffoldGenerator.generateScaffoldNetwork(tmpMolecule, 1, 1);
+        Assertions.assertEquals(tmpOriginNode.getParents().size() + 1, tmpBoundedNetwork.getAllNodes().size());
+        tmpBoundedNetwork = tmpScaffoldGenerator.generateScaffoldNetwork(Collections.singletonList(tmpMolecule), 1, 0);
+        Assertions.assertEquals(1, tmpBoundedNetwork.getAllNodes().size());
+        Assertions.assertEquals(tmpNetwork.getAllNodes().size(), tmpScaffoldGenerator.generateScaffoldNetwork(tmpMolecule, 1, Integer.MAX_VALUE).getAllNodes().size());
+        Assertions.assertThrows(IllegalArgumentException.class, () -> tmpScaffoldGenerator.generateScaffoldNetwork(tmpMolecule, 0, 1));
+    }
+
+    /**
+     * Test of setMaximumSchuffenhauerRemovalCountSetting() and setMinimumSchuffenhauerRingCountSetting():
+     * The Schuffenhauer rules stop early and the tree is truncated accordingly.
+     *
+     * @throws Exception if anything goes wrong
+     */
+    @Test
+    public void setMaximumSchuffenhauerRemovalCountSettingTest() throws Exception {
+        //SMILES to IAtomContainer
+        SmilesParser tmpParser  = new SmilesParser(SilentChemObjectBuilder.getInstance());
+        IAtomContainer tmpMolecule = tmpParser.parseSmiles("CC1=C(C(=NO1)C2=C(C=CC=C2Cl)F)C(=O)NC3C4N(C3=O)C(C(S4)(C)C)C(=O)O");
+        ScaffoldGenerator tmpScaffoldGenerator = this.getScaffoldGeneratorTestSettings();
+        SmilesGenerator tmpSmilesGenerator = new SmilesGenerator(SmiFlavor.Unique);
+        List<IAtomContainer> tmpFragmentList = tmpScaffoldGenerator.applySchuffenhauerRules(tmpMolecule);
+        Assertions.assertEquals(4, tmpFragmentList.size());
+        /*Maximum removal count*/
+        tmpScaffoldGenerator.setMaximumSchuffenhauerRemovalCountSetting(1);
+        List<IAtomContainer> tmpTruncatedList = tmpScaffoldGenerator.applySchuffenhauerRules(tmpMolecule);
+        Assertions.assertEquals(2, tmpTruncatedList.size());
+        Assertions.assertEquals(tmpSmilesGenerator.create(tmpFragmentList.get(1)), tmpSmilesGenerator.create(tmpTruncatedList.get(1)));
+        ScaffoldTree tmpTree = tmpScaffoldGenerator.generateSchuffenhauerTree(tmpMolecule);
+        Assertions.assertEquals(2, tmpTree.getAllNodes().size());
+        Assertions.assertEquals(tmpSmilesGenerator.create(tmpFragmentList.get(1)),
+                tmpSmilesGenerator.create((IAtomContainer) tmpTree.getRoot().getMolecule()));
+        tmpScaffoldGenerator.setMaximumSchuffenhauerRemovalCountSetting(0);
+        Assertions.assertEquals(1, tmpScaffoldGenerator.applySchuffenhauerRules(tmpMolecule).size());
+        /*Minimum ring count*/
+        tmpScaffoldGenerator.restoreDefaultSettings();
+        tmpScaffoldGenerator.setMinimumSchuffenhauerRingCountSetting(3);
+        Assertions.assertEquals(2, tmpScaffoldGenerator.applySchuffenhauerRules(tmpMolecule).size());
+        Assertions.assertThrows(IllegalArgumentException.class, () -> tmpScaffoldGenerator.setMinimumSchuffenhauerRingCountSetting(0));
+    }
+
+    /**
+     * Test of generateFrequentScaffoldNetwork() and generateFrequentSchuffenhauerForest():
+     * Only the scaffolds of the complete network or forest that occur in at least two molecules are created.
+     *
+     * @throws Exception if anything goes wrong
+     */
+    @Test
+    public void generateFrequentScaffoldNetworkTest() throws Exception {
+        //SMILES to IAtomContainer
+        SmilesParser tmpParser  = new SmilesParser(SilentChemObjectBuilder.getInstance());
+        List<IAtomContainer> tmpMoleculeList = new ArrayList<>();
+        tmpMoleculeList.add(tmpParser.parseSmiles("CC1=C(C(=NO1)C2=C(C=CC=C2Cl)F)C(=O)NC3C4N(C3=O)C(C(S4)(C)C)C(=O)O"));
+        tmpMoleculeList.add(tmpParser.parseSmiles("CC1(C(N2C(S1)C(C2=O)NC(=O)C(C3=CC=C(C=C3)O)N)C(=O)O)C"));
+        tmpMoleculeList.add(tmpParser.parseSmiles("C1CCC(CC1)C2=CC=CC=C2"));
+        ScaffoldGenerator tmpScaffoldGenerator = this.getScaffoldGeneratorTestSettings();
+        /*Network*/
+        int tmpFrequentNodeCount = 0;
+        ScaffoldNetwork tmpNetwork = tmpScaffoldGenerator.generateScaffoldNetwork(tmpMoleculeList);
+        for (ScaffoldNodeBase tmpNode : tmpNetwork.getAllNodes()) {
+            if (tmpNode.getOriginCount() >= 2) {
+                tmpFrequentNodeCount++;
+            }
+        }
+        ScaffoldNetwork tmpFrequentNetwork = tmpScaffoldGenerator.generateFrequentScaffoldNetwork(tmpMoleculeList, 2);
+        Assertions.assertTrue(tmpFrequentNodeCount > 0);
+        Assertions.assertEquals(tmpFrequentNodeCount, tmpFrequentNetwork.getAllNodes().size());
+        for (ScaffoldNodeBase tmpNode : tmpFrequentNetwork.getAllNodes()) {
+            Assertions.assertTrue(tmpNode.getOriginCount() >= 2);
+            /*The frequent nodes keep the links to their frequent parents*/
+            int tmpFrequentParentCount = 0;
+            for (Object tmpParent : ((NetworkNode<?>) tmpNetwork.getNode((IAtomContainer) tmpNode.getMolecule())).getParents()) {
+                if (((NetworkNode<?>) tmpParent).getOriginCount() >= 2) {
+                    tmpFrequentParentCount++;
+                }
+            }
+            Assertions.assertEquals(tmpFrequentParentCount, ((NetworkNode<?>) tmpNode).getParents().size());
+        }
+        /*Forest*/
+        tmpFrequentNodeCount = 0;
+        for (ScaffoldTree tmpTree : tmpScaffoldGenerator.generateSchuffenhauerForest(tmpMoleculeList)) {
+            for (ScaffoldNodeBase tmpNode : tmpTree.getAllNodes()) {
+                if (tmpNode.getOriginCount() >= 2) {
+                    tmpFrequentNodeCount++;
+                }
+            }
+        }
+        int tmpForestNodeCount = 0;
+        for (ScaffoldTree tmpTree : tmpScaffoldGenerator.generateFrequentSchuffenhauerForest(tmpMoleculeList, 2)) {
+            for (ScaffoldNodeBase tmpNode : tmpTree.getAllNodes()) {
+                Assertions.assertTrue(tmpNode.getOriginCount() >= 2);
+                tmpForestNodeCount++;
+            }
+        }
+        Assertions.assertTrue(tmpFrequentNodeCount > 0);
+        Assertions.assertEquals(tmpFrequentNodeCount, tmpForestNodeCount);
+        /*Sketch*/
+        ScaffoldFrequencySketch tmpSketch = new ScaffoldFrequencySketch(16);
+        tmpSketch.add("c1ccccc1");
+        tmpSketch.add("c1ccccc1");
+        Assertions.assertTrue(tmpSketch.estimate("c1ccccc1") >= 2);
+        Assertions.assertThrows(IllegalArgumentException.class, () -> new ScaffoldFrequencySketch(0));
+    }
+
+    /**
+     * Test of the GraphML, GML and TSV writers of ScaffoldNetwork and ScaffoldTree:
+     * Each node and each edge of the matrix is written once.
+     *
+     * @throws Exception if anything goes wrong
+     */
+    @Test
+    public void writeGraphTest() throws Exception {
+        //SMILES to IAtomContainer
+        SmilesParser tmpParser  = new SmilesParser(SilentChemObjectBuilder.getInstance());
+        IAtomContainer tmpMolecule = tmpParser.parseSmiles("CC1=C(C(=NO1)C2=C(C=CC=C2Cl)F)C(=O)NC3C4N(C3=O)C(C(S4)(C)C)C(=O)O");
+        ScaffoldGenerator tmpScaffoldGenerator = this.getScaffoldGeneratorTestSettings();
+        ScaffoldNetwork tmpNetwork = tmpScaffoldGenerator.generateScaffoldNetwork(tmpMolecule);
+        int tmpNodeCount = tmpNetwork.getAllNodes().size();
+        /*Count the edges of the symmetric matrix*/
+        int tmpEdgeCount = 0;
+        for (Integer[] tmpRow : tmpNetwork.getMatrix()) {
+            for (Integer tmpValue : tmpRow) {
+                tmpEdgeCount += tmpValue;
+            }
+        }
+        tmpEdgeCount /= 2;
+        StringWriter tmpWriter = new StringWriter();
+        tmpNetwork.writeNodeListTsv(tmpWriter);
+        Assertions.assertEquals(tmpNodeCount + 1, tmpWriter.toString().split("\n").length);
+        tmpWriter = new StringWriter();
+        tmpNetwork.writeEdgeListTsv(tmpWriter);
+        Assertions.assertEquals(tmpEdgeCount + 1, tmpWriter.toString().split("\n").length);
+        tmpWriter = new StringWriter();
+        tmpNetwork.writeGraphML(tmpWriter);
+        Assertions.assertEquals(tmpNodeCount, tmpWriter.toString().split("<node ").length - 1);
+        Assertions.assertEquals(tmpEdgeCount, tmpWriter.toString().split("<edge ").length - 1);
+        tmpWriter = new StringWriter();
+        tmpNetwork.writeGML(tmpWriter);
+        Assertions.assertEquals(tmpNodeCount, tmpWriter.toString().split("  node \\[").length - 1);
+        Assertions.assertEquals(tmpEdgeCount, tmpWriter.toString().split("  edge \\[").length - 1);
+        /*A tree has one edge less than nodes*/
+        ScaffoldTree tmpTree = tmpScaffoldGenerator.generateSchuffenhauerTree(tmpMolecule);
+        tmpWriter = new StringWriter();
+        tmpTree.writeEdgeListTsv(tmpWriter);
+        Assertions.assertEquals(tmpTree.getAllNodes().size(), tmpWriter.toString().split("\n").length);
+        tmpWriter = new StringWriter();
+        tmpTree.writeGraphML(tmpWriter);
+        Assertions.assertTrue(tmpWriter.toString().contains("<data key=\"level\">0</data>"));
+    }
+
+    /**
+     * Writes a network and a tree in the binary format, loads them again and checks
+     * that nodes, edges, levels and origins are restored and that the molecules are parsed on request.
+     * @throws Exception if anything goes wrong
+     */
+    @Test
+    public void binaryFormatTest() throws Exception {
+        //SMILES to IAtomContainer
+        SmilesParser tmpParser  = new SmilesParser(SilentChemObjectBuilder.getInstance());
+        IAtomContainer tmpMolecule = tmpParser.parseSmiles("CC1=C(C(=NO1)C2=C(C=CC=C2Cl)F)C(=O)NC3C4N(C3=O)C(C(S4)(C)C)C(=O)O");
+        ScaffoldGenerator tmpScaffoldGenerator = this.getScaffoldGeneratorTestSettings();
+        SmilesGenerator tmpSmilesGenerator = tmpScaffoldGenerator.getSmilesGenerator();
+        ScaffoldNetwork tmpNetwork = tmpScaffoldGenerator.generateScaffoldNetwork(tmpMolecule);
+        ByteArrayOutputStream tmpOutputStream = new ByteArrayOutputStream();
+        tmpNetwork.writeBinary(tmpOutputStream);
+        ScaffoldNetwork tmpLoadedNetwork = ScaffoldNetwork.readBinary(new ByteArrayInputStream(tmpOutputStream.toByteArray()),
+                tmpSmilesGenerator, SilentChemObjectBuilder.getInstance());
+        Assertions.assertEquals(tmpNetwork.getAllNodes().size(), tmpLoadedNetwork.getAllNodes().size());
+        Assertions.assertEquals(tmpNetwork.getMaxLevel(), tmpLoadedNetwork.getMaxLevel());
+        Assertions.assertEquals(tmpNetwork.getRoots().size(), tmpLoadedNetwork.getRoots().size());
+        StringWriter tmpWriter = new StringWriter();
+        tmpNetwork.writeEdgeListTsv(tmpWriter);
+        StringWriter tmpLoadedWriter = new StringWriter();
+        tmpLoadedNetwork.writeEdgeListTsv(tmpLoadedWriter);
+        Assertions.assertEquals(tmpWriter.toString(), tmpLoadedWriter.toString());
+        /*The text formats take the SMILES from the smiles map and do not parse the molecules*/
+        tmpWriter = new StringWriter();
+        tmpNetwork.writeGraphML(tmpWriter);
+        tmpLoadedWriter = new StringWriter();
+        tmpLoadedNetwork.writeGraphML(tmpLoadedWriter);
+        Assertions.assertEquals(tmpWriter.toString(), tmpLoadedWriter.toString());
+        tmpLoadedNetwork.writeGML(new StringWriter());
+        tmpLoadedNetwork.writeNodeListTsv(new StringWriter());
+        for (Object tmpObject : tmpLoadedNetwork.getAllNodes()) {
+            Assertions.assertNull(((NetworkNode<IAtomContainer>) tmpObject).molecule);
+        }
+        for (Object tmpObject : tmpLoadedNetwork.getAllNodes()) {
+            NetworkNode<IAtomContainer> tmpNode = (NetworkNode<IAtomContainer>) tmpObject;
+            Assertions.assertEquals(1, tmpNode.getOriginCount());
+            /*The molecule is parsed from the stored SMILES*/
+            Assertions.assertSame(tmpNode, tmpLoadedNetwork.getNode(tmpNode.getMolecule()));
+        }
+        ScaffoldTree tmpTree = tmpScaffoldGenerator.generateSchuffenhauerTree(tmpMolecule);
+        tmpOutputStream = new ByteArrayOutputStream();
+        tmpTree.writeBinary(tmpOutputStream);
+        byte[] tmpTreeBytes = tmpOutputStream.toByteArray();
+        ScaffoldTree tmpLoadedTree = ScaffoldTree.readBinary(new ByteArrayInputStream(tmpTreeBytes),
+                tmpSmilesGenerator, SilentChemObjectBuilder.getInstance());
+        Assertions.assertEquals(tmpTree.getAllNodes().size(), tmpLoadedTree.getAllNodes().size());
+        Assertions.assertTrue(tmpLoadedTree.isValid());
+        Assertions.assertEquals(0, tmpLoadedTree.getRoot().getLevel());
+        /*A tree cannot be loaded as network*/
+        Assertions.assertThrows(IOException.class, () -> ScaffoldNetwork.readBinary(new ByteArrayInputStream(tmpTreeBytes),
+                tmpSmilesGenerator, SilentChemObjectBuilder.getInstance()));
+    }
+
+    /**
+     * Requests the molecule of a lazily loaded node from several threads at once and checks
+     * that the molecule is created only once and that all threads get the same molecule.
+     * @throws Exception if anything goes wrong
+     */
+    @Test
+    public void lazyNodeConcurrentLoadTest() throws Exception {
+        SmilesParser tmpParser  = new SmilesParser(SilentChemObjectBuilder.getInstance());
+        for(int tmpRun = 0; tmpRun < 20; tmpRun++) {
+            AtomicInteger tmpCreationCounter = new AtomicInteger();
+            NetworkNode<IAtomContainer> tmpNode = new NetworkNode<>(() -> {
+                tmpCreationCounter.incrementAndGet();
+                try {
+                    return tmpParser.parseSmiles("c1ccc(cc1)C2CCN(CC2)Cc3ccncc3");
+                } catch (InvalidSmilesException anException) {
+                    throw new IllegalStateException(anException);
+                }
+            });
+            ForkJoinPool tmpPool = new ForkJoinPool(4);
+            try {
+                List<IAtomContainer> tmpMoleculeList = tmpPool.submit(() -> Arrays.asList(1, 2, 3, 4, 5, 6, 7, 8).parallelStream()
+                        .map(tmpIndex -> tmpNode.getMolecule()).collect(Collectors.toList())).get();
+                for(IAtomContainer tmpMolecule : tmpMoleculeList) {
+                    Assertions.assertSame(tmpMoleculeList.get(0), tmpMolecule);
+                }
+            } finally {
+                tmpPool.shutdown();
+            }
+            Assertions.assertEquals(1, tmpCreationCounter.get());
+        }
+    }
+
+    /**
+     * Writes a network to a mapped file and checks lookup, traversal, level and origin queries of the mapped view
+     * against the network.
+     * @throws Exception if anything goes wrong
+     */
+    @Test
+    public void mappedScaffoldNetworkTest() throws Exception {
+        //SMILES to IAtomContainer
+        SmilesParser tmpParser  = new SmilesParser(SilentChemObjectBuilder.getInstance());
+        IAtomContainer tmpMolecule = tmpParser.parseSmiles("CC1=C(C(=NO1)C2=C(C=CC=C2Cl)F)C(=O)NC3C4N(C3=O)C(C(S4)(C)C)C(=O)O");
+        IAtomContainer tmpSecondMolecule = tmpParser.parseSmiles("c1ccc(cc1)C2CCN(CC2)Cc3ccncc3");
+        ScaffoldGenerator tmpScaffoldGenerator = this.getScaffoldGeneratorTestSettings();
+        ScaffoldNetwork tmpNetwork = tmpScaffoldGenerator.generateScaffoldNetwork(Arrays.asList(tmpMolecule, tmpSecondMolecule));
+        Path tmpPath = Files.createTempFile("scaffold-network", ".bin");
+        try {
+            MappedScaffoldNetwork.write(tmpNetwork, tmpPath);
+            MappedScaffoldNetwork tmpMappedNetwork = MappedScaffoldNetwork.open(tmpPath, tmpScaffoldGenerator.getSmilesGenerator());
+            Assertions.assertEquals(tmpNetwork.getAllNodes().size(), tmpMappedNetwork.getNodeCount());
+            Assertions.assertEquals(tmpNetwork.getMaxLevel(), tmpMappedNetwork.getMaxLevel());
+            Assertions.assertEquals(tmpNetwork.getRoots().size(), tmpMappedNetwork.getRoots().length);
+            for (int tmpLevel = 0; tmpLevel <= tmpNetwork.getMaxLevel(); tmpLevel++) {
+                Assertions.assertEquals(tmpNetwork.getAllNodesOnLevel(tmpLevel).size(), tmpMappedNetwork.getAllNodesOnLevel(tmpLevel).length);
+            }
+            for (ScaffoldNodeBase tmpNodeBase : tmpNetwork.getAllNodes()) {
+                NetworkNode<IAtomContainer> tmpNode = (NetworkNode<IAtomContainer>) tmpNodeBase;
+                int tmpId = tmpMappedNetwork.getNode(tmpNode.getMolecule());
+                Assertions.assertTrue(tmpId >= 0);
+                Assertions.assertEquals(tmpNode.getLevel(), tmpMappedNetwork.getLevel(tmpId));
+                Assertions.assertEquals(tmpNode.getParents().size(), tmpMappedNetwork.getParents(tmpId).length);
+                Assertions.assertEquals(tmpNode.getChildren().size(), tmpMappedNetwork.getChildren(tmpId).length);
+                Assertions.assertEquals(new HashSet<>(tmpNode.getOriginSmilesList()), new HashSet<>(tmpMappedNetwork.getOriginSmilesList(tmpId)));
+                Assertions.assertEquals(tmpNode.getOriginCount().intValue(), tmpMappedNetwork.getOriginCount(tmpId));
+                Assertions.assertEquals(tmpId, tmpMappedNetwork.getNode(tmpMappedNetwork.getMolecule(tmpId, SilentChemObjectBuilder.getInstance())));
+                for (int tmpParentId : tmpMappedNetwork.getParents(tmpId)) {
+                    Assertions.assertEquals(tmpNode.getLevel() - 1, tmpMappedNetwork.getLevel(tmpParentId));
+                }
+            }
+            Assertions.assertEquals(-1, tmpMappedNetwork.getNode("C1CCCCCCCCCCC1"));
+            Assertions.assertThrows(IllegalArgumentException.class, () -> tmpMappedNetwork.getLevel(tmpMappedNetwork.getNodeCount()));
+            /*Values that cross the boundary between two chunks are read from the overlap*/
+            for (int tmpChunkSize : new int[] {7, 64}) {
+                MappedScaffoldNetwork tmpChunkedNetwork = MappedScaffoldNetwork.open(tmpPath, tmpScaffoldGenerator.getSmilesGenerator(), tmpChunkSize);
+                Assertions.assertEquals(tmpMappedNetwork.getNodeCount(), tmpChunkedNetwork.getNodeCount());
+                for (int tmpId = 0; tmpId < tmpMappedNetwork.getNodeCount(); tmpId++) {
+                    Assertions.assertEquals(tmpMappedNetwork.getSmiles(tmpId), tmpChunkedNetwork.getSmiles(tmpId));
+                    Assertions.assertEquals(tmpId, tmpChunkedNetwork.getNode(tmpMappedNetwork.getSmiles(tmpId)));
+                    Assertions.assertEquals(tmpMappedNetwork.getLevel(tmpId), tmpChunkedNetwork.getLevel(tmpId));
+                    Assertions.assertArrayEquals(tmpMappedNetwork.getParents(tmpId), tmpChunkedNetwork.getParents(tmpId));
+                    Assertions.assertArrayEquals(tmpMappedNetwork.getChildren(tmpId), tmpChunkedNetwork.getChildren(tmpId));
+                    Assertions.assertEquals(tmpMappedNetwork.getOriginSmilesList(tmpId), tmpChunkedNetwork.getOriginSmilesList(tmpId));
+                }
+            }
+            Assertions.assertThrows(IllegalArgumentException.class, () -> MappedScaffoldNetwork.open(tmpPath, tmpScaffoldGenerator.getSmilesGenerator(), 0));
+        } finally {
+            Files.deleteIfExists(tmpPath);
+        }
+    }
+
+    /**
+     * Persists a network, loads it again, adds new molecules in place and compares the result
+     * with a network generated from all molecules at once.
+     * @throws Exception if anything goes wrong
+     */
+    @Test
+    public void addToScaffoldNetworkTest() throws Exception {
+        //SMILES to IAtomContainer
+        SmilesParser tmpParser  = new SmilesParser(SilentChemObjectBuilder.getInstance());
+        IAtomContainer tmpMolecule = tmpParser.parseSmiles("CC1=C(C(=NO1)C2=C(C=CC=C2Cl)F)C(=O)NC3C4N(C3=O)C(C(S4)(C)C)C(=O)O");
+        IAtomContainer tmpSecondMolecule = tmpParser.parseSmiles("c1ccc(cc1)C2CCN(CC2)Cc3ccncc3");
+        IAtomContainer tmpThirdMolecule = tmpParser.parseSmiles("O=C(NC1=CC=CC=C1)C2=CC=CS2");
+        ScaffoldGenerator tmpScaffoldGenerator = this.getScaffoldGeneratorTestSettings();
+        SmilesGenerator tmpSmilesGenerator = tmpScaffoldGenerator.getSmilesGenerator();
+        ByteArrayOutputStream tmpOutputStream = new ByteArrayOutputStream();
+        tmpScaffoldGenerator.generateScaffoldNetwork(Collections.singletonList(tmpMolecule)).writeBinary(tmpOutputStream);
+        ScaffoldNetwork tmpNetwork = ScaffoldNetwork.readBinary(new ByteArrayInputStream(tmpOutputStream.toByteArray()),
+                tmpSmilesGenerator, SilentChemObjectBuilder.getInstance());
+        List<ScaffoldNodeBase> tmpLoadedNodeList = new ArrayList<>(tmpNetwork.getAllNodes());
+        tmpScaffoldGenerator.addToScaffoldNetwork(tmpNetwork, Arrays.asList(tmpSecondMolecule, tmpThirdMolecule));
+        /*The loaded nodes are not parsed and the new nodes are linked by identity*/
+        for (ScaffoldNodeBase tmpLoadedNode : tmpLoadedNodeList) {
+            Assertions.assertNull(tmpLoadedNode.molecule);
+        }
+        for (ScaffoldNodeBase tmpNodeBase : tmpNetwork.getAllNodes()) {
+            for (Object tmpChild : tmpNodeBase.getChildren()) {
+                Assertions.assertTrue(tmpNetwork.reverseNodeMap.containsKey(tmpChild));
+                Assertions.assertTrue(((NetworkNode<IAtomContainer>) tmpChild).getParents().contains(tmpNodeBase));
+            }
+        }
+        ScaffoldNetwork tmpExpectedNetwork = tmpScaffoldGenerator.generateScaffoldNetwork(Arrays.asList(tmpMolecule, tmpSecondMolecule, tmpThirdMolecule));
+        Assertions.assertEquals(tmpExpectedNetwork.getAllNodes().size(), tmpNetwork.getAllNodes().size());
+        Assertions.assertEquals(tmpExpectedNetwork.getMaxLevel(), tmpNetwork.getMaxLevel());
+        for (int tmpLevel = 0; tmpLevel <= tmpExpectedNetwork.getMaxLevel(); tmpLevel++) {
+            Assertions.assertEquals(tmpExpectedNetwork.getAllNodesOnLevel(tmpLevel).size(), tmpNetwork.getAllNodesOnLevel(tmpLevel).size());
+        }
+        for (ScaffoldNodeBase tmpExpectedNodeBase : tmpExpectedNetwork.getAllNodes()) {
+            NetworkNode<IAtomContainer> tmpExpectedNode = (NetworkNode<IAtomContainer>) tmpExpectedNodeBase;
+            NetworkNode<IAtomContainer> tmpNode = (NetworkNode<IAtomContainer>) tmpNetwork.getNode(tmpExpectedNode.getMolecule());
+            Assertions.assertEquals(tmpExpectedNode.getLevel(), tmpNode.getLevel());
+            Assertions.assertEquals(tmpExpectedNode.getParents().size(), tmpNode.getParents().size());
+            Assertions.assertEquals(tmpExpectedNode.getChildren().size(), tmpNode.getChildren().size());
+            Assertions.assertEquals(new HashSet<>(tmpExpectedNode.getOriginSmilesList()), new HashSet<>(tmpNode.getOriginSmilesList()));
+        }
+    }
+
+    /**
+     * Removes a molecule from a network and a forest and compares the results with a network and a forest
+     * generated without the molecule.
+     * @throws Exception if anything goes wrong
+     */
+    @Test
+    public void removeMoleculeTest() throws Exception {
+        //SMILES to IAtomContainer
+        SmilesParser tmpParser  = new SmilesParser(SilentChemObjectBuilder.getInstance());
+        IAtomContainer tmpMolecule = tmpParser.parseSmiles("CC1=C(C(=NO1)C2=C(C=CC=C2Cl)F)C(=O)NC3C4N(C3=O)C(C(S4)(C)C)C(=O)O");
+        IAtomContainer tmpSecondMolecule = tmpParser.parseSmiles("c1ccc(cc1)C2CCN(CC2)Cc3ccncc3");
+        IAtomContainer tmpThirdMolecule = tmpParser.parseSmiles("O=C(NC1=CC=CC=C1)C2=CC=CS2");
+        ScaffoldGenerator tmpScaffoldGenerator = this.getScaffoldGeneratorTestSettings();
+        /*Network*/
+        ScaffoldNetwork tmpNetwork = tmpScaffoldGenerator.generateScaffoldNetwork(Arrays.asList(tmpMolecule, tmpSecondMolecule, tmpThirdMolecule));
+        ScaffoldNetwork tmpExpectedNetwork = tmpScaffoldGenerator.generateScaffoldNetwork(Arrays.asList(tmpMolecule, tmpThirdMolecule));
+        int tmpRemovedNodeCount = tmpScaffoldGenerator.removeMolecule(tmpNetwork, tmpSecondMolecule);
+        Assertions.assertTrue(tmpRemovedNodeCount > 0);
+        Assertions.assertEquals(tmpExpectedNetwork.getAllNodes().size(), tmpNetwork.getAllNodes().size());
+        Assertions.assertEquals(tmpExpectedNetwork.getMaxLevel(), tmpNetwork.getMaxLevel());
+        String tmpRemovedOrigin = tmpScaffoldGenerator.getSmilesGenerator().create(tmpSecondMolecule);
+        for (ScaffoldNodeBase tmpExpectedNodeBase : tmpExpectedNetwork.getAllNodes()) {
+            NetworkNode<IAtomContainer> tmpExpectedNode = (NetworkNode<IAtomContainer>) tmpExpectedNodeBase;
+            NetworkNode<IAtomContainer> tmpNode = (NetworkNode<IAtomContainer>) tmpNetwork.getNode(tmpExpectedNode.getMolecule());
+            Assertions.assertEquals(new HashSet<>(tmpExpectedNode.getOriginSmilesList()), new HashSet<>(tmpNode.getOriginSmilesList()));
+            Assertions.assertFalse(tmpNode.getNonVirtualOriginSmilesList().contains(tmpRemovedOrigin));
+            Assertions.assertEquals(tmpExpectedNode.getParents().size(), tmpNode.getParents().size());
+            Assertions.assertEquals(tmpExpectedNode.getChildren().size(), tmpNode.getChildren().size());
+        }
+        /*Removing the molecule again changes nothing*/
+        Assertions.assertEquals(0, tmpScaffoldGenerator.removeMolecule(tmpNetwork, tmpSecondMolecule));
+        /*Removing from a loaded network does not parse the remaining nodes and unlinks the removed nodes by identity*/
+        ByteArrayOutputStream tmpOutputStream = new ByteArrayOutputStream();
+        tmpScaffoldGenerator.generateScaffoldNetwork(Arrays.asList(tmpMolecule, tmpSecondMolecule, tmpThirdMolecule)).writeBinary(tmpOutputStream);
+        ScaffoldNetwork tmpLoadedNetwork = ScaffoldNetwork.readBinary(new ByteArrayInputStream(tmpOutputStream.toByteArray()),
+                tmpScaffoldGenerator.getSmilesGenerator(), SilentChemObjectBuilder.getInstance());
+        Assertions.assertEquals(tmpRemovedNodeCount, tmpScaffoldGenerator.removeMolecule(tmpLoadedNetwork, tmpSecondMolecule));
+        for (ScaffoldNodeBase tmpNodeBase : tmpLoadedNetwork.getAllNodes()) {
+            Assertions.assertNull(tmpNodeBase.molecule);
+            for (Object tmpChild : tmpNodeBase.getChildren()) {
+                Assertions.assertTrue(tmpLoadedNetwork.reverseNodeMap.containsKey(tmpChild));
+            }
+            for (Object tmpParent : ((NetworkNode<IAtomContainer>) tmpNodeBase).getParents()) {
+                Assertions.assertTrue(((NetworkNode<IAtomContainer>) tmpParent).getChildren().contains(tmpNodeBase));
+            }
+        }
+        /*The lists of the nodes drop duplicates and remove an element by moving the last one to its position*/
+        IndexedSetList<String> tmpIndexedSetList = new IndexedSetList<>(Arrays.asList("A", "B", "C", "B"));
+        Assertions.assertEquals(Arrays.asList("A", "B", "C"), tmpIndexedSetList);
+        Assertions.assertFalse(tmpIndexedSetList.add("A"));
+        Assertions.assertTrue(tmpIndexedSetList.remove("A"));
+        Assertions.assertEquals(Arrays.asList("C", "B"), tmpIndexedSetList);
+        Assertions.assertEquals(1, tmpIndexedSetList.indexOf("B"));
+        tmpIndexedSetList.removeIf(tmpString -> tmpString.equals("C"));
+        Assertions.assertEquals(Collections.singletonList("B"), tmpIndexedSetList);
+        Assertions.assertEquals(0, tmpIndexedSetList.indexOf("B"));
+        /*Forest*/
+        List<ScaffoldTree> tmpForest = tmpScaffoldGenerator.generateSchuffenhauerForest(Arrays.asList(tmpMolecule, tmpSecondMolecule, tmpThirdMolecule));
+        List<ScaffoldTree> tmpExpectedForest = tmpScaffoldGenerator.generateSchuffenhauerForest(Arrays.asList(tmpMolecule, tmpThirdMolecule));
+        tmpScaffoldGenerator.removeMoleculeFromForest(tmpForest, tmpSecondMolecule);
+        Assertions.assertEquals(tmpExpectedForest.size(), tmpForest.size());
+        int tmpExpectedNodeCount = 0;
+        int tmpNodeCount = 0;
+        for (int tmpIndex = 0; tmpIndex < tmpForest.size(); tmpIndex++) {
+            tmpExpectedNodeCount += tmpExpectedForest.get(tmpIndex).getAllNodes().size();
+            tmpNodeCount += tmpForest.get(tmpIndex).getAllNodes().size();
+            Assertions.assertTrue(tmpForest.get(tmpIndex).isValid());
+        }
+        Assertions.assertEquals(tmpExpectedNodeCount, tmpNodeCount);
+    }
+
+    /**
+     * Builds a network and a forest in three shards, merges the shard files in different groupings
+     * and compares the results with a network and a forest built at once.
+     * @throws Exception if anything goes wrong
+     */
+    @Test
+    public void shardedBuildTest() throws Exception {
+        List<IAtomContainer> tmpMoleculeList = this.getTestMoleculeList("C1CCC(CC1)c2ccccc2");
+        ScaffoldGenerator tmpScaffoldGenerator = this.getScaffoldGeneratorTestSettings();
+        ScaffoldNetwork tmpExpectedNetwork = tmpScaffoldGenerator.generateScaffoldNetwork(tmpMoleculeList);
+        Path tmpDirectory = Files.createTempDirectory("scaffold-shards");
+        List<Path> tmpShardPathList = new ArrayList<>();
+        List<Path> tmpForestShardPathList = new ArrayList<>();
+        try {
+            for (int tmpShard = 0; tmpShard < 3; tmpShard++) {
+                Path tmpPath = tmpDirectory.resolve("network-" + tmpShard);
+                tmpScaffoldGenerator.buildScaffoldNetworkShard(tmpMoleculeList, tmpShard, 3, tmpPath);
+                tmpShardPathList.add(tmpPath);
+                Path tmpForestPath = tmpDirectory.resolve("forest-" + tmpShard);
+                tmpScaffoldGenerator.buildSchuffenhauerForestShard(tmpMoleculeList, tmpShard, 3, tmpForestPath);
+                tmpForestShardPathList.add(tmpForestPath);
+            }
+            /*Merge all at once and in two steps in a different order*/
+            Path tmpMergedPath = tmpDirectory.resolve("network-merged");
+            MappedScaffoldNetwork.merge(tmpShardPathList, tmpMergedPath);
+            Path tmpPartialPath = tmpDirectory.resolve("network-partial");
+            MappedScaffoldNetwork.merge(Arrays.asList(tmpShardPathList.get(2), tmpShardPathList.get(0)), tmpPartialPath);
+            Path tmpStepwisePath = tmpDirectory.resolve("network-stepwise");
+            MappedScaffoldNetwork.merge(Arrays.asList(tmpShardPathList.get(1), tmpPartialPath), tmpStepwisePath);
+            for (Path tmpPath : Arrays.asList(tmpMergedPath, tmpStepwisePath)) {
+                ScaffoldNetwork tmpNetwork = MappedScaffoldNetwork.open(tmpPath, tmpScaffoldGenerator.getSmilesGenerator())
+                        .toScaffoldNetwork(SilentChemObjectBuilder.getInstance());
+                Assertions.assertEquals(tmpExpectedNetwork.getAllNodes().size(), tmpNetwork.getAllNodes().size());
+                Assertions.assertEquals(tmpExpectedNetwork.getMaxLevel(), tmpNetwork.getMaxLevel());
+                for (ScaffoldNodeBase tmpExpectedNodeBase : tmpExpectedNetwork.getAllNodes()) {
+                    NetworkNode<IAtomContainer> tmpExpectedNode = (NetworkNode<IAtomContainer>) tmpExpectedNodeBase;
+                    NetworkNode<IAtomContainer> tmpNode = (NetworkNode<IAtomContainer>) tmpNetwork.getNode(tmpExpectedNode.getMolecule());
+                    Assertions.assertEquals(tmpExpectedNode.getLevel(), tmpNode.getLevel());
+                    Assertions.assertEquals(tmpExpectedNode.getParents().size(), tmpNode.getParents().size());
+                    Assertions.assertEquals(new HashSet<>(tmpExpectedNode.getOriginSmilesList()), new HashSet<>(tmpNode.getOriginSmilesList()));
+                    Assertions.assertEquals(new HashSet<>(tmpExpectedNode.getNonVirtualOriginSmilesList()),
+                            new HashSet<>(tmpNode.getNonVirtualOriginSmilesList()));
+                }
+            }
+            /*A node that is a root in one file and has a parent in another one is on level 1 after the merge*/
+            SmilesParser tmpParser = new SmilesParser(SilentChemObjectBuilder.getInstance());
+            ScaffoldNetwork tmpRootNetwork = new ScaffoldNetwork(tmpScaffoldGenerator.getSmilesGenerator());
+            tmpRootNetwork.addNode(new NetworkNode<>(tmpParser.parseSmiles("C1CCC(CC1)c2ccccc2")));
+            ScaffoldNetwork tmpChildNetwork = new ScaffoldNetwork(tmpScaffoldGenerator.getSmilesGenerator());
+            NetworkNode<IAtomContainer> tmpParentNode = new NetworkNode<>(tmpParser.parseSmiles("c1ccccc1"));
+            NetworkNode<IAtomContainer> tmpChildNode = new NetworkNode<>(tmpParser.parseSmiles("C1CCC(CC1)c2ccccc2"));
+            tmpChildNode.addParent(tmpParentNode);
+            tmpChildNetwork.addNode(tmpParentNode);
+            tmpChildNetwork.addNode(tmpChildNode);
+            Path tmpRootPath = tmpDirectory.resolve("network-root");
+            Path tmpChildPath = tmpDirectory.resolve("network-child");
+            MappedScaffoldNetwork.write(tmpRootNetwork, tmpRootPath);
+            MappedScaffoldNetwork.write(tmpChildNetwork, tmpChildPath);
+            for (List<Path> tmpPathList : Arrays.asList(Arrays.asList(tmpRootPath, tmpChildPath), Arrays.asList(tmpChildPath, tmpRootPath))) {
+                Path tmpLevelPath = tmpDirectory.resolve("network-level");
+                MappedScaffoldNetwork.merge(tmpPathList, tmpLevelPath);
+                MappedScaffoldNetwork tmpLevelNetwork = MappedScaffoldNetwork.open(tmpLevelPath, tmpScaffoldGenerator.getSmilesGenerator());
+                Assertions.assertEquals(2, tmpLevelNetwork.getNodeCount());
+                Assertions.assertEquals(1, tmpLevelNetwork.getMaxLevel());
+                Assertions.assertEquals(1, tmpLevelNetwork.getLevel(tmpLevelNetwork.getNode(tmpChildNode.getMolecule())));
+                Assertions.assertEquals(0, tmpLevelNetwork.getLevel(tmpLevelNetwork.getNode(tmpParentNode.getMolecule())));
+                Assertions.assertArrayEquals(new int[] {tmpLevelNetwork.getNode(tmpParentNode.getMolecule())}, tmpLevelNetwork.getRoots());
+            }
+            /*Forest*/
+            List<ScaffoldTree> tmpExpectedForest = tmpScaffoldGenerator.generateSchuffenhauerForest(tmpMoleculeList);
+            Path tmpMergedForestPath = tmpDirectory.resolve("forest-merged");
+            tmpScaffoldGenerator.mergeSchuffenhauerForestShards(tmpForestShardPathList, tmpMergedForestPath);
+            Path tmpPartialForestPath = tmpDirectory.resolve("forest-partial");
+            tmpScaffoldGenerator.mergeSchuffenhauerForestShards(Arrays.asList(tmpForestShardPathList.get(2), tmpForestShardPathList.get(0)),
+                    tmpPartialForestPath);
+            Path tmpStepwiseForestPath = tmpDirectory.resolve("forest-stepwise");
+            tmpScaffoldGenerator.mergeSchuffenhauerForestShards(Arrays.asList(tmpForestShardPathList.get(1), tmpPartialForestPath),
+                    tmpStepwiseForestPath);
+            Assertions.assertArrayEquals(Files.readAllBytes(tmpMergedForestPath), Files.readAllBytes(tmpStepwiseForestPath));
+            List<ScaffoldTree> tmpForest;
+            try (FileInputStream tmpStream = new FileInputStream(tmpMergedForestPath.toFile())) {
+                tmpForest = ScaffoldTree.readSortedForestBinary(new BufferedInputStream(tmpStream), tmpScaffoldGenerator.getSmilesGenerator(),
+                        SilentChemObjectBuilder.getInstance());
+            }
+            int tmpExpectedTreeCount = 0;
+            HashMap<String, TreeNode<?>> tmpExpectedNodeMap = new HashMap<>();
+            for (ScaffoldTree tmpExpectedTree : tmpExpectedForest) {
+                if (!tmpExpectedTree.getAllNodes().isEmpty()) {
+                    tmpExpectedTreeCount++;
+                }
+                for (ScaffoldNodeBase tmpNode : tmpExpectedTree.getAllNodes()) {
+                    tmpExpectedNodeMap.put(tmpScaffoldGenerator.getSmilesGenerator().create((IAtomContainer) tmpNode.getMolecule()), (TreeNode<?>) tmpNode);
+                }
+            }
+            Assertions.assertEquals(tmpExpectedTreeCount, tmpForest.size());
+            int tmpNodeCount = 0;
+            for (ScaffoldTree tmpTree : tmpForest) {
+                Assertions.assertTrue(tmpTree.isValid());
+                for (ScaffoldNodeBase tmpNodeBase : tmpTree.getAllNodes()) {
+                    TreeNode<?> tmpNode = (TreeNode<?>) tmpNodeBase;
+                    TreeNode<?> tmpExpectedNode = tmpExpectedNodeMap.get(tmpScaffoldGenerator.getSmilesGenerator().create((IAtomContainer) tmpNode.getMolecule()));
+                    Assertions.assertNotNull(tmpExpectedNode);
+                    Assertions.assertEquals(tmpExpectedNode.getLevel(), tmpNode.getLevel());
+                    Assertions.assertEquals(new HashSet<>(tmpExpectedNode.getOriginSmilesList()), new HashSet<>(tmpNode.getOriginSmilesList()));
+                    Assertions.assertEquals(new HashSet<>(tmpExpectedNode.getNonVirtualOriginSmilesList()),
+                            new HashSet<>(tmpNode.getNonVirtualOriginSmilesList()));
+                    tmpNodeCount++;
+                }
+            }
+            Assertions.assertEquals(tmpExpectedNodeMap.size(), tmpNodeCount);
+        } finally {
+            try (Stream<Path> tmpFileStream = Files.list(tmpDirectory)) {
+                for (Path tmpPath : tmpFileStream.toArray(Path[]::new)) {
+                    Files.delete(tmpPath);
+                }
+            }
+            Files.delete(tmpDirectory);
+        }
+    }
+
+    /**
+     * Builds a network and a forest with a heap capacity of one origin per node and compares
+     * the origins with those of a network and a forest built in the heap. Removes a molecule from the spilled network.
+     * @throws Exception if anything goes wrong
+     */
+    @Test
+    public void originSpillTest() throws Exception {
+        //SMILES to IAtomContainer
+        SmilesParser tmpParser  = new SmilesParser(SilentChemObjectBuilder.getInstance());
+        List<IAtomContainer> tmpMoleculeList = new ArrayList<>();
+        for (String tmpSmiles : new String[] {"c1ccc(cc1)C2CCN(CC2)Cc3ccncc3", "O=C(NC1=CC=CC=C1)C2=CC=CS2",
+                "C1CCC(CC1)c2ccccc2", "Cc1ccccc1", "CCc1ccccc1", "Oc1ccccc1", "c1ccc2c(c1)cc[nH]2"}) {
+            tmpMoleculeList.add(tmpParser.parseSmiles(tmpSmiles));
+        }
+        ScaffoldGenerator tmpScaffoldGenerator = this.getScaffoldGeneratorTestSettings();
+        ScaffoldNetwork tmpExpectedNetwork = tmpScaffoldGenerator.generateScaffoldNetwork(tmpMoleculeList);
+        List<ScaffoldTree> tmpExpectedForest = tmpScaffoldGenerator.generateSchuffenhauerForest(tmpMoleculeList);
+        Assertions.assertNull(tmpExpectedNetwork.getOriginSpillStore());
+        Path tmpDirectory = Files.createTempDirectory("scaffold-spill");
+        tmpScaffoldGenerator.setOriginSpillDirectorySetting(tmpDirectory);
+        tmpScaffoldGenerator.setOriginSpillHeapCapacitySetting(1);
+        ScaffoldNetwork tmpNetwork = tmpScaffoldGenerator.generateScaffoldNetwork(tmpMoleculeList);
+        List<ScaffoldTree> tmpForest = tmpScaffoldGenerator.generateSchuffenhauerForest(tmpMoleculeList);
+        try {
+            /*Network*/
+            int tmpSpilledNodeCount = 0;
+            Assertions.assertEquals(tmpExpectedNetwork.getAllNodes().size(), tmpNetwork.getAllNodes().size());
+            for (ScaffoldNodeBase tmpExpectedNode : tmpExpectedNetwork.getAllNodes()) {
+                ScaffoldNodeBase tmpNode = tmpNetwork.getNode((IAtomContainer) tmpExpectedNode.getMolecule());
+                Assertions.assertEquals(tmpExpectedNode.getOriginCount(), tmpNode.getOriginCount());
+                Assertions.assertEquals(new HashSet<>(tmpExpectedNode.getOriginSmilesList()), new HashSet<>(tmpNode.getOriginSmilesList()));
+                Assertions.assertEquals(new HashSet<>(tmpExpectedNode.getNonVirtualOriginSmilesList()), new HashSet<>(tmpNode.getNonVirtualOriginSmilesList()));
+                if (tmpNode.getOriginSmilesList() instanceof OriginSpillStore.SpillingOriginList) {
+                    tmpSpilledNodeCount++;
+                    List<String> tmpSortedOriginList = new ArrayList<>(tmpNode.getOriginSmilesList());
+                    Collections.sort(tmpSortedOriginList);
+                    Assertions.assertEquals(tmpSortedOriginList, new ArrayList<>(tmpNode.getOriginSmilesList()));
+                }
+            }
+            Assertions.assertTrue(tmpSpilledNodeCount > 0);
+            /*Forest*/
+            Assertions.assertEquals(tmpExpectedForest.size(), tmpForest.size());
+            for (int tmpIndex = 0; tmpIndex < tmpForest.size(); tmpIndex++) {
+                ScaffoldTree tmpExpectedTree = tmpExpectedForest.get(tmpIndex);
+                ScaffoldTree tmpTree = tmpForest.get(tmpIndex);
+                Assertions.assertSame(tmpForest.get(0).getOriginSpillStore(), tmpTree.getOriginSpillStore());
+                for (ScaffoldNodeBase tmpExpectedNode : tmpExpectedTree.getAllNodes()) {
+                    ScaffoldNodeBase tmpNode = tmpTree.getNode((IAtomContainer) tmpExpectedNode.getMolecule());
+                    Assertions.assertEquals(new HashSet<>(tmpExpectedNode.getOriginSmilesList()), new HashSet<>(tmpNode.getOriginSmilesList()));
+                }
+            }
+            /*Removal from spilled lists*/
+            IAtomContainer tmpRemovedMolecule = tmpMoleculeList.get(3);
+            String tmpRemovedOrigin = tmpScaffoldGenerator.getSmilesGenerator().create(tmpRemovedMolecule);
+            tmpScaffoldGenerator.removeMolecule(tmpNetwork, tmpRemovedMolecule);
+            tmpScaffoldGenerator.removeMolecule(tmpExpectedNetwork, tmpRemovedMolecule);
+            for (ScaffoldNodeBase tmpExpectedNode : tmpExpectedNetwork.getAllNodes()) {
+                ScaffoldNodeBase tmpNode = tmpNetwork.getNode((IAtomContainer) tmpExpectedNode.getMolecule());
+                Assertions.assertFalse(tmpNode.getOriginSmilesList().contains(tmpRemovedOrigin));
+                Assertions.assertEquals(new HashSet<>(tmpExpectedNode.getOriginSmilesList()), new HashSet<>(tmpNode.getOriginSmilesList()));
+            }
+        } finally {
+            tmpNetwork.getOriginSpillStore().close();
+            tmpForest.get(0).getOriginSpillStore().close();
+            Files.deleteIfExists(tmpDirectory);
+        }
+    }
+
+    /**
+     * Tests the spilling origin list directly. Reads that stop early must work, plain reads must not rewrite the spill file
+     * and superseded files must be deleted when the runs are merged.
+     * @throws Exception if anything goes wrong
+     */
+    @Test
+    public void originSpillListTest() throws Exception {
+        Path tmpDirectory = Files.createTempDirectory("scaffold-spill");
+        try (OriginSpillStore tmpStore = new OriginSpillStore(tmpDirectory, 3)) {
+            List<String> tmpExpectedList = new ArrayList<>();
+            OriginSpillStore.SpillingOriginList tmpList = tmpStore.createList(Collections.emptyList());
+            for (int tmpIndex = 0; tmpIndex < 10; tmpIndex++) {
+                tmpList.add("C" + tmpIndex);
+                tmpExpectedList.add("C" + tmpIndex);
+            }
+            //Duplicate of an origin that is already spilled
+            tmpList.add("C1");
+            Collections.sort(tmpExpectedList);
+            Assertions.assertEquals(tmpExpectedList.size(), tmpList.size());
+            Assertions.assertEquals(tmpExpectedList, new ArrayList<>(tmpList));
+            /*Reads that stop early*/
+            Assertions.assertTrue(tmpList.contains("C3"));
+            Assertions.assertFalse(tmpList.contains("C11"));
+            Assertions.assertEquals(tmpExpectedList.get(4), tmpList.get(4));
+            Assertions.assertEquals("C0", tmpList.iterator().next());
+            /*Plain reads keep the merged file*/
+            List<Path> tmpFileList;
+            try (Stream<Path> tmpFileStream = Files.list(tmpDirectory)) {
+                tmpFileList = tmpFileStream.collect(Collectors.toList());
+            }
+            Assertions.assertEquals(1, tmpFileList.size());
+            tmpList.add("C10");
+            tmpExpectedList.add("C10");
+            Collections.sort(tmpExpectedList);
+            Assertions.assertEquals(tmpExpectedList, new ArrayList<>(tmpList));
+            Assertions.assertEquals(tmpExpectedList.size(), tmpList.size());
+            try (Stream<Path> tmpFileStream = Files.list(tmpDirectory)) {
+                Assertions.assertEquals(tmpFileList, tmpFileStream.collect(Collectors.toList()));
+            }
+            /*Removal rewrites the file and deletes the old one*/
+            Assertions.assertTrue(tmpList.remove("C5"));
+            Assertions.assertFalse(tmpList.remove("C5"));
+            tmpExpectedList.remove("C5");
+            Assertions.assertEquals(tmpExpectedList, new ArrayList<>(tmpList));
+            try (Stream<Path> tmpFileStream = Files.list(tmpDirectory)) {
+                Assertions.assertEquals(1, tmpFileStream.count());
+            }
+            /*The heap capacity is shared by all lists of the store and the sizes are counted while adding*/
+            OriginSpillStore.SpillingOriginList tmpSecondList = tmpStore.createList(Collections.emptyList());
+            for (int tmpIndex = 0; tmpIndex < 200; tmpIndex++) {
+                Assertions.assertTrue(tmpSecondList.add("N" + tmpIndex));
+                Assertions.assertFalse(tmpSecondList.add("N" + tmpIndex));
+                Assertions.assertTrue(tmpStore.getHeapOriginCount() <= tmpStore.getHeapCapacity());
+                Assertions.assertEquals(tmpIndex + 1, tmpSecondList.size());
+            }
+            Assertions.assertFalse(tmpList.add("C3"));
+            Assertions.assertEquals(tmpExpectedList.size(), tmpList.size());
+            for (int tmpIndex = 0; tmpIndex < 200; tmpIndex++) {
+                Assertions.assertTrue(tmpSecondList.contains("N" + tmpIndex));
+                Assertions.assertFalse(tmpSecondList.contains("O" + tmpIndex));
+            }
+            List<String> tmpSecondExpectedList = new ArrayList<>(tmpSecondList);
+            for (int tmpIndex = 0; tmpIndex < tmpSecondExpectedList.size(); tmpIndex++) {
+                Assertions.assertEquals(tmpSecondExpectedList.get(tmpIndex), tmpSecondList.get(tmpIndex));
+            }
+        } finally {
+            Files.deleteIfExists(tmpDirectory);
+        }
+    }
+
+    /**
+     * Interrupts a checkpointed network and forest generation after some molecules by passing only the first molecules,
+     * resumes it with all molecules and compares the result with an uninterrupted generation.
+     * @throws Exception if anything goes wrong
+     */
+    @Test
+    public void checkpointResumeTest() throws Exception {
+        List<IAtomContainer> tmpMoleculeList = this.getTestMoleculeList("C1CCC(CC1)c2ccccc2");
+        SmilesParser tmpParser  = new SmilesParser(SilentChemObjectBuilder.getInstance());
+        ScaffoldGenerator tmpScaffoldGenerator = this.getScaffoldGeneratorTestSettings();
+        SmilesGenerator tmpSmilesGenerator = tmpScaffoldGenerator.getSmilesGenerator();
+        ScaffoldNetwork tmpExpectedNetwork = tmpScaffoldGenerator.generateScaffoldNetwork(tmpMoleculeList);
+        List<ScaffoldTree> tmpExpectedForest = tmpScaffoldGenerator.generateSchuffenhauerForest(tmpMoleculeList);
+        Path tmpDirectory = Files.createTempDirectory("scaffold-checkpoint");
+        Path tmpNetworkCheckpoint = tmpDirectory.resolve("network.checkpoint");
+        Path tmpForestCheckpoint = tmpDirectory.resolve("forest.checkpoint");
+        try {
+            /*Network*/
+            tmpScaffoldGenerator.generateScaffoldNetwork(tmpMoleculeList.subList(0, 3), tmpNetworkCheckpoint, 2, SilentChemObjectBuilder.getInstance());
+            Assertions.assertTrue(Files.exists(tmpNetworkCheckpoint));
+            ScaffoldNetwork tmpNetwork = tmpScaffoldGenerator.generateScaffoldNetwork(tmpMoleculeList, tmpNetworkCheckpoint, 2,
+                    SilentChemObjectBuilder.getInstance());
+            Assertions.assertEquals(tmpExpectedNetwork.getAllNodes().size(), tmpNetwork.getAllNodes().size());
+            Assertions.assertEquals(tmpExpectedNetwork.getMaxLevel(), tmpNetwork.getMaxLevel());
+            for (ScaffoldNodeBase tmpExpectedNodeBase : tmpExpectedNetwork.getAllNodes()) {
+                NetworkNode<IAtomContainer> tmpExpectedNode = (NetworkNode<IAtomContainer>) tmpExpectedNodeBase;
+                NetworkNode<IAtomContainer> tmpNode = (NetworkNode<IAtomContainer>) tmpNetwork.getNode(
+                        tmpParser.parseSmiles(tmpSmilesGenerator.create(tmpExpectedNode.getMolecule())));
+                Assertions.assertNotNull(tmpNode);
+                Assertions.assertEquals(new HashSet<>(tmpExpectedNode.getOriginSmilesList()), new HashSet<>(tmpNode.getOriginSmilesList()));
+                Assertions.assertEquals(new HashSet<>(tmpExpectedNode.getNonVirtualOriginSmilesList()), new HashSet<>(tmpNode.getNonVirtualOriginSmilesList()));
+                Assertions.assertEquals(tmpExpectedNode.getParents().size(), tmpNode.getParents().size());
+                Assertions.assertEquals(tmpExpectedNode.getLevel(), tmpNode.getLevel());
+            }
+            /*Forest*/
+            tmpScaffoldGenerator.generateSchuffenhauerForest(tmpMoleculeList.subList(0, 4), tmpForestCheckpoint, 3, SilentChemObjectBuilder.getInstance());
+            List<ScaffoldTree> tmpForest = tmpScaffoldGenerator.generateSchuffenhauerForest(tmpMoleculeList, tmpForestCheckpoint, 3,
+                    SilentChemObjectBuilder.getInstance());
+            Assertions.assertEquals(tmpExpectedForest.size(), tmpForest.size());
+            for (int tmpIndex = 0; tmpIndex < tmpForest.size(); tmpIndex++) {
+                ScaffoldTree tmpExpectedTree = tmpExpectedForest.get(tmpIndex);
+                ScaffoldTree tmpTree = tmpForest.get(tmpIndex);
+                Assertions.assertEquals(tmpExpectedTree.getAllNodes().size(), tmpTree.getAllNodes().size());
+                Assertions.assertEquals(tmpSmilesGenerator.create((IAtomContainer) tmpExpectedTree.getRoot().getMolecule()),
+                        tmpSmilesGenerator.create((IAtomContainer) tmpTree.getRoot().getMolecule()));
+                Assertions.assertEquals(new HashSet<>(tmpExpectedTree.getRoot().getOriginSmilesList()), new HashSet<>(tmpTree.getRoot().getOriginSmilesList()));
+                Assertions.assertTrue(tmpTree.isValid());
+            }
+            /*A network cannot be resumed from a forest checkpoint*/
+            Assertions.assertThrows(IOException.class, () -> tmpScaffoldGenerator.generateScaffoldNetwork(tmpMoleculeList, tmpForestCheckpoint, 2,
+                    SilentChemObjectBuilder.getInstance()));
+        } finally {
+            Files.deleteIfExists(tmpNetworkCheckpoint);
+            Files.deleteIfExists(tmpForestCheckpoint);
+            Files.deleteIfExists(tmpDirectory);
+        }
+    }
+
+    /**
+     * Generates a network and a forest with the pipelined batch engine from a SMILES file
+     * and compares them with the sequential generation.
+     * @throws Exception if anything goes wrong
+     */
+    @Test
+    public void pipelinedGenerationTest() throws Exception {
+        List<IAtomContainer> tmpMoleculeList = this.getTestMoleculeList("C1CCC(CC1)c2ccccc2", "Cc1ccccc1", "CCc1ccccc1");
+        ScaffoldGenerator tmpScaffoldGenerator = this.getScaffoldGeneratorTestSettings();
+        SmilesGenerator tmpSmilesGenerator = tmpScaffoldGenerator.getSmilesGenerator();
+        StringBuilder tmpSmilesFile = new StringBuilder();
+        for (IAtomContainer tmpMolecule : tmpMoleculeList) {
+            tmpSmilesFile.append(tmpSmilesGenerator.create(tmpMolecule)).append(" title\n\n");
+        }
+        /*Invalid lines are skipped*/
+        tmpSmilesFile.append("C1CC(\n");
+        ScaffoldNetwork tmpExpectedNetwork = tmpScaffoldGenerator.generateScaffoldNetwork(tmpMoleculeList);
+        List<ScaffoldTree> tmpExpectedForest = tmpScaffoldGenerator.generateSchuffenhauerForest(tmpMoleculeList);
+        /*Network*/
+        ScaffoldNetwork tmpNetwork = tmpScaffoldGenerator.generateScaffoldNetwork(ScaffoldGenerator.iterateSmiles(
+                new BufferedReader(new StringReader(tmpSmilesFile.toString())), SilentChemObjectBuilder.getInstance()), 3, 2);
+        Assertions.assertEquals(tmpExpectedNetwork.getAllNodes().size(), tmpNetwork.getAllNodes().size());
+        Assertions.assertEquals(tmpExpectedNetwork.getMaxLevel(), tmpNetwork.getMaxLevel());
+        for (ScaffoldNodeBase tmpExpectedNodeBase : tmpExpectedNetwork.getAllNodes()) {
+            NetworkNode<IAtomContainer> tmpExpectedNode = (NetworkNode<IAtomContainer>) tmpExpectedNodeBase;
+            NetworkNode<IAtomContainer> tmpNode = (NetworkNode<IAtomContainer>) tmpNetwork.getNode(tmpExpectedNode.getMolecule());
+            Assertions.assertEquals(tmpExpectedNode.getOriginSmilesList(), tmpNode.getOriginSmilesList());
+            Assertions.assertEquals(tmpExpectedNode.getParents().size(), tmpNode.getParents().size());
+            Assertions.assertEquals(tmpExpectedNode.getLevel(), tmpNode.getLevel());
+        }
+        /*Forest*/
+        List<ScaffoldTree> tmpForest = tmpScaffoldGenerator.generateSchuffenhauerForest(tmpMoleculeList.iterator(), 2, 1);
+        Assertions.assertEquals(tmpExpectedForest.size(), tmpForest.size());
+        for (int tmpIndex = 0; tmpIndex < tmpForest.size(); tmpIndex++) {
+            ScaffoldTree tmpExpectedTree = tmpExpectedForest.get(tmpIndex);
+            ScaffoldTree tmpTree = tmpForest.get(tmpIndex);
+            Assertions.assertEquals(tmpExpectedTree.getAllNodes().size(), tmpTree.getAllNodes().size());
+            Assertions.assertEquals(tmpSmilesGenerator.create((IAtomContainer) tmpExpectedTree.getRoot().getMolecule()),
+                    tmpSmilesGenerator.create((IAtomContainer) tmpTree.getRoot().getMolecule()));
+            Assertions.assertEquals(tmpExpectedTree.getRoot().getOriginSmilesList(), tmpTree.getRoot().getOriginSmilesList());
+        }
+        Assertions.assertThrows(IllegalArgumentException.class, () -> tmpScaffoldGenerator.generateScaffoldNetwork(tmpMoleculeList.iterator(), 0, 1));
+    }
+
+    /**
+     * Throws errors in the worker and the reader stage of the pipelined batch engine.
+     * The error must reach the calling thread instead of leaving the merger waiting.
+     * @throws Exception if anything goes wrong
+     */
+    @Test
+    public void pipelineErrorTest() throws Exception {
+        SmilesParser tmpParser  = new SmilesParser(SilentChemObjectBuilder.getInstance());
+        List<IAtomContainer> tmpMoleculeList = new ArrayList<>();
+        for (String tmpSmiles : new String[] {"c1ccccc1", "C1CCCCC1", "c1ccncc1", "C1CCNCC1"}) {
+            tmpMoleculeList.add(tmpParser.parseSmiles(tmpSmiles));
+        }
+        IAtomContainer tmpErrorMolecule = tmpMoleculeList.get(2);
+        /*Worker stage*/
+        Assertions.assertThrows(InternalError.class, () -> Assertions.assertTimeoutPreemptively(Duration.ofSeconds(30),
+                () -> this.runPipeline(tmpMoleculeList.iterator(), 2, 1, aMolecule -> {
+                    if(aMolecule == tmpErrorMolecule) {
+                        throw new InternalError("worker");
+                    }
+                    return aMolecule;
+                }, aResult -> {})));
+        /*Reader stage*/
+        Iterator<IAtomContainer> tmpIterator = tmpMoleculeList.iterator();
+        List<IAtomContainer> tmpMergedList = new ArrayList<>();
+        Assertions.assertThrows(InternalError.class, () -> Assertions.assertTimeoutPreemptively(Duration.ofSeconds(30),
+                () -> this.runPipeline(new Iterator<IAtomContainer>() {
+                    @Override
+                    public boolean hasNext() {
+                        return true;
+                    }
+                    @Override
+                    public IAtomContainer next() {
+                        if(!tmpIterator.hasNext()) {
+                            throw new InternalError("reader");
+                        }
+                        return tmpIterator.next();
+                    }
+                }, 2, 1, aMolecule -> aMolecule, tmpMergedList::add)));
+        /*The molecules read before the error are merged*/
+        Assertions.assertEquals(tmpMoleculeList, tmpMergedList);
+    }
+
+    /**
+     * Decomposes molecules in one pass in all scaffold modes and compares the fragments with those of
+     * getScaffold(), getRings(), getLinkers() and getSideChains().
+     * @throws Exception if anything goes wrong
+     */
+    @Test
+    public void decomposeTest() throws Exception {
+        List<IAtomContainer> tmpMoleculeList = this.getTestMoleculeList("CCCC");
+        ScaffoldGenerator tmpScaffoldGenerator = this.getScaffoldGeneratorTestSettings();
+        SmilesGenerator tmpSmilesGenerator = tmpScaffoldGenerator.getSmilesGenerator();
+        for (ScaffoldGenerator.ScaffoldModeOption tmpMode : ScaffoldGenerator.ScaffoldModeOption.values()) {
+            tmpScaffoldGenerator.setScaffoldModeSetting(tmpMode);
+            for (IAtomContainer tmpMolecule : tmpMoleculeList) {
+                for (boolean tmpAddHydrogens : new boolean[] {true, false}) {
+                    ScaffoldDecomposition tmpDecomposition = tmpScaffoldGenerator.decompose(tmpMolecule, tmpAddHydrogens);
+                    Assertions.assertEquals(tmpSmilesGenerator.create(tmpScaffoldGenerator.getScaffold(tmpMolecule, tmpAddHydrogens)),
+                            tmpSmilesGenerator.create(tmpDecomposition.getScaffold()));
+                    Assertions.assertEquals(this.getSortedSmilesList(tmpScaffoldGenerator.getRings(tmpMolecule, tmpAddHydrogens), tmpSmilesGenerator),
+                            this.getSortedSmilesList(tmpDecomposition.getRings(), tmpSmilesGenerator));
+                    Assertions.assertEquals(this.getSortedSmilesList(tmpScaffoldGenerator.getLinkers(tmpMolecule, tmpAddHydrogens), tmpSmilesGenerator),
+                            this.getSortedSmilesList(tmpDecomposition.getLinkers(), tmpSmilesGenerator));
+                    Assertions.assertEquals(this.getSortedSmilesList(tmpScaffoldGenerator.getSideChains(tmpMolecule, tmpAddHydrogens), tmpSmilesGenerator),
+                            this.getSortedSmilesList(tmpDecomposition.getSideChains(), tmpSmilesGenerator));
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns the sorted SMILES of the molecules.
+     * @param aMoleculeList molecules
+     * @param aSmilesGenerator Used SMILES Generator
+     * @return sorted SMILES
+     * @throws Exception if anything goes wrong
+     */
+    private List<String> getSortedSmilesList(List<IAtomContainer> aMoleculeList, SmilesGenerator aSmilesGenerator) throws Exception {
+        List<String> tmpSmilesList = new ArrayList<>(aMoleculeList.size());
+        for (IAtomContainer tmpMolecule : aMoleculeList) {
+            tmpSmilesList.add(aSmilesGenerator.create(tmpMolecule));
+        }
+        Collections.sort(tmpSmilesList);
+        return tmpSmilesList;
+    }
+
+    /**
+     * Generates the scaffolds of all modes and of a subset from one Murcko fragment and compares them with getScaffold().
+     * @throws Exception if anything goes wrong
+     */
+    @Test
+    public void getScaffoldsTest() throws Exception {
+        ScaffoldGenerator tmpScaffoldGenerator = this.getScaffoldGeneratorTestSettings();
+        SmilesGenerator tmpSmilesGenerator = tmpScaffoldGenerator.getSmilesGenerator();
+        for (IAtomContainer tmpMolecule : this.getTestMoleculeList("CCCC")) {
+            ScaffoldRepresentations tmpRepresentations = tmpScaffoldGenerator.getScaffolds(tmpMolecule, true,
+                    EnumSet.allOf(ScaffoldGenerator.ScaffoldModeOption.class));
+            Assertions.assertEquals(EnumSet.allOf(ScaffoldGenerator.ScaffoldModeOption.class), tmpRepresentations.getScaffoldModes());
+            for (ScaffoldGenerator.ScaffoldModeOption tmpMode : ScaffoldGenerator.ScaffoldModeOption.values()) {
+                tmpScaffoldGenerator.setScaffoldModeSetting(tmpMode);
+                String tmpExpectedKey = tmpSmilesGenerator.create(tmpScaffoldGenerator.getScaffold(tmpMolecule, true));
+                Assertions.assertEquals(tmpExpectedKey, tmpRepresentations.getKey(tmpMode));
+                Assertions.assertEquals(tmpExpectedKey, tmpSmilesGenerator.create(tmpRepresentations.getScaffold(tmpMode)));
+            }
+            tmpScaffoldGenerator.setScaffoldModeSetting(ScaffoldGenerator.ScaffoldModeOption.SCAFFOLD);
+            ScaffoldRepresentations tmpSubset = tmpScaffoldGenerator.getScaffolds(tmpMolecule, false,
+                    EnumSet.of(ScaffoldGenerator.ScaffoldModeOption.SCAFFOLD));
+            Assertions.assertEquals(1, tmpSubset.getScaffoldModes().size());
+            Assertions.assertNull(tmpSubset.getScaffold(ScaffoldGenerator.ScaffoldModeOption.MURCKO_FRAMEWORK));
+            Assertions.assertEquals(tmpSmilesGenerator.create(tmpScaffoldGenerator.getScaffold(tmpMolecule, false)),
+                    tmpSubset.getKey(ScaffoldGenerator.ScaffoldModeOption.SCAFFOLD));
+        }
+    }
+
+    /**
+     * Generates networks in four representations at once and checks the projections between them.
+     * The MURCKO_FRAMEWORK network is compared with a network generated in that mode.
+     * @throws Exception if anything goes wrong
+     */
+    @Test
+    public void multiRepresentationNetworkTest() throws Exception {
+        List<IAtomContainer> tmpMoleculeList = this.getTestMoleculeList("C1CCC(CC1)c2ccccc2");
+        ScaffoldGenerator tmpScaffoldGenerator = this.getScaffoldGeneratorTestSettings();
+        SmilesGenerator tmpSmilesGenerator = tmpScaffoldGenerator.getSmilesGenerator();
+        ScaffoldGenerator.ScaffoldModeOption tmpScaffoldMode = ScaffoldGenerator.ScaffoldModeOption.SCAFFOLD;
+        ScaffoldGenerator.ScaffoldModeOption tmpMurckoMode = ScaffoldGenerator.ScaffoldModeOption.MURCKO_FRAMEWORK;
+        ScaffoldGenerator.ScaffoldModeOption tmpBasicWireFrameMode = ScaffoldGenerator.ScaffoldModeOption.BASIC_WIRE_FRAME;
+        MultiRepresentationScaffoldNetwork tmpResult = tmpScaffoldGenerator.generateMultiRepresentationNetwork(tmpMoleculeList,
+                EnumSet.of(tmpScaffoldMode, tmpMurckoMode, ScaffoldGenerator.ScaffoldModeOption.ELEMENTAL_WIRE_FRAME, tmpBasicWireFrameMode));
+        Assertions.assertEquals(4, tmpResult.getScaffoldModes().size());
+        ScaffoldNetwork tmpExpectedNetwork = tmpScaffoldGenerator.generateScaffoldNetwork(tmpMoleculeList);
+        Assertions.assertEquals(tmpExpectedNetwork.getAllNodes().size(), tmpResult.getNetwork(tmpScaffoldMode).getAllNodes().size());
+        /*Each node is projected onto a node with at least its origins, also in two steps*/
+        for (ScaffoldNodeBase tmpNode : tmpResult.getNetwork(tmpScaffoldMode).getAllNodes()) {
+            ScaffoldNodeBase tmpMurckoNode = tmpResult.project(tmpNode, tmpScaffoldMode, tmpMurckoMode);
+            ScaffoldNodeBase tmpWireFrameNode = tmpResult.project(tmpNode, tmpScaffoldMode, tmpBasicWireFrameMode);
+            Assertions.assertNotNull(tmpMurckoNode);
+            Assertions.assertNotNull(tmpWireFrameNode);
+            Assertions.assertTrue(tmpMurckoNode.getOriginSmilesList().containsAll(tmpNode.getOriginSmilesList()));
+            Assertions.assertTrue(tmpWireFrameNode.getOriginSmilesList().containsAll(tmpNode.getOriginSmilesList()));
+            Assertions.assertSame(tmpWireFrameNode, tmpResult.project(tmpMurckoNode, tmpMurckoMode, tmpBasicWireFrameMode));
+        }
+        /*Each derived network contains the same scaffolds as one generated in that mode and no radicals*/
+        for (ScaffoldGenerator.ScaffoldModeOption tmpDerivedMode : EnumSet.of(tmpMurckoMode, ScaffoldGenerator.ScaffoldModeOption.ELEMENTAL_WIRE_FRAME,
+                tmpBasicWireFrameMode)) {
+            tmpScaffoldGenerator.setScaffoldModeSetting(tmpDerivedMode);
+            HashSet<String> tmpExpectedSmilesSet = new HashSet<>();
+            for (ScaffoldNodeBase tmpNode : tmpScaffoldGenerator.generateScaffoldNetwork(tmpMoleculeList).getAllNodes()) {
+                tmpExpectedSmilesSet.add(tmpSmilesGenerator.create((IAtomContainer) tmpNode.getMolecule()));
+            }
+            HashSet<String> tmpSmilesSet = new HashSet<>();
+            for (ScaffoldNodeBase tmpNode : tmpResult.getNetwork(tmpDerivedMode).getAllNodes()) {
+                IAtomContainer tmpNodeMolecule = (IAtomContainer) tmpNode.getMolecule();
+                Assertions.assertEquals(0, tmpNodeMolecule.getSingleElectronCount());
+                tmpSmilesSet.add(tmpSmilesGenerator.create(tmpNodeMolecule));
+            }
+            Assertions.assertEquals(tmpExpectedSmilesSet, tmpSmilesSet, tmpDerivedMode.toString());
+        }
+        /*BASIC_FRAMEWORK is only generated directly, from which BASIC_WIRE_FRAME is derived like in a direct build*/
+        Assertions.assertThrows(IllegalArgumentException.class, () -> tmpScaffoldGenerator.generateMultiRepresentationNetwork(tmpMoleculeList,
+                EnumSet.of(ScaffoldGenerator.ScaffoldModeOption.BASIC_FRAMEWORK)));
+        tmpScaffoldGenerator.setScaffoldModeSetting(ScaffoldGenerator.ScaffoldModeOption.BASIC_FRAMEWORK);
+        MultiRepresentationScaffoldNetwork tmpBasicResult = tmpScaffoldGenerator.generateMultiRepresentationNetwork(tmpMoleculeList,
+                EnumSet.of(ScaffoldGenerator.ScaffoldModeOption.BASIC_FRAMEWORK, tmpBasicWireFrameMode));
+        for (ScaffoldNodeBase tmpNode : tmpBasicResult.getNetwork(ScaffoldGenerator.ScaffoldModeOption.BASIC_FRAMEWORK).getAllNodes()) {
+            Assertions.assertEquals(0, ((IAtomContainer) tmpNode.getMolecule()).getSingleElectronCount());
+        }
+        Assertions.assertEquals(tmpResult.getNetwork(tmpBasicWireFrameMode).getAllNodes().size(),
+                tmpBasicResult.getNetwork(tmpBasicWireFrameMode).getAllNodes().size());
+        tmpScaffoldGenerator.setScaffoldModeSetting(tmpMurckoMode);
+        /*SCAFFOLD cannot be derived from MURCKO_FRAMEWORK*/
+        Assertions.assertThrows(IllegalArgumentException.class, () -> tmpScaffoldGenerator.generateMultiRepresentationNetwork(tmpMoleculeList,
+                EnumSet.of(tmpScaffoldMode)));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> tmpResult.getProjectionSmiles("c1ccccc1", tmpBasicWireFrameMode, tmpMurckoMode));
+    }
+
+    /**
+     * Tests the primitive atom number index used by the ring removal in place of repeated property look-ups.
+     * The numbers must still match after atoms have been removed from a cloned container.
+     * @throws Exception if anything goes wrong
+     */
+    @Test
+    public void atomNumberIndexTest() throws Exception {
+        //SMILES to IAtomContainer
+        SmilesParser tmpParser  = new SmilesParser(SilentChemObjectBuilder.getInstance());
+        IAtomContainer tmpMolecule = tmpParser.parseSmiles("c1ccc(cc1)CC2CCCC2");
+        /*Mark each atom with ascending number*/
+        int tmpCounter = 0;
+        for(IAtom tmpAtom : tmpMolecule.atoms()) {
+            tmpAtom.setProperty(ScaffoldGenerator.SCAFFOLD_ATOM_COUNTER_PROPERTY, tmpCounter);
+            tmpCounter++;
+        }
+        IAtomContainer tmpClone = tmpMolecule.clone();
+        //The clone keeps the atom order, so the numbers read from the original apply to it
+        int[] tmpCloneNumbers = ScaffoldGenerator.getAtomNumbers(tmpMolecule);
+        tmpClone.removeAtom(tmpClone.getAtom(0));
+        tmpClone.removeAtom(tmpClone.getAtom(6));
+        int[] tmpNumbers = ScaffoldGenerator.getAtomNumbers(tmpClone);
+        Assertions.assertArrayEquals(new int[] {1, 2, 3, 4, 5, 6, 8, 9, 10, 11}, tmpNumbers);
+        BitSet tmpRemovedNumbers = new BitSet();
+        tmpRemovedNumbers.set(0);
+        tmpRemovedNumbers.set(7);
+        Assertions.assertArrayEquals(tmpNumbers, ScaffoldGenerator.removeAtomNumbers(tmpCloneNumbers, tmpRemovedNumbers));
+        Assertions.assertSame(tmpNumbers, ScaffoldGenerator.removeAtomNumbers(tmpNumbers, new BitSet()));
+        BitSet tmpNumberSet = ScaffoldGenerator.getAtomNumberSet(tmpClone);
+        Assertions.assertEquals(10, tmpNumberSet.cardinality());
+        Assertions.assertFalse(tmpNumberSet.get(0));
+        Assertions.assertFalse(tmpNumberSet.get(7));
+        IAtom[] tmpAtomsByNumber = ScaffoldGenerator.getAtomsByNumber(tmpClone);
+        for(int tmpPosition = 0; tmpPosition < tmpNumbers.length; tmpPosition++) {
+            Assertions.assertSame(tmpClone.getAtom(tmpPosition), ScaffoldGenerator.getAtomByNumber(tmpAtomsByNumber, tmpNumbers[tmpPosition]));
+        }
+        Assertions.assertNull(ScaffoldGenerator.getAtomByNumber(tmpAtomsByNumber, 0));
+        Assertions.assertNull(ScaffoldGenerator.getAtomByNumber(tmpAtomsByNumber, 7));
+        Assertions.assertNull(ScaffoldGenerator.getAtomByNumber(tmpAtomsByNumber, 12));
+        Assertions.assertNull(ScaffoldGenerator.getAtomByNumber(tmpAtomsByNumber, -1));
+    }
+
+    /**
+     * Tests the substructure index over the nodes of a scaffold network.
+     * The screened and checked result must be the same as checking every node, sequentially and in parallel.
+     * @throws Exception if anything goes wrong
+     */
+    @Test
+    public void substructureIndexTest() throws Exception {
+        List<IAtomContainer> tmpMoleculeList = this.getTestMoleculeList("C1CCC2CCCCC2C1");
+        SmilesParser tmpParser  = new SmilesParser(SilentChemObjectBuilder.getInstance());
+        ScaffoldGenerator tmpScaffoldGenerator = this.getScaffoldGeneratorTestSettings();
+        ScaffoldNetwork tmpNetwork = tmpScaffoldGenerator.generateScaffoldNetwork(tmpMoleculeList);
+        ScaffoldSubstructureIndex tmpIndex = new ScaffoldSubstructureIndex(tmpNetwork);
+        Assertions.assertEquals(tmpNetwork.getAllNodes().size(), tmpIndex.size());
+        for (String tmpQuerySmiles : new String[] {"c1ccccc1", "C1CCNCC1", "c1ccncc1", "C1CCCCC1", "c1ccsc1"}) {
+            IAtomContainer tmpQuery = tmpParser.parseSmiles(tmpQuerySmiles);
+            /*Check every node without the index*/
+            IAtomContainer tmpPreparedQuery = tmpQuery.clone();
+            AtomContainerManipulator.percieveAtomTypesAndConfigureAtoms(tmpPreparedQuery);
+            Aromaticity.cdkLegacy().apply(tmpPreparedQuery);
+            List<Integer> tmpNumberList = tmpNetwork.getMatrixNodesNumbers();
+            Collections.sort(tmpNumberList);
+            List<ScaffoldNodeBase> tmpExpectedList = new ArrayList<>();
+            for (Integer tmpNumber : tmpNumberList) {
+                IAtomContainer tmpNodeMolecule = ((IAtomContainer) tmpNetwork.getMatrixNode(tmpNumber).getMolecule()).clone();
+                AtomContainerManipulator.percieveAtomTypesAndConfigureAtoms(tmpNodeMolecule);
+                Aromaticity.cdkLegacy().apply(tmpNodeMolecule);
+                if (new UniversalIsomorphismTester().isSubgraph(tmpNodeMolecule, tmpPreparedQuery)) {
+                    tmpExpectedList.add(tmpNetwork.getMatrixNode(tmpNumber));
+                }
+            }
+            List<ScaffoldNodeBase> tmpCandidateList = tmpIndex.getCandidateNodes(tmpQuery);
+            List<ScaffoldNodeBase> tmpMatchList = tmpIndex.getMatchingNodes(tmpQuery);
+            Assertions.assertTrue(tmpCandidateList.containsAll(tmpMatchList));
+            Assertions.assertEquals(tmpExpectedList, tmpMatchList);
+            Assertions.assertFalse(tmpMatchList.isEmpty());
+            Assertions.assertEquals(tmpMatchList, tmpIndex.getMatchingNodes(tmpQuery, new ForkJoinPool(2)));
+        }
+        /*The screening removes nodes that cannot contain the query*/
+        Assertions.assertTrue(tmpIndex.getCandidateNodes(tmpParser.parseSmiles("c1ccsc1")).size() < tmpIndex.size());
+    }
+
+    /**
+     * Tests the top-k and threshold queries of the similarity index over the nodes of a scaffold network.
+     * The results must be the same as comparing the query with every node.
+     * @throws Exception if anything goes wrong
+     */
+    @Test
+    public void similarityIndexTest() throws Exception {
+        List<IAtomContainer> tmpMoleculeList = this.getTestMoleculeList("C1CCC2CCCCC2C1");
+        SmilesParser tmpParser  = new SmilesParser(SilentChemObjectBuilder.getInstance());
+        ScaffoldGenerator tmpScaffoldGenerator = this.getScaffoldGeneratorTestSettings();
+        ScaffoldNetwork tmpNetwork = tmpScaffoldGenerator.generateScaffoldNetwork(tmpMoleculeList);
+        ScaffoldSimilarityIndex tmpIndex = new ScaffoldSimilarityIndex(tmpNetwork);
+        Assertions.assertEquals(tmpNetwork.getAllNodes().size(), tmpIndex.size());
+        Fingerprinter tmpFingerprinter = new Fingerprinter();
+        for (String tmpQuerySmiles : new String[] {"c1ccc(cc1)C2CCNCC2", "c1ccc2c(c1)cc[nH]2", "C1CCCCC1"}) {
+            IAtomContainer tmpQuery = tmpParser.parseSmiles(tmpQuerySmiles);
+            /*Compare the query with every node*/
+            BitSet tmpQueryFingerprint = tmpFingerprinter.getBitFingerprint(tmpQuery.clone()).asBitSet();
+            List<Integer> tmpNumberList = tmpNetwork.getMatrixNodesNumbers();
+            Collections.sort(tmpNumberList);
+            List<ScaffoldNodeBase> tmpExpectedList = new ArrayList<>(tmpNumberList.size());
+            Map<ScaffoldNodeBase, Double> tmpSimilarityMap = new HashMap<>();
+            for (Integer tmpNumber : tmpNumberList) {
+                ScaffoldNodeBase tmpNode = tmpNetwork.getMatrixNode(tmpNumber);
+                BitSet tmpNodeFingerprint = tmpFingerprinter.getBitFingerprint(((IAtomContainer) tmpNode.getMolecule()).clone()).asBitSet();
+                BitSet tmpCommon = (BitSet) tmpNodeFingerprint.clone();
+                tmpCommon.and(tmpQueryFingerprint);
+                double tmpSimilarity = (double) tmpCommon.cardinality()
+                        / (tmpNodeFingerprint.cardinality() + tmpQueryFingerprint.cardinality() - tmpCommon.cardinality());
+                tmpSimilarityMap.put(tmpNode, tmpSimilarity);
+                tmpExpectedList.add(tmpNode);
+            }
+            //Stable sort keeps the ascending matrix number for equal similarities
+            tmpExpectedList.sort((aNode1, aNode2) -> Double.compare(tmpSimilarityMap.get(aNode2), tmpSimilarityMap.get(aNode1)));
+            for (int tmpK : new int[] {1, 3, tmpIndex.size() + 1}) {
+                List<ScaffoldSimilarityIndex.SimilarityHit> tmpHitList = tmpIndex.getMostSimilarNodes(tmpQuery, tmpK);
+                Assertions.assertEquals(Math.min(tmpK, tmpIndex.size()), tmpHitList.size());
+                for (int tmpPosition = 0; tmpPosition < tmpHitList.size(); tmpPosition++) {
+                    Assertions.assertSame(tmpExpectedList.get(tmpPosition), tmpHitList.get(tmpPosition).getNode());
+                    Assertions.assertEquals(tmpSimilarityMap.get(tmpExpectedList.get(tmpPosition)), tmpHitList.get(tmpPosition).getSimilarity(), 1e-12);
+                }
+            }
+            for (double tmpThreshold : new double[] {0.0, 0.5, 0.8, 1.0}) {
+                List<ScaffoldSimilarityIndex.SimilarityHit> tmpHitList = tmpIndex.getSimilarNodes(tmpQuery, tmpThreshold);
+                List<ScaffoldNodeBase> tmpThresholdList = new ArrayList<>();
+                for (ScaffoldNodeBase tmpNode : tmpExpectedList) {
+                    if (tmpSimilarityMap.get(tmpNode) >= tmpThreshold) {
+                        tmpThresholdList.add(tmpNode);
+                    }
+                }
+                Assertions.assertEquals(tmpThresholdList.size(), tmpHitList.size());
+                for (int tmpPosition = 0; tmpPosition < tmpHitList.size(); tmpPosition++) {
+                    Assertions.assertSame(tmpThresholdList.get(tmpPosition), tmpHitList.get(tmpPosition).getNode());
+                }
+            }
+            //The query is part of the network
+            Assertions.assertEquals(1.0, tmpIndex.getMostSimilarNodes(tmpQuery, 1).get(0).getSimilarity(), 1e-12);
+        }
+    }
+
+    /**
+     * Tests the inverted index between origin molecules and nodes of a scaffold network in both directions.
+     * The lookups must give the same result as scanning the origins of every node,
+     * also after molecules have been added to and removed from the network.
+     * @throws Exception if anything goes wrong
+     */
+    @Test
+    public void originIndexTest() throws Exception {
+        List<IAtomContainer> tmpMoleculeList = this.getTestMoleculeList("C1CCC2CCCCC2C1");
+        ScaffoldGenerator tmpScaffoldGenerator = this.getScaffoldGeneratorTestSettings();
+        ScaffoldNetwork tmpNetwork = tmpScaffoldGenerator.generateScaffoldNetwork(tmpMoleculeList.subList(0, tmpMoleculeList.size() - 1));
+        ScaffoldOriginIndex tmpIndex = tmpNetwork.getOriginIndex();
+        Assertions.assertSame(tmpIndex, tmpNetwork.getOriginIndex());
+        Assertions.assertEquals(tmpMoleculeList.size() - 1, tmpIndex.getMoleculeCount());
+        for (int tmpId = 0; tmpId < tmpIndex.getMoleculeCount(); tmpId++) {
+            Assertions.assertEquals(tmpId, tmpIndex.getMoleculeId(tmpIndex.getOriginSmiles(tmpId)));
+        }
+        this.checkOriginIndex(tmpNetwork, tmpIndex);
+        /*The index is updated by the merge*/
+        tmpScaffoldGenerator.addToScaffoldNetwork(tmpNetwork, tmpMoleculeList.subList(tmpMoleculeList.size() - 1, tmpMoleculeList.size()));
+        Assertions.assertEquals(tmpMoleculeList.size(), tmpIndex.getMoleculeCount());
+        this.checkOriginIndex(tmpNetwork, tmpIndex);
+        /*The index is updated by the removal, the removed molecule loses its id*/
+        String tmpRemovedOrigin = tmpScaffoldGenerator.getSmilesGenerator().create(tmpMoleculeList.get(0));
+        int tmpRemovedId = tmpIndex.getMoleculeId(tmpRemovedOrigin);
+        Assertions.assertTrue(tmpRemovedId >= 0);
+        tmpScaffoldGenerator.removeMolecule(tmpNetwork, tmpMoleculeList.get(0));
+        Assertions.assertEquals(-1, tmpIndex.getMoleculeId(tmpRemovedOrigin));
+        Assertions.assertEquals(0, tmpIndex.getNodeNumbers(tmpRemovedId).length);
+        this.checkOriginIndex(tmpNetwork, tmpIndex);
+        Assertions.assertEquals(-1, tmpIndex.getMoleculeId("CCCC"));
+        Assertions.assertTrue(tmpIndex.getNodes("CCCC").isEmpty());
+        Assertions.assertThrows(IllegalArgumentException.class, () -> tmpIndex.getMoleculeIds(-1));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> tmpIndex.getNodeNumbers(tmpIndex.getMoleculeCount()));
+        /*The compression keeps large gaps*/
+        int[] tmpNumbers = new int[] {0, 1, 127, 128, 16384, 300000, Integer.MAX_VALUE};
+        Assertions.assertArrayEquals(tmpNumbers, ScaffoldOriginIndex.decode(ScaffoldOriginIndex.encode(tmpNumbers, tmpNumbers.length), tmpNumbers.length));
+        /*Postings that are changed in place match the encoded ones*/
+        ScaffoldOriginIndex.Postings tmpPostings = new ScaffoldOriginIndex.Postings();
+        for (int tmpNumber : new int[] {300000, 1, 127, Integer.MAX_VALUE, 0, 16384, 128, 127, 5}) {
+            tmpPostings.add(tmpNumber);
+        }
+        Assertions.assertTrue(tmpPostings.remove(5));
+        Assertions.assertFalse(tmpPostings.remove(5));
+        Assertions.assertArrayEquals(tmpNumbers, tmpPostings.toArray());
+    }
+
+    /**
+     * Compares the lookups of an origin index in both directions with a scan of the origins of all nodes of the collection.
+     * @param aCollection Indexed collection
+     * @param anIndex Index of the collection
+     */
+    private void checkOriginIndex(ScaffoldNodeCollectionBase aCollection, ScaffoldOriginIndex anIndex) {
+        List<Integer> tmpNumberList = aCollection.getMatrixNodesNumbers();
+        Collections.sort(tmpNumberList);
+        /*Node to molecules*/
+        HashSet<String> tmpOriginSet = new HashSet<>();
+        for (Integer tmpNumber : tmpNumberList) {
+            ScaffoldNodeBase tmpNode = aCollection.getMatrixNode(tmpNumber);
+            Assertions.assertEquals(new HashSet<String>(tmpNode.getOriginSmilesList()), new HashSet<>(anIndex.getOriginSmilesList(tmpNumber)));
+            Assertions.assertEquals(tmpNode.getOriginSmilesList().size(), anIndex.getMoleculeIds(tmpNumber).length);
+            tmpOriginSet.addAll(tmpNode.getOriginSmilesList());
+        }
+        /*Molecule to nodes*/
+        for (String tmpOrigin : tmpOriginSet) {
+            List<ScaffoldNodeBase> tmpExpectedList = new ArrayList<>();
+            for (Integer tmpNumber : tmpNumberList) {
+                if (aCollection.getMatrixNode(tmpNumber).getOriginSmilesList().contains(tmpOrigin)) {
+                    tmpExpectedList.add(aCollection.getMatrixNode(tmpNumber));
+                }
+            }
+            Assertions.assertEquals(tmpExpectedList, anIndex.getNodes(tmpOrigin));
+        }
+    }
+
     /**
      * Loads a mol file of a specific path and returns it as IAtomContainer.
      * Supports V2000 and V3000 mol files.
@@ -2146,6 +3685,27 @@ public class ScaffoldGeneratorTest extends ScaffoldGenerator {
         return tmpMolecule;
     }
 
+    /**
+     * Parses four drug-like molecules with fused, linked and hetero ring systems, followed by the given molecules.
+     *
+     * @param anAdditionalSmilesArray SMILES of the molecules added after the drug-like ones
+     * @return parsed molecules in the given order
+     * @throws Exception if anything goes wrong
+     */
+    protected List<IAtomContainer> getTestMoleculeList(String... anAdditionalSmilesArray) throws Exception {
+        //SMILES to IAtomContainer
+        SmilesParser tmpParser  = new SmilesParser(SilentChemObjectBuilder.getInstance());
+        List<IAtomContainer> tmpMoleculeList = new ArrayList<>();
+        for (String tmpSmiles : new String[] {"CC1=C(C(=NO1)C2=C(C=CC=C2Cl)F)C(=O)NC3C4N(C3=O)C(C(S4)(C)C)C(=O)O",
+                "c1ccc(cc1)C2CCN(CC2)Cc3ccncc3", "O=C(NC1=CC=CC=C1)C2=CC=CS2", "c1ccc2c(c1)cc[nH]2"}) {
+            tmpMoleculeList.add(tmpParser.parseSmiles(tmpSmiles));
+        }
+        for (String tmpSmiles : anAdditionalSmilesArray) {
+            tmpMoleculeList.add(tmpParser.parseSmiles(tmpSmiles));
+        }
+        return tmpMoleculeList;
+    }
+
     /**
      * Returns a ScaffoldGenerator Object with test settings corresponding to the default settings
      *